@@ -0,0 +1,69 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The fields shared by encryption and decryption events.
+ *
+ * Phase times are zero unless the operation was selected by the cipher's
+ * phase sampler.
+ */
+@Category("Lockbox")
+@StackTrace(false)
+public abstract class CipherEvent extends Event
+{
+    @Label("Key Size")
+    @DataAmount(DataAmount.BITS)
+    int keySize;
+
+    @Label("Key Fingerprint")
+    String keyFingerprint;
+
+    @Label("Plaintext Size")
+    @DataAmount
+    int plaintextSize;
+
+    @Label("Ciphertext Size")
+    @DataAmount
+    int ciphertextSize;
+
+    @Label("Elapsed")
+    @Timespan
+    long elapsed;
+
+    @Label("Codec Time")
+    @Timespan
+    long codecTime;
+
+    @Label("RSA Time")
+    @Timespan
+    long rsaTime;
+
+    @Label("AES Time")
+    @Timespan
+    long aesTime;
+
+    @Label("Digest Time")
+    @Timespan
+    long digestTime;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Failure Cause")
+    String failureCause;
+}
@@ -0,0 +1,26 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a single decryption.
+ *
+ * The plaintext size of a failed decryption is always zero.
+ */
+@Name("co.lqnt.lockbox.Decrypt")
+@Label("Lockbox Decrypt")
+@Description("Decryption of a data packet")
+public class DecryptEvent extends CipherEvent
+{
+}
@@ -0,0 +1,24 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a single encryption.
+ */
+@Name("co.lqnt.lockbox.Encrypt")
+@Label("Lockbox Encrypt")
+@Description("Encryption of a data packet")
+public class EncryptEvent extends CipherEvent
+{
+}
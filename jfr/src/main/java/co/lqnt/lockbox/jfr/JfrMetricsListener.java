@@ -0,0 +1,357 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.key.KeyInterface;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import co.lqnt.lockbox.metrics.FailureCause;
+import co.lqnt.lockbox.metrics.KeyMetricsListenerInterface;
+import co.lqnt.lockbox.metrics.MetricsListenerInterface;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseAccumulator;
+import co.lqnt.lockbox.metrics.PhaseListenerInterface;
+import jdk.jfr.EventType;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A metrics listener that emits Java Flight Recorder events.
+ *
+ * The listener only reports itself as enabled while a recording has at least
+ * one Lockbox event enabled, so otherwise ciphers and key factories skip
+ * timing and callbacks entirely. Each event type is also checked before its
+ * event is built. Phase timings reported by a phase sampler are held for the
+ * current thread, and attached to the next encryption or decryption event it
+ * emits.
+ *
+ * Events are committed after the operation completes, so their duration is
+ * zero, and the time taken is carried by the elapsed field instead.
+ */
+public class JfrMetricsListener implements
+    MetricsListenerInterface,
+    PhaseListenerInterface,
+    KeyMetricsListenerInterface
+{
+    /**
+     * Construct a new flight recorder metrics listener.
+     */
+    public JfrMetricsListener()
+    {
+        this.phases = new PhaseAccumulator();
+    }
+
+    /**
+     * Returns true if the listener records anything.
+     *
+     * This is true while any recording has a Lockbox event enabled.
+     *
+     * @return True if the listener is enabled.
+     */
+    public boolean isEnabled()
+    {
+        return JfrMetricsListener.ENCRYPT.isEnabled() ||
+            JfrMetricsListener.DECRYPT.isEnabled() ||
+            JfrMetricsListener.KEY_LOAD.isEnabled() ||
+            JfrMetricsListener.KEY_GENERATION.isEnabled();
+    }
+
+    /**
+     * Called after data is encrypted.
+     *
+     * @param key             The key.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param ciphertextBytes The number of ciphertext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void encrypted(
+        final KeyInterface key,
+        final int plaintextBytes,
+        final int ciphertextBytes,
+        final long nanoseconds
+    ) {
+        this.commitEncryption(
+            key,
+            plaintextBytes,
+            ciphertextBytes,
+            nanoseconds,
+            null
+        );
+    }
+
+    /**
+     * Called after data is decrypted.
+     *
+     * @param key             The key.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param plaintextBytes  The number of plaintext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void decrypted(
+        final KeyInterface key,
+        final int ciphertextBytes,
+        final int plaintextBytes,
+        final long nanoseconds
+    ) {
+        this.commitDecryption(
+            key,
+            ciphertextBytes,
+            plaintextBytes,
+            nanoseconds,
+            null,
+            null
+        );
+    }
+
+    /**
+     * Called after encryption fails.
+     *
+     * @param key         The key.
+     * @param exception   The exception that caused the failure.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionFailed(
+        final KeyInterface key,
+        final Exception exception,
+        final long nanoseconds
+    )
+    {
+        this.commitEncryption(key, 0, 0, nanoseconds, exception);
+    }
+
+    /**
+     * Called after decryption fails.
+     *
+     * @param key         The key.
+     * @param reason      The reason for the failure, or null if the
+     *     decryption failed with an unexpected exception.
+     * @param cause       The underlying cause of the failure, or null.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionFailed(
+        final KeyInterface key,
+        final DecryptionFailureReason reason,
+        final Throwable cause,
+        final long nanoseconds
+    )
+    {
+        this.commitDecryption(key, 0, 0, nanoseconds, reason, cause);
+    }
+
+    /**
+     * Called after a phase of an encryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        if (JfrMetricsListener.ENCRYPT.isEnabled()) {
+            this.phases.encryptionPhase(phase, nanoseconds);
+        }
+    }
+
+    /**
+     * Called after a phase of a decryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        if (JfrMetricsListener.DECRYPT.isEnabled()) {
+            this.phases.decryptionPhase(phase, nanoseconds);
+        }
+    }
+
+    /**
+     * Called after a private key is loaded.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoaded(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+        this.commitKeyLoad(key, true, nanoseconds);
+    }
+
+    /**
+     * Called after loading a private key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoadFailed(final long nanoseconds)
+    {
+        this.commitKeyLoad(null, true, nanoseconds);
+    }
+
+    /**
+     * Called after a public key is loaded.
+     *
+     * @param key         The public key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoaded(
+        final PublicKeyInterface key,
+        final long nanoseconds
+    ) {
+        this.commitKeyLoad(key, false, nanoseconds);
+    }
+
+    /**
+     * Called after loading a public key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoadFailed(final long nanoseconds)
+    {
+        this.commitKeyLoad(null, false, nanoseconds);
+    }
+
+    /**
+     * Called after a private key is generated.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyGenerated(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+        if (!JfrMetricsListener.KEY_GENERATION.isEnabled()) {
+            return;
+        }
+
+        KeyGenerationEvent event = new KeyGenerationEvent();
+        event.keySize = key.size();
+        event.keyFingerprint = Hex.toHexString(key.fingerprint());
+        event.elapsed = nanoseconds;
+        event.commit();
+    }
+
+    /**
+     * Emit an encryption event, if enabled.
+     *
+     * @param key             The key.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param nanoseconds     The time taken in nanoseconds.
+     * @param exception       The exception that caused the encryption to
+     *     fail, or null if it succeeded.
+     */
+    protected void commitEncryption(
+        final KeyInterface key,
+        final int plaintextBytes,
+        final int ciphertextBytes,
+        final long nanoseconds,
+        final Exception exception
+    ) {
+        if (!JfrMetricsListener.ENCRYPT.isEnabled()) {
+            return;
+        }
+
+        EncryptEvent event = new EncryptEvent();
+        event.keySize = key.size();
+        event.keyFingerprint = Hex.toHexString(key.fingerprint());
+        event.plaintextSize = plaintextBytes;
+        event.ciphertextSize = ciphertextBytes;
+        event.elapsed = nanoseconds;
+        event.codecTime = this.phases.encryptionNanoseconds(Phase.CODEC);
+        event.rsaTime = this.phases.encryptionNanoseconds(Phase.RSA);
+        event.aesTime = this.phases.encryptionNanoseconds(Phase.AES);
+        event.digestTime = this.phases.encryptionNanoseconds(Phase.DIGEST);
+        event.succeeded = null == exception;
+        if (null != exception) {
+            event.failureCause = FailureCause.name(null, exception);
+        }
+        this.phases.reset();
+        event.commit();
+    }
+
+    /**
+     * Emit a decryption event, if enabled.
+     *
+     * @param key             The key.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param nanoseconds     The time taken in nanoseconds.
+     * @param reason          The reason the decryption failed, or null.
+     * @param cause           The underlying cause of the failure, or null.
+     */
+    protected void commitDecryption(
+        final KeyInterface key,
+        final int ciphertextBytes,
+        final int plaintextBytes,
+        final long nanoseconds,
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        if (!JfrMetricsListener.DECRYPT.isEnabled()) {
+            return;
+        }
+
+        DecryptEvent event = new DecryptEvent();
+        event.keySize = key.size();
+        event.keyFingerprint = Hex.toHexString(key.fingerprint());
+        event.plaintextSize = plaintextBytes;
+        event.ciphertextSize = ciphertextBytes;
+        event.elapsed = nanoseconds;
+        event.codecTime = this.phases.decryptionNanoseconds(Phase.CODEC);
+        event.rsaTime = this.phases.decryptionNanoseconds(Phase.RSA);
+        event.aesTime = this.phases.decryptionNanoseconds(Phase.AES);
+        event.digestTime = this.phases.decryptionNanoseconds(Phase.DIGEST);
+        event.succeeded = null == reason && null == cause;
+        if (!event.succeeded) {
+            event.failureCause = FailureCause.name(reason, cause);
+        }
+        this.phases.reset();
+        event.commit();
+    }
+
+    /**
+     * Emit a key load event, if enabled.
+     *
+     * @param key         The key, or null if loading failed.
+     * @param privateKey  True if a private key was loaded.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    protected void commitKeyLoad(
+        final KeyInterface key,
+        final boolean privateKey,
+        final long nanoseconds
+    ) {
+        if (!JfrMetricsListener.KEY_LOAD.isEnabled()) {
+            return;
+        }
+
+        KeyLoadEvent event = new KeyLoadEvent();
+        event.privateKey = privateKey;
+        if (null != key) {
+            event.keySize = key.size();
+            event.keyFingerprint = Hex.toHexString(key.fingerprint());
+        }
+        event.elapsed = nanoseconds;
+        event.succeeded = null != key;
+        event.commit();
+    }
+
+    private static final EventType ENCRYPT =
+        EventType.getEventType(EncryptEvent.class);
+    private static final EventType DECRYPT =
+        EventType.getEventType(DecryptEvent.class);
+    private static final EventType KEY_LOAD =
+        EventType.getEventType(KeyLoadEvent.class);
+    private static final EventType KEY_GENERATION =
+        EventType.getEventType(KeyGenerationEvent.class);
+
+    private PhaseAccumulator phases;
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A flight recorder event for a key generated by a key factory.
+ */
+@Name("co.lqnt.lockbox.KeyGeneration")
+@Label("Lockbox Key Generation")
+@Description("Generation of a private key")
+@Category("Lockbox")
+@StackTrace(false)
+public class KeyGenerationEvent extends Event
+{
+    @Label("Key Size")
+    @DataAmount(DataAmount.BITS)
+    int keySize;
+
+    @Label("Key Fingerprint")
+    String keyFingerprint;
+
+    @Label("Elapsed")
+    @Timespan
+    long elapsed;
+}
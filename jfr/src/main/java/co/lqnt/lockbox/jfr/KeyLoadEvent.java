@@ -0,0 +1,50 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A flight recorder event for a key loaded by a key factory.
+ *
+ * The key size and fingerprint of a failed load are not known, and are left
+ * empty.
+ */
+@Name("co.lqnt.lockbox.KeyLoad")
+@Label("Lockbox Key Load")
+@Description("Loading of a private or public key")
+@Category("Lockbox")
+@StackTrace(false)
+public class KeyLoadEvent extends Event
+{
+    @Label("Private Key")
+    boolean privateKey;
+
+    @Label("Key Size")
+    @DataAmount(DataAmount.BITS)
+    int keySize;
+
+    @Label("Key Fingerprint")
+    String keyFingerprint;
+
+    @Label("Elapsed")
+    @Timespan
+    long elapsed;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
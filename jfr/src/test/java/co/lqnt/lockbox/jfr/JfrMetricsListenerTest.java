@@ -0,0 +1,245 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.jfr;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseSampler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.util.encoders.Hex;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JfrMetricsListenerTest
+{
+    @BeforeMethod
+    public void setUp()
+    {
+        this.listener = new JfrMetricsListener();
+        this.key = new KeyFactory().generatePrivateKey(1024);
+
+        this.recording = new Recording();
+        this.recording.enable("co.lqnt.lockbox.Encrypt");
+        this.recording.enable("co.lqnt.lockbox.Decrypt");
+        this.recording.enable("co.lqnt.lockbox.KeyLoad");
+        this.recording.enable("co.lqnt.lockbox.KeyGeneration");
+        this.recorded = null;
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.recording.close();
+    }
+
+    @Test
+    public void testIsEnabled()
+    {
+        Assert.assertFalse(this.listener.isEnabled());
+
+        this.recording.start();
+
+        Assert.assertTrue(this.listener.isEnabled());
+
+        this.recording.stop();
+
+        Assert.assertFalse(this.listener.isEnabled());
+    }
+
+    @Test
+    public void testIsEnabledSingleEvent()
+    {
+        this.recording.close();
+        this.recording = new Recording();
+        this.recording.enable("co.lqnt.lockbox.KeyLoad");
+        this.recording.start();
+
+        Assert.assertTrue(this.listener.isEnabled());
+    }
+
+    @Test
+    public void testDisabledCiphers() throws Throwable
+    {
+        EncryptionCipher encryptionCipher = new EncryptionCipher(this.listener, new PhaseSampler(this.listener));
+        byte[] encrypted = encryptionCipher.encrypt(this.key, new byte[100]);
+        new DecryptionCipher(this.listener).decrypt(this.key, encrypted);
+        this.recording.start();
+        this.listener.encrypted(this.key, 100, 200, 1000L);
+
+        List<RecordedEvent> events = this.events("co.lqnt.lockbox.Encrypt");
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getLong("rsaTime"), 0L);
+        Assert.assertTrue(this.events("co.lqnt.lockbox.Decrypt").isEmpty());
+    }
+
+    @Test
+    public void testEncryptDecrypt() throws Throwable
+    {
+        this.recording.start();
+        EncryptionCipher encryptionCipher = new EncryptionCipher(this.listener, new PhaseSampler(this.listener));
+        DecryptionCipher decryptionCipher = new DecryptionCipher(this.listener, new PhaseSampler(this.listener));
+        byte[] encrypted = encryptionCipher.encrypt(this.key, new byte[100]);
+        decryptionCipher.decrypt(this.key, encrypted);
+
+        List<RecordedEvent> encryptEvents = this.events("co.lqnt.lockbox.Encrypt");
+        List<RecordedEvent> decryptEvents = this.events("co.lqnt.lockbox.Decrypt");
+        Assert.assertEquals(encryptEvents.size(), 1);
+        Assert.assertEquals(decryptEvents.size(), 1);
+        for (RecordedEvent event : new RecordedEvent[] {encryptEvents.get(0), decryptEvents.get(0)}) {
+            Assert.assertEquals(event.getInt("keySize"), 1024);
+            Assert.assertEquals(event.getString("keyFingerprint"), Hex.toHexString(this.key.fingerprint()));
+            Assert.assertEquals(event.getInt("plaintextSize"), 100);
+            Assert.assertEquals(event.getInt("ciphertextSize"), encrypted.length);
+            Assert.assertTrue(event.getLong("elapsed") > 0L);
+            Assert.assertTrue(event.getLong("rsaTime") > 0L);
+            Assert.assertTrue(event.getLong("aesTime") > 0L);
+            Assert.assertTrue(event.getBoolean("succeeded"));
+            Assert.assertNull(event.getString("failureCause"));
+        }
+    }
+
+    @Test
+    public void testPhasesAttachedAndReset() throws Throwable
+    {
+        this.recording.start();
+        this.listener.encryptionPhase(Phase.RSA, 1000L);
+        this.listener.encryptionPhase(Phase.RSA, 500L);
+        this.listener.decryptionPhase(Phase.AES, 2000L);
+        this.listener.encrypted(this.key, 100, 200, 5000L);
+        this.listener.encrypted(this.key, 100, 200, 5000L);
+        Thread thread = new Thread() {
+            public void run()
+            {
+                JfrMetricsListenerTest.this.listener.decryptionPhase(Phase.DIGEST, 3000L);
+            }
+        };
+        thread.start();
+        thread.join();
+        this.listener.decrypted(this.key, 200, 100, 5000L);
+
+        List<RecordedEvent> encryptEvents = this.events("co.lqnt.lockbox.Encrypt");
+        List<RecordedEvent> decryptEvents = this.events("co.lqnt.lockbox.Decrypt");
+        Assert.assertEquals(encryptEvents.size(), 2);
+        Assert.assertEquals(encryptEvents.get(0).getLong("rsaTime"), 1500L);
+        Assert.assertEquals(encryptEvents.get(1).getLong("rsaTime"), 0L);
+        Assert.assertEquals(decryptEvents.size(), 1);
+        Assert.assertEquals(decryptEvents.get(0).getLong("aesTime"), 0L);
+        Assert.assertEquals(decryptEvents.get(0).getLong("digestTime"), 0L);
+        Assert.assertEquals(decryptEvents.get(0).getLong("elapsed"), 5000L);
+    }
+
+    @Test
+    public void testFailureCause() throws Throwable
+    {
+        this.recording.start();
+        this.listener.encryptionFailed(this.key, new RuntimeException(new InvalidCipherTextException()), 5L);
+        this.listener.decryptionFailed(this.key, DecryptionFailureReason.BAD_PADDING, new InvalidCipherTextException(), 5L);
+        this.listener.decryptionFailed(this.key, null, new RuntimeException(new DecryptionFailedException(new IllegalStateException())), 5L);
+        this.listener.decryptionFailed(this.key, null, new IllegalArgumentException(), 5L);
+
+        List<RecordedEvent> encryptEvents = this.events("co.lqnt.lockbox.Encrypt");
+        List<RecordedEvent> decryptEvents = this.events("co.lqnt.lockbox.Decrypt");
+        Assert.assertEquals(encryptEvents.size(), 1);
+        Assert.assertFalse(encryptEvents.get(0).getBoolean("succeeded"));
+        Assert.assertEquals(encryptEvents.get(0).getString("failureCause"), "InvalidCipherTextException");
+        Assert.assertEquals(decryptEvents.size(), 3);
+        Assert.assertEquals(decryptEvents.get(0).getString("failureCause"), "BAD_PADDING");
+        Assert.assertEquals(decryptEvents.get(1).getString("failureCause"), "IllegalStateException");
+        Assert.assertEquals(decryptEvents.get(2).getString("failureCause"), "IllegalArgumentException");
+        for (RecordedEvent event : decryptEvents) {
+            Assert.assertFalse(event.getBoolean("succeeded"));
+            Assert.assertEquals(event.getInt("plaintextSize"), 0);
+        }
+    }
+
+    @Test
+    public void testKeyLoad() throws Throwable
+    {
+        this.recording.start();
+        KeyFactory keyFactory = new KeyFactory(this.listener);
+        keyFactory.createPrivateKey(this.key.toPem());
+        keyFactory.createPublicKey(this.key.publicKey().toPem());
+        try {
+            keyFactory.createPrivateKey("invalid");
+            Assert.fail();
+        } catch (PrivateKeyReadException e) {
+        }
+
+        List<RecordedEvent> events = this.events("co.lqnt.lockbox.KeyLoad");
+        Assert.assertEquals(events.size(), 3);
+        Assert.assertTrue(events.get(0).getBoolean("privateKey"));
+        Assert.assertTrue(events.get(0).getBoolean("succeeded"));
+        Assert.assertEquals(events.get(0).getInt("keySize"), 1024);
+        Assert.assertEquals(events.get(0).getString("keyFingerprint"), Hex.toHexString(this.key.fingerprint()));
+        Assert.assertFalse(events.get(1).getBoolean("privateKey"));
+        Assert.assertTrue(events.get(1).getBoolean("succeeded"));
+        Assert.assertEquals(events.get(1).getString("keyFingerprint"), Hex.toHexString(this.key.fingerprint()));
+        Assert.assertTrue(events.get(2).getBoolean("privateKey"));
+        Assert.assertFalse(events.get(2).getBoolean("succeeded"));
+        Assert.assertEquals(events.get(2).getInt("keySize"), 0);
+        Assert.assertNull(events.get(2).getString("keyFingerprint"));
+    }
+
+    @Test
+    public void testKeyGeneration() throws Throwable
+    {
+        this.recording.start();
+        PrivateKey key = new KeyFactory(this.listener).generatePrivateKey(512);
+
+        List<RecordedEvent> events = this.events("co.lqnt.lockbox.KeyGeneration");
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getInt("keySize"), 512);
+        Assert.assertEquals(events.get(0).getString("keyFingerprint"), Hex.toHexString(key.fingerprint()));
+        Assert.assertTrue(events.get(0).getLong("elapsed") > 0L);
+    }
+
+    protected List<RecordedEvent> events(String name) throws Throwable
+    {
+        if (null == this.recorded) {
+            this.recording.stop();
+            Path file = Files.createTempFile("lockbox", ".jfr");
+            try {
+                this.recording.dump(file);
+                this.recorded = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : this.recorded) {
+            if (event.getEventType().getName().equals(name)) {
+                events.add(event);
+            }
+        }
+
+        return events;
+    }
+
+    private JfrMetricsListener listener;
+    private PrivateKey key;
+    private Recording recording;
+    private List<RecordedEvent> recorded;
+}
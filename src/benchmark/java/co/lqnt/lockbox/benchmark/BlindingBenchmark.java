@@ -0,0 +1,119 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.DecryptionCipherInterface;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.rsa.BlindingFactorGenerator;
+import co.lqnt.lockbox.rsa.BlindingFactorPool;
+import java.util.Arrays;
+
+/**
+ * Compares decryption latency with and without RSA blinding.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=co.lqnt.lockbox.benchmark.BlindingBenchmark \
+ *     -Dexec.args="2000"
+ * </pre>
+ */
+public class BlindingBenchmark
+{
+    public static void main(String[] arguments) throws Throwable
+    {
+        int iterations = 2000;
+        if (arguments.length > 0) {
+            iterations = Integer.parseInt(arguments[0]);
+        }
+
+        for (int bits : new int[] {2048, 4096}) {
+            new BlindingBenchmark(bits, iterations).run();
+        }
+    }
+
+    public BlindingBenchmark(int bits, int iterations) throws Throwable
+    {
+        this.bits = bits;
+        this.iterations = iterations;
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream(
+                String.format("pem/rsa-%d-nopass.private.pem", bits)
+            )
+        );
+        this.encrypted = new EncryptionCipher().encrypt(this.key, "foobar");
+    }
+
+    public void run() throws Throwable
+    {
+        BlindingFactorPool pool = new BlindingFactorPool(this.iterations);
+        pool.prepare(this.key);
+        while (pool.size(this.key.modulus()) < this.iterations) {
+            Thread.sleep(10);
+        }
+
+        this.report("unblinded", new DecryptionCipher());
+        this.report(
+            "blinded, inline",
+            new DecryptionCipher(new BlindingFactorGenerator())
+        );
+        this.report("blinded, pooled", new DecryptionCipher(pool));
+
+        System.out.println(
+            String.format(
+                "  pool hits: %d, misses: %d",
+                pool.hits(),
+                pool.misses()
+            )
+        );
+        pool.shutdown();
+    }
+
+    protected void report(String name, DecryptionCipherInterface cipher)
+        throws Throwable
+    {
+        for (int i = 0; i < 200; ++i) {
+            cipher.decrypt(this.key, this.encrypted);
+        }
+
+        long[] samples = new long[this.iterations];
+        for (int i = 0; i < this.iterations; ++i) {
+            long start = System.nanoTime();
+            cipher.decrypt(this.key, this.encrypted);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+
+        System.out.println(
+            String.format(
+                "%d-bit %-16s mean %8.1f us, p50 %8.1f us, p99 %8.1f us",
+                this.bits,
+                name,
+                total / (double) samples.length / 1000.0,
+                samples[samples.length / 2] / 1000.0,
+                samples[(int) (samples.length * 0.99)] / 1000.0
+            )
+        );
+    }
+
+    private int bits;
+    private int iterations;
+    private PrivateKey key;
+    private String encrypted;
+}
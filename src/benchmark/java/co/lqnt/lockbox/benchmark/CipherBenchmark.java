@@ -0,0 +1,79 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures encryption and decryption throughput with a 2048-bit key.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="CipherBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CipherBenchmark
+{
+    @Param({"1024", "1048576"})
+    public int size;
+
+    @Setup
+    public void setUp() throws Throwable
+    {
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream(
+                "pem/rsa-2048-nopass.private.pem"
+            )
+        );
+        this.encryptionCipher = new EncryptionCipher();
+        this.decryptionCipher = new DecryptionCipher();
+
+        this.data = new byte[this.size];
+        new Random(0).nextBytes(this.data);
+        this.encrypted = this.encryptionCipher.encrypt(this.key, this.data);
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+    {
+        return this.encryptionCipher.encrypt(this.key, this.data);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Throwable
+    {
+        return this.decryptionCipher.decrypt(this.key, this.encrypted);
+    }
+
+    private PrivateKey key;
+    private EncryptionCipher encryptionCipher;
+    private DecryptionCipher decryptionCipher;
+    private byte[] data;
+    private byte[] encrypted;
+}
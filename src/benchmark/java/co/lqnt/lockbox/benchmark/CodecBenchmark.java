@@ -0,0 +1,68 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures URI-safe Base64 encoding and decoding throughput.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="CodecBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CodecBenchmark
+{
+    @Param({"1024", "1048576"})
+    public int size;
+
+    @Setup
+    public void setUp()
+    {
+        this.codec = new Base64UriCodec();
+
+        this.data = new byte[this.size];
+        new Random(0).nextBytes(this.data);
+        this.encoded = this.codec.encode(this.data);
+    }
+
+    @Benchmark
+    public byte[] encode()
+    {
+        return this.codec.encode(this.data);
+    }
+
+    @Benchmark
+    public byte[] decode() throws Throwable
+    {
+        return this.codec.decode(this.encoded);
+    }
+
+    private Base64UriCodec codec;
+    private byte[] data;
+    private byte[] encoded;
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.util.PemWriterFactory;
+import co.lqnt.lockbox.util.StringWriterFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures conversion of private keys to PEM and to JCE keys.
+ *
+ * The memoised PEM export is measured alongside a fresh export, so that the
+ * cost of the first call is visible separately from the cached one.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="KeyExportBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KeyExportBenchmark
+{
+    @Param({"2048", "4096"})
+    public int bits;
+
+    @Setup
+    public void setUp() throws Throwable
+    {
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream(
+                String.format("pem/rsa-%d-nopass.private.pem", this.bits)
+            )
+        );
+        this.stringWriterFactory = new StringWriterFactory();
+        this.pemWriterFactory = new PemWriterFactory();
+        this.key.toPem();
+    }
+
+    @Benchmark
+    public String toPem()
+    {
+        return this.key.toPem();
+    }
+
+    @Benchmark
+    public String toPemUncached()
+    {
+        return this.key.toPem(this.stringWriterFactory, this.pemWriterFactory);
+    }
+
+    @Benchmark
+    public String toEncryptedPem()
+    {
+        return this.key.toPem("password");
+    }
+
+    @Benchmark
+    public java.security.PrivateKey jcePrivateKey()
+    {
+        return this.key.jcePrivateKey();
+    }
+
+    private PrivateKey key;
+    private StringWriterFactory stringWriterFactory;
+    private PemWriterFactory pemWriterFactory;
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.rsa.ParallelRsaKeyPairGenerator;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares key generation time with sequential and parallel prime search.
+ *
+ * Generation time varies widely with the primes found, so individual
+ * generations are sampled, and reported as percentiles. Allocation reported
+ * by the GC profiler only covers the benchmark thread, and so excludes the
+ * prime search done by the parallel generator's worker threads.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="KeyGenerationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class KeyGenerationBenchmark
+{
+    @Param({"1024", "2048", "4096"})
+    public int bits;
+
+    @Param({"sequential", "parallel"})
+    public String generator;
+
+    @Setup
+    public void setUp()
+    {
+        if ("parallel".equals(this.generator)) {
+            this.parallelGenerator = new ParallelRsaKeyPairGenerator();
+            this.keyFactory = new KeyFactory(this.parallelGenerator);
+        } else {
+            this.keyFactory = new KeyFactory(new RSAKeyPairGenerator());
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (null != this.parallelGenerator) {
+            this.parallelGenerator.shutdown();
+        }
+    }
+
+    @Benchmark
+    public PrivateKey generatePrivateKey()
+    {
+        return this.keyFactory.generatePrivateKey(this.bits);
+    }
+
+    private KeyFactory keyFactory;
+    private ParallelRsaKeyPairGenerator parallelGenerator;
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.key.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures parsing of 2048-bit PEM and PKCS #8 keys, with and without a
+ * password.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="KeyParsingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KeyParsingBenchmark
+{
+    @Setup
+    public void setUp() throws Throwable
+    {
+        this.keyFactory = new KeyFactory();
+        this.privatePem = this.read("pem/rsa-2048-nopass.private.pem");
+        this.encryptedPrivatePem = this.read("pem/rsa-2048.private.pem");
+        this.pkcs8PrivatePem =
+            this.read("pem/rsa-2048-pkcs8-nopass.private.pem");
+        this.encryptedPkcs8PrivatePem =
+            this.read("pem/rsa-2048-pkcs8.private.pem");
+        this.publicPem = this.read("pem/rsa-2048-nopass.public.pem");
+    }
+
+    @Benchmark
+    public PrivateKey parsePrivateKey() throws Throwable
+    {
+        return this.keyFactory.createPrivateKey(this.privatePem);
+    }
+
+    @Benchmark
+    public PrivateKey parseEncryptedPrivateKey() throws Throwable
+    {
+        return this.keyFactory.createPrivateKey(
+            this.encryptedPrivatePem,
+            "password"
+        );
+    }
+
+    @Benchmark
+    public PrivateKey parsePkcs8PrivateKey() throws Throwable
+    {
+        return this.keyFactory.createPrivateKey(this.pkcs8PrivatePem);
+    }
+
+    @Benchmark
+    public PrivateKey parseEncryptedPkcs8PrivateKey() throws Throwable
+    {
+        return this.keyFactory.createPrivateKey(
+            this.encryptedPkcs8PrivatePem,
+            "password"
+        );
+    }
+
+    @Benchmark
+    public PublicKey parsePublicKey() throws Throwable
+    {
+        return this.keyFactory.createPublicKey(this.publicPem);
+    }
+
+    protected byte[] read(String path) throws Throwable
+    {
+        InputStream stream =
+            this.getClass().getClassLoader().getResourceAsStream(path);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int length;
+        while ((length = stream.read(chunk)) > 0) {
+            buffer.write(chunk, 0, length);
+        }
+        stream.close();
+
+        return buffer.toByteArray();
+    }
+
+    private KeyFactory keyFactory;
+    private byte[] privatePem;
+    private byte[] encryptedPrivatePem;
+    private byte[] pkcs8PrivatePem;
+    private byte[] encryptedPkcs8PrivatePem;
+    private byte[] publicPem;
+}
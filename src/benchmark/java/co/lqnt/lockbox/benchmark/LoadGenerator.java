@@ -0,0 +1,519 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.Cipher;
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.metrics.InMemoryMetricsListener;
+import co.lqnt.lockbox.metrics.LatencyHistogram;
+import co.lqnt.lockbox.metrics.StripedCounter;
+import co.lqnt.lockbox.rsa.BlindedRsaEngine;
+import co.lqnt.lockbox.rsa.BlindingFactorPool;
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.encodings.OAEPEncoding;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+
+/**
+ * Drives ciphers from many threads for a sustained period, and reports
+ * throughput, latency and garbage collection over time.
+ *
+ * Each thread has its own cipher, since ciphers are not thread safe. Every
+ * operation picks a key, a payload size and a direction at random, according
+ * to the configured distributions. Statistics are printed once per interval,
+ * and cover that interval only. Each interval is the difference between two
+ * snapshots of the running totals, so that no operation is lost between
+ * reading and resetting them.
+ *
+ * Options, all optional:
+ *
+ * <pre>
+ * --threads=N          worker threads (default: available processors)
+ * --duration=SECONDS   how long to run (default: 60)
+ * --interval=SECONDS   how often to report (default: 10)
+ * --key-sizes=BITS,... key sizes to use, equally weighted (default: 2048)
+ * --payloads=BYTES[:WEIGHT],...
+ *                      payload size distribution, weights default to 1
+ *                      (default: 1024)
+ * --decrypt-ratio=R    proportion of operations that decrypt (default: 0.5)
+ * --blinding=N         blind decryption, with a shared pool of N factors
+ * </pre>
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=co.lqnt.lockbox.benchmark.LoadGenerator \
+ *     -Dexec.args="--threads=8 --duration=3600 --payloads=1024:90,1048576:10"
+ * </pre>
+ */
+public class LoadGenerator
+{
+    public static void main(String[] arguments) throws Throwable
+    {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String argument : arguments) {
+            if (!argument.startsWith("--") || !argument.contains("=")) {
+                throw new IllegalArgumentException(
+                    "Unexpected argument: " + argument
+                );
+            }
+
+            int separator = argument.indexOf('=');
+            options.put(
+                argument.substring(2, separator),
+                argument.substring(separator + 1)
+            );
+        }
+
+        new LoadGenerator(options).run();
+    }
+
+    public LoadGenerator(Map<String, String> options) throws Throwable
+    {
+        this.threads = Integer.parseInt(
+            this.option(
+                options,
+                "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())
+            )
+        );
+        this.duration =
+            Long.parseLong(this.option(options, "duration", "60")) * 1000L;
+        this.interval =
+            Long.parseLong(this.option(options, "interval", "10")) * 1000L;
+        this.decryptRatio = Double.parseDouble(
+            this.option(options, "decrypt-ratio", "0.5")
+        );
+        this.blinding =
+            Integer.parseInt(this.option(options, "blinding", "0"));
+
+        String[] keySizes =
+            this.option(options, "key-sizes", "2048").split(",");
+        this.keys = new ArrayList<PrivateKey>();
+        for (String bits : keySizes) {
+            this.keys.add(this.key(Integer.parseInt(bits.trim())));
+        }
+
+        String[] payloads =
+            this.option(options, "payloads", "1024").split(",");
+        this.payloads = new byte[payloads.length][];
+        this.payloadWeights = new double[payloads.length];
+        Random random = new Random(0);
+        double totalWeight = 0.0;
+        for (int i = 0; i < payloads.length; ++i) {
+            String[] parts = payloads[i].split(":");
+            this.payloads[i] = new byte[Integer.parseInt(parts[0].trim())];
+            random.nextBytes(this.payloads[i]);
+
+            if (parts.length > 1) {
+                totalWeight += Double.parseDouble(parts[1].trim());
+            } else {
+                totalWeight += 1.0;
+            }
+            this.payloadWeights[i] = totalWeight;
+        }
+        for (int i = 0; i < this.payloadWeights.length; ++i) {
+            this.payloadWeights[i] /= totalWeight;
+        }
+
+        this.metricsListener = new InMemoryMetricsListener();
+        this.operations = new StripedCounter();
+        this.bytes = new StripedCounter();
+    }
+
+    public void run() throws Throwable
+    {
+        BlindingFactorPool pool = null;
+        if (this.blinding > 0) {
+            pool = new BlindingFactorPool(this.blinding);
+            for (PrivateKey key : this.keys) {
+                pool.prepare(key);
+            }
+        }
+
+        System.out.println(
+            String.format(
+                "%d threads, %d s, key sizes %s, %d payload sizes, "
+                + "decrypt ratio %.2f, blinding %s",
+                this.threads,
+                this.duration / 1000L,
+                this.keySizes(),
+                this.payloads.length,
+                this.decryptRatio,
+                null == pool ? "off" : "pool of " + this.blinding
+            )
+        );
+        System.out.println(
+            String.format(
+                "%8s %10s %10s %10s %10s %10s %10s %10s %6s %8s %8s %8s",
+                "time s",
+                "enc/s",
+                "dec/s",
+                "MB/s",
+                "enc p50",
+                "enc p99",
+                "dec p50",
+                "dec p99",
+                "fail",
+                "gc",
+                "gc ms",
+                "heap MB"
+            )
+        );
+
+        CountDownLatch ready = new CountDownLatch(this.threads);
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < this.threads; ++i) {
+            Thread worker = new Thread(
+                new Worker(this.cipher(pool), i, ready),
+                "lockbox-load-" + i
+            );
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        long deadline = System.currentTimeMillis() + this.duration;
+        this.deadline = deadline;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        ready.await();
+
+        long start = System.currentTimeMillis();
+        long collections = this.collections();
+        long collectionTime = this.collectionTime();
+        Totals first = new Totals();
+        Totals previous = first;
+
+        long last = start;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(
+                Math.max(
+                    1L,
+                    Math.min(
+                        this.interval - (System.currentTimeMillis() - last),
+                        deadline - System.currentTimeMillis()
+                    )
+                )
+            );
+
+            long now = System.currentTimeMillis();
+            if (now - last < this.interval && now < deadline) {
+                continue;
+            }
+
+            Totals current = new Totals();
+            long nowCollections = this.collections();
+            long nowCollectionTime = this.collectionTime();
+
+            this.report(
+                (now - start) / 1000.0,
+                (now - last) / 1000.0,
+                previous,
+                current,
+                nowCollections - collections,
+                nowCollectionTime - collectionTime
+            );
+
+            previous = current;
+            collections = nowCollections;
+            collectionTime = nowCollectionTime;
+            last = now;
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (null != pool) {
+            System.out.println(
+                String.format(
+                    "blinding pool hits: %d, misses: %d",
+                    pool.hits(),
+                    pool.misses()
+                )
+            );
+            pool.shutdown();
+        }
+
+        Totals total = new Totals();
+        long totalOperations = total.operations - first.operations;
+        long totalBytes = total.bytes - first.bytes;
+        double seconds = (System.currentTimeMillis() - start) / 1000.0;
+        System.out.println(
+            String.format(
+                "total: %d operations, %.1f ops/s, %.1f MB/s",
+                totalOperations,
+                totalOperations / seconds,
+                totalBytes / seconds / 1048576.0
+            )
+        );
+    }
+
+    protected void report(
+        double time,
+        double seconds,
+        Totals previous,
+        Totals current,
+        long collections,
+        long collectionTime
+    ) {
+        LatencyHistogram encryption =
+            current.encryptionLatency.since(previous.encryptionLatency);
+        LatencyHistogram decryption =
+            current.decryptionLatency.since(previous.decryptionLatency);
+        long encryptions = current.encryptions - previous.encryptions;
+        long decryptions = current.decryptions - previous.decryptions;
+        long failures = current.failures - previous.failures;
+        long bytes = current.bytes - previous.bytes;
+        long encryptionP50 = encryption.percentile(50.0);
+        long encryptionP99 = encryption.percentile(99.0);
+        long decryptionP50 = decryption.percentile(50.0);
+        long decryptionP99 = decryption.percentile(99.0);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println(
+            String.format(
+                "%8.0f %10.1f %10.1f %10.2f %10.3f %10.3f %10.3f %10.3f "
+                + "%6d %8d %8d %8d",
+                time,
+                encryptions / seconds,
+                decryptions / seconds,
+                bytes / seconds / 1048576.0,
+                encryptionP50 / 1000000.0,
+                encryptionP99 / 1000000.0,
+                decryptionP50 / 1000000.0,
+                decryptionP99 / 1000000.0,
+                failures,
+                collections,
+                collectionTime,
+                (runtime.totalMemory() - runtime.freeMemory()) / 1048576L
+            )
+        );
+    }
+
+    protected Cipher cipher(BlindingFactorPool pool)
+    {
+        EncryptionCipher encryptionCipher =
+            new EncryptionCipher(this.metricsListener);
+        if (null == pool) {
+            return new Cipher(
+                encryptionCipher,
+                new DecryptionCipher(this.metricsListener)
+            );
+        }
+
+        return new Cipher(
+            encryptionCipher,
+            new DecryptionCipher(
+                new Base64UriCodec(),
+                new OAEPEncoding(new BlindedRsaEngine(pool), new SHA1Digest()),
+                new PaddedBufferedBlockCipher(
+                    new CBCBlockCipher(new AESEngine()),
+                    new PKCS7Padding()
+                ),
+                new SHA1Digest(),
+                this.metricsListener
+            )
+        );
+    }
+
+    protected PrivateKey key(int bits) throws Throwable
+    {
+        InputStream stream = this.getClass().getClassLoader()
+            .getResourceAsStream(
+                String.format("pem/rsa-%d-nopass.private.pem", bits)
+            );
+        if (null == stream) {
+            return new KeyFactory().generatePrivateKey(bits);
+        }
+
+        return new KeyFactory().createPrivateKey(stream);
+    }
+
+    protected String keySizes()
+    {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (PrivateKey key : this.keys) {
+            sizes.add(key.size());
+        }
+
+        return sizes.toString();
+    }
+
+    protected long collections()
+    {
+        long collections = 0L;
+        for (
+            GarbageCollectorMXBean collector :
+                ManagementFactory.getGarbageCollectorMXBeans()
+        ) {
+            collections += Math.max(0L, collector.getCollectionCount());
+        }
+
+        return collections;
+    }
+
+    protected long collectionTime()
+    {
+        long time = 0L;
+        for (
+            GarbageCollectorMXBean collector :
+                ManagementFactory.getGarbageCollectorMXBeans()
+        ) {
+            time += Math.max(0L, collector.getCollectionTime());
+        }
+
+        return time;
+    }
+
+    protected String option(
+        Map<String, String> options,
+        String name,
+        String defaultValue
+    ) {
+        String value = options.get(name);
+        if (null == value) {
+            return defaultValue;
+        }
+
+        return value;
+    }
+
+    protected class Worker implements Runnable
+    {
+        public Worker(Cipher cipher, int seed, CountDownLatch ready)
+        {
+            this.cipher = cipher;
+            this.random = new Random(seed);
+            this.ready = ready;
+
+            this.encrypted = new byte[LoadGenerator.this.keys.size()][][];
+            for (int i = 0; i < this.encrypted.length; ++i) {
+                this.encrypted[i] =
+                    new byte[LoadGenerator.this.payloads.length][];
+                for (int j = 0; j < this.encrypted[i].length; ++j) {
+                    this.encrypted[i][j] = cipher.encrypt(
+                        LoadGenerator.this.keys.get(i),
+                        LoadGenerator.this.payloads[j]
+                    );
+                }
+            }
+        }
+
+        public void run()
+        {
+            this.ready.countDown();
+
+            while (System.currentTimeMillis() < LoadGenerator.this.deadline) {
+                int key = this.random.nextInt(this.encrypted.length);
+                int payload = this.payload();
+
+                try {
+                    if (
+                        this.random.nextDouble() <
+                        LoadGenerator.this.decryptRatio
+                    ) {
+                        this.cipher.decrypt(
+                            LoadGenerator.this.keys.get(key),
+                            this.encrypted[key][payload]
+                        );
+                    } else {
+                        this.cipher.encrypt(
+                            LoadGenerator.this.keys.get(key),
+                            LoadGenerator.this.payloads[payload]
+                        );
+                    }
+                } catch (Exception e) {
+                    continue;
+                }
+
+                LoadGenerator.this.operations.increment();
+                LoadGenerator.this.bytes.add(
+                    LoadGenerator.this.payloads[payload].length
+                );
+            }
+        }
+
+        protected int payload()
+        {
+            double value = this.random.nextDouble();
+            double[] weights = LoadGenerator.this.payloadWeights;
+            for (int i = 0; i < weights.length - 1; ++i) {
+                if (value < weights[i]) {
+                    return i;
+                }
+            }
+
+            return weights.length - 1;
+        }
+
+        private Cipher cipher;
+        private Random random;
+        private CountDownLatch ready;
+        private byte[][][] encrypted;
+    }
+
+    protected class Totals
+    {
+        public Totals()
+        {
+            InMemoryMetricsListener metricsListener =
+                LoadGenerator.this.metricsListener;
+
+            this.encryptionLatency =
+                metricsListener.encryptionLatency().snapshot();
+            this.decryptionLatency =
+                metricsListener.decryptionLatency().snapshot();
+            this.encryptions = metricsListener.encryptions();
+            this.decryptions = metricsListener.decryptions();
+            this.failures = metricsListener.encryptionFailures() +
+                metricsListener.decryptionFailures();
+            this.operations = LoadGenerator.this.operations.sum();
+            this.bytes = LoadGenerator.this.bytes.sum();
+        }
+
+        private LatencyHistogram encryptionLatency;
+        private LatencyHistogram decryptionLatency;
+        private long encryptions;
+        private long decryptions;
+        private long failures;
+        private long operations;
+        private long bytes;
+    }
+
+    private int threads;
+    private long duration;
+    private long interval;
+    private double decryptRatio;
+    private int blinding;
+    private List<PrivateKey> keys;
+    private byte[][] payloads;
+    private double[] payloadWeights;
+    private InMemoryMetricsListener metricsListener;
+    private StripedCounter operations;
+    private StripedCounter bytes;
+    private volatile long deadline;
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.util.ProviderRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+
+/**
+ * Compares the cost of per-call Bouncy Castle providers against the shared
+ * provider registry.
+ *
+ * Run in a fresh JVM, so that the cold-start figures are meaningful:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath co.lqnt.lockbox.benchmark.ProviderBenchmark"
+ * </pre>
+ */
+public class ProviderBenchmark
+{
+    public static void main(String[] arguments) throws Throwable
+    {
+        int iterations = 200;
+        if (arguments.length > 0) {
+            iterations = Integer.parseInt(arguments[0]);
+        }
+
+        long start = System.nanoTime();
+        ProviderRegistry.bouncyCastleProvider();
+        System.out.println(
+            String.format(
+                "cold start, shared provider:     %8.2f ms",
+                (System.nanoTime() - start) / 1000000.0
+            )
+        );
+
+        start = System.nanoTime();
+        new KeyFactory();
+        System.out.println(
+            String.format(
+                "cold start, first key factory:   %8.2f ms",
+                (System.nanoTime() - start) / 1000000.0
+            )
+        );
+
+        PrivateKey key = new KeyFactory().createPrivateKey(
+            ProviderBenchmark.class.getClassLoader().getResourceAsStream(
+                "pem/rsa-2048-nopass.private.pem"
+            )
+        );
+
+        for (int i = 0; i < 20; ++i) {
+            ProviderBenchmark.perCallProvider(key);
+            key.jcePrivateKey();
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            ProviderBenchmark.perCallProvider(key);
+        }
+        System.out.println(
+            String.format(
+                "jcePrivateKey, per-call provider: %8.1f us/op",
+                (System.nanoTime() - start) / 1000.0 / iterations
+            )
+        );
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            key.jcePrivateKey();
+        }
+        System.out.println(
+            String.format(
+                "jcePrivateKey, shared provider:   %8.1f us/op",
+                (System.nanoTime() - start) / 1000.0 / iterations
+            )
+        );
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            new BouncyCastleProvider();
+        }
+        System.out.println(
+            String.format(
+                "new BouncyCastleProvider():       %8.1f us/op",
+                (System.nanoTime() - start) / 1000.0 / iterations
+            )
+        );
+    }
+
+    protected static java.security.PrivateKey perCallProvider(PrivateKey key)
+    {
+        JcaPEMKeyConverter keyConverter = new JcaPEMKeyConverter();
+        keyConverter.setProvider(new BouncyCastleProvider());
+
+        return key.jcePrivateKey(keyConverter);
+    }
+}
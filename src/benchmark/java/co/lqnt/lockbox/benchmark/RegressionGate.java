@@ -0,0 +1,334 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs a fixed set of benchmarks, and fails if any has regressed against the
+ * committed baseline.
+ *
+ * A benchmark regresses if its throughput score falls below the baseline
+ * score by more than the throughput tolerance, or if the bytes it allocates
+ * per operation rise above the baseline by more than the allocation
+ * tolerance. A baseline is only trusted if its 99.9% confidence interval is
+ * narrower than the throughput tolerance. Noisier baselines fail the gate,
+ * and are refused when recorded. Benchmarks without a baseline are reported,
+ * but never fail. A baselined benchmark missing from the results fails the
+ * gate, so that renaming a benchmark cannot silently disable its check.
+ *
+ * Each benchmark runs in 5 forks of 20 measurement iterations, so that the
+ * baselines have a confidence interval well inside the default tolerance.
+ * The forks do not inherit the gate's own JVM arguments, and the path of the
+ * JVM is dropped from recorded baselines, so that no machine-local paths are
+ * committed.
+ *
+ * Baselines are only comparable on the machine that recorded them. After an
+ * intended change, or on a new machine, record new baselines with
+ * -Dlockbox.regression.update=true and commit the result.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark,regression verify \
+ *     -Dlockbox.regression.throughputTolerance=0.2 \
+ *     -Dlockbox.regression.allocationTolerance=0.1
+ * </pre>
+ */
+public class RegressionGate
+{
+    public static void main(String[] arguments) throws Throwable
+    {
+        RegressionGate gate = new RegressionGate(
+            new File(
+                System.getProperty(
+                    "lockbox.regression.baseline",
+                    "src/benchmark/baseline/regression.json"
+                )
+            ),
+            new File(
+                System.getProperty(
+                    "lockbox.regression.result",
+                    "target/regression.json"
+                )
+            ),
+            Double.parseDouble(
+                System.getProperty(
+                    "lockbox.regression.throughputTolerance",
+                    "0.2"
+                )
+            ),
+            Double.parseDouble(
+                System.getProperty(
+                    "lockbox.regression.allocationTolerance",
+                    "0.1"
+                )
+            )
+        );
+
+        gate.benchmark();
+
+        boolean passed;
+        if (Boolean.getBoolean("lockbox.regression.update")) {
+            passed = gate.updateBaseline();
+        } else {
+            passed = gate.compare();
+        }
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    public RegressionGate(
+        File baseline,
+        File result,
+        double throughputTolerance,
+        double allocationTolerance
+    ) {
+        this.baseline = baseline;
+        this.result = result;
+        this.throughputTolerance = throughputTolerance;
+        this.allocationTolerance = allocationTolerance;
+    }
+
+    public void benchmark() throws Throwable
+    {
+        this.result.getAbsoluteFile().getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder()
+            .include(RegressionGate.BENCHMARKS)
+            .forks(5)
+            .jvmArgs()
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(2))
+            .measurementIterations(20)
+            .measurementTime(TimeValue.seconds(1))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(this.result.getPath())
+            .build();
+
+        new Runner(options).run();
+    }
+
+    public boolean updateBaseline() throws Throwable
+    {
+        boolean passed = true;
+        Map<String, JsonObject> results = this.read(this.result);
+        for (Map.Entry<String, JsonObject> entry : results.entrySet()) {
+            if (this.error(entry.getValue()) > this.throughputTolerance) {
+                this.reportNoisy(entry.getKey(), entry.getValue());
+                passed = false;
+            }
+        }
+        if (!passed) {
+            System.out.println("Baseline not updated.");
+
+            return false;
+        }
+
+        JsonArray entries = this.readArray(this.result);
+        for (JsonElement entry : entries) {
+            entry.getAsJsonObject().remove("jvm");
+        }
+
+        this.baseline.getAbsoluteFile().getParentFile().mkdirs();
+
+        Writer writer = new OutputStreamWriter(
+            new FileOutputStream(this.baseline),
+            Charset.forName("UTF-8")
+        );
+        try {
+            new GsonBuilder().setPrettyPrinting().create()
+                .toJson(entries, writer);
+            writer.write("\n");
+        } finally {
+            writer.close();
+        }
+
+        System.out.println("Baseline updated: " + this.baseline);
+
+        return true;
+    }
+
+    public boolean compare() throws Throwable
+    {
+        Map<String, JsonObject> baselines = this.read(this.baseline);
+        Map<String, JsonObject> results = this.read(this.result);
+
+        boolean passed = true;
+        for (String name : baselines.keySet()) {
+            if (!results.containsKey(name)) {
+                System.out.println(
+                    String.format("%-60s missing from results", name)
+                );
+                passed = false;
+            }
+        }
+
+        for (Map.Entry<String, JsonObject> entry : results.entrySet()) {
+            JsonObject baseline = baselines.get(entry.getKey());
+            if (null == baseline) {
+                System.out.println(
+                    String.format("%-60s no baseline", entry.getKey())
+                );
+
+                continue;
+            }
+            if (this.error(baseline) > this.throughputTolerance) {
+                this.reportNoisy(entry.getKey(), baseline);
+                passed = false;
+
+                continue;
+            }
+
+            double throughput = this.throughput(entry.getValue());
+            double minimumThroughput =
+                this.throughput(baseline) * (1.0 - this.throughputTolerance);
+            double allocation = this.allocation(entry.getValue());
+            double maximumAllocation =
+                this.allocation(baseline) * (1.0 + this.allocationTolerance);
+
+            boolean regressed = false;
+            if (throughput < minimumThroughput) {
+                regressed = true;
+            }
+            if (allocation > maximumAllocation) {
+                regressed = true;
+            }
+
+            System.out.println(
+                String.format(
+                    "%-60s %12.1f ops/s +/-%3.0f%% (min %12.1f) "
+                    + "%12.0f B/op (max %12.0f)%s",
+                    entry.getKey(),
+                    throughput,
+                    this.error(entry.getValue()) * 100.0,
+                    minimumThroughput,
+                    allocation,
+                    maximumAllocation,
+                    regressed ? "  REGRESSED" : ""
+                )
+            );
+
+            if (regressed) {
+                passed = false;
+            }
+        }
+
+        return passed;
+    }
+
+    protected Map<String, JsonObject> read(File file) throws Throwable
+    {
+        Map<String, JsonObject> entries =
+            new LinkedHashMap<String, JsonObject>();
+        for (JsonElement element : this.readArray(file)) {
+            JsonObject entry = element.getAsJsonObject();
+            String name = entry.get("benchmark").getAsString()
+                .replace("co.lqnt.lockbox.benchmark.", "");
+            if (entry.has("params")) {
+                name += " " + entry.get("params").toString();
+            }
+
+            entries.put(name, entry);
+        }
+
+        return entries;
+    }
+
+    protected JsonArray readArray(File file) throws Throwable
+    {
+        Reader reader = new InputStreamReader(
+            new FileInputStream(file),
+            Charset.forName("UTF-8")
+        );
+        try {
+            return JsonParser.parseReader(reader).getAsJsonArray();
+        } finally {
+            reader.close();
+        }
+    }
+
+    protected void reportNoisy(String name, JsonObject entry)
+    {
+        System.out.println(
+            String.format(
+                "%-60s baseline error +/-%.0f%% exceeds the tolerance of "
+                + "%.0f%%",
+                name,
+                this.error(entry) * 100.0,
+                this.throughputTolerance * 100.0
+            )
+        );
+    }
+
+    protected double throughput(JsonObject entry)
+    {
+        return entry.getAsJsonObject("primaryMetric").get("score")
+            .getAsDouble();
+    }
+
+    protected double error(JsonObject entry)
+    {
+        JsonObject metric = entry.getAsJsonObject("primaryMetric");
+        double score = metric.get("score").getAsDouble();
+        double error = metric.get("scoreError").getAsDouble();
+        if (Double.isNaN(error) || score <= 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return error / score;
+    }
+
+    protected double allocation(JsonObject entry)
+    {
+        JsonObject metrics = entry.getAsJsonObject("secondaryMetrics");
+        for (Map.Entry<String, JsonElement> metric : metrics.entrySet()) {
+            if (metric.getKey().endsWith("gc.alloc.rate.norm")) {
+                return metric.getValue().getAsJsonObject().get("score")
+                    .getAsDouble();
+            }
+        }
+
+        return 0.0;
+    }
+
+    private static final String BENCHMARKS =
+        "co\\.lqnt\\.lockbox\\.benchmark\\."
+        + "(CipherBenchmark\\.|CodecBenchmark\\.|"
+        + "KeyParsingBenchmark\\.parse(Private|Public)Key$)";
+
+    private File baseline;
+    private File result;
+    private double throughputTolerance;
+    private double allocationTolerance;
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.benchmark;
+
+import co.lqnt.lockbox.RewrapTool;
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Rewraps a file of encrypted data from one key to another, from the command
+ * line.
+ *
+ * With --password, the old private key is encrypted. Its password is read
+ * from the LOCKBOX_PASSWORD environment variable if set, otherwise from the
+ * console, otherwise from the first line of standard input. It is never
+ * accepted as an argument, where it would be visible to other processes and
+ * recorded in shell history.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java \
+ *     -Dexec.mainClass=co.lqnt.lockbox.benchmark.RewrapCommand \
+ *     -Dexec.args="old.private.pem new.public.pem input output --password"
+ * </pre>
+ */
+public class RewrapCommand
+{
+    public static void main(String[] arguments) throws Throwable
+    {
+        boolean encrypted =
+            5 == arguments.length && "--password".equals(arguments[4]);
+        if (arguments.length != 4 && !encrypted) {
+            System.err.println(
+                "Usage: RewrapCommand <old private key> <new public key> " +
+                "<input> <output> [--password]"
+            );
+            System.exit(1);
+        }
+
+        KeyFactory factory = new KeyFactory();
+        PrivateKeyInterface oldKey;
+        if (encrypted) {
+            oldKey = factory.createPrivateKey(
+                new File(arguments[0]),
+                RewrapCommand.password()
+            );
+        } else {
+            oldKey = factory.createPrivateKey(new File(arguments[0]));
+        }
+        PublicKeyInterface newKey =
+            factory.createPublicKey(new File(arguments[1]));
+
+        long count;
+        try {
+            count = new RewrapTool(oldKey, newKey)
+                .rewrap(new File(arguments[2]), new File(arguments[3]));
+        } catch (DecryptionFailedException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+
+            return;
+        }
+
+        System.out.println(String.format("Rewrapped %d packets.", count));
+    }
+
+    protected static String password() throws IOException
+    {
+        String password = System.getenv("LOCKBOX_PASSWORD");
+        if (null != password) {
+            return password;
+        }
+
+        Console console = System.console();
+        if (null != console) {
+            char[] characters =
+                console.readPassword("Password for the old private key: ");
+            if (null != characters) {
+                return new String(characters);
+            }
+        }
+
+        password = new BufferedReader(new InputStreamReader(System.in))
+            .readLine();
+        if (null == password) {
+            throw new IOException("No password was supplied.");
+        }
+
+        return password;
+    }
+}
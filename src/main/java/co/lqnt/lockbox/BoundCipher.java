@@ -142,6 +142,18 @@ public class BoundCipher implements BoundCipherInterface
         return this.decryptionCipher().decrypt(this.privateKey(), data);
     }
 
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(final byte[] data)
+    {
+        return this.decryptionCipher().tryDecrypt(this.privateKey(), data);
+    }
+
     /**
      * Decrypt a data packet.
      *
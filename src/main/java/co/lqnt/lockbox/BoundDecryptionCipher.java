@@ -73,6 +73,18 @@ public class BoundDecryptionCipher implements BoundDecryptionCipherInterface
         return this.cipher().decrypt(this.key(), data);
     }
 
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(final byte[] data)
+    {
+        return this.cipher().tryDecrypt(this.key(), data);
+    }
+
     /**
      * Decrypt a data packet.
      *
@@ -25,6 +25,15 @@ public interface BoundDecryptionCipherInterface
      */
     public byte[] decrypt(final byte[] data) throws DecryptionFailedException;
 
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(final byte[] data);
+
     /**
      * Decrypt a data packet.
      *
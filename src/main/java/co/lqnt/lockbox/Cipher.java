@@ -28,6 +28,9 @@ import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
 
 /**
  * The standard Lockbox bi-directional cipher.
+ *
+ * Instances are not thread safe. See the {@link co.lqnt.lockbox package
+ * documentation} for the thread safety contract shared by all ciphers.
  */
 public class Cipher implements CipherInterface
 {
@@ -164,6 +167,21 @@ public class Cipher implements CipherInterface
         return this.decryptionCipher().decrypt(key, data);
     }
 
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param key  They key to decrypt with.
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(
+        final PrivateKeyInterface key,
+        final byte[] data
+    ) {
+        return this.decryptionCipher().tryDecrypt(key, data);
+    }
+
     /**
      * Decrypt a data packet.
      *
@@ -14,6 +14,12 @@ import co.lqnt.lockbox.util.codec.CodecInterface;
 import co.lqnt.lockbox.util.codec.exception.DecodingFailedException;
 import co.lqnt.lockbox.exception.DecryptionFailedException;
 import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.metrics.MetricsListenerInterface;
+import co.lqnt.lockbox.metrics.NullMetricsListener;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseSampler;
+import co.lqnt.lockbox.rsa.BlindedRsaEngine;
+import co.lqnt.lockbox.rsa.BlindingFactorSourceInterface;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
@@ -34,6 +40,9 @@ import org.bouncycastle.crypto.params.ParametersWithIV;
 
 /**
  * The standard Lockbox decryption cipher.
+ *
+ * Instances are not thread safe. See the {@link co.lqnt.lockbox package
+ * documentation} for the thread safety contract shared by all ciphers.
  */
 public class DecryptionCipher implements DecryptionCipherInterface
 {
@@ -49,9 +58,63 @@ public class DecryptionCipher implements DecryptionCipherInterface
             new PKCS7Padding()
         );
         this.sha1Digest = new SHA1Digest();
+        this.metricsListener = new NullMetricsListener();
         this.asciiCharset = Charset.forName("US-ASCII");
     }
 
+    /**
+     * Construct a new decryption cipher that reports metrics.
+     *
+     * @param metricsListener The metrics listener to report to.
+     */
+    public DecryptionCipher(final MetricsListenerInterface metricsListener)
+    {
+        this();
+
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Construct a new decryption cipher that reports metrics, and times the
+     * phases of sampled operations.
+     *
+     * @param metricsListener The metrics listener to report to.
+     * @param phaseSampler    The sampler of operations to time phases for.
+     */
+    public DecryptionCipher(
+        final MetricsListenerInterface metricsListener,
+        final PhaseSampler phaseSampler
+    ) {
+        this(metricsListener);
+
+        this.phaseSampler = phaseSampler;
+    }
+
+    /**
+     * Construct a new decryption cipher that blinds RSA private key operations.
+     *
+     * Supplying a {@link co.lqnt.lockbox.rsa.BlindingFactorPool} moves the
+     * cost of computing blinding factors off the decryption path.
+     *
+     * @param blindingFactorSource The blinding factor source to use.
+     */
+    public DecryptionCipher(
+        final BlindingFactorSourceInterface blindingFactorSource
+    ) {
+        this(
+            new Base64UriCodec(),
+            new OAEPEncoding(
+                new BlindedRsaEngine(blindingFactorSource),
+                new SHA1Digest()
+            ),
+            new PaddedBufferedBlockCipher(
+                new CBCBlockCipher(new AESEngine()),
+                new PKCS7Padding()
+            ),
+            new SHA1Digest()
+        );
+    }
+
     /**
      * Construct a new decryption cipher.
      *
@@ -65,11 +128,67 @@ public class DecryptionCipher implements DecryptionCipherInterface
         AsymmetricBlockCipher rsaCipher,
         BufferedBlockCipher aesCipher,
         Digest sha1Digest
+    ) {
+        this(
+            base64UriCodec,
+            rsaCipher,
+            aesCipher,
+            sha1Digest,
+            new NullMetricsListener()
+        );
+    }
+
+    /**
+     * Construct a new decryption cipher.
+     *
+     * @param base64UriCodec  The URI-safe Base64 codec to use.
+     * @param rsaCipher       The Bouncy Castle RSA cipher to use.
+     * @param aesCipher       The Bouncy Castle AES cipher to use.
+     * @param sha1Digest      The Bouncy Castle SHA-1 message digest to use.
+     * @param metricsListener The metrics listener to report to.
+     */
+    public DecryptionCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher,
+        BufferedBlockCipher aesCipher,
+        Digest sha1Digest,
+        MetricsListenerInterface metricsListener
+    ) {
+        this(
+            base64UriCodec,
+            rsaCipher,
+            aesCipher,
+            sha1Digest,
+            metricsListener,
+            null
+        );
+    }
+
+    /**
+     * Construct a new decryption cipher.
+     *
+     * @param base64UriCodec  The URI-safe Base64 codec to use.
+     * @param rsaCipher       The Bouncy Castle RSA cipher to use.
+     * @param aesCipher       The Bouncy Castle AES cipher to use.
+     * @param sha1Digest      The Bouncy Castle SHA-1 message digest to use.
+     * @param metricsListener The metrics listener to report to.
+     * @param phaseSampler    The sampler of operations to time phases for, or
+     *     null to disable phase timing.
+     */
+    public DecryptionCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher,
+        BufferedBlockCipher aesCipher,
+        Digest sha1Digest,
+        MetricsListenerInterface metricsListener,
+        PhaseSampler phaseSampler
     ) {
         this.base64UriCodec = base64UriCodec;
         this.rsaCipher = rsaCipher;
         this.aesCipher = aesCipher;
         this.sha1Digest = sha1Digest;
+        this.metricsListener = metricsListener;
+        this.phaseSampler = phaseSampler;
         this.asciiCharset = Charset.forName("US-ASCII");
     }
 
@@ -113,6 +232,26 @@ public class DecryptionCipher implements DecryptionCipherInterface
         return this.sha1Digest;
     }
 
+    /**
+     * Get the metrics listener.
+     *
+     * @return The metrics listener.
+     */
+    public MetricsListenerInterface metricsListener()
+    {
+        return this.metricsListener;
+    }
+
+    /**
+     * Get the sampler of operations to time phases for.
+     *
+     * @return The phase sampler, or null if phases are not timed.
+     */
+    public PhaseSampler phaseSampler()
+    {
+        return this.phaseSampler;
+    }
+
     /**
      * Decrypt a data packet.
      *
@@ -125,13 +264,140 @@ public class DecryptionCipher implements DecryptionCipherInterface
     public byte[] decrypt(final PrivateKeyInterface key, final byte[] data)
         throws DecryptionFailedException
     {
+        DecryptionResult result = this.tryDecrypt(key, data);
+        if (!result.isSuccessful()) {
+            throw result.exception();
+        }
+
+        return result.data();
+    }
+
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param key  They key to decrypt with.
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(
+        final PrivateKeyInterface key,
+        final byte[] data
+    ) {
+        if (!this.metricsListener().isEnabled()) {
+            return this.tryDecryptData(key, data);
+        }
+
+        long start = System.nanoTime();
+        DecryptionResult result;
+        try {
+            result = this.tryDecryptData(key, data);
+        } catch (RuntimeException e) {
+            this.metricsListener().decryptionFailed(
+                key,
+                null,
+                e,
+                System.nanoTime() - start
+            );
+
+            throw e;
+        }
+
+        if (result.isSuccessful()) {
+            this.metricsListener().decrypted(
+                key,
+                data.length,
+                result.data().length,
+                System.nanoTime() - start
+            );
+        } else {
+            this.metricsListener().decryptionFailed(
+                key,
+                result.reason(),
+                result.cause(),
+                System.nanoTime() - start
+            );
+        }
+
+        return result;
+    }
+
+    /**
+     * Decrypt a data packet, without reporting metrics.
+     *
+     * @param key  They key to decrypt with.
+     * @param data The data to decrypt.
+     *
+     * @return The decrypted data.
+     * @throws DecryptionFailedException If the decryption failed.
+     */
+    protected byte[] decryptData(
+        final PrivateKeyInterface key,
+        final byte[] data
+    )
+        throws DecryptionFailedException
+    {
+        DecryptionResult result = this.tryDecryptData(key, data);
+        if (!result.isSuccessful()) {
+            throw result.exception();
+        }
+
+        return result.data();
+    }
+
+    /**
+     * Decrypt a data packet, without reporting metrics or throwing if the
+     * decryption fails.
+     *
+     * @param key  They key to decrypt with.
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    private DecryptionResult tryDecryptData(
+        final PrivateKeyInterface key,
+        final byte[] data
+    ) {
         int keySize = key.size() / 8;
+        boolean timed = null != this.phaseSampler && this.phaseSampler.sample();
+
+        long time = 0L;
+        if (timed) {
+            time = System.nanoTime();
+        }
 
         byte[] decodedData;
         try {
             decodedData = this.base64UriCodec().decode(data);
         } catch (DecodingFailedException e) {
-            throw new DecryptionFailedException(e);
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_ENCODING,
+                e
+            );
+        }
+
+        if (timed) {
+            this.timePhase(Phase.CODEC, time);
+        }
+
+        int offset = 0;
+        if (this.hasKeyId(decodedData.length, keySize)) {
+            if (
+                !Arrays.equals(
+                    Arrays.copyOfRange(decodedData, 0, 8),
+                    key.keyId()
+                )
+            ) {
+                return DecryptionResult.failure(
+                    DecryptionFailureReason.KEY_ID_MISMATCH
+                );
+            }
+
+            offset = 8;
+        }
+
+        if (timed) {
+            time = System.nanoTime();
         }
 
         this.rsaCipher().init(false, key.bcKeyParameters());
@@ -139,40 +405,61 @@ public class DecryptionCipher implements DecryptionCipherInterface
         byte[] keyAndIv;
         try {
             keyAndIv = this.rsaCipher().processBlock(
-                Arrays.copyOfRange(decodedData, 0, keySize),
+                Arrays.copyOfRange(decodedData, offset, offset + keySize),
                 0,
                 keySize
             );
         } catch (InvalidCipherTextException e) {
-            throw new DecryptionFailedException(e);
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_RSA_BLOCK,
+                e
+            );
+        } catch (DataLengthException e) {
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_RSA_BLOCK,
+                e
+            );
         }
 
-        byte[] generatedKey = Arrays.copyOfRange(keyAndIv, 0, 32);
+        if (timed) {
+            time = this.timePhase(Phase.RSA, time);
+        }
 
-        byte[] iv;
-        try {
-            iv = Arrays.copyOfRange(keyAndIv, 32, keyAndIv.length);
-        } catch (IllegalArgumentException e) {
-            throw new DecryptionFailedException(e);
+        if (keyAndIv.length < 32) {
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_RSA_BLOCK
+            );
         }
 
-        byte[] dataAndHash = this.decryptAes(
-            generatedKey,
-            iv,
-            Arrays.copyOfRange(decodedData, keySize, decodedData.length)
+        DecryptionResult aesResult = this.tryDecryptAes(
+            Arrays.copyOfRange(keyAndIv, 0, 32),
+            Arrays.copyOfRange(keyAndIv, 32, keyAndIv.length),
+            Arrays.copyOfRange(
+                decodedData,
+                offset + keySize,
+                decodedData.length
+            )
         );
+        if (!aesResult.isSuccessful()) {
+            return aesResult;
+        }
 
-        byte[] decrypted;
-        try {
-            decrypted = Arrays.copyOfRange(
-                dataAndHash,
-                0,
-                dataAndHash.length - 20
+        if (timed) {
+            time = this.timePhase(Phase.AES, time);
+        }
+
+        byte[] dataAndHash = aesResult.data();
+        if (dataAndHash.length < 20) {
+            return DecryptionResult.failure(
+                DecryptionFailureReason.HASH_MISMATCH
             );
-        } catch (IllegalArgumentException e) {
-            throw new DecryptionFailedException(e);
         }
 
+        byte[] decrypted = Arrays.copyOfRange(
+            dataAndHash,
+            0,
+            dataAndHash.length - 20
+        );
         byte[] verificationHash = Arrays.copyOfRange(
             dataAndHash,
             decrypted.length,
@@ -185,10 +472,16 @@ public class DecryptionCipher implements DecryptionCipherInterface
         this.sha1Digest().doFinal(hash, 0);
 
         if (!Arrays.equals(verificationHash, hash)) {
-            throw new DecryptionFailedException();
+            return DecryptionResult.failure(
+                DecryptionFailureReason.HASH_MISMATCH
+            );
         }
 
-        return decrypted;
+        if (timed) {
+            this.timePhase(Phase.DIGEST, time);
+        }
+
+        return DecryptionResult.success(decrypted);
     }
 
     /**
@@ -209,6 +502,22 @@ public class DecryptionCipher implements DecryptionCipherInterface
         );
     }
 
+    /**
+     * Determine whether decoded data begins with a key identifier.
+     *
+     * The AES encrypted portion is always a whole number of blocks, so only
+     * data carrying a key identifier has 8 bytes left over.
+     *
+     * @param length  The length of the decoded data.
+     * @param keySize The key size in bytes.
+     *
+     * @return True if the data begins with a key identifier.
+     */
+    protected boolean hasKeyId(final int length, final int keySize)
+    {
+        return length > keySize && 8 == (length - keySize) % 16;
+    }
+
     /**
      * Decrypt some data with AES and PKCS #7 padding.
      *
@@ -226,6 +535,29 @@ public class DecryptionCipher implements DecryptionCipherInterface
     )
         throws DecryptionFailedException
     {
+        DecryptionResult result = this.tryDecryptAes(key, iv, data);
+        if (!result.isSuccessful()) {
+            throw result.exception();
+        }
+
+        return result.data();
+    }
+
+    /**
+     * Decrypt some data with AES and PKCS #7 padding, without throwing if the
+     * decryption fails.
+     *
+     * @param key  The key to use.
+     * @param iv   The initialization vector to use.
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    private DecryptionResult tryDecryptAes(
+        final byte[] key,
+        final byte[] iv,
+        final byte[] data
+    ) {
         CipherParameters parameters = new ParametersWithIV(
             new KeyParameter(key),
             iv
@@ -236,7 +568,10 @@ public class DecryptionCipher implements DecryptionCipherInterface
         try {
             this.aesCipher().init(false, parameters);
         } catch (IllegalArgumentException e) {
-            throw new DecryptionFailedException(e);
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_RSA_BLOCK,
+                e
+            );
         }
 
         int outputSize = this.aesCipher().getOutputSize(data.length);
@@ -253,17 +588,43 @@ public class DecryptionCipher implements DecryptionCipherInterface
         try {
             length += this.aesCipher().doFinal(decrypted, length);
         } catch (InvalidCipherTextException e) {
-            throw new DecryptionFailedException(e);
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_PADDING,
+                e
+            );
         } catch (DataLengthException e) {
-            throw new DecryptionFailedException(e);
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_PADDING,
+                e
+            );
         }
 
-        return Arrays.copyOfRange(decrypted, 0, length);
+        return DecryptionResult.success(
+            Arrays.copyOfRange(decrypted, 0, length)
+        );
+    }
+
+    /**
+     * Report the time taken by a phase of decryption.
+     *
+     * @param phase The phase.
+     * @param start The time the phase started, from System.nanoTime().
+     *
+     * @return The time the phase ended.
+     */
+    protected long timePhase(final Phase phase, final long start)
+    {
+        long end = System.nanoTime();
+        this.phaseSampler.listener().decryptionPhase(phase, end - start);
+
+        return end;
     }
 
     private CodecInterface base64UriCodec;
     private AsymmetricBlockCipher rsaCipher;
     private BufferedBlockCipher aesCipher;
     private Digest sha1Digest;
+    private MetricsListenerInterface metricsListener;
+    private PhaseSampler phaseSampler;
     private Charset asciiCharset;
 }
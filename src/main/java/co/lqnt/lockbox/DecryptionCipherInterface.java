@@ -29,6 +29,19 @@ public interface DecryptionCipherInterface
     public byte[] decrypt(final PrivateKeyInterface key, final byte[] data)
         throws DecryptionFailedException;
 
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * @param key  They key to decrypt with.
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(
+        final PrivateKeyInterface key,
+        final byte[] data
+    );
+
     /**
      * Decrypt a data packet.
      *
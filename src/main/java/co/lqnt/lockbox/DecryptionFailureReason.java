@@ -0,0 +1,42 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+/**
+ * The reasons a decryption can fail.
+ */
+public enum DecryptionFailureReason
+{
+    /**
+     * The data is not valid URI-safe Base64.
+     */
+    BAD_ENCODING,
+
+    /**
+     * The data carries the identifier of a different key.
+     */
+    KEY_ID_MISMATCH,
+
+    /**
+     * The RSA encrypted block could not be decrypted, or did not contain a
+     * valid AES key and IV.
+     */
+    BAD_RSA_BLOCK,
+
+    /**
+     * The AES encrypted data was truncated, or had invalid padding.
+     */
+    BAD_PADDING,
+
+    /**
+     * The decrypted data did not match its SHA-1 hash.
+     */
+    HASH_MISMATCH
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+
+/**
+ * The result of a decryption that does not throw on failure.
+ *
+ * A failed result carries the reason for the failure, and the underlying
+ * exception if there was one. No decryption failed exception is built unless
+ * one is asked for.
+ */
+public class DecryptionResult
+{
+    /**
+     * Create a successful result.
+     *
+     * @param data The decrypted data.
+     *
+     * @return The result.
+     */
+    public static DecryptionResult success(final byte[] data)
+    {
+        return new DecryptionResult(data, null, null);
+    }
+
+    /**
+     * Create a failed result.
+     *
+     * @param reason The reason for the failure.
+     *
+     * @return The result.
+     */
+    public static DecryptionResult failure(
+        final DecryptionFailureReason reason
+    ) {
+        return new DecryptionResult(null, reason, null);
+    }
+
+    /**
+     * Create a failed result.
+     *
+     * @param reason The reason for the failure.
+     * @param cause  The underlying cause.
+     *
+     * @return The result.
+     */
+    public static DecryptionResult failure(
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        return new DecryptionResult(null, reason, cause);
+    }
+
+    /**
+     * Construct a new decryption result.
+     *
+     * @param data   The decrypted data, or null if the decryption failed.
+     * @param reason The reason for the failure, or null if the decryption
+     *     succeeded.
+     * @param cause  The underlying cause of the failure, or null.
+     */
+    public DecryptionResult(
+        final byte[] data,
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        this.data = data;
+        this.reason = reason;
+        this.cause = cause;
+    }
+
+    /**
+     * Returns true if the decryption succeeded.
+     *
+     * @return True if successful.
+     */
+    public boolean isSuccessful()
+    {
+        return null == this.reason;
+    }
+
+    /**
+     * Get the decrypted data.
+     *
+     * @return The decrypted data, or null if the decryption failed.
+     */
+    public byte[] data()
+    {
+        return this.data;
+    }
+
+    /**
+     * Get the reason for the failure.
+     *
+     * @return The reason, or null if the decryption succeeded.
+     */
+    public DecryptionFailureReason reason()
+    {
+        return this.reason;
+    }
+
+    /**
+     * Get the underlying cause of the failure.
+     *
+     * @return The cause, or null if there was none.
+     */
+    public Throwable cause()
+    {
+        return this.cause;
+    }
+
+    /**
+     * Get an exception describing the failure.
+     *
+     * The exception is built on first use, and the same instance returned
+     * thereafter.
+     *
+     * @return The exception, or null if the decryption succeeded.
+     */
+    public DecryptionFailedException exception()
+    {
+        if (null == this.exception && null != this.reason) {
+            this.exception =
+                new DecryptionFailedException(this.reason, this.cause);
+        }
+
+        return this.exception;
+    }
+
+    private byte[] data;
+    private DecryptionFailureReason reason;
+    private Throwable cause;
+    private DecryptionFailedException exception;
+}
@@ -13,6 +13,10 @@ import co.lqnt.lockbox.util.codec.Base64UriCodec;
 import co.lqnt.lockbox.util.codec.CodecInterface;
 import co.lqnt.lockbox.key.PrivateKeyInterface;
 import co.lqnt.lockbox.key.PublicKeyInterface;
+import co.lqnt.lockbox.metrics.MetricsListenerInterface;
+import co.lqnt.lockbox.metrics.NullMetricsListener;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseSampler;
 import co.lqnt.lockbox.util.SecureRandom;
 import co.lqnt.lockbox.util.SecureRandomInterface;
 import java.nio.charset.Charset;
@@ -35,6 +39,9 @@ import org.bouncycastle.crypto.params.ParametersWithIV;
 
 /**
  * The standard Lockbox encryption cipher.
+ *
+ * Instances are not thread safe. See the {@link co.lqnt.lockbox package
+ * documentation} for the thread safety contract shared by all ciphers.
  */
 public class EncryptionCipher implements EncryptionCipherInterface
 {
@@ -51,9 +58,54 @@ public class EncryptionCipher implements EncryptionCipherInterface
         );
         this.sha1Digest = new SHA1Digest();
         this.random = new SecureRandom();
+        this.metricsListener = new NullMetricsListener();
         this.asciiCharset = Charset.forName("US-ASCII");
     }
 
+    /**
+     * Construct a new encryption cipher.
+     *
+     * When the key identifier is included, it is prepended to the encrypted
+     * data, so that the recipient can select the correct private key without
+     * attempting decryption.
+     *
+     * @param includeKeyId True if the key identifier should be included.
+     */
+    public EncryptionCipher(final boolean includeKeyId)
+    {
+        this();
+
+        this.includeKeyId = includeKeyId;
+    }
+
+    /**
+     * Construct a new encryption cipher that reports metrics.
+     *
+     * @param metricsListener The metrics listener to report to.
+     */
+    public EncryptionCipher(final MetricsListenerInterface metricsListener)
+    {
+        this();
+
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Construct a new encryption cipher that reports metrics, and times the
+     * phases of sampled operations.
+     *
+     * @param metricsListener The metrics listener to report to.
+     * @param phaseSampler    The sampler of operations to time phases for.
+     */
+    public EncryptionCipher(
+        final MetricsListenerInterface metricsListener,
+        final PhaseSampler phaseSampler
+    ) {
+        this(metricsListener);
+
+        this.phaseSampler = phaseSampler;
+    }
+
     /**
      * Construct a new encryption cipher.
      *
@@ -69,12 +121,102 @@ public class EncryptionCipher implements EncryptionCipherInterface
         BufferedBlockCipher aesCipher,
         Digest sha1Digest,
         SecureRandomInterface random
+    ) {
+        this(base64UriCodec, rsaCipher, aesCipher, sha1Digest, random, false);
+    }
+
+    /**
+     * Construct a new encryption cipher.
+     *
+     * @param base64UriCodec The URI-safe Base64 codec to use.
+     * @param rsaCipher      The Bouncy Castle RSA cipher to use.
+     * @param aesCipher      The Bouncy Castle AES cipher to use.
+     * @param sha1Digest     The Bouncy Castle SHA-1 message digest to use.
+     * @param random         The secure random generator to use.
+     * @param includeKeyId   True if the key identifier should be included.
+     */
+    public EncryptionCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher,
+        BufferedBlockCipher aesCipher,
+        Digest sha1Digest,
+        SecureRandomInterface random,
+        boolean includeKeyId
+    ) {
+        this(
+            base64UriCodec,
+            rsaCipher,
+            aesCipher,
+            sha1Digest,
+            random,
+            includeKeyId,
+            new NullMetricsListener()
+        );
+    }
+
+    /**
+     * Construct a new encryption cipher.
+     *
+     * @param base64UriCodec  The URI-safe Base64 codec to use.
+     * @param rsaCipher       The Bouncy Castle RSA cipher to use.
+     * @param aesCipher       The Bouncy Castle AES cipher to use.
+     * @param sha1Digest      The Bouncy Castle SHA-1 message digest to use.
+     * @param random          The secure random generator to use.
+     * @param includeKeyId    True if the key identifier should be included.
+     * @param metricsListener The metrics listener to report to.
+     */
+    public EncryptionCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher,
+        BufferedBlockCipher aesCipher,
+        Digest sha1Digest,
+        SecureRandomInterface random,
+        boolean includeKeyId,
+        MetricsListenerInterface metricsListener
+    ) {
+        this(
+            base64UriCodec,
+            rsaCipher,
+            aesCipher,
+            sha1Digest,
+            random,
+            includeKeyId,
+            metricsListener,
+            null
+        );
+    }
+
+    /**
+     * Construct a new encryption cipher.
+     *
+     * @param base64UriCodec  The URI-safe Base64 codec to use.
+     * @param rsaCipher       The Bouncy Castle RSA cipher to use.
+     * @param aesCipher       The Bouncy Castle AES cipher to use.
+     * @param sha1Digest      The Bouncy Castle SHA-1 message digest to use.
+     * @param random          The secure random generator to use.
+     * @param includeKeyId    True if the key identifier should be included.
+     * @param metricsListener The metrics listener to report to.
+     * @param phaseSampler    The sampler of operations to time phases for, or
+     *     null to disable phase timing.
+     */
+    public EncryptionCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher,
+        BufferedBlockCipher aesCipher,
+        Digest sha1Digest,
+        SecureRandomInterface random,
+        boolean includeKeyId,
+        MetricsListenerInterface metricsListener,
+        PhaseSampler phaseSampler
     ) {
         this.base64UriCodec = base64UriCodec;
         this.rsaCipher = rsaCipher;
         this.aesCipher = aesCipher;
         this.sha1Digest = sha1Digest;
         this.random = random;
+        this.includeKeyId = includeKeyId;
+        this.metricsListener = metricsListener;
+        this.phaseSampler = phaseSampler;
         this.asciiCharset = Charset.forName("US-ASCII");
     }
 
@@ -128,6 +270,36 @@ public class EncryptionCipher implements EncryptionCipherInterface
         return this.random;
     }
 
+    /**
+     * Returns true if the key identifier is included in encrypted data.
+     *
+     * @return True if the key identifier is included.
+     */
+    public boolean includeKeyId()
+    {
+        return this.includeKeyId;
+    }
+
+    /**
+     * Get the metrics listener.
+     *
+     * @return The metrics listener.
+     */
+    public MetricsListenerInterface metricsListener()
+    {
+        return this.metricsListener;
+    }
+
+    /**
+     * Get the sampler of operations to time phases for.
+     *
+     * @return The phase sampler, or null if phases are not timed.
+     */
+    public PhaseSampler phaseSampler()
+    {
+        return this.phaseSampler;
+    }
+
     /**
      * Encrypt a data packet.
      *
@@ -138,6 +310,48 @@ public class EncryptionCipher implements EncryptionCipherInterface
      */
     public byte[] encrypt(final PublicKeyInterface key, final byte[] data)
     {
+        if (!this.metricsListener().isEnabled()) {
+            return this.encryptData(key, data);
+        }
+
+        long start = System.nanoTime();
+        byte[] encrypted;
+        try {
+            encrypted = this.encryptData(key, data);
+        } catch (RuntimeException e) {
+            this.metricsListener().encryptionFailed(
+                key,
+                e,
+                System.nanoTime() - start
+            );
+
+            throw e;
+        }
+
+        this.metricsListener().encrypted(
+            key,
+            data.length,
+            encrypted.length,
+            System.nanoTime() - start
+        );
+
+        return encrypted;
+    }
+
+    /**
+     * Encrypt a data packet, without reporting metrics.
+     *
+     * @param key  They key to encrypt with.
+     * @param data The data to encrypt.
+     *
+     * @return The encrypted data.
+     */
+    protected byte[] encryptData(
+        final PublicKeyInterface key,
+        final byte[] data
+    ) {
+        boolean timed = null != this.phaseSampler && this.phaseSampler.sample();
+
         byte[] generatedKey = this.random().generate(32);
         byte[] iv = this.random().generate(16);
 
@@ -145,6 +359,11 @@ public class EncryptionCipher implements EncryptionCipherInterface
         System.arraycopy(generatedKey, 0, keyAndIv, 0, 32);
         System.arraycopy(iv, 0, keyAndIv, 32, 16);
 
+        long time = 0L;
+        if (timed) {
+            time = System.nanoTime();
+        }
+
         this.rsaCipher().init(true, key.bcKeyParameters());
 
         byte[] encryptedKeyAndIv;
@@ -154,35 +373,64 @@ public class EncryptionCipher implements EncryptionCipherInterface
             throw new RuntimeException(e);
         }
 
+        if (timed) {
+            time = this.timePhase(Phase.RSA, time);
+        }
+
         byte[] hash = new byte[20];
         this.sha1Digest().reset();
         this.sha1Digest().update(data, 0, data.length);
         this.sha1Digest().doFinal(hash, 0);
 
+        if (timed) {
+            time = this.timePhase(Phase.DIGEST, time);
+        }
+
         byte[] dataAndHash = new byte[20 + data.length];
         System.arraycopy(data, 0, dataAndHash, 0, data.length);
         System.arraycopy(hash, 0, dataAndHash, data.length, 20);
 
         byte[] encryptedData = this.encryptAes(generatedKey, iv, dataAndHash);
 
-        int encryptedSize = encryptedKeyAndIv.length + encryptedData.length;
+        if (timed) {
+            this.timePhase(Phase.AES, time);
+        }
+
+        byte[] keyId;
+        if (this.includeKeyId()) {
+            keyId = key.keyId();
+        } else {
+            keyId = new byte[0];
+        }
+
+        int encryptedSize =
+            keyId.length + encryptedKeyAndIv.length + encryptedData.length;
         byte[] encrypted = new byte[encryptedSize];
+        System.arraycopy(keyId, 0, encrypted, 0, keyId.length);
         System.arraycopy(
             encryptedKeyAndIv,
             0,
             encrypted,
-            0,
+            keyId.length,
             encryptedKeyAndIv.length
         );
         System.arraycopy(
             encryptedData,
             0,
             encrypted,
-            encryptedKeyAndIv.length,
+            keyId.length + encryptedKeyAndIv.length,
             encryptedData.length
         );
 
-        return this.base64UriCodec().encode(encrypted);
+        if (!timed) {
+            return this.base64UriCodec().encode(encrypted);
+        }
+
+        time = System.nanoTime();
+        byte[] encoded = this.base64UriCodec().encode(encrypted);
+        this.timePhase(Phase.CODEC, time);
+
+        return encoded;
     }
 
     /**
@@ -274,10 +522,29 @@ public class EncryptionCipher implements EncryptionCipherInterface
         return Arrays.copyOfRange(encrypted, 0, length);
     }
 
+    /**
+     * Report the time taken by a phase of encryption.
+     *
+     * @param phase The phase.
+     * @param start The time the phase started, from System.nanoTime().
+     *
+     * @return The time the phase ended.
+     */
+    protected long timePhase(final Phase phase, final long start)
+    {
+        long end = System.nanoTime();
+        this.phaseSampler.listener().encryptionPhase(phase, end - start);
+
+        return end;
+    }
+
     private CodecInterface base64UriCodec;
     private AsymmetricBlockCipher rsaCipher;
     private BufferedBlockCipher aesCipher;
     private Digest sha1Digest;
     private SecureRandomInterface random;
+    private boolean includeKeyId;
+    private MetricsListenerInterface metricsListener;
+    private PhaseSampler phaseSampler;
     private Charset asciiCharset;
 }
@@ -0,0 +1,217 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyringInterface;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import co.lqnt.lockbox.util.codec.CodecInterface;
+import co.lqnt.lockbox.util.codec.exception.DecodingFailedException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A decryption cipher that selects the private key from a keyring.
+ *
+ * Data encrypted with a key identifier is decrypted with the matching key in
+ * a single lookup, by decoding only the leading characters of the data. Data
+ * without a key identifier is tried against each key of a compatible size.
+ */
+public class KeyringDecryptionCipher implements BoundDecryptionCipherInterface
+{
+    /**
+     * Construct a new keyring decryption cipher.
+     *
+     * @param keyring The keyring to use.
+     */
+    public KeyringDecryptionCipher(final KeyringInterface keyring)
+    {
+        this(keyring, new DecryptionCipher());
+    }
+
+    /**
+     * Construct a new keyring decryption cipher.
+     *
+     * @param keyring The keyring to use.
+     * @param cipher  The cipher to use.
+     */
+    public KeyringDecryptionCipher(
+        final KeyringInterface keyring,
+        final DecryptionCipherInterface cipher
+    ) {
+        this(keyring, cipher, new Base64UriCodec());
+    }
+
+    /**
+     * Construct a new keyring decryption cipher.
+     *
+     * @param keyring        The keyring to use.
+     * @param cipher         The cipher to use.
+     * @param base64UriCodec The URI-safe Base64 codec to use.
+     */
+    public KeyringDecryptionCipher(
+        final KeyringInterface keyring,
+        final DecryptionCipherInterface cipher,
+        final CodecInterface base64UriCodec
+    ) {
+        this.keyring = keyring;
+        this.cipher = cipher;
+        this.base64UriCodec = base64UriCodec;
+        this.asciiCharset = Charset.forName("US-ASCII");
+    }
+
+    /**
+     * Get the keyring.
+     *
+     * @return The keyring.
+     */
+    public KeyringInterface keyring()
+    {
+        return this.keyring;
+    }
+
+    /**
+     * Get the cipher.
+     *
+     * @return The cipher.
+     */
+    public DecryptionCipherInterface cipher()
+    {
+        return this.cipher;
+    }
+
+    /**
+     * Get the URI-safe Base64 codec.
+     *
+     * @return The URI-safe Base64 codec.
+     */
+    public CodecInterface base64UriCodec()
+    {
+        return this.base64UriCodec;
+    }
+
+    /**
+     * Decrypt a data packet.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The decrypted data.
+     * @throws DecryptionFailedException If the decryption failed.
+     */
+    public byte[] decrypt(final byte[] data) throws DecryptionFailedException
+    {
+        DecryptionResult result = this.tryDecrypt(data);
+        if (!result.isSuccessful()) {
+            throw result.exception();
+        }
+
+        return result.data();
+    }
+
+    /**
+     * Decrypt a data packet, without throwing if the decryption fails.
+     *
+     * When no key identifier is present, and every compatible key fails, the
+     * result of the last attempt is returned.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The result of the decryption.
+     */
+    public DecryptionResult tryDecrypt(final byte[] data)
+    {
+        if (data.length < 12) {
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_ENCODING
+            );
+        }
+
+        byte[] prefix;
+        try {
+            prefix = this.base64UriCodec().decode(
+                Arrays.copyOfRange(data, 0, 12)
+            );
+        } catch (DecodingFailedException e) {
+            return DecryptionResult.failure(
+                DecryptionFailureReason.BAD_ENCODING,
+                e
+            );
+        }
+
+        PrivateKeyInterface key = this.findKey(prefix);
+        if (null != key) {
+            return this.cipher().tryDecrypt(key, data);
+        }
+
+        int decodedLength = data.length * 3 / 4;
+        DecryptionResult failure = null;
+        for (PrivateKeyInterface candidate : this.keyring().privateKeys()) {
+            int keySize = candidate.size() / 8;
+            if (
+                decodedLength < keySize ||
+                0 != (decodedLength - keySize) % 16
+            ) {
+                continue;
+            }
+
+            DecryptionResult result = this.cipher().tryDecrypt(candidate, data);
+            if (result.isSuccessful()) {
+                return result;
+            }
+
+            failure = result;
+        }
+
+        if (null != failure) {
+            return failure;
+        }
+
+        return DecryptionResult.failure(
+            DecryptionFailureReason.KEY_ID_MISMATCH
+        );
+    }
+
+    /**
+     * Decrypt a data packet.
+     *
+     * @param data The data to decrypt.
+     *
+     * @return The decrypted data.
+     * @throws DecryptionFailedException If the decryption failed.
+     */
+    public String decrypt(final String data) throws DecryptionFailedException
+    {
+        return new String(
+            this.decrypt(data.getBytes(this.asciiCharset)),
+            this.asciiCharset
+        );
+    }
+
+    /**
+     * Find the key matching the key identifier at the start of the data.
+     *
+     * The first 12 characters of encoded data decode to 9 bytes, which cover
+     * the 8 byte key identifier.
+     *
+     * @param prefix The first 12 characters of the data, decoded.
+     *
+     * @return The key, or null if no matching key was found.
+     */
+    protected PrivateKeyInterface findKey(final byte[] prefix)
+    {
+        return this.keyring().privateKey(Arrays.copyOfRange(prefix, 0, 8));
+    }
+
+    private KeyringInterface keyring;
+    private DecryptionCipherInterface cipher;
+    private CodecInterface base64UriCodec;
+    private Charset asciiCharset;
+}
@@ -0,0 +1,282 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import co.lqnt.lockbox.util.codec.CodecInterface;
+import co.lqnt.lockbox.util.codec.exception.DecodingFailedException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.encodings.OAEPEncoding;
+import org.bouncycastle.crypto.engines.RSAEngine;
+
+/**
+ * The standard Lockbox rewrap cipher.
+ *
+ * Encrypted data consists of an RSA encrypted AES key and IV, followed by the
+ * AES encrypted content. Rewrapping decrypts and re-encrypts only the RSA
+ * portion, and carries the AES encrypted content across unchanged. Where the
+ * old and new RSA portions have compatible Base64 alignment, the encoded
+ * content is copied across without being decoded at all.
+ *
+ * The content is not decrypted, so it is not verified by rewrapping. Data
+ * that includes a key identifier is rewrapped with the identifier of the new
+ * key.
+ */
+public class RewrapCipher implements RewrapCipherInterface
+{
+    /**
+     * Construct a new rewrap cipher.
+     */
+    public RewrapCipher()
+    {
+        this(
+            new Base64UriCodec(),
+            new OAEPEncoding(new RSAEngine(), new SHA1Digest())
+        );
+    }
+
+    /**
+     * Construct a new rewrap cipher.
+     *
+     * @param base64UriCodec The URI-safe Base64 codec to use.
+     * @param rsaCipher      The Bouncy Castle RSA cipher to use.
+     */
+    public RewrapCipher(
+        CodecInterface base64UriCodec,
+        AsymmetricBlockCipher rsaCipher
+    ) {
+        this.base64UriCodec = base64UriCodec;
+        this.rsaCipher = rsaCipher;
+        this.asciiCharset = Charset.forName("US-ASCII");
+    }
+
+    /**
+     * Get the URI-safe Base64 codec.
+     *
+     * @return The URI-safe Base64 codec.
+     */
+    public CodecInterface base64UriCodec()
+    {
+        return this.base64UriCodec;
+    }
+
+    /**
+     * Get the Bouncy Castle RSA cipher.
+     *
+     * @return The Bouncy Castle RSA cipher.
+     */
+    public AsymmetricBlockCipher rsaCipher()
+    {
+        return this.rsaCipher;
+    }
+
+    /**
+     * Re-encrypt a data packet for a new key, without decrypting its content.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     * @param data   The encrypted data.
+     *
+     * @return The data, encrypted with the new key.
+     * @throws DecryptionFailedException If the data cannot be decrypted with
+     *     the old key.
+     */
+    public byte[] rewrap(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey,
+        final byte[] data
+    )
+        throws DecryptionFailedException
+    {
+        int oldKeySize = oldKey.size() / 8;
+        int decodedLength = data.length * 3 / 4;
+        if (decodedLength <= oldKeySize) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_RSA_BLOCK
+            );
+        }
+
+        int keyIdSize;
+        if (8 == (decodedLength - oldKeySize) % 16) {
+            keyIdSize = 8;
+        } else if (0 == (decodedLength - oldKeySize) % 16) {
+            keyIdSize = 0;
+        } else {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_PADDING
+            );
+        }
+
+        int oldHeaderSize = keyIdSize + oldKeySize;
+        int alignedSize = (oldHeaderSize + 2) / 3 * 3;
+        int alignedLength = alignedSize / 3 * 4;
+
+        byte[] prefix = this.decode(Arrays.copyOfRange(data, 0, alignedLength));
+        if (prefix.length != alignedSize) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_ENCODING
+            );
+        }
+        if (
+            8 == keyIdSize &&
+            !Arrays.equals(Arrays.copyOfRange(prefix, 0, 8), oldKey.keyId())
+        ) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.KEY_ID_MISMATCH
+            );
+        }
+
+        this.rsaCipher().init(false, oldKey.bcKeyParameters());
+
+        byte[] keyAndIv;
+        try {
+            keyAndIv = this.rsaCipher().processBlock(
+                prefix,
+                keyIdSize,
+                oldKeySize
+            );
+        } catch (InvalidCipherTextException e) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_RSA_BLOCK,
+                e
+            );
+        } catch (DataLengthException e) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_RSA_BLOCK,
+                e
+            );
+        }
+        if (48 != keyAndIv.length) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_RSA_BLOCK
+            );
+        }
+
+        this.rsaCipher().init(true, newKey.bcKeyParameters());
+
+        byte[] encryptedKeyAndIv;
+        try {
+            encryptedKeyAndIv = this.rsaCipher().processBlock(keyAndIv, 0, 48);
+        } catch (InvalidCipherTextException e) {
+            throw new RuntimeException(e);
+        }
+
+        int newHeaderSize = keyIdSize + encryptedKeyAndIv.length;
+        int carrySize = alignedSize - oldHeaderSize;
+        boolean isAligned = newHeaderSize % 3 == oldHeaderSize % 3;
+        byte[] body = new byte[0];
+        if (!isAligned) {
+            body = this.decode(
+                Arrays.copyOfRange(data, alignedLength, data.length)
+            );
+        }
+
+        byte[] head = new byte[newHeaderSize + carrySize + body.length];
+        if (8 == keyIdSize) {
+            System.arraycopy(newKey.keyId(), 0, head, 0, 8);
+        }
+        System.arraycopy(
+            encryptedKeyAndIv,
+            0,
+            head,
+            keyIdSize,
+            encryptedKeyAndIv.length
+        );
+        System.arraycopy(
+            prefix,
+            oldHeaderSize,
+            head,
+            newHeaderSize,
+            carrySize
+        );
+        System.arraycopy(
+            body,
+            0,
+            head,
+            newHeaderSize + carrySize,
+            body.length
+        );
+
+        byte[] encodedHead = this.base64UriCodec().encode(head);
+        if (!isAligned) {
+            return encodedHead;
+        }
+
+        int tailLength = data.length - alignedLength;
+        byte[] rewrapped = new byte[encodedHead.length + tailLength];
+        System.arraycopy(encodedHead, 0, rewrapped, 0, encodedHead.length);
+        System.arraycopy(
+            data,
+            alignedLength,
+            rewrapped,
+            encodedHead.length,
+            tailLength
+        );
+
+        return rewrapped;
+    }
+
+    /**
+     * Re-encrypt a data packet for a new key, without decrypting its content.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     * @param data   The encrypted data.
+     *
+     * @return The data, encrypted with the new key.
+     * @throws DecryptionFailedException If the data cannot be decrypted with
+     *     the old key.
+     */
+    public String rewrap(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey,
+        final String data
+    )
+        throws DecryptionFailedException
+    {
+        return new String(
+            this.rewrap(oldKey, newKey, data.getBytes(this.asciiCharset)),
+            this.asciiCharset
+        );
+    }
+
+    /**
+     * Decode some Base64 data.
+     *
+     * @param data The data to decode.
+     *
+     * @return The decoded data.
+     * @throws DecryptionFailedException If the data cannot be decoded.
+     */
+    protected byte[] decode(final byte[] data)
+        throws DecryptionFailedException
+    {
+        try {
+            return this.base64UriCodec().decode(data);
+        } catch (DecodingFailedException e) {
+            throw new DecryptionFailedException(
+                DecryptionFailureReason.BAD_ENCODING,
+                e
+            );
+        }
+    }
+
+    private CodecInterface base64UriCodec;
+    private AsymmetricBlockCipher rsaCipher;
+    private Charset asciiCharset;
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+
+/**
+ * The interface implemented by ciphers that move encrypted data to a new key.
+ */
+public interface RewrapCipherInterface
+{
+    /**
+     * Re-encrypt a data packet for a new key, without decrypting its content.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     * @param data   The encrypted data.
+     *
+     * @return The data, encrypted with the new key.
+     * @throws DecryptionFailedException If the data cannot be decrypted with
+     *     the old key.
+     */
+    public byte[] rewrap(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey,
+        final byte[] data
+    )
+        throws DecryptionFailedException;
+
+    /**
+     * Re-encrypt a data packet for a new key, without decrypting its content.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     * @param data   The encrypted data.
+     *
+     * @return The data, encrypted with the new key.
+     * @throws DecryptionFailedException If the data cannot be decrypted with
+     *     the old key.
+     */
+    public String rewrap(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey,
+        final String data
+    )
+        throws DecryptionFailedException;
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Rewraps files of encrypted data from one key to another.
+ *
+ * Input is read one encrypted data packet per line, and written in the same
+ * layout. Blank lines are copied through unchanged. Files are streamed, so
+ * arbitrarily large archives can be rewrapped in constant memory.
+ */
+public class RewrapTool
+{
+    /**
+     * Construct a new rewrap tool.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     */
+    public RewrapTool(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey
+    ) {
+        this(oldKey, newKey, new RewrapCipher());
+    }
+
+    /**
+     * Construct a new rewrap tool.
+     *
+     * @param oldKey The key the data is currently encrypted with.
+     * @param newKey The key to encrypt the data with.
+     * @param cipher The cipher to use.
+     */
+    public RewrapTool(
+        final PrivateKeyInterface oldKey,
+        final PublicKeyInterface newKey,
+        final RewrapCipherInterface cipher
+    ) {
+        this.oldKey = oldKey;
+        this.newKey = newKey;
+        this.cipher = cipher;
+        this.asciiCharset = Charset.forName("US-ASCII");
+    }
+
+    /**
+     * Get the key the data is currently encrypted with.
+     *
+     * @return The old key.
+     */
+    public PrivateKeyInterface oldKey()
+    {
+        return this.oldKey;
+    }
+
+    /**
+     * Get the key to encrypt the data with.
+     *
+     * @return The new key.
+     */
+    public PublicKeyInterface newKey()
+    {
+        return this.newKey;
+    }
+
+    /**
+     * Get the cipher.
+     *
+     * @return The cipher.
+     */
+    public RewrapCipherInterface cipher()
+    {
+        return this.cipher;
+    }
+
+    /**
+     * Rewrap a file of encrypted data.
+     *
+     * The output is written to a temporary file in the same directory, which
+     * replaces the output file only once every packet has been rewrapped. If
+     * rewrapping fails, the output file is left untouched.
+     *
+     * @param input  The file to read.
+     * @param output The file to write.
+     *
+     * @return The number of data packets rewrapped.
+     * @throws IOException               If the files cannot be read or written.
+     * @throws DecryptionFailedException If a data packet cannot be decrypted.
+     */
+    public long rewrap(final File input, final File output)
+        throws IOException, DecryptionFailedException
+    {
+        File temporary = File.createTempFile(
+            output.getName(),
+            ".tmp",
+            output.getAbsoluteFile().getParentFile()
+        );
+
+        boolean succeeded = false;
+        try {
+            long count;
+            InputStream inputStream = new FileInputStream(input);
+            try {
+                OutputStream outputStream = new FileOutputStream(temporary);
+                try {
+                    count = this.rewrap(inputStream, outputStream);
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                inputStream.close();
+            }
+
+            if (
+                !temporary.renameTo(output) &&
+                !(output.delete() && temporary.renameTo(output))
+            ) {
+                throw new IOException(
+                    "Unable to replace " + output.getPath() + "."
+                );
+            }
+            succeeded = true;
+
+            return count;
+        } finally {
+            if (!succeeded) {
+                temporary.delete();
+            }
+        }
+    }
+
+    /**
+     * Rewrap a stream of encrypted data.
+     *
+     * The streams are not closed. If a data packet cannot be decrypted, the
+     * exception message includes its line number.
+     *
+     * @param input  The stream to read.
+     * @param output The stream to write.
+     *
+     * @return The number of data packets rewrapped.
+     * @throws IOException               If the streams cannot be read or
+     *     written.
+     * @throws DecryptionFailedException If a data packet cannot be decrypted.
+     */
+    public long rewrap(final InputStream input, final OutputStream output)
+        throws IOException, DecryptionFailedException
+    {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(input, this.asciiCharset),
+            65536
+        );
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, this.asciiCharset),
+            65536
+        );
+
+        long count = 0;
+        long lineNumber = 0;
+        String line;
+        while (null != (line = reader.readLine())) {
+            ++lineNumber;
+            if (0 == line.trim().length()) {
+                writer.write(line);
+            } else {
+                String rewrapped;
+                try {
+                    rewrapped = this.cipher()
+                        .rewrap(this.oldKey(), this.newKey(), line);
+                } catch (DecryptionFailedException e) {
+                    throw new DecryptionFailedException(
+                        String.format(
+                            "Decryption failed on line %d.",
+                            lineNumber
+                        ),
+                        e.reason(),
+                        e
+                    );
+                }
+
+                writer.write(rewrapped);
+                ++count;
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+
+        return count;
+    }
+
+    private PrivateKeyInterface oldKey;
+    private PublicKeyInterface newKey;
+    private RewrapCipherInterface cipher;
+    private Charset asciiCharset;
+}
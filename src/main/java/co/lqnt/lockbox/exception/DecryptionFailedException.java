@@ -9,11 +9,58 @@
 
 package co.lqnt.lockbox.exception;
 
+import co.lqnt.lockbox.DecryptionFailureReason;
+
 /**
  * Decryption failed.
+ *
+ * When the co.lqnt.lockbox.stacklessExceptions system property is set to
+ * true, no stack trace is captured. Decryption failures are expected when
+ * handling untrusted input, and capturing the stack is the largest part of
+ * their cost.
  */
 final public class DecryptionFailedException extends Exception
 {
+    /**
+     * Construct a new decryption failed exception.
+     *
+     * @param message The message.
+     * @param reason  The reason for the failure.
+     * @param cause   The cause.
+     */
+    public DecryptionFailedException(
+        final String message,
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        super(message, cause);
+
+        this.reason = reason;
+    }
+
+    /**
+     * Construct a new decryption failed exception.
+     *
+     * @param reason The reason for the failure.
+     * @param cause  The cause.
+     */
+    public DecryptionFailedException(
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        this("Decryption failed.", reason, cause);
+    }
+
+    /**
+     * Construct a new decryption failed exception.
+     *
+     * @param reason The reason for the failure.
+     */
+    public DecryptionFailedException(final DecryptionFailureReason reason)
+    {
+        this(reason, null);
+    }
+
     /**
      * Construct a new decryption failed exception.
      *
@@ -21,7 +68,7 @@ final public class DecryptionFailedException extends Exception
      */
     public DecryptionFailedException(final Throwable cause)
     {
-        super("Decryption failed.", cause);
+        this(null, cause);
     }
 
     /**
@@ -29,6 +76,36 @@ final public class DecryptionFailedException extends Exception
      */
     public DecryptionFailedException()
     {
-        this(null);
+        this(null, null);
+    }
+
+    /**
+     * Get the reason for the failure.
+     *
+     * @return The reason, or null if unknown.
+     */
+    public DecryptionFailureReason reason()
+    {
+        return this.reason;
     }
+
+    /**
+     * Fill in the stack trace, unless stackless exceptions are enabled.
+     *
+     * @return This exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (DecryptionFailedException.STACKLESS) {
+            return this;
+        }
+
+        return super.fillInStackTrace();
+    }
+
+    private static final boolean STACKLESS =
+        Boolean.getBoolean("co.lqnt.lockbox.stacklessExceptions");
+
+    private DecryptionFailureReason reason;
 }
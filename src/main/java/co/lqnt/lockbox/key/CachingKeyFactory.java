@@ -0,0 +1,1080 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
+import co.lqnt.lockbox.key.exception.PublicKeyReadException;
+import co.lqnt.lockbox.metrics.StatisticsProviderInterface;
+import co.lqnt.lockbox.metrics.StripedCounter;
+import co.lqnt.lockbox.util.SecureRandom;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.KeyStore;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A key factory decorator that caches parsed keys.
+ *
+ * Every input, including files, is identified by a SHA-256 hash of its
+ * content, so that a repeated load costs a read and a hash rather than a PEM
+ * parse and key derivation, and a file that is rewritten is never served
+ * stale keys. Passwords form part of the cache key, but are only retained in
+ * salted, hashed form. The least recently used keys are evicted
+ * once the cache reaches capacity.
+ *
+ * Key bundles are passed through to the decorated factory without caching.
+ */
+public class CachingKeyFactory
+    implements KeyFactoryInterface, StatisticsProviderInterface
+{
+    /**
+     * Construct a new caching key factory.
+     */
+    public CachingKeyFactory()
+    {
+        this(new KeyFactory());
+    }
+
+    /**
+     * Construct a new caching key factory.
+     *
+     * @param factory The key factory to decorate.
+     */
+    public CachingKeyFactory(final KeyFactoryInterface factory)
+    {
+        this(factory, 64);
+    }
+
+    /**
+     * Construct a new caching key factory.
+     *
+     * @param factory  The key factory to decorate.
+     * @param capacity The maximum number of keys to cache.
+     */
+    public CachingKeyFactory(
+        final KeyFactoryInterface factory,
+        final int capacity
+    ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1."
+            );
+        }
+
+        this.factory = factory;
+        this.capacity = capacity;
+        this.hits = new StripedCounter();
+        this.misses = new StripedCounter();
+        this.evictions = new StripedCounter();
+        this.passwordSalt = new SecureRandom().generate(16);
+        this.asciiCharset = Charset.forName("US-ASCII");
+        this.cache = new LinkedHashMap<String, KeyInterface>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, KeyInterface> eldest
+            ) {
+                if (this.size() > CachingKeyFactory.this.capacity()) {
+                    CachingKeyFactory.this.evictions.increment();
+
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the decorated key factory.
+     *
+     * @return The key factory.
+     */
+    public KeyFactoryInterface factory()
+    {
+        return this.factory;
+    }
+
+    /**
+     * Get the maximum number of keys to cache.
+     *
+     * @return The capacity.
+     */
+    public int capacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Get the number of keys served from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long hits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * Get the number of keys that had to be parsed.
+     *
+     * @return The number of misses.
+     */
+    public long misses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * Get the number of keys evicted from the cache.
+     *
+     * @return The number of evictions.
+     */
+    public long evictions()
+    {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Get the number of keys currently cached.
+     *
+     * @return The cache size.
+     */
+    public int size()
+    {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    /**
+     * Remove all keys from the cache.
+     */
+    public void clear()
+    {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+
+    /**
+     * Reset the hit, miss, and eviction counts to zero.
+     *
+     * Cached keys are not affected.
+     */
+    public void resetStatistics()
+    {
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    /**
+     * Generate a new private key.
+     *
+     * Generated keys are never cached.
+     *
+     * @return The private key.
+     */
+    public PrivateKey generatePrivateKey()
+    {
+        return this.factory().generatePrivateKey();
+    }
+
+    /**
+     * Generate a new private key.
+     *
+     * Generated keys are never cached.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key.
+     */
+    public PrivateKey generatePrivateKey(final int size)
+    {
+        return this.factory().generatePrivateKey(size);
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createPrivateKey(data);
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        String cacheKey = "private:" + this.contentIdentity(input, null);
+
+        PrivateKey key = (PrivateKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createPrivateKey(input);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(final String input)
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKey(
+            input.getBytes(this.asciiCharset)
+        );
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(final File input)
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFile(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createPrivateKey(data);
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the key.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(
+        final InputStream input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createPrivateKey(data, password);
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the key.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(
+        final byte[] input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        String cacheKey = "private:" + this.contentIdentity(input, password);
+
+        PrivateKey key = (PrivateKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createPrivateKey(input, password);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the key.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(
+        final String input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKey(
+            input.getBytes(this.asciiCharset),
+            password
+        );
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the key.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKey(
+        final File input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFile(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createPrivateKey(data, password);
+    }
+
+    /**
+     * Create a public key from a PEM formatted public key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public key
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKey(final InputStream input)
+        throws PublicKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return this.createPublicKey(data);
+    }
+
+    /**
+     * Create a public key from a PEM formatted public key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public key
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKey(final byte[] input)
+        throws PublicKeyReadException
+    {
+        String cacheKey = "public:" + this.contentIdentity(input, null);
+
+        PublicKey key = (PublicKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createPublicKey(input);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a public key from a PEM formatted public key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public key
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKey(final String input)
+        throws PublicKeyReadException
+    {
+        return this.createPublicKey(
+            input.getBytes(this.asciiCharset)
+        );
+    }
+
+    /**
+     * Create a public key from a PEM formatted public key.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public key
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKey(final File input)
+        throws PublicKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFile(input);
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return this.createPublicKey(data);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final String input)
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final File input)
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final InputStream input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input, password);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final byte[] input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input, password);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final String input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input, password);
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final File input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(input, password);
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final InputStream input)
+        throws PublicKeyReadException
+    {
+        return this.factory().createPublicKeys(input);
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final byte[] input)
+        throws PublicKeyReadException
+    {
+        return this.factory().createPublicKeys(input);
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final String input)
+        throws PublicKeyReadException
+    {
+        return this.factory().createPublicKeys(input);
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final File input)
+        throws PublicKeyReadException
+    {
+        return this.factory().createPublicKeys(input);
+    }
+
+    /**
+     * Create private keys from every RSA key entry in a key store.
+     *
+     * The key store is read in a single pass, and each key is converted
+     * directly, without an intermediate PEM encoding. Entries that are not
+     * RSA private keys are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(keyStore, password);
+    }
+
+    /**
+     * Create private keys from every RSA key entry in a key store, recovering
+     * the keys in parallel.
+     *
+     * Key recovery usually involves a password based key derivation for each
+     * entry, so recovering entries concurrently reduces the time taken to
+     * load large key stores. The key store must not be modified while it is
+     * being read.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     * @param executor The executor to recover the keys on.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password,
+        final ExecutorService executor
+    )
+        throws PrivateKeyReadException
+    {
+        return this.factory().createPrivateKeys(
+            keyStore,
+            password,
+            executor
+        );
+    }
+
+    /**
+     * Create public keys from the certificate of every entry in a key store.
+     *
+     * Both key entries and trusted certificate entries are read. Entries
+     * without an RSA certificate are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     *
+     * @return The public keys, in alias order.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final KeyStore keyStore)
+        throws PublicKeyReadException
+    {
+        return this.factory().createPublicKeys(keyStore);
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException
+    {
+        byte[] content = new byte[input.remaining()];
+        input.duplicate().get(content);
+
+        return this.createPrivateKeyFromDer(content);
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        String cacheKey = "private:der:" + this.contentIdentity(input, null);
+
+        PrivateKey key = (PrivateKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createPrivateKeyFromDer(input);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createPrivateKeyFromDer(data);
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final ByteBuffer input)
+        throws PublicKeyReadException
+    {
+        byte[] content = new byte[input.remaining()];
+        input.duplicate().get(content);
+
+        return this.createPublicKeyFromDer(content);
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final byte[] input)
+        throws PublicKeyReadException
+    {
+        String cacheKey = "public:der:" + this.contentIdentity(input, null);
+
+        PublicKey key = (PublicKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createPublicKeyFromDer(input);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final InputStream input)
+        throws PublicKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return this.createPublicKeyFromDer(data);
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException
+    {
+        byte[] content = new byte[input.remaining()];
+        input.duplicate().get(content);
+
+        return this.createLazyPrivateKeyFromDer(content);
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        String cacheKey = "private:lazy:" +
+            this.contentIdentity(input, null);
+
+        LazyPrivateKey key = (LazyPrivateKey) this.get(cacheKey);
+        if (null == key) {
+            key = this.factory().createLazyPrivateKeyFromDer(input);
+            this.put(cacheKey, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * Only the modulus and public exponent are decoded. The private
+     * components are decoded when the key is first used as a private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        byte[] data;
+        try {
+            data = this.readFully(input);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.createLazyPrivateKeyFromDer(data);
+    }
+
+    /**
+     * Look up a cached key, and record a hit or miss.
+     *
+     * @param cacheKey The cache key.
+     *
+     * @return The cached key, or null if not cached.
+     */
+    protected KeyInterface get(final String cacheKey)
+    {
+        KeyInterface key;
+        synchronized (this.cache) {
+            key = this.cache.get(cacheKey);
+        }
+
+        if (null == key) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+
+        return key;
+    }
+
+    /**
+     * Store a key in the cache.
+     *
+     * @param cacheKey The cache key.
+     * @param key      The key to store.
+     */
+    protected void put(final String cacheKey, final KeyInterface key)
+    {
+        synchronized (this.cache) {
+            this.cache.put(cacheKey, key);
+        }
+    }
+
+    /**
+     * Build a cache identity for in-memory content.
+     *
+     * @param content  The content.
+     * @param password The password, or null.
+     *
+     * @return The identity.
+     */
+    protected String contentIdentity(
+        final byte[] content,
+        final String password
+    ) {
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.update(content, 0, content.length);
+        digest.doFinal(hash, 0);
+
+        return "content:" + new String(Hex.encode(hash), this.asciiCharset) +
+            ":" + this.passwordIdentity(password);
+    }
+
+    /**
+     * Build a cache identity for a password, without retaining the password.
+     *
+     * The password is hashed with a salt that is unique to this cache.
+     *
+     * @param password The password, or null.
+     *
+     * @return The identity.
+     */
+    protected String passwordIdentity(final String password)
+    {
+        if (null == password) {
+            return "-";
+        }
+
+        byte[] passwordBytes = password.getBytes(Charset.forName("UTF-8"));
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.update(this.passwordSalt, 0, this.passwordSalt.length);
+        digest.update(passwordBytes, 0, passwordBytes.length);
+        digest.doFinal(hash, 0);
+
+        return new String(Hex.encode(hash), this.asciiCharset);
+    }
+
+    /**
+     * Read a stream to its end.
+     *
+     * @param input The stream to read.
+     *
+     * @return The stream content.
+     * @throws IOException If the stream cannot be read.
+     */
+    protected byte[] readFully(final InputStream input) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while (-1 != (length = input.read(buffer))) {
+            output.write(buffer, 0, length);
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Read a file in full.
+     *
+     * @param file The file to read.
+     *
+     * @return The file content.
+     * @throws IOException If the file cannot be read.
+     */
+    protected byte[] readFile(final File file) throws IOException
+    {
+        InputStream input = new FileInputStream(file);
+        try {
+            return this.readFully(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    private KeyFactoryInterface factory;
+    private int capacity;
+    private StripedCounter hits;
+    private StripedCounter misses;
+    private StripedCounter evictions;
+    private Map<String, KeyInterface> cache;
+    private byte[] passwordSalt;
+    private Charset asciiCharset;
+}
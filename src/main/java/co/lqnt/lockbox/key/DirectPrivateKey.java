@@ -0,0 +1,577 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import javax.security.auth.Destroyable;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+
+/**
+ * A Lockbox private key that is stored outside of the heap.
+ *
+ * The key components are held in a single direct byte buffer, and decoded
+ * when they are needed, through one scratch array that is sized to the
+ * largest component and zeroed after each decode. Destroying the key zeroes
+ * the private components, after which any use of the private key material
+ * fails. The modulus and public exponent remain available.
+ *
+ * By default, the Bouncy Castle parameters used by the ciphers are decoded
+ * for every call, so that no heap copy of the key material outlives an
+ * operation. Caching of the parameters can be enabled on construction, which
+ * avoids the decode per operation, but keeps a heap copy of the key material
+ * that destroying the key cannot wipe. Components returned by the accessors,
+ * and any Bouncy Castle or JCE keys built from them, are ordinary heap
+ * objects, and cannot be wiped.
+ */
+public class DirectPrivateKey implements PrivateKeyInterface, Destroyable
+{
+    /**
+     * Construct a new direct private key from an existing private key.
+     *
+     * @param key The private key to copy.
+     */
+    public DirectPrivateKey(final PrivateKeyInterface key)
+    {
+        this(key, false);
+    }
+
+    /**
+     * Construct a new direct private key from an existing private key.
+     *
+     * @param key             The private key to copy.
+     * @param cacheParameters True to cache the Bouncy Castle parameters until
+     *     the key is destroyed.
+     */
+    public DirectPrivateKey(
+        final PrivateKeyInterface key,
+        final boolean cacheParameters
+    ) {
+        this(
+            key.modulus(),
+            key.publicExponent(),
+            key.privateExponent(),
+            key.prime1(),
+            key.prime2(),
+            key.primeExponent1(),
+            key.primeExponent2(),
+            key.coefficient(),
+            cacheParameters
+        );
+    }
+
+    /**
+     * Construct a new direct private key.
+     *
+     * @param modulus         The modulus.
+     * @param publicExponent  The public exponent.
+     * @param privateExponent The private exponent.
+     * @param prime1          The first prime, or 'P'.
+     * @param prime2          The second prime, or 'Q'.
+     * @param primeExponent1  The first prime exponent, or 'DP'.
+     * @param primeExponent2  The first prime exponent, or 'DQ'.
+     * @param coefficient     The coefficient, or 'QInv'.
+     */
+    public DirectPrivateKey(
+        final BigInteger modulus,
+        final BigInteger publicExponent,
+        final BigInteger privateExponent,
+        final BigInteger prime1,
+        final BigInteger prime2,
+        final BigInteger primeExponent1,
+        final BigInteger primeExponent2,
+        final BigInteger coefficient
+    ) {
+        this(
+            modulus,
+            publicExponent,
+            privateExponent,
+            prime1,
+            prime2,
+            primeExponent1,
+            primeExponent2,
+            coefficient,
+            false
+        );
+    }
+
+    /**
+     * Construct a new direct private key.
+     *
+     * @param modulus         The modulus.
+     * @param publicExponent  The public exponent.
+     * @param privateExponent The private exponent.
+     * @param prime1          The first prime, or 'P'.
+     * @param prime2          The second prime, or 'Q'.
+     * @param primeExponent1  The first prime exponent, or 'DP'.
+     * @param primeExponent2  The first prime exponent, or 'DQ'.
+     * @param coefficient     The coefficient, or 'QInv'.
+     * @param cacheParameters True to cache the Bouncy Castle parameters until
+     *     the key is destroyed.
+     */
+    public DirectPrivateKey(
+        final BigInteger modulus,
+        final BigInteger publicExponent,
+        final BigInteger privateExponent,
+        final BigInteger prime1,
+        final BigInteger prime2,
+        final BigInteger primeExponent1,
+        final BigInteger primeExponent2,
+        final BigInteger coefficient,
+        final boolean cacheParameters
+    ) {
+        BigInteger[] components = new BigInteger[] {
+            modulus,
+            publicExponent,
+            privateExponent,
+            prime1,
+            prime2,
+            primeExponent1,
+            primeExponent2,
+            coefficient
+        };
+
+        byte[][] encoded = new byte[components.length][];
+        int length = 0;
+        int largest = 0;
+        for (int i = 0; i < components.length; ++i) {
+            encoded[i] = components[i].toByteArray();
+            length += 4 + encoded[i].length;
+            largest = Math.max(largest, encoded[i].length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        for (byte[] component : encoded) {
+            buffer.putInt(component.length);
+            buffer.put(component);
+            Arrays.fill(component, (byte) 0);
+        }
+
+        this.buffer = buffer;
+        this.scratch = new byte[largest];
+        this.privateOffset =
+            8 + encoded[MODULUS].length + encoded[PUBLIC_EXPONENT].length;
+        this.size = modulus.bitLength();
+        this.cacheParameters = cacheParameters;
+    }
+
+    /**
+     * Get the modulus.
+     *
+     * @return The modulus.
+     */
+    public BigInteger modulus()
+    {
+        return this.component(DirectPrivateKey.MODULUS);
+    }
+
+    /**
+     * Get the public exponent.
+     *
+     * @return The public exponent.
+     */
+    public BigInteger publicExponent()
+    {
+        return this.component(DirectPrivateKey.PUBLIC_EXPONENT);
+    }
+
+    /**
+     * Get the private exponent.
+     *
+     * @return The private exponent.
+     */
+    public BigInteger privateExponent()
+    {
+        return this.component(DirectPrivateKey.PRIVATE_EXPONENT);
+    }
+
+    /**
+     * Get the first prime, or 'P'.
+     *
+     * @return The first prime.
+     */
+    public BigInteger prime1()
+    {
+        return this.component(DirectPrivateKey.PRIME_1);
+    }
+
+    /**
+     * Get the second prime, or 'Q'.
+     *
+     * @return The second prime.
+     */
+    public BigInteger prime2()
+    {
+        return this.component(DirectPrivateKey.PRIME_2);
+    }
+
+    /**
+     * Get the first prime exponent, or 'DP'.
+     *
+     * @return The first prime exponent.
+     */
+    public BigInteger primeExponent1()
+    {
+        return this.component(DirectPrivateKey.PRIME_EXPONENT_1);
+    }
+
+    /**
+     * Get the second prime exponent, or 'DQ'.
+     *
+     * @return The second prime exponent.
+     */
+    public BigInteger primeExponent2()
+    {
+        return this.component(DirectPrivateKey.PRIME_EXPONENT_2);
+    }
+
+    /**
+     * Get the coefficient, or 'QInv'.
+     *
+     * @return The coefficient.
+     */
+    public BigInteger coefficient()
+    {
+        return this.component(DirectPrivateKey.COEFFICIENT);
+    }
+
+    /**
+     * Determine whether the Bouncy Castle parameters are cached.
+     *
+     * @return True if the parameters are cached until the key is destroyed.
+     */
+    public boolean cacheParameters()
+    {
+        return this.cacheParameters;
+    }
+
+    /**
+     * Get the size of this key in bits.
+     *
+     * @return The key size.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Get the generic Bouncy Castle asymmetric key parameters.
+     *
+     * @return The generic Bouncy Castle asymmetric key parameters.
+     */
+    public AsymmetricKeyParameter bcKeyParameters()
+    {
+        return this.bcPrivateKeyParameters();
+    }
+
+    /**
+     * Get the public key counterpart for this private key.
+     *
+     * The public key remains available after the key is destroyed.
+     *
+     * @return The public key.
+     */
+    public PublicKey publicKey()
+    {
+        return new PublicKey(this.modulus(), this.publicExponent());
+    }
+
+    /**
+     * Get the Bouncy Castle RSA private key parameters.
+     *
+     * All components are decoded in a single pass over the key material.
+     * Unless caching was enabled on construction, new parameters are built
+     * for every call.
+     *
+     * @return The Bouncy Castle RSA private key parameters.
+     * @throws IllegalStateException If the key has been destroyed.
+     */
+    public synchronized RSAPrivateCrtKeyParameters bcPrivateKeyParameters()
+    {
+        this.assertNotDestroyed();
+
+        if (null != this.parameters) {
+            return this.parameters;
+        }
+
+        BigInteger[] components = this.components();
+        RSAPrivateCrtKeyParameters parameters = new RSAPrivateCrtKeyParameters(
+            components[DirectPrivateKey.MODULUS],
+            components[DirectPrivateKey.PUBLIC_EXPONENT],
+            components[DirectPrivateKey.PRIVATE_EXPONENT],
+            components[DirectPrivateKey.PRIME_1],
+            components[DirectPrivateKey.PRIME_2],
+            components[DirectPrivateKey.PRIME_EXPONENT_1],
+            components[DirectPrivateKey.PRIME_EXPONENT_2],
+            components[DirectPrivateKey.COEFFICIENT]
+        );
+        if (this.cacheParameters) {
+            this.parameters = parameters;
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Get the Bouncy Castle RSA private key.
+     *
+     * @return The BouncyCastle RSA private key.
+     */
+    public RSAPrivateKey bcPrivateKey()
+    {
+        return this.heapKey().bcPrivateKey();
+    }
+
+    /**
+     * Get the Bouncy Castle private key information.
+     *
+     * @return The Bouncy Castle private key information.
+     */
+    public PrivateKeyInfo bcPrivateKeyInfo()
+    {
+        return this.heapKey().bcPrivateKeyInfo();
+    }
+
+    /**
+     * Get the JCE private key.
+     *
+     * @return The JCE private key.
+     */
+    public java.security.PrivateKey jcePrivateKey()
+    {
+        return this.heapKey().jcePrivateKey();
+    }
+
+    /**
+     * Get this key as a PEM formatted string.
+     *
+     * The PEM data is not cached.
+     *
+     * @return The PEM formatted key.
+     */
+    public String toPem()
+    {
+        return this.heapKey().toPem();
+    }
+
+    /**
+     * Get this key as DER encoded PKCS #8 private key information.
+     *
+     * The encoding is not cached.
+     *
+     * @return A read-only view of the DER encoded key.
+     */
+    public ByteBuffer toDer()
+    {
+        return this.heapKey().toDer();
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of this key.
+     *
+     * This is the fingerprint of the corresponding public key. It remains
+     * available after the key is destroyed.
+     *
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint()
+    {
+        return this.cachedFingerprint().clone();
+    }
+
+    /**
+     * Get the identifier of this key.
+     *
+     * @return The key identifier.
+     */
+    public byte[] keyId()
+    {
+        return Arrays.copyOfRange(this.cachedFingerprint(), 0, 8);
+    }
+
+    /**
+     * Zero the private key material, and release the cached parameters.
+     *
+     * Destroying a key more than once has no effect.
+     */
+    public synchronized void destroy()
+    {
+        if (this.destroyed) {
+            return;
+        }
+
+        for (int i = this.privateOffset; i < this.buffer.capacity(); ++i) {
+            this.buffer.put(i, (byte) 0);
+        }
+        this.parameters = null;
+        this.destroyed = true;
+    }
+
+    /**
+     * Determine whether the key material has been zeroed.
+     *
+     * @return True if the key has been destroyed.
+     */
+    public boolean isDestroyed()
+    {
+        return this.destroyed;
+    }
+
+    /**
+     * Get this key as a PEM formatted string.
+     *
+     * @return The PEM formatted key.
+     */
+    @Override
+    public String toString()
+    {
+        return this.toPem();
+    }
+
+    /**
+     * Decode a single key component.
+     *
+     * @param index The index of the component.
+     *
+     * @return The component.
+     * @throws IllegalStateException If the component is private, and the key
+     *     has been destroyed.
+     */
+    protected synchronized BigInteger component(final int index)
+    {
+        if (index >= DirectPrivateKey.PRIVATE_EXPONENT) {
+            this.assertNotDestroyed();
+        }
+
+        int position = 0;
+        for (int i = 0; i < index; ++i) {
+            position += 4 + this.buffer.getInt(position);
+        }
+
+        return this.readComponent(position);
+    }
+
+    /**
+     * Decode all key components.
+     *
+     * @return The components, in storage order.
+     * @throws IllegalStateException If the key has been destroyed.
+     */
+    protected synchronized BigInteger[] components()
+    {
+        this.assertNotDestroyed();
+
+        BigInteger[] components = new BigInteger[8];
+        int position = 0;
+        for (int i = 0; i < components.length; ++i) {
+            components[i] = this.readComponent(position);
+            position += 4 + this.buffer.getInt(position);
+        }
+
+        return components;
+    }
+
+    /**
+     * Decode the component stored at a position, zeroing the scratch array
+     * used to decode it.
+     *
+     * The component is read into the end of the scratch array. Components are
+     * positive, so the zeroed bytes before it do not change its value.
+     * Callers must hold this key's lock.
+     *
+     * @param position The position of the component's length prefix.
+     *
+     * @return The component.
+     */
+    protected BigInteger readComponent(final int position)
+    {
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(position);
+        int length = view.getInt();
+        view.get(this.scratch, this.scratch.length - length, length);
+
+        BigInteger component = new BigInteger(this.scratch);
+        Arrays.fill(this.scratch, (byte) 0);
+
+        return component;
+    }
+
+    /**
+     * Build a transient heap copy of this key.
+     *
+     * @return The heap key.
+     */
+    protected PrivateKey heapKey()
+    {
+        RSAPrivateCrtKeyParameters parameters = this.bcPrivateKeyParameters();
+
+        return new PrivateKey(
+            parameters.getModulus(),
+            parameters.getPublicExponent(),
+            parameters.getExponent(),
+            parameters.getP(),
+            parameters.getQ(),
+            parameters.getDP(),
+            parameters.getDQ(),
+            parameters.getQInv()
+        );
+    }
+
+    /**
+     * Get the fingerprint, calculating it on first use.
+     *
+     * @return The shared fingerprint array, which must not be modified.
+     */
+    protected byte[] cachedFingerprint()
+    {
+        byte[] fingerprint = this.fingerprint;
+        if (null == fingerprint) {
+            fingerprint = this.publicKey().fingerprint();
+            this.fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Assert that the key has not been destroyed.
+     *
+     * @throws IllegalStateException If the key has been destroyed.
+     */
+    protected void assertNotDestroyed()
+    {
+        if (this.destroyed) {
+            throw new IllegalStateException("Key has been destroyed.");
+        }
+    }
+
+    private static final int MODULUS = 0;
+    private static final int PUBLIC_EXPONENT = 1;
+    private static final int PRIVATE_EXPONENT = 2;
+    private static final int PRIME_1 = 3;
+    private static final int PRIME_2 = 4;
+    private static final int PRIME_EXPONENT_1 = 5;
+    private static final int PRIME_EXPONENT_2 = 6;
+    private static final int COEFFICIENT = 7;
+
+    private ByteBuffer buffer;
+    private byte[] scratch;
+    private int privateOffset;
+    private int size;
+    private boolean cacheParameters;
+    private RSAPrivateCrtKeyParameters parameters;
+    private volatile boolean destroyed;
+    private volatile byte[] fingerprint;
+}
@@ -0,0 +1,554 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
+import co.lqnt.lockbox.key.exception.PublicKeyReadException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+/**
+ * A directory of PEM formatted keys that is reloaded as files change.
+ *
+ * Every file ending in ".pem" is loaded. Keys are named after their file,
+ * with the ".pem" extension and any ".private" or ".public" suffix removed, so
+ * that "foo.private.pem" and "foo.public.pem" both provide the key "foo". The
+ * public key of each private key is also available under the same name,
+ * unless a separate public key file exists.
+ *
+ * Lookups read from an immutable snapshot, and never wait on disk access or
+ * key parsing. Refreshes build a new snapshot and publish it atomically. A
+ * file is read again when its size or modification time has changed, or when
+ * it was last read within two seconds of its modification time, since a
+ * modification time with one second granularity cannot distinguish writes
+ * within the same second. Only files whose content digest has changed are
+ * reparsed. A file that fails to parse, such as one that is only partially
+ * written, keeps serving its previous keys until it can be read.
+ */
+public class KeyDirectory implements KeyDirectoryInterface
+{
+    /**
+     * Construct a new key directory.
+     *
+     * @param directory The directory to load keys from.
+     */
+    public KeyDirectory(final File directory)
+    {
+        this(directory, null);
+    }
+
+    /**
+     * Construct a new key directory.
+     *
+     * @param directory The directory to load keys from.
+     * @param password  The password to use to decrypt private keys, or null.
+     */
+    public KeyDirectory(final File directory, final String password)
+    {
+        this(directory, password, new KeyFactory());
+    }
+
+    /**
+     * Construct a new key directory.
+     *
+     * @param directory The directory to load keys from.
+     * @param password  The password to use to decrypt private keys, or null.
+     * @param factory   The key factory to use.
+     */
+    public KeyDirectory(
+        final File directory,
+        final String password,
+        final KeyFactoryInterface factory
+    ) {
+        this(directory, password, factory, 1000);
+    }
+
+    /**
+     * Construct a new key directory.
+     *
+     * @param directory    The directory to load keys from.
+     * @param password     The password to use to decrypt private keys, or
+     *     null.
+     * @param factory      The key factory to use.
+     * @param pollInterval The interval between checks for changes, in
+     *     milliseconds.
+     */
+    public KeyDirectory(
+        final File directory,
+        final String password,
+        final KeyFactoryInterface factory,
+        final long pollInterval
+    ) {
+        if (pollInterval < 1) {
+            throw new IllegalArgumentException(
+                "Poll interval must be at least 1."
+            );
+        }
+
+        this.directory = directory;
+        this.password = password;
+        this.factory = factory;
+        this.pollInterval = pollInterval;
+        this.snapshot = new Snapshot();
+        this.refreshes = new AtomicLong();
+        this.failures = new AtomicLong();
+        this.asciiCharset = Charset.forName("US-ASCII");
+    }
+
+    /**
+     * Get the directory that keys are loaded from.
+     *
+     * @return The directory.
+     */
+    public File directory()
+    {
+        return this.directory;
+    }
+
+    /**
+     * Get the key factory.
+     *
+     * @return The key factory.
+     */
+    public KeyFactoryInterface factory()
+    {
+        return this.factory;
+    }
+
+    /**
+     * Get the interval between checks for changes.
+     *
+     * @return The poll interval, in milliseconds.
+     */
+    public long pollInterval()
+    {
+        return this.pollInterval;
+    }
+
+    /**
+     * Get a private key by name.
+     *
+     * @param name The key name.
+     *
+     * @return The private key, or null if no such key is loaded.
+     */
+    public PrivateKey privateKey(final String name)
+    {
+        return this.snapshot.privateKeys.get(name);
+    }
+
+    /**
+     * Get a public key by name.
+     *
+     * @param name The key name.
+     *
+     * @return The public key, or null if no such key is loaded.
+     */
+    public PublicKey publicKey(final String name)
+    {
+        return this.snapshot.publicKeys.get(name);
+    }
+
+    /**
+     * Get all loaded private keys, indexed by name.
+     *
+     * @return The private keys.
+     */
+    public Map<String, PrivateKey> privateKeys()
+    {
+        return this.snapshot.privateKeys;
+    }
+
+    /**
+     * Get all loaded public keys, indexed by name.
+     *
+     * @return The public keys.
+     */
+    public Map<String, PublicKey> publicKeys()
+    {
+        return this.snapshot.publicKeys;
+    }
+
+    /**
+     * Get the number of completed refreshes.
+     *
+     * @return The number of refreshes.
+     */
+    public long refreshes()
+    {
+        return this.refreshes.get();
+    }
+
+    /**
+     * Get the number of key files that failed to load.
+     *
+     * @return The number of failures.
+     */
+    public long failures()
+    {
+        return this.failures.get();
+    }
+
+    /**
+     * Reload any key files that have been added, changed, or removed.
+     */
+    public synchronized void refresh()
+    {
+        File[] files = this.directory().listFiles(
+            new FileFilter() {
+                public boolean accept(final File file)
+                {
+                    return file.isFile() && file.getName().endsWith(".pem");
+                }
+            }
+        );
+        if (null == files) {
+            return;
+        }
+
+        Snapshot previous = this.snapshot;
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        for (File file : files) {
+            Entry entry = previous.entries.get(file.getName());
+            long checked = System.currentTimeMillis();
+            long length = file.length();
+            long lastModified = file.lastModified();
+
+            if (
+                null == entry ||
+                entry.length != length ||
+                entry.lastModified != lastModified ||
+                entry.checked - entry.lastModified < RACY_INTERVAL
+            ) {
+                Entry loaded =
+                    this.load(file, length, lastModified, checked, entry);
+                if (null != loaded) {
+                    entry = loaded;
+                }
+            }
+
+            if (null != entry) {
+                entries.put(file.getName(), entry);
+            }
+        }
+
+        this.snapshot = new Snapshot(entries);
+        this.refreshes.incrementAndGet();
+    }
+
+    /**
+     * Start watching the directory for changes in the background.
+     *
+     * The directory is loaded before this method returns.
+     */
+    public synchronized void start()
+    {
+        if (null != this.executor) {
+            return;
+        }
+
+        this.refresh();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                public Thread newThread(final Runnable runnable)
+                {
+                    Thread thread = new Thread(
+                        runnable,
+                        "lockbox-key-directory"
+                    );
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            }
+        );
+        this.executor.scheduleWithFixedDelay(
+            new Runnable() {
+                public void run()
+                {
+                    try {
+                        KeyDirectory.this.refresh();
+                    } catch (RuntimeException e) {
+                        KeyDirectory.this.failures.incrementAndGet();
+                    }
+                }
+            },
+            this.pollInterval(),
+            this.pollInterval(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Stop watching the directory for changes.
+     */
+    public synchronized void stop()
+    {
+        if (null == this.executor) {
+            return;
+        }
+
+        this.executor.shutdownNow();
+        this.executor = null;
+    }
+
+    /**
+     * Load the keys from a single file.
+     *
+     * If the content is unchanged from the previous entry, its keys are
+     * reused without parsing.
+     *
+     * @param file         The file.
+     * @param length       The file size at the time of the check.
+     * @param lastModified The file modification time at the time of the check.
+     * @param checked      The time of the check.
+     * @param previous     The previous entry for the file, or null.
+     *
+     * @return The loaded entry, or null if the file could not be loaded.
+     */
+    protected Entry load(
+        final File file,
+        final long length,
+        final long lastModified,
+        final long checked,
+        final Entry previous
+    ) {
+        String name = this.keyName(file);
+        byte[] data;
+        try {
+            data = this.read(file);
+        } catch (IOException e) {
+            this.failures.incrementAndGet();
+
+            return null;
+        }
+
+        byte[] digest = this.digest(data);
+        if (null != previous && Arrays.equals(previous.digest, digest)) {
+            return new Entry(
+                name,
+                length,
+                lastModified,
+                checked,
+                digest,
+                previous.privateKey,
+                previous.publicKey
+            );
+        }
+
+        PrivateKey privateKey = null;
+        PublicKey publicKey;
+        try {
+            if (this.isPrivateKey(data)) {
+                if (null == this.password) {
+                    privateKey = this.factory().createPrivateKey(data);
+                } else {
+                    privateKey = this.factory()
+                        .createPrivateKey(data, this.password);
+                }
+                publicKey = privateKey.publicKey();
+            } else {
+                publicKey = this.factory().createPublicKey(data);
+            }
+        } catch (PrivateKeyReadException e) {
+            this.failures.incrementAndGet();
+
+            return null;
+        } catch (PublicKeyReadException e) {
+            this.failures.incrementAndGet();
+
+            return null;
+        }
+
+        return new Entry(
+            name,
+            length,
+            lastModified,
+            checked,
+            digest,
+            privateKey,
+            publicKey
+        );
+    }
+
+    /**
+     * Determine the key name for a file.
+     *
+     * @param file The file.
+     *
+     * @return The key name.
+     */
+    protected String keyName(final File file)
+    {
+        String name = file.getName();
+        name = name.substring(0, name.length() - ".pem".length());
+
+        if (name.endsWith(".private")) {
+            return name.substring(0, name.length() - ".private".length());
+        }
+        if (name.endsWith(".public")) {
+            return name.substring(0, name.length() - ".public".length());
+        }
+
+        return name;
+    }
+
+    /**
+     * Determine whether PEM data contains a private key.
+     *
+     * @param data The PEM data.
+     *
+     * @return True if the data contains a private key.
+     */
+    protected boolean isPrivateKey(final byte[] data)
+    {
+        return new String(data, this.asciiCharset).contains("PRIVATE KEY");
+    }
+
+    /**
+     * Compute the SHA-256 digest of file content.
+     *
+     * @param data The file content.
+     *
+     * @return The digest.
+     */
+    protected byte[] digest(final byte[] data)
+    {
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.update(data, 0, data.length);
+        digest.doFinal(hash, 0);
+
+        return hash;
+    }
+
+    /**
+     * Read a file in full.
+     *
+     * @param file The file.
+     *
+     * @return The file content.
+     * @throws IOException If the file cannot be read.
+     */
+    protected byte[] read(final File file) throws IOException
+    {
+        InputStream input = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while (-1 != (length = input.read(buffer))) {
+                output.write(buffer, 0, length);
+            }
+
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Holds the keys loaded from a single file.
+     */
+    protected static class Entry
+    {
+        Entry(
+            final String name,
+            final long length,
+            final long lastModified,
+            final long checked,
+            final byte[] digest,
+            final PrivateKey privateKey,
+            final PublicKey publicKey
+        ) {
+            this.name = name;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checked = checked;
+            this.digest = digest;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+        }
+
+        final String name;
+        final long length;
+        final long lastModified;
+        final long checked;
+        final byte[] digest;
+        final PrivateKey privateKey;
+        final PublicKey publicKey;
+    }
+
+    /**
+     * An immutable view of the loaded keys.
+     */
+    protected static class Snapshot
+    {
+        Snapshot()
+        {
+            this(new HashMap<String, Entry>());
+        }
+
+        Snapshot(final Map<String, Entry> entries)
+        {
+            Map<String, PrivateKey> privateKeys =
+                new HashMap<String, PrivateKey>();
+            Map<String, PublicKey> publicKeys =
+                new HashMap<String, PublicKey>();
+
+            for (Entry entry : entries.values()) {
+                if (null != entry.privateKey) {
+                    privateKeys.put(entry.name, entry.privateKey);
+                    if (!publicKeys.containsKey(entry.name)) {
+                        publicKeys.put(entry.name, entry.publicKey);
+                    }
+                } else {
+                    publicKeys.put(entry.name, entry.publicKey);
+                }
+            }
+
+            this.entries = Collections.unmodifiableMap(entries);
+            this.privateKeys = Collections.unmodifiableMap(privateKeys);
+            this.publicKeys = Collections.unmodifiableMap(publicKeys);
+        }
+
+        final Map<String, Entry> entries;
+        final Map<String, PrivateKey> privateKeys;
+        final Map<String, PublicKey> publicKeys;
+    }
+
+    private static final long RACY_INTERVAL = 2000;
+
+    private File directory;
+    private String password;
+    private KeyFactoryInterface factory;
+    private long pollInterval;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService executor;
+    private AtomicLong refreshes;
+    private AtomicLong failures;
+    private Charset asciiCharset;
+}
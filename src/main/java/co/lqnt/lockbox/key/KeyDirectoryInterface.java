@@ -0,0 +1,73 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * The interface implemented by directories of keys.
+ */
+public interface KeyDirectoryInterface
+{
+    /**
+     * Get the directory that keys are loaded from.
+     *
+     * @return The directory.
+     */
+    public File directory();
+
+    /**
+     * Get a private key by name.
+     *
+     * @param name The key name.
+     *
+     * @return The private key, or null if no such key is loaded.
+     */
+    public PrivateKey privateKey(final String name);
+
+    /**
+     * Get a public key by name.
+     *
+     * @param name The key name.
+     *
+     * @return The public key, or null if no such key is loaded.
+     */
+    public PublicKey publicKey(final String name);
+
+    /**
+     * Get all loaded private keys, indexed by name.
+     *
+     * @return The private keys.
+     */
+    public Map<String, PrivateKey> privateKeys();
+
+    /**
+     * Get all loaded public keys, indexed by name.
+     *
+     * @return The public keys.
+     */
+    public Map<String, PublicKey> publicKeys();
+
+    /**
+     * Reload any key files that have been added, changed, or removed.
+     */
+    public void refresh();
+
+    /**
+     * Start watching the directory for changes in the background.
+     */
+    public void start();
+
+    /**
+     * Stop watching the directory for changes.
+     */
+    public void stop();
+}
@@ -12,9 +12,12 @@ package co.lqnt.lockbox.key;
 import co.lqnt.lockbox.util.PemParserFactory;
 import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
 import co.lqnt.lockbox.key.exception.PublicKeyReadException;
+import co.lqnt.lockbox.metrics.KeyMetricsListenerInterface;
+import co.lqnt.lockbox.metrics.NullMetricsListener;
 import co.lqnt.lockbox.util.BcKeyParametersFactory;
 import co.lqnt.lockbox.util.BcKeyParametersFactoryInterface;
 import co.lqnt.lockbox.util.PemParserFactoryInterface;
+import co.lqnt.lockbox.util.ProviderRegistry;
 import co.lqnt.lockbox.util.SecureRandom;
 import co.lqnt.lockbox.util.SecureRandomInterface;
 import java.io.ByteArrayInputStream;
@@ -24,8 +27,34 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.bouncycastle.asn1.pkcs.RSAPublicKey;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
 import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
@@ -56,7 +85,18 @@ public class KeyFactory implements KeyFactoryInterface
      */
     public KeyFactory()
     {
-        BouncyCastleProvider provider = new BouncyCastleProvider();
+        this(new RSAKeyPairGenerator());
+    }
+
+    /**
+     * Construct a new key factory.
+     *
+     * @param keyGenerator The key generator to use.
+     */
+    public KeyFactory(final AsymmetricCipherKeyPairGenerator keyGenerator)
+    {
+        BouncyCastleProvider provider =
+            ProviderRegistry.bouncyCastleProvider();
 
         this.pemParserFactory = new PemParserFactory();
         this.bcKeyParametersFactory = new BcKeyParametersFactory();
@@ -68,8 +108,21 @@ public class KeyFactory implements KeyFactoryInterface
             new JceOpenSSLPKCS8DecryptorProviderBuilder();
         this.pkcs8DecryptorProviderBuilder.setProvider(provider);
 
-        this.keyGenerator = new RSAKeyPairGenerator();
+        this.keyGenerator = keyGenerator;
         this.random = new SecureRandom();
+        this.metricsListener = new NullMetricsListener();
+    }
+
+    /**
+     * Construct a new key factory that reports metrics.
+     *
+     * @param metricsListener The metrics listener to report to.
+     */
+    public KeyFactory(final KeyMetricsListenerInterface metricsListener)
+    {
+        this();
+
+        this.metricsListener = metricsListener;
     }
 
     /**
@@ -90,6 +143,38 @@ public class KeyFactory implements KeyFactoryInterface
             pkcs8DecryptorProviderBuilder,
         final AsymmetricCipherKeyPairGenerator keyGenerator,
         final SecureRandomInterface random
+    ) {
+        this(
+            pemParserFactory,
+            bcPublicKeyParametersFactory,
+            pemDecryptorProviderBuilder,
+            pkcs8DecryptorProviderBuilder,
+            keyGenerator,
+            random,
+            new NullMetricsListener()
+        );
+    }
+
+    /**
+     * Construct a new key factory.
+     *
+     * @param pemParserFactory              The PEM parser factory to use.
+     * @param bcPublicKeyParametersFactory  The public key parameters factory to use.
+     * @param pemDecryptorProviderBuilder   The PEM decryptor provider builder to use.
+     * @param pkcs8DecryptorProviderBuilder The PKCS #8 decryptor provider builder to use.
+     * @param keyGenerator                  The key generator to use.
+     * @param random                        The secure random generator to use.
+     * @param metricsListener               The metrics listener to report to.
+     */
+    public KeyFactory(
+        final PemParserFactoryInterface pemParserFactory,
+        final BcKeyParametersFactoryInterface bcPublicKeyParametersFactory,
+        final JcePEMDecryptorProviderBuilder pemDecryptorProviderBuilder,
+        final JceOpenSSLPKCS8DecryptorProviderBuilder
+            pkcs8DecryptorProviderBuilder,
+        final AsymmetricCipherKeyPairGenerator keyGenerator,
+        final SecureRandomInterface random,
+        final KeyMetricsListenerInterface metricsListener
     ) {
         this.pemParserFactory = pemParserFactory;
         this.bcKeyParametersFactory = bcPublicKeyParametersFactory;
@@ -97,6 +182,7 @@ public class KeyFactory implements KeyFactoryInterface
         this.pkcs8DecryptorProviderBuilder = pkcs8DecryptorProviderBuilder;
         this.keyGenerator = keyGenerator;
         this.random = random;
+        this.metricsListener = metricsListener;
     }
 
     /**
@@ -160,6 +246,16 @@ public class KeyFactory implements KeyFactoryInterface
         return this.random;
     }
 
+    /**
+     * Get the metrics listener.
+     *
+     * @return The metrics listener.
+     */
+    public KeyMetricsListenerInterface metricsListener()
+    {
+        return this.metricsListener;
+    }
+
     /**
      * Generate a new private key.
      *
@@ -173,11 +269,36 @@ public class KeyFactory implements KeyFactoryInterface
     /**
      * Generate a new private key.
      *
+     * The key generator is shared, so concurrent calls are serialized.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key.
+     */
+    public synchronized PrivateKey generatePrivateKey(final int size)
+    {
+        if (!this.metricsListener().isEnabled()) {
+            return this.generateKey(size);
+        }
+
+        long start = System.nanoTime();
+        PrivateKey privateKey = this.generateKey(size);
+        this.metricsListener().privateKeyGenerated(
+            privateKey,
+            System.nanoTime() - start
+        );
+
+        return privateKey;
+    }
+
+    /**
+     * Generate a new private key, without reporting metrics.
+     *
      * @param size The size of the key in bits.
      *
      * @return The private key.
      */
-    public PrivateKey generatePrivateKey(final int size)
+    protected PrivateKey generateKey(final int size)
     {
         this.keyGenerator().init(
             new RSAKeyGenerationParameters(
@@ -223,6 +344,48 @@ public class KeyFactory implements KeyFactoryInterface
      */
     public PrivateKey createPrivateKey(final InputStream input)
         throws PrivateKeyReadException
+    {
+        if (!this.metricsListener().isEnabled()) {
+            return this.parsePrivateKey(input);
+        }
+
+        long start = System.nanoTime();
+        PrivateKey privateKey;
+        try {
+            privateKey = this.parsePrivateKey(input);
+        } catch (PrivateKeyReadException e) {
+            this.metricsListener().privateKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
+        } catch (RuntimeException e) {
+            this.metricsListener().privateKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
+        }
+
+        this.metricsListener().privateKeyLoaded(
+            privateKey,
+            System.nanoTime() - start
+        );
+
+        return privateKey;
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key, without reporting
+     * metrics.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey parsePrivateKey(final InputStream input)
+        throws PrivateKeyReadException
     {
         Object pemObject;
         try {
@@ -311,6 +474,52 @@ public class KeyFactory implements KeyFactoryInterface
         final String password
     )
         throws PrivateKeyReadException
+    {
+        if (!this.metricsListener().isEnabled()) {
+            return this.parsePrivateKey(input, password);
+        }
+
+        long start = System.nanoTime();
+        PrivateKey privateKey;
+        try {
+            privateKey = this.parsePrivateKey(input, password);
+        } catch (PrivateKeyReadException e) {
+            this.metricsListener().privateKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
+        } catch (RuntimeException e) {
+            this.metricsListener().privateKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
+        }
+
+        this.metricsListener().privateKeyLoaded(
+            privateKey,
+            System.nanoTime() - start
+        );
+
+        return privateKey;
+    }
+
+    /**
+     * Create a private key from a PEM formatted private key, without reporting
+     * metrics.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the key.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey parsePrivateKey(
+        final InputStream input,
+        final String password
+    )
+        throws PrivateKeyReadException
     {
         Object pemObject;
         try {
@@ -410,39 +619,60 @@ public class KeyFactory implements KeyFactoryInterface
     public PublicKey createPublicKey(final InputStream input)
         throws PublicKeyReadException
     {
-        Object pemObject;
-        try {
-            pemObject = this.parsePemObject(input);
-        } catch (PEMException e) {
-            throw new PublicKeyReadException(e);
+        if (!this.metricsListener().isEnabled()) {
+            return this.parsePublicKey(input);
         }
 
-        SubjectPublicKeyInfo publicKeyInfo;
-        if (pemObject instanceof SubjectPublicKeyInfo) {
-            publicKeyInfo = (SubjectPublicKeyInfo) pemObject;
-        } else {
-            throw new PublicKeyReadException();
+        long start = System.nanoTime();
+        PublicKey publicKey;
+        try {
+            publicKey = this.parsePublicKey(input);
+        } catch (PublicKeyReadException e) {
+            this.metricsListener().publicKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
+        } catch (RuntimeException e) {
+            this.metricsListener().publicKeyLoadFailed(
+                System.nanoTime() - start
+            );
+
+            throw e;
         }
 
-        AsymmetricKeyParameter keyParameter;
+        this.metricsListener().publicKeyLoaded(
+            publicKey,
+            System.nanoTime() - start
+        );
+
+        return publicKey;
+    }
+
+    /**
+     * Create a public key from a PEM formatted public key, without reporting
+     * metrics.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public key
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    protected PublicKey parsePublicKey(final InputStream input)
+        throws PublicKeyReadException
+    {
+        Object pemObject;
         try {
-            keyParameter = this.bcKeyParametersFactory()
-                .createPublicKeyParameters(publicKeyInfo);
-        } catch (IOException e) {
+            pemObject = this.parsePemObject(input);
+        } catch (PEMException e) {
             throw new PublicKeyReadException(e);
         }
 
-        RSAKeyParameters publicKeyParameters;
-        if (keyParameter instanceof RSAKeyParameters) {
-            publicKeyParameters = (RSAKeyParameters) keyParameter;
-        } else {
+        if (!(pemObject instanceof SubjectPublicKeyInfo)) {
             throw new PublicKeyReadException();
         }
 
-        return new PublicKey(
-            publicKeyParameters.getModulus(),
-            publicKeyParameters.getExponent()
-        );
+        return this.convertPublicKey((SubjectPublicKeyInfo) pemObject);
     }
 
     /**
@@ -501,110 +731,804 @@ public class KeyFactory implements KeyFactoryInterface
     }
 
     /**
-     * Parses PEM data and returns a specialized object.
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
      *
      * @param input The PEM data to read.
      *
-     * @return The specialized object.
-     * @throws PEMException If the PEM data is invalid.
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
      */
-    protected Object parsePemObject(final InputStream input) throws PEMException
+    public List<PrivateKey> createPrivateKeys(final InputStream input)
+        throws PrivateKeyReadException
     {
-        PEMParser parser = this.pemParserFactory.create(input);
-        Object pemObject;
-        try {
-            pemObject = parser.readObject();
-        } catch (IOException e) {
-            throw new PEMException("Unable to read PEM stream.", e);
-        }
-
-        if (null == pemObject) {
-            throw new PEMException("No PEM data found.");
-        }
+        return this.readPrivateKeys(input, null);
+    }
 
-        return pemObject;
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKeys(new ByteArrayInputStream(input));
     }
 
     /**
-     * Decrypts an encrypted PEM key pair.
+     * Create private keys from PEM data containing any number of PEM objects.
      *
-     * @param encryptedKeyPair The key pair to decrypt.
-     * @param password         The password to use.
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
      *
-     * @return The decrypted private key.
-     * @throws PrivateKeyReadException If reading of the private key fails.
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
      */
-    protected PrivateKey decryptPemKeyPair(
-        PEMEncryptedKeyPair encryptedKeyPair,
-        String password
-    )
+    public List<PrivateKey> createPrivateKeys(final String input)
         throws PrivateKeyReadException
     {
-        PEMDecryptorProvider decryptorProvider =
-            this.pemDecryptorProviderBuilder().build(password.toCharArray());
+        return this.createPrivateKeys(
+            input.getBytes(Charset.forName("US-ASCII"))
+        );
+    }
 
-        PEMKeyPair pemKeyPair;
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final File input)
+        throws PrivateKeyReadException
+    {
+        InputStream inputStream = null;
+        List<PrivateKey> privateKeys;
         try {
-            pemKeyPair = encryptedKeyPair.decryptKeyPair(decryptorProvider);
-        } catch (IOException e) {
+            inputStream = new FileInputStream(input);
+            privateKeys = this.createPrivateKeys(inputStream);
+        } catch (FileNotFoundException e) {
             throw new PrivateKeyReadException(e);
+        } finally {
+            this.closeInputStream(inputStream);
         }
 
-        return this.convertPrivateKey(pemKeyPair.getPrivateKeyInfo());
+        return privateKeys;
     }
 
     /**
-     * Decrypts an encrypted PKCS #8 private key.
+     * Create private keys from PEM data containing any number of PEM objects.
      *
-     * @param encryptedPrivateKey The encrypted private key information.
-     * @param password            The password to use.
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
      *
-     * @return The decrypted private key.
-     * @throws PrivateKeyReadException If reading of the private key fails.
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
      */
-    protected PrivateKey decryptPkcs8PrivateKey(
-        PKCS8EncryptedPrivateKeyInfo encryptedPrivateKey,
-        String password
+    public List<PrivateKey> createPrivateKeys(
+        final InputStream input,
+        final String password
     )
         throws PrivateKeyReadException
     {
-        InputDecryptorProvider decryptorProvider;
-        try {
-            decryptorProvider = this.pkcs8DecryptorProviderBuilder()
-                .build(password.toCharArray());
-        } catch (OperatorCreationException e) {
-            throw new PrivateKeyReadException(e);
-        }
-
-        PrivateKeyInfo privateKeyInfo;
-        try {
-            privateKeyInfo = encryptedPrivateKey.decryptPrivateKeyInfo(
-                decryptorProvider
-            );
-        } catch (PKCSException e) {
-            throw new PrivateKeyReadException(e);
-        }
-
-        return this.convertPrivateKey(privateKeyInfo);
+        return this.readPrivateKeys(input, password);
     }
 
     /**
-     * Convert Bouncy Castle private key info to a Lockbox private key.
+     * Create private keys from PEM data containing any number of PEM objects.
      *
-     * @param keyInformation The private key information.
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
      *
-     * @return The private key.
-     * @throws PrivateKeyReadException If reading of the private key fails.
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
      */
-    protected PrivateKey convertPrivateKey(final PrivateKeyInfo keyInformation)
+    public List<PrivateKey> createPrivateKeys(
+        final byte[] input,
+        final String password
+    )
         throws PrivateKeyReadException
     {
-        AsymmetricKeyParameter keyParameter;
-        try {
-            keyParameter = this.bcKeyParametersFactory()
+        return this.createPrivateKeys(
+            new ByteArrayInputStream(input),
+            password
+        );
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final String input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKeys(
+            input.getBytes(Charset.forName("US-ASCII")),
+            password
+        );
+    }
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final File input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        InputStream inputStream = null;
+        List<PrivateKey> privateKeys;
+        try {
+            inputStream = new FileInputStream(input);
+            privateKeys = this.createPrivateKeys(inputStream, password);
+        } catch (FileNotFoundException e) {
+            throw new PrivateKeyReadException(e);
+        } finally {
+            this.closeInputStream(inputStream);
+        }
+
+        return privateKeys;
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final InputStream input)
+        throws PublicKeyReadException
+    {
+        return this.readPublicKeys(input);
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final byte[] input)
+        throws PublicKeyReadException
+    {
+        return this.createPublicKeys(new ByteArrayInputStream(input));
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final String input)
+        throws PublicKeyReadException
+    {
+        return this.createPublicKeys(
+            input.getBytes(Charset.forName("US-ASCII"))
+        );
+    }
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final File input)
+        throws PublicKeyReadException
+    {
+        InputStream inputStream = null;
+        List<PublicKey> publicKeys;
+        try {
+            inputStream = new FileInputStream(input);
+            publicKeys = this.createPublicKeys(inputStream);
+        } catch (FileNotFoundException e) {
+            throw new PublicKeyReadException(e);
+        } finally {
+            this.closeInputStream(inputStream);
+        }
+
+        return publicKeys;
+    }
+
+    /**
+     * Create private keys from every RSA key entry in a key store.
+     *
+     * The key store is read in a single pass, and each key is converted
+     * directly, without an intermediate PEM encoding. Entries that are not
+     * RSA private keys are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        char[] passwordChars = this.keyStorePassword(password);
+        List<PrivateKey> privateKeys = new ArrayList<PrivateKey>();
+        for (String alias : this.keyStoreKeyAliases(keyStore)) {
+            PrivateKey privateKey =
+                this.convertKeyStoreEntry(keyStore, alias, passwordChars);
+            if (null != privateKey) {
+                privateKeys.add(privateKey);
+            }
+        }
+
+        return privateKeys;
+    }
+
+    /**
+     * Create private keys from every RSA key entry in a key store, recovering
+     * the keys in parallel.
+     *
+     * Key recovery usually involves a password based key derivation for each
+     * entry, so recovering entries concurrently reduces the time taken to
+     * load large key stores. The key store must not be modified while it is
+     * being read.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     * @param executor The executor to recover the keys on.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password,
+        final ExecutorService executor
+    )
+        throws PrivateKeyReadException
+    {
+        final char[] passwordChars = this.keyStorePassword(password);
+        List<Future<PrivateKey>> futures = new ArrayList<Future<PrivateKey>>();
+        for (final String alias : this.keyStoreKeyAliases(keyStore)) {
+            futures.add(
+                executor.submit(
+                    new Callable<PrivateKey>() {
+                        public PrivateKey call()
+                            throws PrivateKeyReadException
+                        {
+                            return KeyFactory.this.convertKeyStoreEntry(
+                                keyStore,
+                                alias,
+                                passwordChars
+                            );
+                        }
+                    }
+                )
+            );
+        }
+
+        List<PrivateKey> privateKeys = new ArrayList<PrivateKey>();
+        try {
+            for (Future<PrivateKey> future : futures) {
+                PrivateKey privateKey = future.get();
+                if (null != privateKey) {
+                    privateKeys.add(privateKey);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new PrivateKeyReadException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PrivateKeyReadException) {
+                throw (PrivateKeyReadException) e.getCause();
+            }
+
+            throw new PrivateKeyReadException(e.getCause());
+        } finally {
+            for (Future<PrivateKey> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return privateKeys;
+    }
+
+    /**
+     * Create public keys from the certificate of every entry in a key store.
+     *
+     * Both key entries and trusted certificate entries are read. Entries
+     * without an RSA certificate are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     *
+     * @return The public keys, in alias order.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final KeyStore keyStore)
+        throws PublicKeyReadException
+    {
+        List<PublicKey> publicKeys = new ArrayList<PublicKey>();
+        try {
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                Certificate certificate =
+                    keyStore.getCertificate(aliases.nextElement());
+                if (
+                    null != certificate &&
+                    certificate.getPublicKey() instanceof
+                        java.security.interfaces.RSAPublicKey
+                ) {
+                    java.security.interfaces.RSAPublicKey rsaPublicKey =
+                        (java.security.interfaces.RSAPublicKey)
+                            certificate.getPublicKey();
+                    publicKeys.add(
+                        new PublicKey(
+                            rsaPublicKey.getModulus(),
+                            rsaPublicKey.getPublicExponent()
+                        )
+                    );
+                }
+            }
+        } catch (KeyStoreException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return publicKeys;
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKeyFromDer(this.bufferContent(input));
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        return this.createPrivateKeyFromDer(new ByteArrayInputStream(input));
+    }
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        PrivateKeyInfo keyInformation;
+        try {
+            ASN1Sequence sequence = this.parseDerSequence(input);
+            if (
+                sequence.size() > 1 &&
+                sequence.getObjectAt(1) instanceof ASN1Integer
+            ) {
+                if (9 > sequence.size()) {
+                    throw new PrivateKeyReadException();
+                }
+
+                keyInformation = new PrivateKeyInfo(
+                    new AlgorithmIdentifier(
+                        PKCSObjectIdentifiers.rsaEncryption,
+                        DERNull.INSTANCE
+                    ),
+                    RSAPrivateKey.getInstance(sequence)
+                );
+            } else {
+                keyInformation = PrivateKeyInfo.getInstance(sequence);
+            }
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (IllegalArgumentException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (ClassCastException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.convertPrivateKey(keyInformation);
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final ByteBuffer input)
+        throws PublicKeyReadException
+    {
+        return this.createPublicKeyFromDer(this.bufferContent(input));
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final byte[] input)
+        throws PublicKeyReadException
+    {
+        return this.createPublicKeyFromDer(new ByteArrayInputStream(input));
+    }
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final InputStream input)
+        throws PublicKeyReadException
+    {
+        SubjectPublicKeyInfo publicKeyInfo;
+        try {
+            ASN1Sequence sequence = this.parseDerSequence(input);
+            if (
+                sequence.size() > 0 &&
+                sequence.getObjectAt(0) instanceof ASN1Integer
+            ) {
+                publicKeyInfo = new SubjectPublicKeyInfo(
+                    new AlgorithmIdentifier(
+                        PKCSObjectIdentifiers.rsaEncryption,
+                        DERNull.INSTANCE
+                    ),
+                    RSAPublicKey.getInstance(sequence)
+                );
+            } else {
+                publicKeyInfo = SubjectPublicKeyInfo.getInstance(sequence);
+            }
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        } catch (IllegalArgumentException e) {
+            throw new PublicKeyReadException(e);
+        } catch (ClassCastException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return this.convertPublicKey(publicKeyInfo);
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException
+    {
+        return this.createLazyPrivateKeyFromDer(this.bufferContent(input));
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException
+    {
+        return this.createLazyPrivateKeyFromDer(
+            new ByteArrayInputStream(input)
+        );
+    }
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * Only the modulus and public exponent are decoded. The private
+     * components are decoded when the key is first used as a private key.
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException
+    {
+        PrivateKeyInfo keyInformation;
+        ASN1Sequence rsaSequence;
+        try {
+            ASN1Sequence sequence = this.parseDerSequence(input);
+            if (
+                sequence.size() > 1 &&
+                sequence.getObjectAt(1) instanceof ASN1Integer
+            ) {
+                rsaSequence = sequence;
+                keyInformation = new PrivateKeyInfo(
+                    new AlgorithmIdentifier(
+                        PKCSObjectIdentifiers.rsaEncryption,
+                        DERNull.INSTANCE
+                    ),
+                    sequence
+                );
+            } else {
+                keyInformation = PrivateKeyInfo.getInstance(sequence);
+                if (
+                    !PKCSObjectIdentifiers.rsaEncryption.equals(
+                        keyInformation.getPrivateKeyAlgorithm().getAlgorithm()
+                    )
+                ) {
+                    throw new PrivateKeyReadException();
+                }
+
+                rsaSequence = ASN1Sequence.getInstance(
+                    keyInformation.parsePrivateKey()
+                );
+            }
+
+            if (9 > rsaSequence.size()) {
+                throw new PrivateKeyReadException();
+            }
+
+            return new LazyPrivateKey(
+                keyInformation.getEncoded(ASN1Encoding.DER),
+                ASN1Integer.getInstance(rsaSequence.getObjectAt(1))
+                    .getPositiveValue(),
+                ASN1Integer.getInstance(rsaSequence.getObjectAt(2))
+                    .getPositiveValue()
+            );
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (IllegalArgumentException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (ClassCastException e) {
+            throw new PrivateKeyReadException(e);
+        }
+    }
+
+    /**
+     * Parses PEM data and returns a specialized object.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The specialized object.
+     * @throws PEMException If the PEM data is invalid.
+     */
+    protected Object parsePemObject(final InputStream input) throws PEMException
+    {
+        PEMParser parser = this.pemParserFactory.create(input);
+        Object pemObject;
+        try {
+            pemObject = parser.readObject();
+        } catch (IOException e) {
+            throw new PEMException("Unable to read PEM stream.", e);
+        }
+
+        if (null == pemObject) {
+            throw new PEMException("No PEM data found.");
+        }
+
+        return pemObject;
+    }
+
+    /**
+     * Parses a single DER encoded sequence.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The sequence.
+     * @throws IOException If the DER data is invalid, or is not a sequence.
+     */
+    protected ASN1Sequence parseDerSequence(final InputStream input)
+        throws IOException
+    {
+        ASN1Primitive derObject = new ASN1InputStream(input).readObject();
+        if (!(derObject instanceof ASN1Sequence)) {
+            throw new IOException("No DER sequence found.");
+        }
+
+        return (ASN1Sequence) derObject;
+    }
+
+    /**
+     * Get the remaining content of a buffer, without modifying its position.
+     *
+     * @param buffer The buffer.
+     *
+     * @return The remaining content.
+     */
+    protected byte[] bufferContent(final ByteBuffer buffer)
+    {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.duplicate().get(content);
+
+        return content;
+    }
+
+    /**
+     * Decrypts an encrypted PEM key pair.
+     *
+     * @param encryptedKeyPair The key pair to decrypt.
+     * @param password         The password to use.
+     *
+     * @return The decrypted private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey decryptPemKeyPair(
+        PEMEncryptedKeyPair encryptedKeyPair,
+        String password
+    )
+        throws PrivateKeyReadException
+    {
+        PEMDecryptorProvider decryptorProvider =
+            this.pemDecryptorProviderBuilder().build(password.toCharArray());
+
+        PEMKeyPair pemKeyPair;
+        try {
+            pemKeyPair = encryptedKeyPair.decryptKeyPair(decryptorProvider);
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.convertPrivateKey(pemKeyPair.getPrivateKeyInfo());
+    }
+
+    /**
+     * Decrypts an encrypted PKCS #8 private key.
+     *
+     * @param encryptedPrivateKey The encrypted private key information.
+     * @param password            The password to use.
+     *
+     * @return The decrypted private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey decryptPkcs8PrivateKey(
+        PKCS8EncryptedPrivateKeyInfo encryptedPrivateKey,
+        String password
+    )
+        throws PrivateKeyReadException
+    {
+        InputDecryptorProvider decryptorProvider;
+        try {
+            decryptorProvider = this.pkcs8DecryptorProviderBuilder()
+                .build(password.toCharArray());
+        } catch (OperatorCreationException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        PrivateKeyInfo privateKeyInfo;
+        try {
+            privateKeyInfo = encryptedPrivateKey.decryptPrivateKeyInfo(
+                decryptorProvider
+            );
+        } catch (PKCSException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return this.convertPrivateKey(privateKeyInfo);
+    }
+
+    /**
+     * Convert Bouncy Castle private key info to a Lockbox private key.
+     *
+     * @param keyInformation The private key information.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey convertPrivateKey(final PrivateKeyInfo keyInformation)
+        throws PrivateKeyReadException
+    {
+        AsymmetricKeyParameter keyParameter;
+        try {
+            keyParameter = this.bcKeyParametersFactory()
                 .createPrivateKeyParameters(keyInformation);
         } catch (IOException e) {
             throw new PrivateKeyReadException(e);
+        } catch (IllegalArgumentException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (ClassCastException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (NoSuchElementException e) {
+            throw new PrivateKeyReadException(e);
         }
 
         RSAPrivateCrtKeyParameters privateKeyParameters;
@@ -626,6 +1550,247 @@ public class KeyFactory implements KeyFactoryInterface
         );
     }
 
+    /**
+     * Convert Bouncy Castle public key info to a Lockbox public key.
+     *
+     * @param publicKeyInfo The public key information.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    protected PublicKey convertPublicKey(
+        final SubjectPublicKeyInfo publicKeyInfo
+    )
+        throws PublicKeyReadException
+    {
+        AsymmetricKeyParameter keyParameter;
+        try {
+            keyParameter = this.bcKeyParametersFactory()
+                .createPublicKeyParameters(publicKeyInfo);
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        RSAKeyParameters publicKeyParameters;
+        if (keyParameter instanceof RSAKeyParameters) {
+            publicKeyParameters = (RSAKeyParameters) keyParameter;
+        } else {
+            throw new PublicKeyReadException();
+        }
+
+        return new PublicKey(
+            publicKeyParameters.getModulus(),
+            publicKeyParameters.getExponent()
+        );
+    }
+
+    /**
+     * Read every private key from a stream of PEM objects.
+     *
+     * Objects that are not private keys are skipped.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys, or null.
+     *
+     * @return The private keys.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    protected List<PrivateKey> readPrivateKeys(
+        final InputStream input,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        PEMParser parser = this.pemParserFactory().create(input);
+        List<PrivateKey> privateKeys = new ArrayList<PrivateKey>();
+
+        try {
+            Object pemObject;
+            while (null != (pemObject = parser.readObject())) {
+                PrivateKey privateKey =
+                    this.convertPrivatePemObject(pemObject, password);
+                if (null != privateKey) {
+                    privateKeys.add(privateKey);
+                }
+            }
+        } catch (IOException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return privateKeys;
+    }
+
+    /**
+     * Read every public key from a stream of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    protected List<PublicKey> readPublicKeys(final InputStream input)
+        throws PublicKeyReadException
+    {
+        PEMParser parser = this.pemParserFactory().create(input);
+        List<PublicKey> publicKeys = new ArrayList<PublicKey>();
+
+        try {
+            Object pemObject;
+            while (null != (pemObject = parser.readObject())) {
+                if (pemObject instanceof SubjectPublicKeyInfo) {
+                    publicKeys.add(
+                        this.convertPublicKey((SubjectPublicKeyInfo) pemObject)
+                    );
+                }
+            }
+        } catch (IOException e) {
+            throw new PublicKeyReadException(e);
+        }
+
+        return publicKeys;
+    }
+
+    /**
+     * Get the aliases of every key entry in a key store.
+     *
+     * @param keyStore The key store.
+     *
+     * @return The aliases.
+     * @throws PrivateKeyReadException If the key store cannot be read.
+     */
+    protected List<String> keyStoreKeyAliases(final KeyStore keyStore)
+        throws PrivateKeyReadException
+    {
+        List<String> aliases = new ArrayList<String>();
+        try {
+            Enumeration<String> allAliases = keyStore.aliases();
+            while (allAliases.hasMoreElements()) {
+                String alias = allAliases.nextElement();
+                if (keyStore.isKeyEntry(alias)) {
+                    aliases.add(alias);
+                }
+            }
+        } catch (KeyStoreException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        return aliases;
+    }
+
+    /**
+     * Convert a key store key entry to a Lockbox private key.
+     *
+     * @param keyStore The key store.
+     * @param alias    The alias of the entry.
+     * @param password The password to use to recover the key.
+     *
+     * @return The private key, or null if the entry is not an RSA private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey convertKeyStoreEntry(
+        final KeyStore keyStore,
+        final String alias,
+        final char[] password
+    )
+        throws PrivateKeyReadException
+    {
+        Key key;
+        try {
+            key = keyStore.getKey(alias, password);
+        } catch (KeyStoreException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new PrivateKeyReadException(e);
+        } catch (UnrecoverableKeyException e) {
+            throw new PrivateKeyReadException(e);
+        }
+
+        if (key instanceof RSAPrivateCrtKey) {
+            RSAPrivateCrtKey rsaPrivateKey = (RSAPrivateCrtKey) key;
+
+            return new PrivateKey(
+                rsaPrivateKey.getModulus(),
+                rsaPrivateKey.getPublicExponent(),
+                rsaPrivateKey.getPrivateExponent(),
+                rsaPrivateKey.getPrimeP(),
+                rsaPrivateKey.getPrimeQ(),
+                rsaPrivateKey.getPrimeExponentP(),
+                rsaPrivateKey.getPrimeExponentQ(),
+                rsaPrivateKey.getCrtCoefficient()
+            );
+        }
+        if (
+            key instanceof java.security.interfaces.RSAPrivateKey &&
+            null != key.getEncoded()
+        ) {
+            return this.createPrivateKeyFromDer(key.getEncoded());
+        }
+
+        return null;
+    }
+
+    /**
+     * Convert a key store password to the form used by key stores.
+     *
+     * @param password The password, or null.
+     *
+     * @return The password characters, or null.
+     */
+    protected char[] keyStorePassword(final String password)
+    {
+        if (null == password) {
+            return null;
+        }
+
+        return password.toCharArray();
+    }
+
+    /**
+     * Convert a PEM object to a Lockbox private key.
+     *
+     * @param pemObject The PEM object.
+     * @param password  The password to use to decrypt the key, or null.
+     *
+     * @return The private key, or null if the object is not a private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    protected PrivateKey convertPrivatePemObject(
+        final Object pemObject,
+        final String password
+    )
+        throws PrivateKeyReadException
+    {
+        if (pemObject instanceof PEMKeyPair) {
+            return this.convertPrivateKey(
+                ((PEMKeyPair) pemObject).getPrivateKeyInfo()
+            );
+        } else if (pemObject instanceof PrivateKeyInfo) {
+            return this.convertPrivateKey((PrivateKeyInfo) pemObject);
+        } else if (pemObject instanceof PEMEncryptedKeyPair) {
+            if (null == password) {
+                throw new PrivateKeyReadException();
+            }
+
+            return this.decryptPemKeyPair(
+                (PEMEncryptedKeyPair) pemObject,
+                password
+            );
+        } else if (pemObject instanceof PKCS8EncryptedPrivateKeyInfo) {
+            if (null == password) {
+                throw new PrivateKeyReadException();
+            }
+
+            return this.decryptPkcs8PrivateKey(
+                (PKCS8EncryptedPrivateKeyInfo) pemObject,
+                password
+            );
+        }
+
+        return null;
+    }
+
     /**
      * Close an input stream or die trying.
      *
@@ -653,4 +1818,5 @@ public class KeyFactory implements KeyFactoryInterface
     private JceOpenSSLPKCS8DecryptorProviderBuilder
         pkcs8DecryptorProviderBuilder;
     private SecureRandomInterface random;
+    private KeyMetricsListenerInterface metricsListener;
 }
@@ -13,11 +13,15 @@ import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
 import co.lqnt.lockbox.key.exception.PublicKeyReadException;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The interface implemented by key factories.
  */
-interface KeyFactoryInterface
+public interface KeyFactoryInterface
 {
     /**
      * Generate a new private key.
@@ -182,4 +186,359 @@ interface KeyFactoryInterface
      */
     public PublicKey createPublicKey(final File input)
         throws PublicKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final InputStream input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final byte[] input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final String input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Encrypted private keys
+     * cause reading to fail.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(final File input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final InputStream input,
+        final String password
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final byte[] input,
+        final String password
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final String input,
+        final String password
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not private keys are skipped. Both encrypted and
+     * unencrypted private keys are accepted.
+     *
+     * @param input    The PEM data to read.
+     * @param password The password to use to decrypt the keys.
+     *
+     * @return The private keys, in the order they appear.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final File input,
+        final String password
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final InputStream input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final byte[] input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final String input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create public keys from PEM data containing any number of PEM objects.
+     *
+     * Objects that are not public keys are skipped.
+     *
+     * @param input The PEM data to read.
+     *
+     * @return The public keys, in the order they appear.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final File input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create private keys from every RSA key entry in a key store.
+     *
+     * The key store is read in a single pass, and each key is converted
+     * directly, without an intermediate PEM encoding. Entries that are not
+     * RSA private keys are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create private keys from every RSA key entry in a key store, recovering
+     * the keys in parallel.
+     *
+     * Key recovery usually involves a password based key derivation for each
+     * entry, so recovering entries concurrently reduces the time taken to
+     * load large key stores. The key store must not be modified while it is
+     * being read.
+     *
+     * @param keyStore The loaded key store to read.
+     * @param password The password to use to recover the keys.
+     * @param executor The executor to recover the keys on.
+     *
+     * @return The private keys, in alias order.
+     * @throws PrivateKeyReadException If reading of a private key fails.
+     */
+    public List<PrivateKey> createPrivateKeys(
+        final KeyStore keyStore,
+        final String password,
+        final ExecutorService executor
+    )
+        throws PrivateKeyReadException;
+
+    /**
+     * Create public keys from the certificate of every entry in a key store.
+     *
+     * Both key entries and trusted certificate entries are read. Entries
+     * without an RSA certificate are skipped.
+     *
+     * @param keyStore The loaded key store to read.
+     *
+     * @return The public keys, in alias order.
+     * @throws PublicKeyReadException If reading of a public key fails.
+     */
+    public List<PublicKey> createPublicKeys(final KeyStore keyStore)
+        throws PublicKeyReadException;
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create a private key from a DER encoded PKCS #1 or PKCS #8 private key.
+     *
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public PrivateKey createPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final ByteBuffer input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final byte[] input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create a public key from a DER encoded PKCS #1 public key or X.509
+     * subject public key information.
+     *
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The public key.
+     * @throws PublicKeyReadException If reading of the public key fails.
+     */
+    public PublicKey createPublicKeyFromDer(final InputStream input)
+        throws PublicKeyReadException;
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * The input buffer's position is not modified.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final ByteBuffer input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final byte[] input)
+        throws PrivateKeyReadException;
+
+    /**
+     * Create a lazily decoded private key from a DER encoded PKCS #1 or
+     * PKCS #8 private key.
+     *
+     * Only the modulus and public exponent are decoded. The private
+     * components are decoded when the key is first used as a private key.
+     * Only the first DER object is read from the stream.
+     *
+     * @param input The DER data to read.
+     *
+     * @return The private key.
+     * @throws PrivateKeyReadException If reading of the private key fails.
+     */
+    public LazyPrivateKey createLazyPrivateKeyFromDer(final InputStream input)
+        throws PrivateKeyReadException;
 }
@@ -10,6 +10,7 @@
 package co.lqnt.lockbox.key;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 
 public interface KeyInterface
@@ -48,4 +49,30 @@ public interface KeyInterface
      * @return The PEM formatted key.
      */
     public String toPem();
+
+    /**
+     * Get this key as DER encoded bytes.
+     *
+     * @return A read-only view of the DER encoded key.
+     */
+    public ByteBuffer toDer();
+
+    /**
+     * Get the SHA-256 fingerprint of this key.
+     *
+     * The fingerprint is calculated over the DER encoded subject public key
+     * information, so a private key and its public key share a fingerprint.
+     *
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint();
+
+    /**
+     * Get the identifier of this key.
+     *
+     * The identifier is the first 8 bytes of the fingerprint.
+     *
+     * @return The key identifier.
+     */
+    public byte[] keyId();
 }
@@ -0,0 +1,61 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable set of private and public keys.
+ */
+public class KeySnapshot
+{
+    /**
+     * Construct a new key snapshot.
+     *
+     * @param privateKeys The private keys.
+     * @param publicKeys  The public keys.
+     */
+    public KeySnapshot(
+        final List<PrivateKey> privateKeys,
+        final List<PublicKey> publicKeys
+    ) {
+        this.privateKeys = Collections.unmodifiableList(
+            new ArrayList<PrivateKey>(privateKeys)
+        );
+        this.publicKeys = Collections.unmodifiableList(
+            new ArrayList<PublicKey>(publicKeys)
+        );
+    }
+
+    /**
+     * Get the private keys.
+     *
+     * @return The private keys.
+     */
+    public List<PrivateKey> privateKeys()
+    {
+        return this.privateKeys;
+    }
+
+    /**
+     * Get the public keys.
+     *
+     * @return The public keys.
+     */
+    public List<PublicKey> publicKeys()
+    {
+        return this.publicKeys;
+    }
+
+    private List<PrivateKey> privateKeys;
+    private List<PublicKey> publicKeys;
+}
@@ -0,0 +1,541 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.KeySnapshotReadException;
+import co.lqnt.lockbox.util.SecureRandom;
+import co.lqnt.lockbox.util.SecureRandomInterface;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * Encodes sets of keys in a compact binary snapshot format.
+ *
+ * Snapshots avoid the ASN.1 parsing and per-key password derivation of PEM
+ * files, so that a process can load all of its keys from a single file with
+ * one memory-mapped read.
+ *
+ * A snapshot starts with the 4 byte magic value "LBKS", a 1 byte version, and
+ * a 1 byte flags field. The body holds a 4 byte private key count, a 4 byte
+ * public key count, and then the key fields in a fixed order. Each field is a
+ * big-endian two's complement integer, prefixed by its 4 byte length. Private
+ * keys hold the modulus, public exponent, private exponent, P, Q, DP, DQ, and
+ * QInv. Public keys hold the modulus and public exponent.
+ *
+ * An unwrapped snapshot ends with a SHA-256 checksum of everything before it.
+ * A wrapped snapshot instead holds a 12 byte nonce, followed by the body
+ * encrypted with AES-GCM under the master key, in a single pass. The GCM tag
+ * authenticates both the header and the body.
+ *
+ * Unwrapped snapshots hold private keys in the clear, and should be protected
+ * in the same way as unencrypted PEM files.
+ */
+public class KeySnapshotCodec implements KeySnapshotCodecInterface
+{
+    /**
+     * Construct a new key snapshot codec.
+     */
+    public KeySnapshotCodec()
+    {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Construct a new key snapshot codec.
+     *
+     * @param random The secure random generator to use.
+     */
+    public KeySnapshotCodec(final SecureRandomInterface random)
+    {
+        this.random = random;
+    }
+
+    /**
+     * Get the secure random generator.
+     *
+     * @return The secure random generator.
+     */
+    public SecureRandomInterface random()
+    {
+        return this.random;
+    }
+
+    /**
+     * Encode a key snapshot.
+     *
+     * @param snapshot The snapshot to encode.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] encode(final KeySnapshot snapshot)
+    {
+        byte[] header = this.header(false);
+        byte[] body = this.encodeBody(snapshot);
+        byte[] data = new byte[header.length + body.length + 32];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(body, 0, data, header.length, body.length);
+
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(data, 0, header.length + body.length);
+        digest.doFinal(data, header.length + body.length);
+
+        return data;
+    }
+
+    /**
+     * Encode a key snapshot, wrapped under a master key.
+     *
+     * @param snapshot  The snapshot to encode.
+     * @param masterKey The 128, 192, or 256 bit AES master key.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] encode(final KeySnapshot snapshot, final byte[] masterKey)
+    {
+        byte[] header = this.header(true);
+        byte[] nonce = this.random().generate(12);
+        byte[] body = this.encodeBody(snapshot);
+
+        GCMBlockCipher cipher = new GCMBlockCipher(new AESEngine());
+        cipher.init(
+            true,
+            new AEADParameters(new KeyParameter(masterKey), 128, nonce, header)
+        );
+
+        int offset = header.length + nonce.length;
+        byte[] data = new byte[offset + cipher.getOutputSize(body.length)];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(nonce, 0, data, header.length, nonce.length);
+
+        int length = cipher.processBytes(body, 0, body.length, data, offset);
+        try {
+            cipher.doFinal(data, offset + length);
+        } catch (InvalidCipherTextException e) {
+            throw new RuntimeException(e);
+        }
+
+        return data;
+    }
+
+    /**
+     * Decode a key snapshot.
+     *
+     * The buffer's position is not modified.
+     *
+     * @param data The encoded snapshot.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be decoded.
+     */
+    public KeySnapshot decode(final ByteBuffer data)
+        throws KeySnapshotReadException
+    {
+        return this.decode(data, null);
+    }
+
+    /**
+     * Decode a key snapshot that is wrapped under a master key.
+     *
+     * A snapshot that is not wrapped is rejected when a master key is
+     * supplied, so that a wrapped snapshot cannot be silently replaced by an
+     * unwrapped one. The buffer's position is not modified.
+     *
+     * @param data      The encoded snapshot.
+     * @param masterKey The master key.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be decoded.
+     */
+    public KeySnapshot decode(final ByteBuffer data, final byte[] masterKey)
+        throws KeySnapshotReadException
+    {
+        ByteBuffer input = data.duplicate();
+
+        try {
+            byte[] header = new byte[6];
+            input.get(header);
+
+            boolean isWrapped = null != masterKey;
+            if (!Arrays.equals(header, this.header(isWrapped))) {
+                throw new KeySnapshotReadException();
+            }
+
+            if (isWrapped) {
+                return this.decodeBody(
+                    ByteBuffer.wrap(this.unwrap(header, input, masterKey))
+                );
+            }
+
+            if (input.remaining() < 32) {
+                throw new KeySnapshotReadException();
+            }
+
+            ByteBuffer body = input.slice();
+            body.limit(input.remaining() - 32);
+            input.position(input.position() + body.limit());
+            byte[] checksum = new byte[32];
+            input.get(checksum);
+
+            if (!Arrays.equals(checksum, this.checksum(header, body))) {
+                throw new KeySnapshotReadException();
+            }
+
+            return this.decodeBody(body);
+        } catch (BufferUnderflowException e) {
+            throw new KeySnapshotReadException(e);
+        }
+    }
+
+    /**
+     * Write a key snapshot to a file.
+     *
+     * @param snapshot The snapshot to write.
+     * @param file     The file to write to.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(final KeySnapshot snapshot, final File file)
+        throws IOException
+    {
+        this.write(file, this.encode(snapshot));
+    }
+
+    /**
+     * Write a key snapshot to a file, wrapped under a master key.
+     *
+     * @param snapshot  The snapshot to write.
+     * @param file      The file to write to.
+     * @param masterKey The 128, 192, or 256 bit AES master key.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(
+        final KeySnapshot snapshot,
+        final File file,
+        final byte[] masterKey
+    )
+        throws IOException
+    {
+        this.write(file, this.encode(snapshot, masterKey));
+    }
+
+    /**
+     * Read a key snapshot from a file.
+     *
+     * @param file The file to read.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be read.
+     */
+    public KeySnapshot read(final File file) throws KeySnapshotReadException
+    {
+        return this.read(file, null);
+    }
+
+    /**
+     * Read a key snapshot that is wrapped under a master key from a file.
+     *
+     * The file is memory-mapped rather than copied onto the heap.
+     *
+     * @param file      The file to read.
+     * @param masterKey The master key.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be read.
+     */
+    public KeySnapshot read(final File file, final byte[] masterKey)
+        throws KeySnapshotReadException
+    {
+        ByteBuffer data;
+        try {
+            RandomAccessFile input = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = input.getChannel();
+                data = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    0,
+                    channel.size()
+                );
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new KeySnapshotReadException(e);
+        }
+
+        return this.decode(data, masterKey);
+    }
+
+    /**
+     * Build the snapshot header.
+     *
+     * @param isWrapped True if the snapshot is wrapped under a master key.
+     *
+     * @return The header.
+     */
+    protected byte[] header(final boolean isWrapped)
+    {
+        return new byte[] {
+            'L', 'B', 'K', 'S', 1, (byte) (isWrapped ? 1 : 0)
+        };
+    }
+
+    /**
+     * Encode the snapshot body.
+     *
+     * @param snapshot The snapshot.
+     *
+     * @return The encoded body.
+     */
+    protected byte[] encodeBody(final KeySnapshot snapshot)
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(body);
+
+        try {
+            output.writeInt(snapshot.privateKeys().size());
+            output.writeInt(snapshot.publicKeys().size());
+            for (PrivateKey key : snapshot.privateKeys()) {
+                this.writeInteger(output, key.modulus());
+                this.writeInteger(output, key.publicExponent());
+                this.writeInteger(output, key.privateExponent());
+                this.writeInteger(output, key.prime1());
+                this.writeInteger(output, key.prime2());
+                this.writeInteger(output, key.primeExponent1());
+                this.writeInteger(output, key.primeExponent2());
+                this.writeInteger(output, key.coefficient());
+            }
+            for (PublicKey key : snapshot.publicKeys()) {
+                this.writeInteger(output, key.modulus());
+                this.writeInteger(output, key.publicExponent());
+            }
+            output.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return body.toByteArray();
+    }
+
+    /**
+     * Decode the snapshot body.
+     *
+     * @param body The encoded body.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the body cannot be decoded.
+     */
+    protected KeySnapshot decodeBody(final ByteBuffer body)
+        throws KeySnapshotReadException
+    {
+        try {
+            int privateKeyCount = body.getInt();
+            int publicKeyCount = body.getInt();
+            if (privateKeyCount < 0 || publicKeyCount < 0) {
+                throw new KeySnapshotReadException();
+            }
+
+            List<PrivateKey> privateKeys = new ArrayList<PrivateKey>();
+            for (int i = 0; i < privateKeyCount; ++i) {
+                privateKeys.add(
+                    new PrivateKey(
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body),
+                        this.readInteger(body)
+                    )
+                );
+            }
+
+            List<PublicKey> publicKeys = new ArrayList<PublicKey>();
+            for (int i = 0; i < publicKeyCount; ++i) {
+                publicKeys.add(
+                    new PublicKey(
+                        this.readInteger(body),
+                        this.readInteger(body)
+                    )
+                );
+            }
+
+            if (body.hasRemaining()) {
+                throw new KeySnapshotReadException();
+            }
+
+            return new KeySnapshot(privateKeys, publicKeys);
+        } catch (BufferUnderflowException e) {
+            throw new KeySnapshotReadException(e);
+        }
+    }
+
+    /**
+     * Decrypt a wrapped snapshot body.
+     *
+     * @param header    The snapshot header.
+     * @param input     The nonce and encrypted body.
+     * @param masterKey The master key.
+     *
+     * @return The decrypted body.
+     * @throws KeySnapshotReadException If the body cannot be decrypted.
+     */
+    protected byte[] unwrap(
+        final byte[] header,
+        final ByteBuffer input,
+        final byte[] masterKey
+    )
+        throws KeySnapshotReadException
+    {
+        byte[] nonce = new byte[12];
+        input.get(nonce);
+        byte[] encrypted = new byte[input.remaining()];
+        input.get(encrypted);
+
+        GCMBlockCipher cipher = new GCMBlockCipher(new AESEngine());
+        try {
+            cipher.init(
+                false,
+                new AEADParameters(
+                    new KeyParameter(masterKey),
+                    128,
+                    nonce,
+                    header
+                )
+            );
+        } catch (IllegalArgumentException e) {
+            throw new KeySnapshotReadException(e);
+        }
+
+        byte[] body = new byte[cipher.getOutputSize(encrypted.length)];
+        try {
+            int length = cipher.processBytes(
+                encrypted,
+                0,
+                encrypted.length,
+                body,
+                0
+            );
+            cipher.doFinal(body, length);
+        } catch (InvalidCipherTextException e) {
+            throw new KeySnapshotReadException(e);
+        }
+
+        return body;
+    }
+
+    /**
+     * Compute the checksum of an unwrapped snapshot.
+     *
+     * @param header The snapshot header.
+     * @param body   The snapshot body.
+     *
+     * @return The checksum.
+     */
+    protected byte[] checksum(final byte[] header, final ByteBuffer body)
+    {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(header, 0, header.length);
+
+        ByteBuffer input = body.duplicate();
+        byte[] buffer = new byte[4096];
+        while (input.hasRemaining()) {
+            int length = Math.min(buffer.length, input.remaining());
+            input.get(buffer, 0, length);
+            digest.update(buffer, 0, length);
+        }
+
+        byte[] checksum = new byte[digest.getDigestSize()];
+        digest.doFinal(checksum, 0);
+
+        return checksum;
+    }
+
+    /**
+     * Write a length-prefixed integer.
+     *
+     * @param output  The output to write to.
+     * @param integer The integer.
+     *
+     * @throws IOException If the integer cannot be written.
+     */
+    protected void writeInteger(
+        final DataOutputStream output,
+        final BigInteger integer
+    )
+        throws IOException
+    {
+        byte[] bytes = integer.toByteArray();
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Read a length-prefixed integer.
+     *
+     * @param input The input to read from.
+     *
+     * @return The integer.
+     * @throws KeySnapshotReadException If the integer cannot be read.
+     */
+    protected BigInteger readInteger(final ByteBuffer input)
+        throws KeySnapshotReadException
+    {
+        int length = input.getInt();
+        if (length < 1 || length > input.remaining()) {
+            throw new KeySnapshotReadException();
+        }
+
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Write data to a file.
+     *
+     * @param file The file to write to.
+     * @param data The data to write.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    protected void write(final File file, final byte[] data)
+        throws IOException
+    {
+        OutputStream output = new FileOutputStream(file);
+        try {
+            output.write(data);
+        } finally {
+            output.close();
+        }
+    }
+
+    private SecureRandomInterface random;
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.KeySnapshotReadException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The interface implemented by key snapshot codecs.
+ */
+public interface KeySnapshotCodecInterface
+{
+    /**
+     * Encode a key snapshot.
+     *
+     * @param snapshot The snapshot to encode.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] encode(final KeySnapshot snapshot);
+
+    /**
+     * Encode a key snapshot, wrapped under a master key.
+     *
+     * @param snapshot  The snapshot to encode.
+     * @param masterKey The 128, 192, or 256 bit AES master key.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] encode(final KeySnapshot snapshot, final byte[] masterKey);
+
+    /**
+     * Decode a key snapshot.
+     *
+     * @param data The encoded snapshot.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be decoded.
+     */
+    public KeySnapshot decode(final ByteBuffer data)
+        throws KeySnapshotReadException;
+
+    /**
+     * Decode a key snapshot that is wrapped under a master key.
+     *
+     * @param data      The encoded snapshot.
+     * @param masterKey The master key.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be decoded.
+     */
+    public KeySnapshot decode(final ByteBuffer data, final byte[] masterKey)
+        throws KeySnapshotReadException;
+
+    /**
+     * Write a key snapshot to a file.
+     *
+     * @param snapshot The snapshot to write.
+     * @param file     The file to write to.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(final KeySnapshot snapshot, final File file)
+        throws IOException;
+
+    /**
+     * Write a key snapshot to a file, wrapped under a master key.
+     *
+     * @param snapshot  The snapshot to write.
+     * @param file      The file to write to.
+     * @param masterKey The 128, 192, or 256 bit AES master key.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(
+        final KeySnapshot snapshot,
+        final File file,
+        final byte[] masterKey
+    )
+        throws IOException;
+
+    /**
+     * Read a key snapshot from a file.
+     *
+     * @param file The file to read.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be read.
+     */
+    public KeySnapshot read(final File file) throws KeySnapshotReadException;
+
+    /**
+     * Read a key snapshot that is wrapped under a master key from a file.
+     *
+     * @param file      The file to read.
+     * @param masterKey The master key.
+     *
+     * @return The snapshot.
+     * @throws KeySnapshotReadException If the snapshot cannot be read.
+     */
+    public KeySnapshot read(final File file, final byte[] masterKey)
+        throws KeySnapshotReadException;
+}
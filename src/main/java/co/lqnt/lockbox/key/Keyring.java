@@ -0,0 +1,180 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A set of keys indexed by key identifier.
+ *
+ * Lookups are a single hash map access, and never block while keys are being
+ * added or removed.
+ */
+public class Keyring implements KeyringInterface
+{
+    /**
+     * Construct a new keyring.
+     */
+    public Keyring()
+    {
+        this.privateKeys = new ConcurrentHashMap<String, PrivateKeyInterface>();
+        this.publicKeys = new ConcurrentHashMap<String, PublicKeyInterface>();
+        this.asciiCharset = Charset.forName("US-ASCII");
+    }
+
+    /**
+     * Add a private key to the keyring.
+     *
+     * The corresponding public key is also added.
+     *
+     * @param key The private key.
+     */
+    public void add(final PrivateKeyInterface key)
+    {
+        String index = this.index(key.keyId());
+
+        this.privateKeys.put(index, key);
+        this.publicKeys.put(index, key.publicKey());
+    }
+
+    /**
+     * Add a public key to the keyring.
+     *
+     * @param key The public key.
+     */
+    public void add(final PublicKeyInterface key)
+    {
+        this.publicKeys.put(this.index(key.keyId()), key);
+    }
+
+    /**
+     * Remove a key, and any corresponding private or public key, from the
+     * keyring.
+     *
+     * @param key The key.
+     */
+    public void remove(final KeyInterface key)
+    {
+        String index = this.index(key.keyId());
+
+        this.privateKeys.remove(index);
+        this.publicKeys.remove(index);
+    }
+
+    /**
+     * Find a private key by key identifier or fingerprint.
+     *
+     * @param keyId The key identifier, or a longer fingerprint prefix.
+     *
+     * @return The private key, or null if no such key exists.
+     */
+    public PrivateKeyInterface privateKey(final byte[] keyId)
+    {
+        if (keyId.length < 8) {
+            return null;
+        }
+
+        PrivateKeyInterface key = this.privateKeys.get(this.index(keyId));
+        if (null == key || !this.matches(key, keyId)) {
+            return null;
+        }
+
+        return key;
+    }
+
+    /**
+     * Find a public key by key identifier or fingerprint.
+     *
+     * @param keyId The key identifier, or a longer fingerprint prefix.
+     *
+     * @return The public key, or null if no such key exists.
+     */
+    public PublicKeyInterface publicKey(final byte[] keyId)
+    {
+        if (keyId.length < 8) {
+            return null;
+        }
+
+        PublicKeyInterface key = this.publicKeys.get(this.index(keyId));
+        if (null == key || !this.matches(key, keyId)) {
+            return null;
+        }
+
+        return key;
+    }
+
+    /**
+     * Get all private keys in the keyring.
+     *
+     * @return The private keys.
+     */
+    public Collection<PrivateKeyInterface> privateKeys()
+    {
+        return Collections.unmodifiableCollection(this.privateKeys.values());
+    }
+
+    /**
+     * Get all public keys in the keyring.
+     *
+     * @return The public keys.
+     */
+    public Collection<PublicKeyInterface> publicKeys()
+    {
+        return Collections.unmodifiableCollection(this.publicKeys.values());
+    }
+
+    /**
+     * Get the index entry for a key identifier.
+     *
+     * @param keyId The key identifier, or a longer fingerprint prefix.
+     *
+     * @return The index entry.
+     */
+    protected String index(final byte[] keyId)
+    {
+        return new String(Hex.encode(keyId, 0, 8), this.asciiCharset);
+    }
+
+    /**
+     * Determine whether a key matches a fingerprint prefix longer than the key
+     * identifier.
+     *
+     * @param key    The key.
+     * @param prefix The fingerprint prefix.
+     *
+     * @return True if the key matches.
+     */
+    protected boolean matches(final KeyInterface key, final byte[] prefix)
+    {
+        if (prefix.length <= 8) {
+            return true;
+        }
+
+        byte[] fingerprint = key.fingerprint();
+        if (prefix.length > fingerprint.length) {
+            return false;
+        }
+
+        return Arrays.equals(
+            Arrays.copyOfRange(fingerprint, 0, prefix.length),
+            prefix
+        );
+    }
+
+    private ConcurrentMap<String, PrivateKeyInterface> privateKeys;
+    private ConcurrentMap<String, PublicKeyInterface> publicKeys;
+    private Charset asciiCharset;
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.util.Collection;
+
+/**
+ * The interface implemented by keyrings.
+ */
+public interface KeyringInterface
+{
+    /**
+     * Add a private key to the keyring.
+     *
+     * The corresponding public key is also added.
+     *
+     * @param key The private key.
+     */
+    public void add(final PrivateKeyInterface key);
+
+    /**
+     * Add a public key to the keyring.
+     *
+     * @param key The public key.
+     */
+    public void add(final PublicKeyInterface key);
+
+    /**
+     * Remove a key, and any corresponding private or public key, from the
+     * keyring.
+     *
+     * @param key The key.
+     */
+    public void remove(final KeyInterface key);
+
+    /**
+     * Find a private key by key identifier or fingerprint.
+     *
+     * @param keyId The key identifier, or a longer fingerprint prefix.
+     *
+     * @return The private key, or null if no such key exists.
+     */
+    public PrivateKeyInterface privateKey(final byte[] keyId);
+
+    /**
+     * Find a public key by key identifier or fingerprint.
+     *
+     * @param keyId The key identifier, or a longer fingerprint prefix.
+     *
+     * @return The public key, or null if no such key exists.
+     */
+    public PublicKeyInterface publicKey(final byte[] keyId);
+
+    /**
+     * Get all private keys in the keyring.
+     *
+     * @return The private keys.
+     */
+    public Collection<PrivateKeyInterface> privateKeys();
+
+    /**
+     * Get all public keys in the keyring.
+     *
+     * @return The public keys.
+     */
+    public Collection<PublicKeyInterface> publicKeys();
+}
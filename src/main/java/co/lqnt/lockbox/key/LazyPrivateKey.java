@@ -0,0 +1,323 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+
+/**
+ * A Lockbox private key that is decoded on first private use.
+ *
+ * Only the modulus and public exponent are held in decoded form. The key is
+ * otherwise held as DER encoded PKCS #8 private key information, and the
+ * private components are decoded the first time they are needed. Public key
+ * operations, such as encryption with the public key, fingerprinting, and
+ * keyring indexing, never decode the private components.
+ */
+public class LazyPrivateKey implements PrivateKeyInterface
+{
+    /**
+     * Construct a new lazy private key.
+     *
+     * The DER data is not validated, and must be a well formed RSA private
+     * key matching the supplied modulus and public exponent.
+     *
+     * @param der            The DER encoded PKCS #8 private key information.
+     * @param modulus        The modulus.
+     * @param publicExponent The public exponent.
+     */
+    public LazyPrivateKey(
+        final byte[] der,
+        final BigInteger modulus,
+        final BigInteger publicExponent
+    ) {
+        this.der = der.clone();
+        this.modulus = modulus;
+        this.publicExponent = publicExponent;
+    }
+
+    /**
+     * Get the modulus.
+     *
+     * @return The modulus.
+     */
+    public BigInteger modulus()
+    {
+        return this.modulus;
+    }
+
+    /**
+     * Get the public exponent.
+     *
+     * @return The public exponent.
+     */
+    public BigInteger publicExponent()
+    {
+        return this.publicExponent;
+    }
+
+    /**
+     * Get the private exponent.
+     *
+     * @return The private exponent.
+     */
+    public BigInteger privateExponent()
+    {
+        return this.materialize().privateExponent();
+    }
+
+    /**
+     * Get the first prime, or 'P'.
+     *
+     * @return The first prime.
+     */
+    public BigInteger prime1()
+    {
+        return this.materialize().prime1();
+    }
+
+    /**
+     * Get the second prime, or 'Q'.
+     *
+     * @return The second prime.
+     */
+    public BigInteger prime2()
+    {
+        return this.materialize().prime2();
+    }
+
+    /**
+     * Get the first prime exponent, or 'DP'.
+     *
+     * @return The first prime exponent.
+     */
+    public BigInteger primeExponent1()
+    {
+        return this.materialize().primeExponent1();
+    }
+
+    /**
+     * Get the second prime exponent, or 'DQ'.
+     *
+     * @return The second prime exponent.
+     */
+    public BigInteger primeExponent2()
+    {
+        return this.materialize().primeExponent2();
+    }
+
+    /**
+     * Get the coefficient, or 'QInv'.
+     *
+     * @return The coefficient.
+     */
+    public BigInteger coefficient()
+    {
+        return this.materialize().coefficient();
+    }
+
+    /**
+     * Get the size of this key in bits.
+     *
+     * @return The key size.
+     */
+    public int size()
+    {
+        return this.modulus().bitLength();
+    }
+
+    /**
+     * Get the generic Bouncy Castle asymmetric key parameters.
+     *
+     * @return The generic Bouncy Castle asymmetric key parameters.
+     */
+    public AsymmetricKeyParameter bcKeyParameters()
+    {
+        return this.bcPrivateKeyParameters();
+    }
+
+    /**
+     * Get the public key counterpart for this private key.
+     *
+     * @return The public key.
+     */
+    public PublicKey publicKey()
+    {
+        return new PublicKey(this.modulus(), this.publicExponent());
+    }
+
+    /**
+     * Get the Bouncy Castle RSA private key parameters.
+     *
+     * @return The Bouncy Castle RSA private key parameters.
+     */
+    public RSAPrivateCrtKeyParameters bcPrivateKeyParameters()
+    {
+        return this.materialize().bcPrivateKeyParameters();
+    }
+
+    /**
+     * Get the Bouncy Castle RSA private key.
+     *
+     * @return The BouncyCastle RSA private key.
+     */
+    public RSAPrivateKey bcPrivateKey()
+    {
+        return this.materialize().bcPrivateKey();
+    }
+
+    /**
+     * Get the Bouncy Castle private key information.
+     *
+     * @return The Bouncy Castle private key information.
+     */
+    public PrivateKeyInfo bcPrivateKeyInfo()
+    {
+        return this.materialize().bcPrivateKeyInfo();
+    }
+
+    /**
+     * Get the JCE private key.
+     *
+     * @return The JCE private key.
+     */
+    public java.security.PrivateKey jcePrivateKey()
+    {
+        return this.materialize().jcePrivateKey();
+    }
+
+    /**
+     * Get this key as a PEM formatted string.
+     *
+     * @return The PEM formatted key.
+     */
+    public String toPem()
+    {
+        return this.materialize().toPem();
+    }
+
+    /**
+     * Get this key as DER encoded PKCS #8 private key information.
+     *
+     * The private components are not decoded.
+     *
+     * @return A read-only view of the DER encoded key.
+     */
+    public ByteBuffer toDer()
+    {
+        return ByteBuffer.wrap(this.der).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of this key.
+     *
+     * This is the fingerprint of the corresponding public key.
+     *
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint()
+    {
+        return this.cachedFingerprint().clone();
+    }
+
+    /**
+     * Get the identifier of this key.
+     *
+     * @return The key identifier.
+     */
+    public byte[] keyId()
+    {
+        return Arrays.copyOfRange(this.cachedFingerprint(), 0, 8);
+    }
+
+    /**
+     * Determine whether the private components have been decoded.
+     *
+     * @return True if the private components have been decoded.
+     */
+    public boolean isMaterialized()
+    {
+        return null != this.privateKey;
+    }
+
+    /**
+     * Get the fully decoded private key, decoding it on first use.
+     *
+     * @return The private key.
+     * @throws RuntimeException If the DER data is not a valid RSA private key.
+     */
+    public PrivateKey materialize()
+    {
+        PrivateKey privateKey = this.privateKey;
+        if (null == privateKey) {
+            RSAPrivateKey rsaPrivateKey;
+            try {
+                rsaPrivateKey = RSAPrivateKey.getInstance(
+                    PrivateKeyInfo.getInstance(this.der).parsePrivateKey()
+                );
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            privateKey = new PrivateKey(
+                rsaPrivateKey.getModulus(),
+                rsaPrivateKey.getPublicExponent(),
+                rsaPrivateKey.getPrivateExponent(),
+                rsaPrivateKey.getPrime1(),
+                rsaPrivateKey.getPrime2(),
+                rsaPrivateKey.getExponent1(),
+                rsaPrivateKey.getExponent2(),
+                rsaPrivateKey.getCoefficient()
+            );
+            this.privateKey = privateKey;
+        }
+
+        return privateKey;
+    }
+
+    /**
+     * Get this key as a PEM formatted string.
+     *
+     * @return The PEM formatted key.
+     */
+    @Override
+    public String toString()
+    {
+        return this.toPem();
+    }
+
+    /**
+     * Get the fingerprint, calculating it on first use.
+     *
+     * @return The shared fingerprint array, which must not be modified.
+     */
+    protected byte[] cachedFingerprint()
+    {
+        byte[] fingerprint = this.fingerprint;
+        if (null == fingerprint) {
+            fingerprint = this.publicKey().fingerprint();
+            this.fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
+    private byte[] der;
+    private BigInteger modulus;
+    private BigInteger publicExponent;
+    private volatile PrivateKey privateKey;
+    private volatile byte[] fingerprint;
+}
@@ -0,0 +1,498 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.metrics.StatisticsProviderInterface;
+import co.lqnt.lockbox.metrics.StripedCounter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A source of private keys that are generated ahead of time.
+ *
+ * A bounded queue of fresh keys is kept for each configured size, and filled
+ * by background worker threads. Taking a key that is already held costs a
+ * single queue access, instead of a key generation. Workers always refill the
+ * size with the most free space first, and sleep while every queue is full.
+ *
+ * Each worker uses its own key factory, so that key generation runs in
+ * parallel. Keys are only generated while the source is started.
+ *
+ * A worker whose key generation fails sleeps before trying again, starting at
+ * 10 milliseconds and doubling with each consecutive failure, up to 5
+ * seconds. A successful generation resets the delay.
+ */
+public class PregeneratedKeySource
+    implements PregeneratedKeySourceInterface, StatisticsProviderInterface
+{
+    /**
+     * Construct a new pre-generated key source.
+     *
+     * @param sizes The key sizes to pre-generate, in bits.
+     */
+    public PregeneratedKeySource(final int[] sizes)
+    {
+        this(sizes, 8);
+    }
+
+    /**
+     * Construct a new pre-generated key source.
+     *
+     * @param sizes    The key sizes to pre-generate, in bits.
+     * @param capacity The maximum number of keys to hold for each size.
+     */
+    public PregeneratedKeySource(final int[] sizes, final int capacity)
+    {
+        this(sizes, capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new pre-generated key source.
+     *
+     * @param sizes    The key sizes to pre-generate, in bits.
+     * @param capacity The maximum number of keys to hold for each size.
+     * @param workers  The number of worker threads.
+     */
+    public PregeneratedKeySource(
+        final int[] sizes,
+        final int capacity,
+        final int workers
+    ) {
+        this(sizes, capacity, PregeneratedKeySource.createFactories(workers));
+    }
+
+    /**
+     * Construct a new pre-generated key source.
+     *
+     * One worker thread is used for each key factory.
+     *
+     * @param sizes     The key sizes to pre-generate, in bits.
+     * @param capacity  The maximum number of keys to hold for each size.
+     * @param factories The key factories to use.
+     */
+    public PregeneratedKeySource(
+        final int[] sizes,
+        final int capacity,
+        final List<KeyFactoryInterface> factories
+    ) {
+        if (0 == sizes.length) {
+            throw new IllegalArgumentException(
+                "At least one key size is required."
+            );
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1."
+            );
+        }
+        if (factories.isEmpty()) {
+            throw new IllegalArgumentException(
+                "At least one key factory is required."
+            );
+        }
+
+        Map<Integer, BlockingQueue<PrivateKey>> queues =
+            new HashMap<Integer, BlockingQueue<PrivateKey>>();
+        Map<Integer, Integer> pending = new HashMap<Integer, Integer>();
+        for (int size : sizes) {
+            queues.put(size, new ArrayBlockingQueue<PrivateKey>(capacity));
+            pending.put(size, 0);
+        }
+
+        this.sizes = sizes.clone();
+        this.capacity = capacity;
+        this.factories = Collections.unmodifiableList(
+            new ArrayList<KeyFactoryInterface>(factories)
+        );
+        this.queues = Collections.unmodifiableMap(queues);
+        this.pending = pending;
+        this.lock = new Object();
+        this.hits = new StripedCounter();
+        this.misses = new StripedCounter();
+        this.generated = new StripedCounter();
+        this.failures = new StripedCounter();
+    }
+
+    /**
+     * Get the key sizes that are pre-generated.
+     *
+     * @return The key sizes, in bits.
+     */
+    public int[] sizes()
+    {
+        return this.sizes.clone();
+    }
+
+    /**
+     * Get the maximum number of keys held for each size.
+     *
+     * @return The capacity.
+     */
+    public int capacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Get the key factories used by the workers.
+     *
+     * @return The key factories.
+     */
+    public List<KeyFactoryInterface> factories()
+    {
+        return this.factories;
+    }
+
+    /**
+     * Get the number of keys currently held for a size.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The number of keys held.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public int depth(final int size)
+    {
+        return this.queue(size).size();
+    }
+
+    /**
+     * Get the number of keys that were taken without waiting.
+     *
+     * @return The number of hits.
+     */
+    public long hits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * Get the number of requests for a key made while none were held.
+     *
+     * @return The number of misses.
+     */
+    public long misses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * Get the number of keys generated.
+     *
+     * @return The number of keys generated.
+     */
+    public long generated()
+    {
+        return this.generated.sum();
+    }
+
+    /**
+     * Get the number of key generations that failed.
+     *
+     * @return The number of failures.
+     */
+    public long failures()
+    {
+        return this.failures.sum();
+    }
+
+    /**
+     * Get the number of keys held, for all sizes.
+     *
+     * @return The number of keys.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (BlockingQueue<PrivateKey> queue : this.queues.values()) {
+            size += queue.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Reset the hit, miss, generation, and failure counts to zero.
+     *
+     * Held keys are not affected.
+     */
+    public void resetStatistics()
+    {
+        this.hits.reset();
+        this.misses.reset();
+        this.generated.reset();
+        this.failures.reset();
+    }
+
+    /**
+     * Take a key, waiting for one to be generated if none are held.
+     *
+     * If the source is not started, this waits until it is.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key.
+     * @throws InterruptedException     If interrupted while waiting.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public PrivateKey take(final int size) throws InterruptedException
+    {
+        BlockingQueue<PrivateKey> queue = this.queue(size);
+
+        PrivateKey key = queue.poll();
+        if (null == key) {
+            this.misses.increment();
+            key = queue.take();
+        } else {
+            this.hits.increment();
+        }
+        this.signal();
+
+        return key;
+    }
+
+    /**
+     * Take a key, if one is held.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key, or null if no key is held.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public PrivateKey poll(final int size)
+    {
+        PrivateKey key = this.queue(size).poll();
+        if (null == key) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+            this.signal();
+        }
+
+        return key;
+    }
+
+    /**
+     * Start generating keys in the background.
+     */
+    public synchronized void start()
+    {
+        if (null != this.executor) {
+            return;
+        }
+
+        this.executor = Executors.newFixedThreadPool(
+            this.factories().size(),
+            new ThreadFactory() {
+                public Thread newThread(final Runnable runnable)
+                {
+                    Thread thread = new Thread(
+                        runnable,
+                        "lockbox-pregenerated-key-source"
+                    );
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            }
+        );
+        for (final KeyFactoryInterface factory : this.factories()) {
+            this.executor.execute(
+                new Runnable() {
+                    public void run()
+                    {
+                        PregeneratedKeySource.this.work(factory);
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Stop generating keys.
+     *
+     * Keys that are already held can still be taken.
+     */
+    public synchronized void stop()
+    {
+        if (null == this.executor) {
+            return;
+        }
+
+        this.executor.shutdownNow();
+        this.executor = null;
+    }
+
+    /**
+     * Generate keys until interrupted, backing off after failures.
+     *
+     * @param factory The key factory to use.
+     */
+    protected void work(final KeyFactoryInterface factory)
+    {
+        long backoff = 0L;
+        while (!Thread.currentThread().isInterrupted()) {
+            int size;
+            try {
+                size = this.reserve();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            PrivateKey key = null;
+            try {
+                key = factory.generatePrivateKey(size);
+            } catch (RuntimeException e) {
+                this.failures.increment();
+            } finally {
+                this.release(size, key);
+            }
+
+            if (null != key) {
+                backoff = 0L;
+
+                continue;
+            }
+
+            backoff = Math.min(
+                Math.max(backoff * 2, PregeneratedKeySource.MIN_BACKOFF),
+                PregeneratedKeySource.MAX_BACKOFF
+            );
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait until a queue has free space, and reserve a slot in it.
+     *
+     * @return The size of key to generate.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    protected int reserve() throws InterruptedException
+    {
+        synchronized (this.lock) {
+            while (true) {
+                int size = 0;
+                int mostSpace = 0;
+                for (int candidate : this.sizes) {
+                    int space = this.capacity -
+                        this.queues.get(candidate).size() -
+                        this.pending.get(candidate);
+                    if (space > mostSpace) {
+                        size = candidate;
+                        mostSpace = space;
+                    }
+                }
+
+                if (mostSpace > 0) {
+                    this.pending.put(size, this.pending.get(size) + 1);
+
+                    return size;
+                }
+
+                this.lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Release a reserved slot, adding the generated key if there is one.
+     *
+     * @param size The size of the key in bits.
+     * @param key  The generated key, or null if generation failed.
+     */
+    protected void release(final int size, final PrivateKey key)
+    {
+        synchronized (this.lock) {
+            this.pending.put(size, this.pending.get(size) - 1);
+            if (null != key) {
+                this.generated.increment();
+                this.queues.get(size).offer(key);
+            }
+            this.lock.notify();
+        }
+    }
+
+    /**
+     * Wake a worker after a key is taken.
+     */
+    protected void signal()
+    {
+        synchronized (this.lock) {
+            this.lock.notify();
+        }
+    }
+
+    /**
+     * Get the queue for a key size.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The queue.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    protected BlockingQueue<PrivateKey> queue(final int size)
+    {
+        BlockingQueue<PrivateKey> queue = this.queues.get(size);
+        if (null == queue) {
+            throw new IllegalArgumentException(
+                String.format("Key size %d is not pre-generated.", size)
+            );
+        }
+
+        return queue;
+    }
+
+    /**
+     * Create a key factory for each worker.
+     *
+     * @param workers The number of workers.
+     *
+     * @return The key factories.
+     */
+    private static List<KeyFactoryInterface> createFactories(
+        final int workers
+    ) {
+        List<KeyFactoryInterface> factories =
+            new ArrayList<KeyFactoryInterface>();
+        for (int i = 0; i < workers; ++i) {
+            factories.add(new KeyFactory());
+        }
+
+        return factories;
+    }
+
+    private static final long MIN_BACKOFF = 10L;
+    private static final long MAX_BACKOFF = 5000L;
+
+    private int[] sizes;
+    private int capacity;
+    private List<KeyFactoryInterface> factories;
+    private Map<Integer, BlockingQueue<PrivateKey>> queues;
+    private Map<Integer, Integer> pending;
+    private Object lock;
+    private StripedCounter hits;
+    private StripedCounter misses;
+    private StripedCounter generated;
+    private StripedCounter failures;
+    private ExecutorService executor;
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+/**
+ * The interface implemented by sources of pre-generated keys.
+ */
+public interface PregeneratedKeySourceInterface
+{
+    /**
+     * Get the key sizes that are pre-generated.
+     *
+     * @return The key sizes, in bits.
+     */
+    public int[] sizes();
+
+    /**
+     * Get the maximum number of keys held for each size.
+     *
+     * @return The capacity.
+     */
+    public int capacity();
+
+    /**
+     * Get the number of keys currently held for a size.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The number of keys held.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public int depth(final int size);
+
+    /**
+     * Take a key, waiting for one to be generated if none are held.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key.
+     * @throws InterruptedException     If interrupted while waiting.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public PrivateKey take(final int size) throws InterruptedException;
+
+    /**
+     * Take a key, if one is held.
+     *
+     * @param size The size of the key in bits.
+     *
+     * @return The private key, or null if no key is held.
+     * @throws IllegalArgumentException If the size is not pre-generated.
+     */
+    public PrivateKey poll(final int size);
+
+    /**
+     * Start generating keys in the background.
+     */
+    public void start();
+
+    /**
+     * Stop generating keys.
+     *
+     * Keys that are already held can still be taken.
+     */
+    public void stop();
+}
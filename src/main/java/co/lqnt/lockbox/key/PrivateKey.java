@@ -13,16 +13,19 @@ import co.lqnt.lockbox.util.PemWriterFactory;
 import co.lqnt.lockbox.util.PemWriterFactoryInterface;
 import co.lqnt.lockbox.util.PrivateKeyInformationFactory;
 import co.lqnt.lockbox.util.PrivateKeyInformationFactoryInterface;
+import co.lqnt.lockbox.util.ProviderRegistry;
 import co.lqnt.lockbox.util.StringWriterFactory;
 import co.lqnt.lockbox.util.StringWriterFactoryInterface;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMEncryptor;
 import org.bouncycastle.openssl.PEMException;
 import org.bouncycastle.openssl.PEMWriter;
@@ -251,10 +254,7 @@ public class PrivateKey implements PrivateKeyInterface
      */
     public java.security.PrivateKey jcePrivateKey()
     {
-        JcaPEMKeyConverter keyConverter = new JcaPEMKeyConverter();
-        keyConverter.setProvider(new BouncyCastleProvider());
-
-        return this.jcePrivateKey(keyConverter);
+        return this.jcePrivateKey(ProviderRegistry.keyConverter());
     }
 
     /**
@@ -280,11 +280,64 @@ public class PrivateKey implements PrivateKeyInterface
     /**
      * Get this key as a PEM formatted string.
      *
+     * The PEM data is computed once, and shared between calls.
+     *
      * @return The PEM formatted key.
      */
     public String toPem()
     {
-        return this.toPem(new StringWriterFactory(), new PemWriterFactory());
+        String pem = this.pem;
+        if (null == pem) {
+            pem = this.toPem(new StringWriterFactory(), new PemWriterFactory());
+            this.pem = pem;
+        }
+
+        return pem;
+    }
+
+    /**
+     * Get this key as DER encoded PKCS #8 private key information.
+     *
+     * The encoding is computed once, and shared between calls.
+     *
+     * @return A read-only view of the DER encoded key.
+     */
+    public ByteBuffer toDer()
+    {
+        byte[] der = this.der;
+        if (null == der) {
+            try {
+                der = this.bcPrivateKeyInfo().getEncoded(ASN1Encoding.DER);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            this.der = der;
+        }
+
+        return ByteBuffer.wrap(der).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of this key.
+     *
+     * This is the fingerprint of the corresponding public key.
+     *
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint()
+    {
+        return this.cachedFingerprint().clone();
+    }
+
+    /**
+     * Get the identifier of this key.
+     *
+     * @return The key identifier.
+     */
+    public byte[] keyId()
+    {
+        return Arrays.copyOfRange(this.cachedFingerprint(), 0, 8);
     }
 
     /**
@@ -299,7 +352,7 @@ public class PrivateKey implements PrivateKeyInterface
         JcePEMEncryptorBuilder encryptorBuilder = new JcePEMEncryptorBuilder(
             "DES-EDE3-CBC"
         );
-        encryptorBuilder.setProvider(new BouncyCastleProvider());
+        encryptorBuilder.setProvider(ProviderRegistry.bouncyCastleProvider());
 
         return this.toPem(
             password,
@@ -393,6 +446,22 @@ public class PrivateKey implements PrivateKeyInterface
         return this.toPem();
     }
 
+    /**
+     * Get the fingerprint, calculating it on first use.
+     *
+     * @return The shared fingerprint array, which must not be modified.
+     */
+    protected byte[] cachedFingerprint()
+    {
+        byte[] fingerprint = this.fingerprint;
+        if (null == fingerprint) {
+            fingerprint = this.publicKey().fingerprint();
+            this.fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
     private BigInteger modulus;
     private BigInteger publicExponent;
     private BigInteger privateExponent;
@@ -401,4 +470,7 @@ public class PrivateKey implements PrivateKeyInterface
     private BigInteger primeExponent1;
     private BigInteger primeExponent2;
     private BigInteger coefficient;
+    private volatile String pem;
+    private volatile byte[] der;
+    private volatile byte[] fingerprint;
 }
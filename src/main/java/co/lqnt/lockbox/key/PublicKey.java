@@ -11,6 +11,7 @@ package co.lqnt.lockbox.key;
 
 import co.lqnt.lockbox.util.PemWriterFactory;
 import co.lqnt.lockbox.util.PemWriterFactoryInterface;
+import co.lqnt.lockbox.util.ProviderRegistry;
 import co.lqnt.lockbox.util.StringWriterFactory;
 import co.lqnt.lockbox.util.StringWriterFactoryInterface;
 import co.lqnt.lockbox.util.PublicKeyInformationFactory;
@@ -18,11 +19,14 @@ import co.lqnt.lockbox.util.PublicKeyInformationFactoryInterface;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.pkcs.RSAPublicKey;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMException;
 import org.bouncycastle.openssl.PEMWriter;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
@@ -145,10 +149,7 @@ public class PublicKey implements PublicKeyInterface
      */
     public java.security.PublicKey jcePublicKey()
     {
-        JcaPEMKeyConverter keyConverter = new JcaPEMKeyConverter();
-        keyConverter.setProvider(new BouncyCastleProvider());
-
-        return this.jcePublicKey(keyConverter);
+        return this.jcePublicKey(ProviderRegistry.keyConverter());
     }
 
     /**
@@ -174,11 +175,62 @@ public class PublicKey implements PublicKeyInterface
     /**
      * Get this key as a PEM formatted string.
      *
+     * The PEM data is computed once, and shared between calls.
+     *
      * @return The PEM formatted key.
      */
     public String toPem()
     {
-        return this.toPem(new StringWriterFactory(), new PemWriterFactory());
+        String pem = this.pem;
+        if (null == pem) {
+            pem = this.toPem(new StringWriterFactory(), new PemWriterFactory());
+            this.pem = pem;
+        }
+
+        return pem;
+    }
+
+    /**
+     * Get this key as DER encoded X.509 subject public key information.
+     *
+     * The encoding is computed once, and shared between calls.
+     *
+     * @return A read-only view of the DER encoded key.
+     */
+    public ByteBuffer toDer()
+    {
+        byte[] der = this.der;
+        if (null == der) {
+            try {
+                der = this.bcPublicKeyInfo().getEncoded(ASN1Encoding.DER);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            this.der = der;
+        }
+
+        return ByteBuffer.wrap(der).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of this key.
+     *
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint()
+    {
+        return this.cachedFingerprint().clone();
+    }
+
+    /**
+     * Get the identifier of this key.
+     *
+     * @return The key identifier.
+     */
+    public byte[] keyId()
+    {
+        return Arrays.copyOfRange(this.cachedFingerprint(), 0, 8);
     }
 
     /**
@@ -237,6 +289,33 @@ public class PublicKey implements PublicKeyInterface
         return this.toPem();
     }
 
+    /**
+     * Get the fingerprint, calculating it on first use.
+     *
+     * @return The shared fingerprint array, which must not be modified.
+     */
+    protected byte[] cachedFingerprint()
+    {
+        byte[] fingerprint = this.fingerprint;
+        if (null == fingerprint) {
+            ByteBuffer der = this.toDer();
+            byte[] derBytes = new byte[der.remaining()];
+            der.get(derBytes);
+
+            SHA256Digest digest = new SHA256Digest();
+            fingerprint = new byte[digest.getDigestSize()];
+            digest.update(derBytes, 0, derBytes.length);
+            digest.doFinal(fingerprint, 0);
+
+            this.fingerprint = fingerprint;
+        }
+
+        return fingerprint;
+    }
+
     private BigInteger modulus;
     private BigInteger publicExponent;
+    private volatile String pem;
+    private volatile byte[] der;
+    private volatile byte[] fingerprint;
 }
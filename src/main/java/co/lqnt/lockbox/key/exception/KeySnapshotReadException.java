@@ -0,0 +1,37 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key.exception;
+
+/**
+ * Unable to read a key snapshot from the supplied data.
+ */
+final public class KeySnapshotReadException extends Exception
+{
+    /**
+     * Construct a new key snapshot read exception.
+     *
+     * @param cause The cause.
+     */
+    public KeySnapshotReadException(final Throwable cause)
+    {
+        super(
+            "Unable to read a key snapshot from the supplied data.",
+            cause
+        );
+    }
+
+    /**
+     * Construct a new key snapshot read exception.
+     */
+    public KeySnapshotReadException()
+    {
+        this(null);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+
+/**
+ * Names the underlying causes of failures, for metrics listeners.
+ */
+final public class FailureCause
+{
+    /**
+     * Get the name of the underlying cause of a failure.
+     *
+     * Decryption failures with a known reason are named by that reason.
+     * Otherwise, exceptions that only wrap another exception are unwrapped,
+     * so that, for example, an encryption that fails because of a Bouncy
+     * Castle error is named InvalidCipherTextException.
+     *
+     * @param reason The reason for the failure, or null.
+     * @param cause  The exception that caused the failure, or null.
+     *
+     * @return The failure reason, or the simple class name of the cause.
+     */
+    public static String name(
+        final DecryptionFailureReason reason,
+        final Throwable cause
+    ) {
+        if (null != reason) {
+            return reason.name();
+        }
+        if (null == cause) {
+            return "Unknown";
+        }
+
+        Throwable unwrapped = cause;
+        while (
+            null != unwrapped.getCause() &&
+            (
+                unwrapped instanceof DecryptionFailedException ||
+                RuntimeException.class == unwrapped.getClass()
+            )
+        ) {
+            unwrapped = unwrapped.getCause();
+        }
+
+        return unwrapped.getClass().getSimpleName();
+    }
+
+    private FailureCause()
+    {
+    }
+}
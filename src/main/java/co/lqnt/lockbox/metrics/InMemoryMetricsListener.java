@@ -0,0 +1,512 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.key.KeyInterface;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A metrics listener that keeps its measurements in memory.
+ *
+ * Latencies of successful operations are recorded in a histogram for each
+ * direction. Operation, failure, and byte counts are kept in striped
+ * counters. The number of operations for each key size, and the number of
+ * failures for each cause, are also counted.
+ *
+ * The listener can also receive phase timings, which are recorded in a
+ * histogram for each phase of each direction, and key factory timings, which
+ * are recorded in a histogram each for key loading and key generation. All
+ * recording is lock-free, and the measurements can be read at any time.
+ */
+public class InMemoryMetricsListener implements
+    MetricsListenerInterface,
+    PhaseListenerInterface,
+    KeyMetricsListenerInterface
+{
+    /**
+     * Construct a new in-memory metrics listener.
+     */
+    public InMemoryMetricsListener()
+    {
+        this.encryptionLatency = new LatencyHistogram();
+        this.decryptionLatency = new LatencyHistogram();
+        this.encryptions = new StripedCounter();
+        this.decryptions = new StripedCounter();
+        this.encryptionFailures = new StripedCounter();
+        this.decryptionFailures = new StripedCounter();
+        this.plaintextBytes = new StripedCounter();
+        this.ciphertextBytes = new StripedCounter();
+        this.keySizes = new ConcurrentHashMap<Integer, StripedCounter>();
+        this.encryptionFailureCauses =
+            new ConcurrentHashMap<String, StripedCounter>();
+        this.decryptionFailureCauses =
+            new ConcurrentHashMap<String, StripedCounter>();
+        this.keyLoadLatency = new LatencyHistogram();
+        this.keyGenerationLatency = new LatencyHistogram();
+        this.keyLoadFailures = new StripedCounter();
+
+        int phases = Phase.values().length;
+        this.encryptionPhaseLatencies = new LatencyHistogram[phases];
+        this.decryptionPhaseLatencies = new LatencyHistogram[phases];
+        for (int i = 0; i < phases; ++i) {
+            this.encryptionPhaseLatencies[i] = new LatencyHistogram();
+            this.decryptionPhaseLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns true if the listener records anything.
+     *
+     * @return Always true.
+     */
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    /**
+     * Called after data is encrypted.
+     *
+     * @param key             The key.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param ciphertextBytes The number of ciphertext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void encrypted(
+        final KeyInterface key,
+        final int plaintextBytes,
+        final int ciphertextBytes,
+        final long nanoseconds
+    ) {
+        this.encryptionLatency.record(nanoseconds);
+        this.encryptions.increment();
+        this.plaintextBytes.add(plaintextBytes);
+        this.ciphertextBytes.add(ciphertextBytes);
+        this.keySizeCounter(key.size()).increment();
+    }
+
+    /**
+     * Called after data is decrypted.
+     *
+     * @param key             The key.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param plaintextBytes  The number of plaintext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void decrypted(
+        final KeyInterface key,
+        final int ciphertextBytes,
+        final int plaintextBytes,
+        final long nanoseconds
+    ) {
+        this.decryptionLatency.record(nanoseconds);
+        this.decryptions.increment();
+        this.ciphertextBytes.add(ciphertextBytes);
+        this.plaintextBytes.add(plaintextBytes);
+        this.keySizeCounter(key.size()).increment();
+    }
+
+    /**
+     * Called after encryption fails.
+     *
+     * @param key         The key.
+     * @param exception   The exception that caused the failure.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionFailed(
+        final KeyInterface key,
+        final Exception exception,
+        final long nanoseconds
+    )
+    {
+        this.encryptionFailures.increment();
+        this.keySizeCounter(key.size()).increment();
+        this.counter(
+            this.encryptionFailureCauses,
+            FailureCause.name(null, exception)
+        ).increment();
+    }
+
+    /**
+     * Called after decryption fails.
+     *
+     * @param key         The key.
+     * @param reason      The reason for the failure, or null if the
+     *     decryption failed with an unexpected exception.
+     * @param cause       The underlying cause of the failure, or null.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionFailed(
+        final KeyInterface key,
+        final DecryptionFailureReason reason,
+        final Throwable cause,
+        final long nanoseconds
+    )
+    {
+        this.decryptionFailures.increment();
+        this.keySizeCounter(key.size()).increment();
+        this.counter(
+            this.decryptionFailureCauses,
+            FailureCause.name(reason, cause)
+        ).increment();
+    }
+
+    /**
+     * Called after a phase of an encryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        this.encryptionPhaseLatencies[phase.ordinal()].record(nanoseconds);
+    }
+
+    /**
+     * Called after a phase of a decryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        this.decryptionPhaseLatencies[phase.ordinal()].record(nanoseconds);
+    }
+
+    /**
+     * Called after a private key is loaded.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoaded(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+        this.keyLoadLatency.record(nanoseconds);
+    }
+
+    /**
+     * Called after loading a private key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoadFailed(final long nanoseconds)
+    {
+        this.keyLoadFailures.increment();
+    }
+
+    /**
+     * Called after a public key is loaded.
+     *
+     * @param key         The public key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoaded(
+        final PublicKeyInterface key,
+        final long nanoseconds
+    ) {
+        this.keyLoadLatency.record(nanoseconds);
+    }
+
+    /**
+     * Called after loading a public key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoadFailed(final long nanoseconds)
+    {
+        this.keyLoadFailures.increment();
+    }
+
+    /**
+     * Called after a private key is generated.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyGenerated(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+        this.keyGenerationLatency.record(nanoseconds);
+    }
+
+    /**
+     * Get the latency histogram of successful encryptions.
+     *
+     * @return The encryption latency histogram.
+     */
+    public LatencyHistogram encryptionLatency()
+    {
+        return this.encryptionLatency;
+    }
+
+    /**
+     * Get the latency histogram of successful decryptions.
+     *
+     * @return The decryption latency histogram.
+     */
+    public LatencyHistogram decryptionLatency()
+    {
+        return this.decryptionLatency;
+    }
+
+    /**
+     * Get the latency histogram of a phase of encryption.
+     *
+     * @param phase The phase.
+     *
+     * @return The phase latency histogram.
+     */
+    public LatencyHistogram encryptionPhaseLatency(final Phase phase)
+    {
+        return this.encryptionPhaseLatencies[phase.ordinal()];
+    }
+
+    /**
+     * Get the latency histogram of a phase of decryption.
+     *
+     * @param phase The phase.
+     *
+     * @return The phase latency histogram.
+     */
+    public LatencyHistogram decryptionPhaseLatency(final Phase phase)
+    {
+        return this.decryptionPhaseLatencies[phase.ordinal()];
+    }
+
+    /**
+     * Get the latency histogram of successful key loads.
+     *
+     * @return The key load latency histogram.
+     */
+    public LatencyHistogram keyLoadLatency()
+    {
+        return this.keyLoadLatency;
+    }
+
+    /**
+     * Get the latency histogram of key generations.
+     *
+     * @return The key generation latency histogram.
+     */
+    public LatencyHistogram keyGenerationLatency()
+    {
+        return this.keyGenerationLatency;
+    }
+
+    /**
+     * Get the number of successful encryptions.
+     *
+     * @return The number of encryptions.
+     */
+    public long encryptions()
+    {
+        return this.encryptions.sum();
+    }
+
+    /**
+     * Get the number of successful decryptions.
+     *
+     * @return The number of decryptions.
+     */
+    public long decryptions()
+    {
+        return this.decryptions.sum();
+    }
+
+    /**
+     * Get the number of failed encryptions.
+     *
+     * @return The number of encryption failures.
+     */
+    public long encryptionFailures()
+    {
+        return this.encryptionFailures.sum();
+    }
+
+    /**
+     * Get the number of failed decryptions.
+     *
+     * @return The number of decryption failures.
+     */
+    public long decryptionFailures()
+    {
+        return this.decryptionFailures.sum();
+    }
+
+    /**
+     * Get the number of failed key loads.
+     *
+     * @return The number of key load failures.
+     */
+    public long keyLoadFailures()
+    {
+        return this.keyLoadFailures.sum();
+    }
+
+    /**
+     * Get the number of plaintext bytes encrypted or decrypted.
+     *
+     * @return The number of plaintext bytes.
+     */
+    public long plaintextBytes()
+    {
+        return this.plaintextBytes.sum();
+    }
+
+    /**
+     * Get the number of ciphertext bytes produced or decrypted.
+     *
+     * @return The number of ciphertext bytes.
+     */
+    public long ciphertextBytes()
+    {
+        return this.ciphertextBytes.sum();
+    }
+
+    /**
+     * Get the number of operations, including failures, for each key size.
+     *
+     * @return The operation counts, keyed by key size in bits.
+     */
+    public SortedMap<Integer, Long> keySizes()
+    {
+        return this.sums(this.keySizes);
+    }
+
+    /**
+     * Get the number of failed encryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public SortedMap<String, Long> encryptionFailureCauses()
+    {
+        return this.sums(this.encryptionFailureCauses);
+    }
+
+    /**
+     * Get the number of failed decryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public SortedMap<String, Long> decryptionFailureCauses()
+    {
+        return this.sums(this.decryptionFailureCauses);
+    }
+
+    /**
+     * Discard all measurements.
+     */
+    public void reset()
+    {
+        this.encryptionLatency.reset();
+        this.decryptionLatency.reset();
+        this.encryptions.reset();
+        this.decryptions.reset();
+        this.encryptionFailures.reset();
+        this.decryptionFailures.reset();
+        this.plaintextBytes.reset();
+        this.ciphertextBytes.reset();
+        this.keySizes.clear();
+        this.encryptionFailureCauses.clear();
+        this.decryptionFailureCauses.clear();
+        this.keyLoadLatency.reset();
+        this.keyGenerationLatency.reset();
+        this.keyLoadFailures.reset();
+        for (int i = 0; i < this.encryptionPhaseLatencies.length; ++i) {
+            this.encryptionPhaseLatencies[i].reset();
+            this.decryptionPhaseLatencies[i].reset();
+        }
+    }
+
+    /**
+     * Get the operation counter for a key size, creating it if necessary.
+     *
+     * @param keySize The size of the key in bits.
+     *
+     * @return The counter.
+     */
+    protected StripedCounter keySizeCounter(final int keySize)
+    {
+        return this.counter(this.keySizes, keySize);
+    }
+
+    /**
+     * Get the counter for a key from a map of counters, creating it if
+     * necessary.
+     *
+     * @param <K>      The type of key.
+     * @param counters The counters.
+     * @param key      The key.
+     *
+     * @return The counter.
+     */
+    protected <K> StripedCounter counter(
+        final ConcurrentMap<K, StripedCounter> counters,
+        final K key
+    ) {
+        StripedCounter counter = counters.get(key);
+        if (null == counter) {
+            StripedCounter created = new StripedCounter();
+            counter = counters.putIfAbsent(key, created);
+            if (null == counter) {
+                counter = created;
+            }
+        }
+
+        return counter;
+    }
+
+    /**
+     * Get a sorted snapshot of a map of counters.
+     *
+     * @param <K>      The type of key.
+     * @param counters The counters.
+     *
+     * @return The sums of the counters.
+     */
+    protected <K> SortedMap<K, Long> sums(
+        final Map<K, StripedCounter> counters
+    ) {
+        SortedMap<K, Long> sums = new TreeMap<K, Long>();
+        for (Map.Entry<K, StripedCounter> entry : counters.entrySet()) {
+            sums.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return Collections.unmodifiableSortedMap(sums);
+    }
+
+    private LatencyHistogram encryptionLatency;
+    private LatencyHistogram decryptionLatency;
+    private StripedCounter encryptions;
+    private StripedCounter decryptions;
+    private StripedCounter encryptionFailures;
+    private StripedCounter decryptionFailures;
+    private StripedCounter plaintextBytes;
+    private StripedCounter ciphertextBytes;
+    private ConcurrentMap<Integer, StripedCounter> keySizes;
+    private ConcurrentMap<String, StripedCounter> encryptionFailureCauses;
+    private ConcurrentMap<String, StripedCounter> decryptionFailureCauses;
+    private LatencyHistogram keyLoadLatency;
+    private LatencyHistogram keyGenerationLatency;
+    private StripedCounter keyLoadFailures;
+    private LatencyHistogram[] encryptionPhaseLatencies;
+    private LatencyHistogram[] decryptionPhaseLatencies;
+}
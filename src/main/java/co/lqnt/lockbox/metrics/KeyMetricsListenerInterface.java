@@ -0,0 +1,80 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+
+/**
+ * The interface implemented by key factory metrics listeners.
+ *
+ * Listeners are called on the thread loading or generating the key, so they
+ * must be thread safe and should return quickly.
+ */
+public interface KeyMetricsListenerInterface
+{
+    /**
+     * Returns true if the listener records anything.
+     *
+     * Key factories check this before every operation, so it must be cheap.
+     * While it returns false, the listener is not called, and no timing is
+     * performed on its behalf.
+     *
+     * @return True if the listener is enabled.
+     */
+    public boolean isEnabled();
+
+    /**
+     * Called after a private key is loaded.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoaded(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    );
+
+    /**
+     * Called after loading a private key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoadFailed(final long nanoseconds);
+
+    /**
+     * Called after a public key is loaded.
+     *
+     * @param key         The public key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoaded(
+        final PublicKeyInterface key,
+        final long nanoseconds
+    );
+
+    /**
+     * Called after loading a public key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoadFailed(final long nanoseconds);
+
+    /**
+     * Called after a private key is generated.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyGenerated(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    );
+}
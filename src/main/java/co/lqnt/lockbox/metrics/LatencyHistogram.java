@@ -0,0 +1,262 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, in nanoseconds.
+ *
+ * Values are counted in log-linear buckets. Each power of two is split into
+ * 32 equal sub-buckets, so any recorded value is reported with a relative
+ * error of at most 1/32, across the entire range of a long. Recording a value
+ * is a handful of atomic increments, and never allocates or blocks. The count
+ * and total are striped, so that concurrent recorders rarely contend.
+ */
+public class LatencyHistogram
+{
+    /**
+     * Construct a new latency histogram.
+     */
+    public LatencyHistogram()
+    {
+        this.counts = new AtomicLongArray(
+            (64 - LatencyHistogram.SUB_BUCKET_BITS) <<
+                LatencyHistogram.SUB_BUCKET_BITS
+        );
+        this.count = new StripedCounter();
+        this.total = new StripedCounter();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Record a latency.
+     *
+     * Negative values are recorded as zero.
+     *
+     * @param nanoseconds The latency in nanoseconds.
+     */
+    public void record(final long nanoseconds)
+    {
+        long value = Math.max(nanoseconds, 0L);
+
+        this.counts.incrementAndGet(LatencyHistogram.index(value));
+        this.count.increment();
+        this.total.add(value);
+
+        long max;
+        do {
+            max = this.max.get();
+        } while (value > max && !this.max.compareAndSet(max, value));
+    }
+
+    /**
+     * Get the number of recorded latencies.
+     *
+     * @return The count.
+     */
+    public long count()
+    {
+        return this.count.sum();
+    }
+
+    /**
+     * Get the sum of all recorded latencies.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long total()
+    {
+        return this.total.sum();
+    }
+
+    /**
+     * Get the largest recorded latency.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long max()
+    {
+        return this.max.get();
+    }
+
+    /**
+     * Get the mean of the recorded latencies.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public double mean()
+    {
+        long count = this.count();
+        if (0 == count) {
+            return 0.0;
+        }
+
+        return (double) this.total() / count;
+    }
+
+    /**
+     * Get the latency at a percentile.
+     *
+     * The result is the highest value equivalent to the bucket holding the
+     * percentile, and never exceeds the maximum recorded latency.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     *
+     * @return The latency in nanoseconds, or 0 if nothing has been recorded.
+     * @throws IllegalArgumentException If the percentile is out of range.
+     */
+    public long percentile(final double percentile)
+    {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException(
+                "Percentile must be between 0 and 100."
+            );
+        }
+
+        long[] counts = new long[this.counts.length()];
+        long count = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = this.counts.get(i);
+            count += counts[i];
+        }
+        if (0 == count) {
+            return 0L;
+        }
+
+        long target = (long) Math.ceil(percentile / 100.0 * count);
+        if (target < 1) {
+            target = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.highestValue(i), this.max());
+            }
+        }
+
+        return this.max();
+    }
+
+    /**
+     * Get a copy of this histogram.
+     *
+     * Latencies recorded concurrently with the copy may be partially copied.
+     *
+     * @return The copy.
+     */
+    public LatencyHistogram snapshot()
+    {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        for (int i = 0; i < this.counts.length(); ++i) {
+            snapshot.counts.set(i, this.counts.get(i));
+        }
+        snapshot.count.add(this.count());
+        snapshot.total.add(this.total());
+        snapshot.max.set(this.max());
+
+        return snapshot;
+    }
+
+    /**
+     * Get the latencies recorded since an earlier snapshot of this histogram.
+     *
+     * Unlike a reset, this loses no latencies that are recorded concurrently.
+     * The maximum of the result is the highest value equivalent to its
+     * highest non-empty bucket, or the maximum of this histogram if lower.
+     *
+     * @param earlier The earlier snapshot.
+     *
+     * @return The latencies recorded since the snapshot.
+     */
+    public LatencyHistogram since(final LatencyHistogram earlier)
+    {
+        LatencyHistogram difference = new LatencyHistogram();
+        long max = 0L;
+        for (int i = 0; i < this.counts.length(); ++i) {
+            long count = this.counts.get(i) - earlier.counts.get(i);
+            if (count > 0) {
+                difference.counts.set(i, count);
+                max = LatencyHistogram.highestValue(i);
+            }
+        }
+        difference.count.add(this.count() - earlier.count());
+        difference.total.add(this.total() - earlier.total());
+        difference.max.set(Math.min(max, this.max()));
+
+        return difference;
+    }
+
+    /**
+     * Discard all recorded latencies.
+     *
+     * Latencies recorded concurrently with a reset may be partially retained.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < this.counts.length(); ++i) {
+            this.counts.set(i, 0L);
+        }
+        this.count.reset();
+        this.total.reset();
+        this.max.set(0L);
+    }
+
+    /**
+     * Get the bucket index for a value.
+     *
+     * @param value The non-negative value.
+     *
+     * @return The bucket index.
+     */
+    protected static int index(final long value)
+    {
+        if (value < LatencyHistogram.SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) -
+            LatencyHistogram.SUB_BUCKET_BITS;
+
+        return ((shift + 1) << LatencyHistogram.SUB_BUCKET_BITS) +
+            (int) ((value >>> shift) & (LatencyHistogram.SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Get the highest value counted in a bucket.
+     *
+     * @param index The bucket index.
+     *
+     * @return The highest value.
+     */
+    protected static long highestValue(final int index)
+    {
+        if (index < LatencyHistogram.SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index >> LatencyHistogram.SUB_BUCKET_BITS) - 1;
+        long subBucket = LatencyHistogram.SUB_BUCKET_COUNT +
+            (index & (LatencyHistogram.SUB_BUCKET_COUNT - 1));
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << 5;
+
+    private AtomicLongArray counts;
+    private StripedCounter count;
+    private StripedCounter total;
+    private AtomicLong max;
+}
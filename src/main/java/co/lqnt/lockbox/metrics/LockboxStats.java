@@ -0,0 +1,369 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Exposes Lockbox statistics over JMX.
+ *
+ * Operation statistics are read from an in-memory metrics listener, and pool
+ * and cache statistics from any number of named statistics providers. All
+ * values are computed when they are read, so the request path does no more
+ * work than the listener and providers already do.
+ */
+public class LockboxStats implements LockboxStatsMBean
+{
+    /**
+     * Construct new Lockbox statistics.
+     *
+     * @param metricsListener The metrics listener to read from.
+     */
+    public LockboxStats(final InMemoryMetricsListener metricsListener)
+    {
+        this(
+            metricsListener,
+            new HashMap<String, StatisticsProviderInterface>()
+        );
+    }
+
+    /**
+     * Construct new Lockbox statistics.
+     *
+     * @param metricsListener The metrics listener to read from.
+     * @param providers       The pools and caches to read from, keyed by name.
+     */
+    public LockboxStats(
+        final InMemoryMetricsListener metricsListener,
+        final Map<String, StatisticsProviderInterface> providers
+    ) {
+        this.metricsListener = metricsListener;
+        this.providers =
+            new ConcurrentHashMap<String, StatisticsProviderInterface>(
+                providers
+            );
+        this.resetTime = System.nanoTime();
+    }
+
+    /**
+     * Get the metrics listener.
+     *
+     * @return The metrics listener.
+     */
+    public InMemoryMetricsListener metricsListener()
+    {
+        return this.metricsListener;
+    }
+
+    /**
+     * Get the pools and caches.
+     *
+     * @return The statistics providers, keyed by name.
+     */
+    public Map<String, StatisticsProviderInterface> providers()
+    {
+        return Collections.unmodifiableMap(this.providers);
+    }
+
+    /**
+     * Add a pool or cache.
+     *
+     * A provider already added under the same name is replaced.
+     *
+     * @param name     The name to report the provider under.
+     * @param provider The statistics provider.
+     */
+    public void addProvider(
+        final String name,
+        final StatisticsProviderInterface provider
+    ) {
+        this.providers.put(name, provider);
+    }
+
+    /**
+     * Remove a pool or cache.
+     *
+     * @param name The name the provider was added under.
+     */
+    public void removeProvider(final String name)
+    {
+        this.providers.remove(name);
+    }
+
+    /**
+     * Register with the platform MBean server, under the default name.
+     *
+     * @return The name registered under.
+     * @throws JMException If registration fails.
+     */
+    public ObjectName register() throws JMException
+    {
+        return this.register(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Register with an MBean server, under the default name.
+     *
+     * The statistics are registered as an MXBean, so that the maps they
+     * expose can be read by any JMX client.
+     *
+     * @param server The MBean server.
+     *
+     * @return The name registered under.
+     * @throws JMException If registration fails.
+     */
+    public ObjectName register(final MBeanServer server) throws JMException
+    {
+        ObjectName name = new ObjectName(LockboxStats.OBJECT_NAME);
+        server.registerMBean(
+            new StandardMBean(this, LockboxStatsMBean.class, true),
+            name
+        );
+
+        return name;
+    }
+
+    /**
+     * Unregister from the platform MBean server.
+     *
+     * @throws JMException If unregistration fails.
+     */
+    public void unregister() throws JMException
+    {
+        this.unregister(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Unregister from an MBean server.
+     *
+     * @param server The MBean server.
+     *
+     * @throws JMException If unregistration fails.
+     */
+    public void unregister(final MBeanServer server) throws JMException
+    {
+        server.unregisterMBean(new ObjectName(LockboxStats.OBJECT_NAME));
+    }
+
+    /**
+     * Get the number of successful encryptions.
+     *
+     * @return The number of encryptions.
+     */
+    public long getEncryptions()
+    {
+        return this.metricsListener().encryptions();
+    }
+
+    /**
+     * Get the number of successful decryptions.
+     *
+     * @return The number of decryptions.
+     */
+    public long getDecryptions()
+    {
+        return this.metricsListener().decryptions();
+    }
+
+    /**
+     * Get the mean rate of successful encryptions.
+     *
+     * @return The encryptions per second.
+     */
+    public double getEncryptionRate()
+    {
+        return this.rate(this.getEncryptions());
+    }
+
+    /**
+     * Get the mean rate of successful decryptions.
+     *
+     * @return The decryptions per second.
+     */
+    public double getDecryptionRate()
+    {
+        return this.rate(this.getDecryptions());
+    }
+
+    /**
+     * Get the median latency of successful encryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getEncryptionLatencyP50()
+    {
+        return this.metricsListener().encryptionLatency().percentile(50.0);
+    }
+
+    /**
+     * Get the 99th percentile latency of successful encryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getEncryptionLatencyP99()
+    {
+        return this.metricsListener().encryptionLatency().percentile(99.0);
+    }
+
+    /**
+     * Get the median latency of successful decryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getDecryptionLatencyP50()
+    {
+        return this.metricsListener().decryptionLatency().percentile(50.0);
+    }
+
+    /**
+     * Get the 99th percentile latency of successful decryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getDecryptionLatencyP99()
+    {
+        return this.metricsListener().decryptionLatency().percentile(99.0);
+    }
+
+    /**
+     * Get the number of failed encryptions.
+     *
+     * @return The number of encryption failures.
+     */
+    public long getEncryptionFailures()
+    {
+        return this.metricsListener().encryptionFailures();
+    }
+
+    /**
+     * Get the number of failed decryptions.
+     *
+     * @return The number of decryption failures.
+     */
+    public long getDecryptionFailures()
+    {
+        return this.metricsListener().decryptionFailures();
+    }
+
+    /**
+     * Get the number of failed encryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public Map<String, Long> getEncryptionFailureCauses()
+    {
+        return this.metricsListener().encryptionFailureCauses();
+    }
+
+    /**
+     * Get the number of failed decryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public Map<String, Long> getDecryptionFailureCauses()
+    {
+        return this.metricsListener().decryptionFailureCauses();
+    }
+
+    /**
+     * Get the number of entries held by each pool and cache.
+     *
+     * @return The sizes, keyed by name.
+     */
+    public Map<String, Integer> getPoolSizes()
+    {
+        SortedMap<String, Integer> sizes = new TreeMap<String, Integer>();
+        for (
+            Map.Entry<String, StatisticsProviderInterface> entry :
+                this.providers.entrySet()
+        ) {
+            sizes.put(entry.getKey(), entry.getValue().size());
+        }
+
+        return Collections.unmodifiableSortedMap(sizes);
+    }
+
+    /**
+     * Get the proportion of requests served by each pool and cache.
+     *
+     * A provider that has served no requests has a hit rate of 0.
+     *
+     * @return The hit rates, from 0 to 1, keyed by name.
+     */
+    public Map<String, Double> getPoolHitRates()
+    {
+        SortedMap<String, Double> hitRates = new TreeMap<String, Double>();
+        for (
+            Map.Entry<String, StatisticsProviderInterface> entry :
+                this.providers.entrySet()
+        ) {
+            long hits = entry.getValue().hits();
+            long requests = hits + entry.getValue().misses();
+
+            double hitRate = 0.0;
+            if (requests > 0) {
+                hitRate = (double) hits / requests;
+            }
+
+            hitRates.put(entry.getKey(), hitRate);
+        }
+
+        return Collections.unmodifiableSortedMap(hitRates);
+    }
+
+    /**
+     * Reset all counters, latencies, and rates.
+     *
+     * The metrics listener and every pool and cache are reset.
+     */
+    public void reset()
+    {
+        this.metricsListener().reset();
+        for (StatisticsProviderInterface provider : this.providers.values()) {
+            provider.resetStatistics();
+        }
+        this.resetTime = System.nanoTime();
+    }
+
+    /**
+     * Get the mean rate of a count since the last reset.
+     *
+     * @param count The count.
+     *
+     * @return The rate per second.
+     */
+    protected double rate(final long count)
+    {
+        long elapsed = System.nanoTime() - this.resetTime;
+        if (elapsed <= 0) {
+            return 0.0;
+        }
+
+        return count * 1000000000.0 / elapsed;
+    }
+
+    private static final String OBJECT_NAME =
+        "co.lqnt.lockbox:type=LockboxStats";
+
+    private InMemoryMetricsListener metricsListener;
+    private ConcurrentMap<String, StatisticsProviderInterface> providers;
+    private volatile long resetTime;
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import java.util.Map;
+import javax.management.MXBean;
+
+/**
+ * The management interface of Lockbox statistics.
+ *
+ * Rates are averaged over the time since the statistics were last reset.
+ * Latencies are in nanoseconds. Pools and caches are identified by the name
+ * they were added under.
+ */
+@MXBean
+public interface LockboxStatsMBean
+{
+    /**
+     * Get the number of successful encryptions.
+     *
+     * @return The number of encryptions.
+     */
+    public long getEncryptions();
+
+    /**
+     * Get the number of successful decryptions.
+     *
+     * @return The number of decryptions.
+     */
+    public long getDecryptions();
+
+    /**
+     * Get the mean rate of successful encryptions.
+     *
+     * @return The encryptions per second.
+     */
+    public double getEncryptionRate();
+
+    /**
+     * Get the mean rate of successful decryptions.
+     *
+     * @return The decryptions per second.
+     */
+    public double getDecryptionRate();
+
+    /**
+     * Get the median latency of successful encryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getEncryptionLatencyP50();
+
+    /**
+     * Get the 99th percentile latency of successful encryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getEncryptionLatencyP99();
+
+    /**
+     * Get the median latency of successful decryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getDecryptionLatencyP50();
+
+    /**
+     * Get the 99th percentile latency of successful decryptions.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getDecryptionLatencyP99();
+
+    /**
+     * Get the number of failed encryptions.
+     *
+     * @return The number of encryption failures.
+     */
+    public long getEncryptionFailures();
+
+    /**
+     * Get the number of failed decryptions.
+     *
+     * @return The number of decryption failures.
+     */
+    public long getDecryptionFailures();
+
+    /**
+     * Get the number of failed encryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public Map<String, Long> getEncryptionFailureCauses();
+
+    /**
+     * Get the number of failed decryptions for each cause.
+     *
+     * @return The failure counts, keyed by cause.
+     */
+    public Map<String, Long> getDecryptionFailureCauses();
+
+    /**
+     * Get the number of entries held by each pool and cache.
+     *
+     * @return The sizes, keyed by name.
+     */
+    public Map<String, Integer> getPoolSizes();
+
+    /**
+     * Get the proportion of requests served by each pool and cache.
+     *
+     * @return The hit rates, from 0 to 1, keyed by name.
+     */
+    public Map<String, Double> getPoolHitRates();
+
+    /**
+     * Reset all counters, latencies, and rates.
+     */
+    public void reset();
+}
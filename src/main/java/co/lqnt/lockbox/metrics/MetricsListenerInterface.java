@@ -0,0 +1,95 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.key.KeyInterface;
+
+/**
+ * The interface implemented by cipher metrics listeners.
+ *
+ * Listeners are called on the thread performing the operation, so they must
+ * be thread safe and should return quickly.
+ */
+public interface MetricsListenerInterface
+{
+    /**
+     * Returns true if the listener records anything.
+     *
+     * Ciphers check this before every operation, so it must be cheap. While
+     * it returns false, the listener is not called, and no timing is
+     * performed on its behalf.
+     *
+     * @return True if the listener is enabled.
+     */
+    public boolean isEnabled();
+
+    /**
+     * Called after data is encrypted.
+     *
+     * @param key             The key.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param ciphertextBytes The number of ciphertext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void encrypted(
+        final KeyInterface key,
+        final int plaintextBytes,
+        final int ciphertextBytes,
+        final long nanoseconds
+    );
+
+    /**
+     * Called after data is decrypted.
+     *
+     * @param key             The key.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param plaintextBytes  The number of plaintext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void decrypted(
+        final KeyInterface key,
+        final int ciphertextBytes,
+        final int plaintextBytes,
+        final long nanoseconds
+    );
+
+    /**
+     * Called after encryption fails.
+     *
+     * @param key         The key.
+     * @param exception   The exception that caused the failure.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionFailed(
+        final KeyInterface key,
+        final Exception exception,
+        final long nanoseconds
+    );
+
+    /**
+     * Called after decryption fails.
+     *
+     * Rejected packets are reported by reason, so that no exception need be
+     * built for them.
+     *
+     * @param key         The key.
+     * @param reason      The reason for the failure, or null if the
+     *     decryption failed with an unexpected exception.
+     * @param cause       The underlying cause of the failure, or null.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionFailed(
+        final KeyInterface key,
+        final DecryptionFailureReason reason,
+        final Throwable cause,
+        final long nanoseconds
+    );
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.key.KeyInterface;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+
+/**
+ * A metrics listener that records nothing.
+ *
+ * This is the default listener for all ciphers and key factories. Because it
+ * is disabled, they skip timing entirely, and the listener is never called.
+ */
+public class NullMetricsListener
+    implements MetricsListenerInterface, KeyMetricsListenerInterface
+{
+    /**
+     * Returns true if the listener records anything.
+     *
+     * @return Always false.
+     */
+    public boolean isEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * Called after data is encrypted.
+     *
+     * @param key             The key.
+     * @param plaintextBytes  The number of plaintext bytes.
+     * @param ciphertextBytes The number of ciphertext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void encrypted(
+        final KeyInterface key,
+        final int plaintextBytes,
+        final int ciphertextBytes,
+        final long nanoseconds
+    ) {
+    }
+
+    /**
+     * Called after data is decrypted.
+     *
+     * @param key             The key.
+     * @param ciphertextBytes The number of ciphertext bytes.
+     * @param plaintextBytes  The number of plaintext bytes produced.
+     * @param nanoseconds     The time taken in nanoseconds.
+     */
+    public void decrypted(
+        final KeyInterface key,
+        final int ciphertextBytes,
+        final int plaintextBytes,
+        final long nanoseconds
+    ) {
+    }
+
+    /**
+     * Called after encryption fails.
+     *
+     * @param key         The key.
+     * @param exception   The exception that caused the failure.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionFailed(
+        final KeyInterface key,
+        final Exception exception,
+        final long nanoseconds
+    )
+    {
+    }
+
+    /**
+     * Called after decryption fails.
+     *
+     * @param key         The key.
+     * @param reason      The reason for the failure, or null if the
+     *     decryption failed with an unexpected exception.
+     * @param cause       The underlying cause of the failure, or null.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionFailed(
+        final KeyInterface key,
+        final DecryptionFailureReason reason,
+        final Throwable cause,
+        final long nanoseconds
+    )
+    {
+    }
+
+    /**
+     * Called after a private key is loaded.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoaded(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+    }
+
+    /**
+     * Called after loading a private key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyLoadFailed(final long nanoseconds)
+    {
+    }
+
+    /**
+     * Called after a public key is loaded.
+     *
+     * @param key         The public key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoaded(
+        final PublicKeyInterface key,
+        final long nanoseconds
+    ) {
+    }
+
+    /**
+     * Called after loading a public key fails.
+     *
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void publicKeyLoadFailed(final long nanoseconds)
+    {
+    }
+
+    /**
+     * Called after a private key is generated.
+     *
+     * @param key         The private key.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void privateKeyGenerated(
+        final PrivateKeyInterface key,
+        final long nanoseconds
+    ) {
+    }
+}
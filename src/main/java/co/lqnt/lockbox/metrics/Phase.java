@@ -0,0 +1,36 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+/**
+ * The phases of a cipher operation that can be timed.
+ */
+public enum Phase
+{
+    /**
+     * Base64 encoding or decoding of the envelope.
+     */
+    CODEC,
+
+    /**
+     * RSA encryption or decryption of the AES key and IV.
+     */
+    RSA,
+
+    /**
+     * AES encryption or decryption of the data.
+     */
+    AES,
+
+    /**
+     * SHA-1 hashing or verification of the data.
+     */
+    DIGEST
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+/**
+ * A phase listener that accumulates timings for each thread.
+ *
+ * Every thread sees only the totals of the operations it performed itself,
+ * which makes it possible to break down the cost of a single request without
+ * any synchronization. Totals are kept until they are reset.
+ */
+public class PhaseAccumulator implements PhaseListenerInterface
+{
+    /**
+     * Construct a new phase accumulator.
+     */
+    public PhaseAccumulator()
+    {
+        this.totals = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue()
+            {
+                return new long[2 * PhaseAccumulator.PHASES];
+            }
+        };
+    }
+
+    /**
+     * Called after a phase of an encryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        this.totals.get()[phase.ordinal()] += nanoseconds;
+    }
+
+    /**
+     * Called after a phase of a decryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionPhase(final Phase phase, final long nanoseconds)
+    {
+        this.totals.get()[PhaseAccumulator.PHASES + phase.ordinal()] +=
+            nanoseconds;
+    }
+
+    /**
+     * Get the time the current thread has spent in a phase of encryption.
+     *
+     * @param phase The phase.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long encryptionNanoseconds(final Phase phase)
+    {
+        return this.totals.get()[phase.ordinal()];
+    }
+
+    /**
+     * Get the time the current thread has spent in a phase of decryption.
+     *
+     * @param phase The phase.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long decryptionNanoseconds(final Phase phase)
+    {
+        return this.totals.get()[PhaseAccumulator.PHASES + phase.ordinal()];
+    }
+
+    /**
+     * Discard the totals of the current thread.
+     */
+    public void reset()
+    {
+        this.totals.remove();
+    }
+
+    private static final int PHASES = Phase.values().length;
+
+    private ThreadLocal<long[]> totals;
+}
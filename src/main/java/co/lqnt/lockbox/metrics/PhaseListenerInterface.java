@@ -0,0 +1,35 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+/**
+ * The interface implemented by cipher phase timing listeners.
+ *
+ * Listeners are called on the thread performing the operation, once for each
+ * phase that completes, so they must be thread safe and should return quickly.
+ */
+public interface PhaseListenerInterface
+{
+    /**
+     * Called after a phase of an encryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void encryptionPhase(final Phase phase, final long nanoseconds);
+
+    /**
+     * Called after a phase of a decryption completes.
+     *
+     * @param phase       The phase.
+     * @param nanoseconds The time taken in nanoseconds.
+     */
+    public void decryptionPhase(final Phase phase, final long nanoseconds);
+}
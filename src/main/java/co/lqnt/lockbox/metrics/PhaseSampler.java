@@ -0,0 +1,96 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+/**
+ * Selects which cipher operations have their phases timed.
+ *
+ * One operation in every interval is timed, which bounds the cost of reading
+ * the clock on the hot path. Operations that are not sampled cost a single
+ * counter decrement.
+ *
+ * A sampler holds per-cipher state, and must not be shared between ciphers
+ * that are used concurrently.
+ */
+public class PhaseSampler
+{
+    /**
+     * Construct a new phase sampler that times every operation.
+     *
+     * @param listener The listener to report phase timings to.
+     */
+    public PhaseSampler(final PhaseListenerInterface listener)
+    {
+        this(listener, 1);
+    }
+
+    /**
+     * Construct a new phase sampler.
+     *
+     * @param listener The listener to report phase timings to.
+     * @param interval The number of operations per timed operation.
+     */
+    public PhaseSampler(
+        final PhaseListenerInterface listener,
+        final int interval
+    ) {
+        if (interval < 1) {
+            throw new IllegalArgumentException(
+                "Sample interval must be at least 1."
+            );
+        }
+
+        this.listener = listener;
+        this.interval = interval;
+        this.countdown = 1;
+    }
+
+    /**
+     * Get the listener that phase timings are reported to.
+     *
+     * @return The listener.
+     */
+    public PhaseListenerInterface listener()
+    {
+        return this.listener;
+    }
+
+    /**
+     * Get the number of operations per timed operation.
+     *
+     * @return The interval.
+     */
+    public int interval()
+    {
+        return this.interval;
+    }
+
+    /**
+     * Determine whether the next operation should be timed.
+     *
+     * The first operation is always timed.
+     *
+     * @return True if the operation should be timed.
+     */
+    public boolean sample()
+    {
+        if (--this.countdown > 0) {
+            return false;
+        }
+
+        this.countdown = this.interval;
+
+        return true;
+    }
+
+    private PhaseListenerInterface listener;
+    private int interval;
+    private int countdown;
+}
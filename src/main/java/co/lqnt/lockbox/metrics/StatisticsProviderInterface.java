@@ -0,0 +1,48 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+/**
+ * The interface implemented by pools and caches that report their
+ * effectiveness.
+ *
+ * A hit is a request served from the pool or cache, and a miss is a request
+ * that had to be served by doing the work inline.
+ */
+public interface StatisticsProviderInterface
+{
+    /**
+     * Get the number of entries currently held.
+     *
+     * @return The size.
+     */
+    public int size();
+
+    /**
+     * Get the number of requests served from held entries.
+     *
+     * @return The number of hits.
+     */
+    public long hits();
+
+    /**
+     * Get the number of requests that could not be served from held entries.
+     *
+     * @return The number of misses.
+     */
+    public long misses();
+
+    /**
+     * Reset the hit and miss counts to zero.
+     *
+     * Held entries are not affected.
+     */
+    public void resetStatistics();
+}
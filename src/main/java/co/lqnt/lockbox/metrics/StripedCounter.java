@@ -0,0 +1,116 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads concurrent updates over several cells.
+ *
+ * Each thread updates the cell selected by its identifier, and cells are
+ * spaced a cache line apart, so that threads updating the counter at the same
+ * time rarely contend. Reading the counter sums every cell.
+ */
+public class StripedCounter
+{
+    /**
+     * Construct a new striped counter.
+     *
+     * One cell is used per available processor, rounded up to a power of two.
+     */
+    public StripedCounter()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new striped counter.
+     *
+     * @param stripes The minimum number of cells to use.
+     */
+    public StripedCounter(final int stripes)
+    {
+        if (stripes < 1) {
+            throw new IllegalArgumentException(
+                "Stripe count must be at least 1."
+            );
+        }
+
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * StripedCounter.PADDING);
+    }
+
+    /**
+     * Get the number of cells.
+     *
+     * @return The stripe count.
+     */
+    public int stripes()
+    {
+        return this.mask + 1;
+    }
+
+    /**
+     * Add one to the counter.
+     */
+    public void increment()
+    {
+        this.add(1L);
+    }
+
+    /**
+     * Add a value to the counter.
+     *
+     * @param value The value to add.
+     */
+    public void add(final long value)
+    {
+        int stripe = (int) Thread.currentThread().getId() & this.mask;
+
+        this.cells.addAndGet(stripe * StripedCounter.PADDING, value);
+    }
+
+    /**
+     * Get the current value of the counter.
+     *
+     * The value is not an atomic snapshot while updates are in progress.
+     *
+     * @return The sum of all cells.
+     */
+    public long sum()
+    {
+        long sum = 0;
+        for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+            sum += this.cells.get(i);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reset the counter to zero.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < this.cells.length(); i += StripedCounter.PADDING) {
+            this.cells.set(i, 0L);
+        }
+    }
+
+    private static final int PADDING = 8;
+
+    private int mask;
+    private AtomicLongArray cells;
+}
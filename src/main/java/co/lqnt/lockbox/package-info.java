@@ -0,0 +1,23 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Simple, strong encryption.
+ *
+ * <h2>Thread safety</h2>
+ *
+ * Ciphers hold stateful Bouncy Castle engines, so a cipher instance must not
+ * be used by more than one thread at a time. This applies to every
+ * implementation of {@link co.lqnt.lockbox.EncryptionCipherInterface} and
+ * {@link co.lqnt.lockbox.DecryptionCipherInterface} in this package, and to
+ * any cipher that wraps one. Use one cipher per thread, or a pool of them.
+ *
+ * Keys are immutable, and may be shared freely between threads and ciphers.
+ */
+package co.lqnt.lockbox;
@@ -0,0 +1,263 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import java.math.BigInteger;
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+
+/**
+ * A raw RSA engine that blinds private key operations.
+ *
+ * Blinding factors are obtained from a blinding factor source, which allows
+ * the costly exponentiation and modular inversion to be precomputed.
+ */
+public class BlindedRsaEngine implements AsymmetricBlockCipher
+{
+    /**
+     * Construct a new blinded RSA engine.
+     */
+    public BlindedRsaEngine()
+    {
+        this(new BlindingFactorGenerator());
+    }
+
+    /**
+     * Construct a new blinded RSA engine.
+     *
+     * @param blindingFactorSource The blinding factor source to use.
+     */
+    public BlindedRsaEngine(
+        final BlindingFactorSourceInterface blindingFactorSource
+    ) {
+        this.blindingFactorSource = blindingFactorSource;
+    }
+
+    /**
+     * Get the blinding factor source.
+     *
+     * @return The blinding factor source.
+     */
+    public BlindingFactorSourceInterface blindingFactorSource()
+    {
+        return this.blindingFactorSource;
+    }
+
+    /**
+     * Initialize the engine.
+     *
+     * @param forEncryption True if the engine is to be used for encryption.
+     * @param parameters    The RSA key parameters.
+     */
+    public void init(
+        final boolean forEncryption,
+        final CipherParameters parameters
+    ) {
+        CipherParameters keyParameters = parameters;
+        if (keyParameters instanceof ParametersWithRandom) {
+            keyParameters =
+                ((ParametersWithRandom) keyParameters).getParameters();
+        }
+
+        this.forEncryption = forEncryption;
+        this.key = (RSAKeyParameters) keyParameters;
+    }
+
+    /**
+     * Get the maximum size of an input block.
+     *
+     * @return The input block size in bytes.
+     */
+    public int getInputBlockSize()
+    {
+        int size = (this.key.getModulus().bitLength() + 7) / 8;
+        if (this.forEncryption) {
+            return size - 1;
+        }
+
+        return size;
+    }
+
+    /**
+     * Get the maximum size of an output block.
+     *
+     * @return The output block size in bytes.
+     */
+    public int getOutputBlockSize()
+    {
+        int size = (this.key.getModulus().bitLength() + 7) / 8;
+        if (this.forEncryption) {
+            return size;
+        }
+
+        return size - 1;
+    }
+
+    /**
+     * Process a single block.
+     *
+     * @param input  The input data.
+     * @param offset The offset into the input data.
+     * @param length The length of the block.
+     *
+     * @return The processed block.
+     * @throws DataLengthException If the block is too large.
+     */
+    public byte[] processBlock(
+        final byte[] input,
+        final int offset,
+        final int length
+    ) {
+        if (null == this.key) {
+            throw new IllegalStateException("RSA engine not initialised.");
+        }
+
+        return this.convertOutput(
+            this.process(this.convertInput(input, offset, length))
+        );
+    }
+
+    /**
+     * Apply the RSA operation to an integer.
+     *
+     * @param input The input integer.
+     *
+     * @return The result.
+     */
+    protected BigInteger process(final BigInteger input)
+    {
+        if (!(this.key instanceof RSAPrivateCrtKeyParameters)) {
+            return input.modPow(this.key.getExponent(), this.key.getModulus());
+        }
+
+        RSAPrivateCrtKeyParameters key =
+            (RSAPrivateCrtKeyParameters) this.key;
+        BigInteger modulus = key.getModulus();
+        BlindingFactor factor = this.blindingFactorSource().next(
+            modulus,
+            key.getPublicExponent()
+        );
+
+        BigInteger blinded = input.multiply(factor.blinding()).mod(modulus);
+
+        return this.processCrt(key, blinded)
+            .multiply(factor.unblinding())
+            .mod(modulus);
+    }
+
+    /**
+     * Apply the RSA private key operation using the Chinese Remainder Theorem.
+     *
+     * @param key   The private key.
+     * @param input The input integer.
+     *
+     * @return The result.
+     */
+    protected BigInteger processCrt(
+        final RSAPrivateCrtKeyParameters key,
+        final BigInteger input
+    ) {
+        BigInteger p = key.getP();
+        BigInteger q = key.getQ();
+
+        BigInteger mP = input.remainder(p).modPow(key.getDP(), p);
+        BigInteger mQ = input.remainder(q).modPow(key.getDQ(), q);
+        BigInteger h = mP.subtract(mQ).multiply(key.getQInv()).mod(p);
+
+        return h.multiply(q).add(mQ);
+    }
+
+    /**
+     * Convert an input block to an integer.
+     *
+     * @param input  The input data.
+     * @param offset The offset into the input data.
+     * @param length The length of the block.
+     *
+     * @return The integer.
+     * @throws DataLengthException If the block is too large.
+     */
+    protected BigInteger convertInput(
+        final byte[] input,
+        final int offset,
+        final int length
+    ) {
+        int maxLength = this.getInputBlockSize() + 1;
+        if (
+            length > maxLength ||
+            (length == maxLength && !this.forEncryption)
+        ) {
+            throw new DataLengthException("Input too large for RSA cipher.");
+        }
+
+        byte[] block = input;
+        if (0 != offset || length != input.length) {
+            block = new byte[length];
+            System.arraycopy(input, offset, block, 0, length);
+        }
+
+        BigInteger result = new BigInteger(1, block);
+        if (result.compareTo(this.key.getModulus()) >= 0) {
+            throw new DataLengthException("Input too large for RSA cipher.");
+        }
+
+        return result;
+    }
+
+    /**
+     * Convert a result integer to an output block.
+     *
+     * @param result The result integer.
+     *
+     * @return The output block.
+     */
+    protected byte[] convertOutput(final BigInteger result)
+    {
+        byte[] output = result.toByteArray();
+        int outputSize = this.getOutputBlockSize();
+
+        if (this.forEncryption) {
+            if (0 == output[0] && output.length > outputSize) {
+                byte[] trimmed = new byte[output.length - 1];
+                System.arraycopy(output, 1, trimmed, 0, trimmed.length);
+
+                return trimmed;
+            }
+
+            if (output.length < outputSize) {
+                byte[] padded = new byte[outputSize];
+                System.arraycopy(
+                    output,
+                    0,
+                    padded,
+                    padded.length - output.length,
+                    output.length
+                );
+
+                return padded;
+            }
+        } else if (0 == output[0]) {
+            byte[] trimmed = new byte[output.length - 1];
+            System.arraycopy(output, 1, trimmed, 0, trimmed.length);
+
+            return trimmed;
+        }
+
+        return output;
+    }
+
+    private BlindingFactorSourceInterface blindingFactorSource;
+    private boolean forEncryption;
+    private RSAKeyParameters key;
+}
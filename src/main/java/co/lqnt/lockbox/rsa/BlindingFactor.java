@@ -0,0 +1,58 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import java.math.BigInteger;
+
+/**
+ * Represents a single-use RSA blinding factor pair.
+ *
+ * The blinding value is r^e mod n, and the unblinding value is r^-1 mod n, for
+ * a random r that is co-prime to the modulus.
+ */
+public class BlindingFactor
+{
+    /**
+     * Construct a new blinding factor pair.
+     *
+     * @param blinding   The blinding value, or r^e mod n.
+     * @param unblinding The unblinding value, or r^-1 mod n.
+     */
+    public BlindingFactor(
+        final BigInteger blinding,
+        final BigInteger unblinding
+    ) {
+        this.blinding = blinding;
+        this.unblinding = unblinding;
+    }
+
+    /**
+     * Get the blinding value, or r^e mod n.
+     *
+     * @return The blinding value.
+     */
+    public BigInteger blinding()
+    {
+        return this.blinding;
+    }
+
+    /**
+     * Get the unblinding value, or r^-1 mod n.
+     *
+     * @return The unblinding value.
+     */
+    public BigInteger unblinding()
+    {
+        return this.unblinding;
+    }
+
+    private BigInteger blinding;
+    private BigInteger unblinding;
+}
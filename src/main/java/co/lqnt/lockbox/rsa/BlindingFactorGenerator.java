@@ -0,0 +1,78 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.util.SecureRandom;
+import co.lqnt.lockbox.util.SecureRandomInterface;
+import java.math.BigInteger;
+
+/**
+ * Generates RSA blinding factors on demand.
+ */
+public class BlindingFactorGenerator implements BlindingFactorSourceInterface
+{
+    /**
+     * Construct a new blinding factor generator.
+     */
+    public BlindingFactorGenerator()
+    {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Construct a new blinding factor generator.
+     *
+     * @param random The secure random generator to use.
+     */
+    public BlindingFactorGenerator(final SecureRandomInterface random)
+    {
+        this.random = random;
+    }
+
+    /**
+     * Get the secure random generator.
+     *
+     * @return The secure random generator.
+     */
+    public SecureRandomInterface random()
+    {
+        return this.random;
+    }
+
+    /**
+     * Get a fresh blinding factor for the supplied key.
+     *
+     * @param modulus        The key modulus.
+     * @param publicExponent The key public exponent.
+     *
+     * @return The blinding factor.
+     */
+    public BlindingFactor next(
+        final BigInteger modulus,
+        final BigInteger publicExponent
+    ) {
+        int bits = modulus.bitLength() - 1;
+
+        BigInteger r;
+        do {
+            r = new BigInteger(bits, this.random().jceSecureRandom());
+        } while (
+            r.compareTo(BigInteger.ONE) <= 0 ||
+            !r.gcd(modulus).equals(BigInteger.ONE)
+        );
+
+        return new BlindingFactor(
+            r.modPow(publicExponent, modulus),
+            r.modInverse(modulus)
+        );
+    }
+
+    private SecureRandomInterface random;
+}
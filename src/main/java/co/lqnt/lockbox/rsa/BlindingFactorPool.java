@@ -0,0 +1,378 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.metrics.StatisticsProviderInterface;
+import co.lqnt.lockbox.metrics.StripedCounter;
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A pool of RSA blinding factors, precomputed per key on a background thread.
+ *
+ * Blinding factors are handed out at most once. When the pool for a key is
+ * empty, a blinding factor is computed inline, so that callers never wait on
+ * the background thread. Keys that are no longer in use should be removed,
+ * since the pool otherwise holds their blinding factors indefinitely.
+ */
+public class BlindingFactorPool
+    implements BlindingFactorPoolInterface, StatisticsProviderInterface
+{
+    /**
+     * Construct a new blinding factor pool.
+     */
+    public BlindingFactorPool()
+    {
+        this(64);
+    }
+
+    /**
+     * Construct a new blinding factor pool.
+     *
+     * @param capacity The maximum number of blinding factors to hold per key.
+     */
+    public BlindingFactorPool(final int capacity)
+    {
+        this(capacity, new BlindingFactorGenerator());
+    }
+
+    /**
+     * Construct a new blinding factor pool.
+     *
+     * @param capacity  The maximum number of blinding factors to hold per key.
+     * @param generator The blinding factor generator to use.
+     */
+    public BlindingFactorPool(
+        final int capacity,
+        final BlindingFactorSourceInterface generator
+    ) {
+        this(
+            capacity,
+            generator,
+            Executors.newSingleThreadExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(final Runnable runnable)
+                    {
+                        Thread thread = new Thread(
+                            runnable,
+                            "lockbox-blinding-factor-pool"
+                        );
+                        thread.setDaemon(true);
+
+                        return thread;
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Construct a new blinding factor pool.
+     *
+     * @param capacity  The maximum number of blinding factors to hold per key.
+     * @param generator The blinding factor generator to use.
+     * @param executor  The executor to precompute blinding factors on.
+     */
+    public BlindingFactorPool(
+        final int capacity,
+        final BlindingFactorSourceInterface generator,
+        final ExecutorService executor
+    ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least 1."
+            );
+        }
+
+        this.capacity = capacity;
+        this.generator = generator;
+        this.executor = executor;
+        this.entries = new ConcurrentHashMap<BigInteger, Entry>();
+        this.hits = new StripedCounter();
+        this.misses = new StripedCounter();
+    }
+
+    /**
+     * Get the maximum number of blinding factors held per key.
+     *
+     * @return The capacity.
+     */
+    public int capacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Get the blinding factor generator.
+     *
+     * @return The blinding factor generator.
+     */
+    public BlindingFactorSourceInterface generator()
+    {
+        return this.generator;
+    }
+
+    /**
+     * Get the executor that blinding factors are precomputed on.
+     *
+     * @return The executor.
+     */
+    public ExecutorService executor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Start precomputing blinding factors for the supplied key.
+     *
+     * @param key The key to prepare blinding factors for.
+     */
+    public void prepare(final PrivateKeyInterface key)
+    {
+        this.scheduleRefill(this.entry(key.modulus(), key.publicExponent()));
+    }
+
+    /**
+     * Discard the precomputed blinding factors for the supplied key, and stop
+     * precomputing them.
+     *
+     * A key that is used again after removal is pooled again.
+     *
+     * @param key The key to discard blinding factors for.
+     */
+    public void remove(final PrivateKeyInterface key)
+    {
+        Entry entry = this.entries.remove(key.modulus());
+        if (null != entry) {
+            entry.removed = true;
+            entry.factors.clear();
+        }
+    }
+
+    /**
+     * Get a fresh blinding factor for the supplied key.
+     *
+     * @param modulus        The key modulus.
+     * @param publicExponent The key public exponent.
+     *
+     * @return The blinding factor.
+     */
+    public BlindingFactor next(
+        final BigInteger modulus,
+        final BigInteger publicExponent
+    ) {
+        Entry entry = this.entry(modulus, publicExponent);
+        BlindingFactor factor = entry.factors.poll();
+
+        if (null == factor) {
+            this.misses.increment();
+            factor = this.generator().next(modulus, publicExponent);
+        } else {
+            this.hits.increment();
+        }
+
+        this.scheduleRefill(entry);
+
+        return factor;
+    }
+
+    /**
+     * Get the number of precomputed blinding factors available for a key.
+     *
+     * @param modulus The key modulus.
+     *
+     * @return The number of available blinding factors.
+     */
+    public int size(final BigInteger modulus)
+    {
+        Entry entry = this.entries.get(modulus);
+        if (null == entry) {
+            return 0;
+        }
+
+        return entry.factors.size();
+    }
+
+    /**
+     * Get the number of precomputed blinding factors available for all keys.
+     *
+     * @return The number of available blinding factors.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Entry entry : this.entries.values()) {
+            size += entry.factors.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Get the number of blinding factors served from the pool.
+     *
+     * @return The number of hits.
+     */
+    public long hits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * Get the number of blinding factors that had to be computed inline.
+     *
+     * @return The number of misses.
+     */
+    public long misses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * Stop precomputing blinding factors.
+     */
+    public void shutdown()
+    {
+        this.executor().shutdownNow();
+    }
+
+    /**
+     * Reset the hit and miss counts to zero.
+     *
+     * Precomputed blinding factors are not affected.
+     */
+    public void resetStatistics()
+    {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    /**
+     * Get the pool entry for a key, creating it if necessary.
+     *
+     * @param modulus        The key modulus.
+     * @param publicExponent The key public exponent.
+     *
+     * @return The pool entry.
+     */
+    protected Entry entry(
+        final BigInteger modulus,
+        final BigInteger publicExponent
+    ) {
+        Entry entry = this.entries.get(modulus);
+        if (null == entry) {
+            entry = new Entry(modulus, publicExponent, this.capacity());
+
+            Entry existing = this.entries.putIfAbsent(modulus, entry);
+            if (null != existing) {
+                entry = existing;
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Schedule a background refill of a pool entry, unless one is already
+     * pending, or the entry is full or removed.
+     *
+     * @param entry The pool entry.
+     */
+    protected void scheduleRefill(final Entry entry)
+    {
+        if (entry.removed || 0 == entry.factors.remainingCapacity()) {
+            return;
+        }
+        if (!entry.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.executor().execute(
+                new Runnable() {
+                    public void run()
+                    {
+                        try {
+                            BlindingFactorPool.this.refill(entry);
+                        } finally {
+                            entry.refilling.set(false);
+                        }
+                    }
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            entry.refilling.set(false);
+        }
+    }
+
+    /**
+     * Fill a pool entry to capacity, stopping early if it is removed.
+     *
+     * @param entry The pool entry.
+     */
+    protected void refill(final Entry entry)
+    {
+        while (
+            !Thread.currentThread().isInterrupted() &&
+            !entry.removed &&
+            entry.factors.remainingCapacity() > 0
+        ) {
+            if (
+                !entry.factors.offer(
+                    this.generator().next(entry.modulus, entry.publicExponent)
+                )
+            ) {
+                break;
+            }
+        }
+        if (entry.removed) {
+            entry.factors.clear();
+        }
+    }
+
+    /**
+     * Holds the precomputed blinding factors for a single key.
+     */
+    protected static class Entry
+    {
+        Entry(
+            final BigInteger modulus,
+            final BigInteger publicExponent,
+            final int capacity
+        ) {
+            this.modulus = modulus;
+            this.publicExponent = publicExponent;
+            this.factors = new ArrayBlockingQueue<BlindingFactor>(capacity);
+            this.refilling = new AtomicBoolean();
+        }
+
+        final BigInteger modulus;
+        final BigInteger publicExponent;
+        final BlockingQueue<BlindingFactor> factors;
+        final AtomicBoolean refilling;
+        volatile boolean removed;
+    }
+
+    private int capacity;
+    private BlindingFactorSourceInterface generator;
+    private ExecutorService executor;
+    private ConcurrentMap<BigInteger, Entry> entries;
+    private StripedCounter hits;
+    private StripedCounter misses;
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import java.math.BigInteger;
+
+/**
+ * The interface implemented by pools of precomputed RSA blinding factors.
+ */
+public interface BlindingFactorPoolInterface
+    extends BlindingFactorSourceInterface
+{
+    /**
+     * Start precomputing blinding factors for the supplied key.
+     *
+     * @param key The key to prepare blinding factors for.
+     */
+    public void prepare(final PrivateKeyInterface key);
+
+    /**
+     * Discard the precomputed blinding factors for the supplied key, and stop
+     * precomputing them.
+     *
+     * @param key The key to discard blinding factors for.
+     */
+    public void remove(final PrivateKeyInterface key);
+
+    /**
+     * Get the number of precomputed blinding factors available for a key.
+     *
+     * @param modulus The key modulus.
+     *
+     * @return The number of available blinding factors.
+     */
+    public int size(final BigInteger modulus);
+
+    /**
+     * Get the number of blinding factors served from the pool.
+     *
+     * @return The number of hits.
+     */
+    public long hits();
+
+    /**
+     * Get the number of blinding factors that had to be computed inline.
+     *
+     * @return The number of misses.
+     */
+    public long misses();
+
+    /**
+     * Stop precomputing blinding factors.
+     */
+    public void shutdown();
+}
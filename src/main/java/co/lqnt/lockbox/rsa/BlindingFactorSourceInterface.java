@@ -0,0 +1,33 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import java.math.BigInteger;
+
+/**
+ * The interface implemented by RSA blinding factor sources.
+ */
+public interface BlindingFactorSourceInterface
+{
+    /**
+     * Get a fresh blinding factor for the supplied key.
+     *
+     * Each blinding factor returned must only be used once.
+     *
+     * @param modulus        The key modulus.
+     * @param publicExponent The key public exponent.
+     *
+     * @return The blinding factor.
+     */
+    public BlindingFactor next(
+        final BigInteger modulus,
+        final BigInteger publicExponent
+    );
+}
@@ -0,0 +1,518 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.KeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+
+/**
+ * An RSA key pair generator that searches for primes in parallel.
+ *
+ * The primes p and q are searched for at the same time, and each search tests
+ * several random candidates concurrently. As soon as one candidate is found to
+ * be prime, the remaining candidates for that prime are abandoned. Prime
+ * selection otherwise follows the Bouncy Castle RSA key pair generator, and
+ * the generated keys are standard RSA CRT keys.
+ *
+ * The generator can be used in place of the Bouncy Castle generator, for
+ * example as the key generator of a key factory.
+ */
+public class ParallelRsaKeyPairGenerator
+    implements AsymmetricCipherKeyPairGenerator
+{
+    /**
+     * Construct a new parallel RSA key pair generator.
+     *
+     * One candidate is tested per available processor.
+     */
+    public ParallelRsaKeyPairGenerator()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new parallel RSA key pair generator.
+     *
+     * @param parallelism The number of candidates to test concurrently.
+     */
+    public ParallelRsaKeyPairGenerator(final int parallelism)
+    {
+        this(parallelism, 0);
+    }
+
+    /**
+     * Construct a new parallel RSA key pair generator.
+     *
+     * @param parallelism The number of candidates to test concurrently.
+     * @param certainty   The prime certainty to use, or 0 to use the certainty
+     *     of the key generation parameters.
+     */
+    public ParallelRsaKeyPairGenerator(
+        final int parallelism,
+        final int certainty
+    ) {
+        this(
+            parallelism,
+            certainty,
+            Executors.newFixedThreadPool(
+                Math.max(parallelism, 1),
+                new ThreadFactory() {
+                    public Thread newThread(final Runnable runnable)
+                    {
+                        Thread thread = new Thread(
+                            runnable,
+                            "lockbox-rsa-key-pair-generator"
+                        );
+                        thread.setDaemon(true);
+
+                        return thread;
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Construct a new parallel RSA key pair generator.
+     *
+     * @param parallelism The number of candidates to test concurrently.
+     * @param certainty   The prime certainty to use, or 0 to use the certainty
+     *     of the key generation parameters.
+     * @param executor    The executor to test candidates on.
+     */
+    public ParallelRsaKeyPairGenerator(
+        final int parallelism,
+        final int certainty,
+        final ExecutorService executor
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                "Parallelism must be at least 1."
+            );
+        }
+        if (certainty < 0) {
+            throw new IllegalArgumentException(
+                "Certainty must not be negative."
+            );
+        }
+
+        this.parallelism = parallelism;
+        this.certainty = certainty;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the number of candidates tested concurrently.
+     *
+     * @return The parallelism.
+     */
+    public int parallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Get the prime certainty.
+     *
+     * @return The certainty, or 0 if the certainty of the key generation
+     *     parameters is used.
+     */
+    public int certainty()
+    {
+        return this.certainty;
+    }
+
+    /**
+     * Get the executor that candidates are tested on.
+     *
+     * @return The executor.
+     */
+    public ExecutorService executor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Initialize the generator.
+     *
+     * @param parameters The RSA key generation parameters.
+     */
+    public void init(final KeyGenerationParameters parameters)
+    {
+        this.parameters = (RSAKeyGenerationParameters) parameters;
+    }
+
+    /**
+     * Generate a new key pair.
+     *
+     * @return The key pair.
+     * @throws IllegalStateException If the generator is not initialized, or
+     *     if the executor is shut down while generating.
+     * @throws RuntimeException      If interrupted while generating.
+     */
+    public AsymmetricCipherKeyPair generateKeyPair()
+    {
+        RSAKeyGenerationParameters parameters = this.parameters;
+        if (null == parameters) {
+            throw new IllegalStateException("Generator not initialized.");
+        }
+
+        int strength = parameters.getStrength();
+        int pBitLength = (strength + 1) / 2;
+        int qBitLength = strength - pBitLength;
+        int minDiffBits = strength / 3;
+        BigInteger e = parameters.getPublicExponent();
+        SecureRandom random = parameters.getRandom();
+        int certainty = this.certainty();
+        if (0 == certainty) {
+            certainty = parameters.getCertainty();
+        }
+
+        int pParallelism = Math.max(this.parallelism() / 2, 1);
+        int qParallelism = Math.max(this.parallelism() - pParallelism, 1);
+
+        BigInteger p;
+        BigInteger q;
+        BigInteger n;
+        try {
+            PrimeSearch pSearch = this.search(
+                pBitLength,
+                e,
+                certainty,
+                random,
+                null,
+                0,
+                pParallelism
+            );
+            PrimeSearch qSearch = null;
+            try {
+                qSearch = this.search(
+                    qBitLength,
+                    e,
+                    certainty,
+                    random,
+                    null,
+                    0,
+                    qParallelism
+                );
+                p = pSearch.await();
+                q = qSearch.await();
+            } finally {
+                pSearch.cancel();
+                if (null != qSearch) {
+                    qSearch.cancel();
+                }
+            }
+
+            while (true) {
+                n = p.multiply(q);
+                if (
+                    q.subtract(p).abs().bitLength() >= minDiffBits &&
+                    n.bitLength() == strength
+                ) {
+                    break;
+                }
+
+                p = p.max(q);
+                qSearch = this.search(
+                    qBitLength,
+                    e,
+                    certainty,
+                    random,
+                    p,
+                    minDiffBits,
+                    this.parallelism()
+                );
+                try {
+                    q = qSearch.await();
+                } finally {
+                    qSearch.cancel();
+                }
+            }
+        } catch (InterruptedException interruption) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(
+                "Interrupted while generating a key pair.",
+                interruption
+            );
+        }
+
+        if (p.compareTo(q) < 0) {
+            BigInteger swap = p;
+            p = q;
+            q = swap;
+        }
+
+        BigInteger pSub1 = p.subtract(BigInteger.ONE);
+        BigInteger qSub1 = q.subtract(BigInteger.ONE);
+        BigInteger phi = pSub1.multiply(qSub1);
+        BigInteger d = e.modInverse(phi);
+
+        return new AsymmetricCipherKeyPair(
+            new RSAKeyParameters(false, n, e),
+            new RSAPrivateCrtKeyParameters(
+                n,
+                e,
+                d,
+                p,
+                q,
+                d.remainder(pSub1),
+                d.remainder(qSub1),
+                q.modInverse(p)
+            )
+        );
+    }
+
+    /**
+     * Stop the executor that candidates are tested on.
+     */
+    public void shutdown()
+    {
+        this.executor().shutdownNow();
+    }
+
+    /**
+     * Start searching for a prime.
+     *
+     * @param bitLength   The bit length of the prime.
+     * @param e           The public exponent.
+     * @param certainty   The prime certainty.
+     * @param random      The random source.
+     * @param other       The other prime, or null.
+     * @param minDiffBits The minimum bit length of the difference from the
+     *     other prime.
+     * @param parallelism The number of candidates to test concurrently.
+     *
+     * @return The search.
+     * @throws IllegalStateException If the executor has been shut down.
+     */
+    protected PrimeSearch search(
+        final int bitLength,
+        final BigInteger e,
+        final int certainty,
+        final SecureRandom random,
+        final BigInteger other,
+        final int minDiffBits,
+        final int parallelism
+    ) {
+        final PrimeSearch search = new PrimeSearch(this.executor());
+        try {
+            for (int i = 0; i < parallelism; ++i) {
+                search.futures.add(
+                    this.executor().submit(
+                        new Runnable() {
+                            public void run()
+                            {
+                                ParallelRsaKeyPairGenerator.this.find(
+                                    search,
+                                    bitLength,
+                                    e,
+                                    certainty,
+                                    random,
+                                    other,
+                                    minDiffBits
+                                );
+                            }
+                        }
+                    )
+                );
+            }
+        } catch (RejectedExecutionException rejection) {
+            search.cancel();
+
+            throw new IllegalStateException(
+                "Prime search abandoned.",
+                rejection
+            );
+        }
+
+        return search;
+    }
+
+    /**
+     * Test prime candidates until the search is complete.
+     *
+     * @param search      The search.
+     * @param bitLength   The bit length of the prime.
+     * @param e           The public exponent.
+     * @param certainty   The prime certainty.
+     * @param random      The random source.
+     * @param other       The other prime, or null.
+     * @param minDiffBits The minimum bit length of the difference from the
+     *     other prime.
+     */
+    protected void find(
+        final PrimeSearch search,
+        final int bitLength,
+        final BigInteger e,
+        final int certainty,
+        final SecureRandom random,
+        final BigInteger other,
+        final int minDiffBits
+    ) {
+        try {
+            while (
+                null == search.prime.get() &&
+                !Thread.currentThread().isInterrupted()
+            ) {
+                BigInteger prime = this.candidate(
+                    bitLength,
+                    e,
+                    certainty,
+                    random,
+                    other,
+                    minDiffBits
+                );
+                if (null != prime) {
+                    search.prime.compareAndSet(null, prime);
+                }
+            }
+        } catch (RuntimeException failure) {
+            search.failure.compareAndSet(null, failure);
+        } finally {
+            search.done.countDown();
+        }
+    }
+
+    /**
+     * Generate and test a single prime candidate.
+     *
+     * @param bitLength   The bit length of the prime.
+     * @param e           The public exponent.
+     * @param certainty   The prime certainty.
+     * @param random      The random source.
+     * @param other       The other prime, or null.
+     * @param minDiffBits The minimum bit length of the difference from the
+     *     other prime.
+     *
+     * @return The prime, or null if the candidate was rejected.
+     */
+    protected BigInteger candidate(
+        final int bitLength,
+        final BigInteger e,
+        final int certainty,
+        final SecureRandom random,
+        final BigInteger other,
+        final int minDiffBits
+    ) {
+        BigInteger candidate = new BigInteger(bitLength, 1, random);
+
+        if (
+            null != other &&
+            candidate.subtract(other).abs().bitLength() < minDiffBits
+        ) {
+            return null;
+        }
+        if (candidate.mod(e).equals(BigInteger.ONE)) {
+            return null;
+        }
+        if (!candidate.isProbablePrime(certainty)) {
+            return null;
+        }
+        BigInteger candidateSub1 = candidate.subtract(BigInteger.ONE);
+        if (!e.gcd(candidateSub1).equals(BigInteger.ONE)) {
+            return null;
+        }
+
+        return candidate;
+    }
+
+    /**
+     * Tracks the candidates being tested for a single prime.
+     */
+    protected static class PrimeSearch
+    {
+        PrimeSearch(final ExecutorService executor)
+        {
+            this.executor = executor;
+            this.prime = new AtomicReference<BigInteger>();
+            this.failure = new AtomicReference<RuntimeException>();
+            this.futures = new ArrayList<Future<?>>();
+            this.done = new CountDownLatch(1);
+        }
+
+        /**
+         * Wait for the prime to be found.
+         *
+         * If the executor is shut down, candidates may be interrupted, or
+         * never run at all. The search is then abandoned rather than waited
+         * on forever.
+         *
+         * @return The prime.
+         * @throws IllegalStateException If the search was abandoned.
+         * @throws InterruptedException  If interrupted while waiting.
+         */
+        BigInteger await() throws InterruptedException
+        {
+            while (
+                !this.done.await(
+                    PrimeSearch.POLL_INTERVAL,
+                    TimeUnit.MILLISECONDS
+                )
+            ) {
+                if (this.executor.isTerminated()) {
+                    break;
+                }
+            }
+
+            BigInteger prime = this.prime.get();
+            if (null != prime) {
+                return prime;
+            }
+
+            RuntimeException failure = this.failure.get();
+            if (null != failure) {
+                throw failure;
+            }
+
+            throw new IllegalStateException("Prime search abandoned.");
+        }
+
+        /**
+         * Abandon any candidates still being tested.
+         */
+        void cancel()
+        {
+            for (Future<?> future : this.futures) {
+                future.cancel(true);
+            }
+        }
+
+        private static final long POLL_INTERVAL = 100L;
+
+        final ExecutorService executor;
+        final AtomicReference<BigInteger> prime;
+        final AtomicReference<RuntimeException> failure;
+        final List<Future<?>> futures;
+        final CountDownLatch done;
+    }
+
+    private int parallelism;
+    private int certainty;
+    private ExecutorService executor;
+    private RSAKeyGenerationParameters parameters;
+}
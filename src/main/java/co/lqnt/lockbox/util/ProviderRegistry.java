@@ -0,0 +1,55 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.util;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+
+/**
+ * Holds the shared Bouncy Castle provider and the objects built on top of it.
+ *
+ * Instantiating a Bouncy Castle provider registers hundreds of algorithms,
+ * which is a relatively costly operation. The shared provider is created only
+ * when first requested, and is safe to use from multiple threads. Objects
+ * built on top of it are mutable, so a new one is returned for each request.
+ */
+final public class ProviderRegistry
+{
+    /**
+     * Get the shared Bouncy Castle provider.
+     *
+     * @return The Bouncy Castle provider.
+     */
+    public static BouncyCastleProvider bouncyCastleProvider()
+    {
+        return ProviderHolder.PROVIDER;
+    }
+
+    /**
+     * Create a new JCA PEM key converter that uses the shared provider.
+     *
+     * @return The key converter.
+     */
+    public static JcaPEMKeyConverter keyConverter()
+    {
+        return new JcaPEMKeyConverter()
+            .setProvider(ProviderRegistry.bouncyCastleProvider());
+    }
+
+    private ProviderRegistry()
+    {
+    }
+
+    private static class ProviderHolder
+    {
+        static final BouncyCastleProvider PROVIDER =
+            new BouncyCastleProvider();
+    }
+}
@@ -11,6 +11,8 @@ package co.lqnt.lockbox.util;
 
 /**
  * Generates secure random data.
+ *
+ * Instances are safe to share between threads.
  */
 public class SecureRandom implements SecureRandomInterface
 {
@@ -59,12 +61,19 @@ public class SecureRandom implements SecureRandomInterface
      */
     public java.security.SecureRandom jceSecureRandom()
     {
-        if (null == this.jceSecureRandom) {
-            this.jceSecureRandom = new java.security.SecureRandom();
+        java.security.SecureRandom jceSecureRandom = this.jceSecureRandom;
+        if (null == jceSecureRandom) {
+            synchronized (this) {
+                jceSecureRandom = this.jceSecureRandom;
+                if (null == jceSecureRandom) {
+                    jceSecureRandom = new java.security.SecureRandom();
+                    this.jceSecureRandom = jceSecureRandom;
+                }
+            }
         }
 
-        return this.jceSecureRandom;
+        return jceSecureRandom;
     }
 
-    private java.security.SecureRandom jceSecureRandom;
+    private volatile java.security.SecureRandom jceSecureRandom;
 }
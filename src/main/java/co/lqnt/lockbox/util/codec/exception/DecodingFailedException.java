@@ -11,6 +11,9 @@ package co.lqnt.lockbox.util.codec.exception;
 
 /**
  * Decoding failed.
+ *
+ * When the co.lqnt.lockbox.stacklessExceptions system property is set to
+ * true, no stack trace is captured.
  */
 final public class DecodingFailedException extends Exception
 {
@@ -31,4 +34,22 @@ final public class DecodingFailedException extends Exception
     {
         this(null);
     }
+
+    /**
+     * Fill in the stack trace, unless stackless exceptions are enabled.
+     *
+     * @return This exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (DecodingFailedException.STACKLESS) {
+            return this;
+        }
+
+        return super.fillInStackTrace();
+    }
+
+    private static final boolean STACKLESS =
+        Boolean.getBoolean("co.lqnt.lockbox.stacklessExceptions");
 }
@@ -97,6 +97,18 @@ public class CipherTest
         Assert.assertEquals(new String(decrypted, Charset.forName("US-ASCII")), data);
     }
 
+    @Test(dataProvider = "encryptionData")
+    public void testEncryptTryDecrypt(String data) throws Throwable
+    {
+        byte[] encrypted = this.cipher.encrypt(this.key, data.getBytes(Charset.forName("US-ASCII")));
+        DecryptionResult result = this.cipher.tryDecrypt(this.key, encrypted);
+
+        Assert.assertTrue(result.isSuccessful());
+        Assert.assertEquals(new String(result.data(), Charset.forName("US-ASCII")), data);
+        Assert.assertNull(result.reason());
+        Assert.assertNull(result.exception());
+    }
+
     @Test(dataProvider = "encryptionData")
     public void testEncryptDecryptString(String data) throws Throwable
     {
@@ -124,6 +136,32 @@ public class CipherTest
         Assert.assertEquals(decrypted, data);
     }
 
+    @Test(dataProvider = "encryptionData")
+    public void testEncryptDecryptWithKeyId(String data) throws Throwable
+    {
+        this.cipher = new Cipher(new EncryptionCipher(true), this.decryptionCipher);
+        byte[] encrypted = this.cipher.encrypt(this.key, data.getBytes(Charset.forName("US-ASCII")));
+        byte[] decoded = this.base64UriCodec.decode(encrypted);
+        byte[] decrypted = this.cipher.decrypt(this.key, encrypted);
+
+        Assert.assertEquals(Arrays.copyOfRange(decoded, 0, 8), this.key.keyId());
+        Assert.assertEquals((decoded.length - 256) % 16, 8);
+        Assert.assertEquals(new String(decrypted, Charset.forName("US-ASCII")), data);
+    }
+
+    @Test(expectedExceptions = DecryptionFailedException.class)
+    public void testDecryptFailureKeyIdMismatch() throws Throwable
+    {
+        PrivateKey otherKey = this.keyFactory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048.private.pem"),
+            "password"
+        );
+        String encrypted = new EncryptionCipher(true).encrypt(otherKey, "foobar");
+
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encrypted.getBytes(Charset.forName("US-ASCII"))).reason(), DecryptionFailureReason.KEY_ID_MISMATCH);
+        this.cipher.decrypt(this.key, encrypted);
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testEncryptFailureRsa() throws Throwable
     {
@@ -178,12 +216,16 @@ public class CipherTest
     @Test(expectedExceptions = DecryptionFailedException.class)
     public void testDecryptFailureNotBase64() throws Throwable
     {
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, "foo:bar".getBytes(Charset.forName("US-ASCII"))).reason(), DecryptionFailureReason.BAD_ENCODING);
+
         this.cipher.decrypt(this.key, "foo:bar".getBytes(Charset.forName("US-ASCII")));
     }
 
     @Test(expectedExceptions = DecryptionFailedException.class)
     public void testDecryptFailureBadData() throws Throwable
     {
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, "foobar".getBytes(Charset.forName("US-ASCII"))).reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
+
         this.cipher.decrypt(this.key, "foobar".getBytes(Charset.forName("US-ASCII")));
     }
 
@@ -192,6 +234,7 @@ public class CipherTest
     {
         byte[] encrypted = this.base64UriCodec.encode(this.encryptRsa(this.key, new byte[0]));
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encrypted).reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
         this.cipher.decrypt(this.key, encrypted);
     }
 
@@ -202,6 +245,7 @@ public class CipherTest
             this.encryptRsa(this.key, "1".getBytes(Charset.forName("US-ASCII")))
         );
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encrypted).reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
         this.cipher.decrypt(this.key, encrypted);
     }
 
@@ -212,6 +256,7 @@ public class CipherTest
             this.encryptRsa(this.key, "12345678901234567890123456789012".getBytes(Charset.forName("US-ASCII")))
         );
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encrypted).reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
         this.cipher.decrypt(this.key, encrypted);
     }
 
@@ -227,6 +272,7 @@ public class CipherTest
         System.arraycopy("foobar".getBytes(Charset.forName("US-ASCII")), 0, encrypted, encryptedKeyAndIv.length, 6);
         byte[] encryptedEncoded = this.base64UriCodec.encode(encrypted);
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encryptedEncoded).reason(), DecryptionFailureReason.BAD_PADDING);
         this.cipher.decrypt(this.key, encryptedEncoded);
     }
 
@@ -249,6 +295,7 @@ public class CipherTest
         System.arraycopy(encryptedData, 0, encrypted, encryptedKeyAndIv.length, encryptedData.length);
         byte[] encryptedEncoded = this.base64UriCodec.encode(encrypted);
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encryptedEncoded).reason(), DecryptionFailureReason.BAD_PADDING);
         this.cipher.decrypt(this.key, encryptedEncoded);
     }
 
@@ -271,6 +318,7 @@ public class CipherTest
         System.arraycopy(encryptedData, 0, encrypted, encryptedKeyAndIv.length, encryptedData.length);
         byte[] encryptedEncoded = this.base64UriCodec.encode(encrypted);
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encryptedEncoded).reason(), DecryptionFailureReason.HASH_MISMATCH);
         this.cipher.decrypt(this.key, encryptedEncoded);
     }
 
@@ -294,6 +342,7 @@ public class CipherTest
         System.arraycopy(encryptedData, 0, encrypted, encryptedKeyAndIv.length, encryptedData.length);
         byte[] encryptedEncoded = this.base64UriCodec.encode(encrypted);
 
+        Assert.assertEquals(this.cipher.tryDecrypt(this.key, encryptedEncoded).reason(), DecryptionFailureReason.HASH_MISMATCH);
         this.cipher.decrypt(this.key, encryptedEncoded);
     }
 
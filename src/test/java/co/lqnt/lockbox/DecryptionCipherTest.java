@@ -9,8 +9,19 @@
 
 package co.lqnt.lockbox;
 
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.metrics.InMemoryMetricsListener;
+import co.lqnt.lockbox.metrics.MetricsListenerInterface;
+import co.lqnt.lockbox.metrics.NullMetricsListener;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseSampler;
+import co.lqnt.lockbox.rsa.BlindedRsaEngine;
+import co.lqnt.lockbox.rsa.BlindingFactorGenerator;
 import co.lqnt.lockbox.util.codec.Base64UriCodec;
 import co.lqnt.lockbox.util.codec.CodecInterface;
+import java.nio.charset.Charset;
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.Digest;
@@ -21,6 +32,8 @@ import org.bouncycastle.crypto.engines.RSAEngine;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.paddings.PKCS7Padding;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -63,6 +76,131 @@ public class DecryptionCipherTest
         Assert.assertSame(this.decryptionCipher.sha1Digest().getClass(), SHA1Digest.class);
     }
 
+    @Test
+    public void testConstructorBlinded()
+    {
+        this.decryptionCipher = new DecryptionCipher(new BlindingFactorGenerator());
+
+        Assert.assertSame(this.decryptionCipher.base64UriCodec().getClass(), Base64UriCodec.class);
+        Assert.assertSame(this.decryptionCipher.rsaCipher().getClass(), OAEPEncoding.class);
+        Assert.assertSame(
+            ((OAEPEncoding) this.decryptionCipher.rsaCipher()).getUnderlyingCipher().getClass(),
+            BlindedRsaEngine.class
+        );
+        Assert.assertSame(this.decryptionCipher.aesCipher().getClass(), PaddedBufferedBlockCipher.class);
+        Assert.assertSame(this.decryptionCipher.sha1Digest().getClass(), SHA1Digest.class);
+    }
+
+    @Test
+    public void testConstructorMetricsListener()
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.decryptionCipher = new DecryptionCipher(metricsListener);
+
+        Assert.assertSame(this.decryptionCipher.metricsListener(), metricsListener);
+        Assert.assertSame(this.decryptionCipher.rsaCipher().getClass(), OAEPEncoding.class);
+        Assert.assertSame(new DecryptionCipher().metricsListener().getClass(), NullMetricsListener.class);
+    }
+
+    @Test
+    public void testDecryptMetrics() throws Throwable
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.decryptionCipher = new DecryptionCipher(metricsListener);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+        byte[] encrypted = new EncryptionCipher().encrypt(key, new byte[100]);
+        this.decryptionCipher.decrypt(key, encrypted);
+
+        Assert.assertEquals(metricsListener.decryptions(), 1L);
+        Assert.assertEquals(metricsListener.plaintextBytes(), 100L);
+        Assert.assertEquals(metricsListener.ciphertextBytes(), (long) encrypted.length);
+        Assert.assertEquals(metricsListener.decryptionLatency().count(), 1L);
+        Assert.assertEquals(metricsListener.keySizes().get(1024), Long.valueOf(1L));
+    }
+
+    @Test
+    public void testDecryptMetricsFailure() throws Throwable
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.decryptionCipher = new DecryptionCipher(metricsListener);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+
+        try {
+            this.decryptionCipher.decrypt(key, "in!valid".getBytes(Charset.forName("US-ASCII")));
+            Assert.fail();
+        } catch (DecryptionFailedException e) {
+        }
+
+        Assert.assertEquals(metricsListener.decryptions(), 0L);
+        Assert.assertEquals(metricsListener.decryptionFailures(), 1L);
+        Assert.assertEquals(metricsListener.decryptionLatency().count(), 0L);
+    }
+
+    @Test
+    public void testTryDecryptMetricsFailure() throws Throwable
+    {
+        MetricsListenerInterface metricsListener = Mockito.mock(MetricsListenerInterface.class);
+        Mockito.when(metricsListener.isEnabled()).thenReturn(true);
+        this.decryptionCipher = new DecryptionCipher(metricsListener);
+        KeyFactory keyFactory = new KeyFactory();
+        PrivateKey key = keyFactory.generatePrivateKey(1024);
+        byte[] encrypted = new EncryptionCipher().encrypt(keyFactory.generatePrivateKey(1024), new byte[100]);
+        DecryptionResult result = this.decryptionCipher.tryDecrypt(key, encrypted);
+
+        ArgumentCaptor<Throwable> cause = ArgumentCaptor.forClass(Throwable.class);
+        Mockito.verify(metricsListener).decryptionFailed(
+            Mockito.same(key),
+            Mockito.eq(DecryptionFailureReason.BAD_RSA_BLOCK),
+            cause.capture(),
+            Mockito.anyLong()
+        );
+        Assert.assertSame(result.reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
+        Assert.assertFalse(cause.getValue() instanceof DecryptionFailedException);
+    }
+
+    @Test
+    public void testDecryptAesFailure() throws Throwable
+    {
+        try {
+            this.decryptionCipher.decryptAes(new byte[32], new byte[16], new byte[15]);
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.BAD_PADDING);
+        }
+    }
+
+    @Test
+    public void testDecryptMetricsDisabled() throws Throwable
+    {
+        MetricsListenerInterface metricsListener = Mockito.mock(MetricsListenerInterface.class);
+        this.decryptionCipher = new DecryptionCipher(metricsListener);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+        this.decryptionCipher.decrypt(key, new EncryptionCipher().encrypt(key, new byte[100]));
+
+        Mockito.verify(metricsListener).isEnabled();
+        Mockito.verifyNoMoreInteractions(metricsListener);
+    }
+
+    @Test
+    public void testDecryptPhases() throws Throwable
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        PhaseSampler phaseSampler = new PhaseSampler(metricsListener, 2);
+        this.decryptionCipher = new DecryptionCipher(metricsListener, phaseSampler);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+        byte[] encrypted = new EncryptionCipher().encrypt(key, new byte[1000]);
+        this.decryptionCipher.decrypt(key, encrypted);
+        this.decryptionCipher.decrypt(key, encrypted);
+
+        Assert.assertSame(this.decryptionCipher.phaseSampler(), phaseSampler);
+        Assert.assertEquals(metricsListener.decryptions(), 2L);
+        for (Phase phase : Phase.values()) {
+            Assert.assertEquals(metricsListener.decryptionPhaseLatency(phase).count(), 1L);
+            Assert.assertEquals(metricsListener.encryptionPhaseLatency(phase).count(), 0L);
+        }
+        Assert.assertNull(new DecryptionCipher().phaseSampler());
+    }
+
     private CodecInterface base64UriCodec;
     private AsymmetricBlockCipher rsaCipher;
     private BufferedBlockCipher aesCipher;
@@ -9,6 +9,15 @@
 
 package co.lqnt.lockbox;
 
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import co.lqnt.lockbox.metrics.InMemoryMetricsListener;
+import co.lqnt.lockbox.metrics.MetricsListenerInterface;
+import co.lqnt.lockbox.metrics.NullMetricsListener;
+import co.lqnt.lockbox.metrics.Phase;
+import co.lqnt.lockbox.metrics.PhaseAccumulator;
+import co.lqnt.lockbox.metrics.PhaseSampler;
 import co.lqnt.lockbox.util.SecureRandom;
 import co.lqnt.lockbox.util.codec.Base64UriCodec;
 import co.lqnt.lockbox.util.codec.CodecInterface;
@@ -22,6 +31,7 @@ import org.bouncycastle.crypto.engines.RSAEngine;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.paddings.PKCS7Padding;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -54,6 +64,16 @@ public class EncryptionCipherTest
         Assert.assertSame(this.encryptionCipher.aesCipher(), this.aesCipher);
         Assert.assertSame(this.encryptionCipher.sha1Digest(), this.sha1Digest);
         Assert.assertSame(this.encryptionCipher.random(), this.random);
+        Assert.assertFalse(this.encryptionCipher.includeKeyId());
+    }
+
+    @Test
+    public void testConstructorIncludeKeyId()
+    {
+        this.encryptionCipher = new EncryptionCipher(true);
+
+        Assert.assertTrue(this.encryptionCipher.includeKeyId());
+        Assert.assertSame(this.encryptionCipher.random().getClass(), SecureRandom.class);
     }
 
     @Test
@@ -66,6 +86,87 @@ public class EncryptionCipherTest
         Assert.assertSame(this.encryptionCipher.aesCipher().getClass(), PaddedBufferedBlockCipher.class);
         Assert.assertSame(this.encryptionCipher.sha1Digest().getClass(), SHA1Digest.class);
         Assert.assertSame(this.encryptionCipher.random().getClass(), SecureRandom.class);
+        Assert.assertFalse(this.encryptionCipher.includeKeyId());
+    }
+
+    @Test
+    public void testConstructorMetricsListener()
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.encryptionCipher = new EncryptionCipher(metricsListener);
+
+        Assert.assertSame(this.encryptionCipher.metricsListener(), metricsListener);
+        Assert.assertSame(this.encryptionCipher.random().getClass(), SecureRandom.class);
+        Assert.assertSame(new EncryptionCipher().metricsListener().getClass(), NullMetricsListener.class);
+    }
+
+    @Test
+    public void testEncryptMetrics() throws Throwable
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.encryptionCipher = new EncryptionCipher(metricsListener);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+        byte[] encrypted = this.encryptionCipher.encrypt(key, new byte[100]);
+
+        Assert.assertEquals(metricsListener.encryptions(), 1L);
+        Assert.assertEquals(metricsListener.plaintextBytes(), 100L);
+        Assert.assertEquals(metricsListener.ciphertextBytes(), (long) encrypted.length);
+        Assert.assertEquals(metricsListener.encryptionLatency().count(), 1L);
+        Assert.assertEquals(metricsListener.keySizes().get(1024), Long.valueOf(1L));
+    }
+
+    @Test
+    public void testEncryptMetricsFailure() throws Throwable
+    {
+        InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+        this.encryptionCipher = new EncryptionCipher(metricsListener);
+        PublicKeyInterface key = Mockito.mock(PublicKeyInterface.class);
+        Mockito.when(key.size()).thenReturn(2048);
+        Mockito.when(key.bcKeyParameters()).thenThrow(new IllegalStateException());
+
+        try {
+            this.encryptionCipher.encrypt(key, new byte[100]);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+
+        Assert.assertEquals(metricsListener.encryptions(), 0L);
+        Assert.assertEquals(metricsListener.encryptionFailures(), 1L);
+        Assert.assertEquals(metricsListener.keySizes().get(2048), Long.valueOf(1L));
+    }
+
+    @Test
+    public void testEncryptMetricsDisabled() throws Throwable
+    {
+        MetricsListenerInterface metricsListener = Mockito.mock(MetricsListenerInterface.class);
+        this.encryptionCipher = new EncryptionCipher(metricsListener);
+        this.encryptionCipher.encrypt(new KeyFactory().generatePrivateKey(1024), new byte[100]);
+
+        Mockito.verify(metricsListener).isEnabled();
+        Mockito.verifyNoMoreInteractions(metricsListener);
+    }
+
+    @Test
+    public void testEncryptPhases() throws Throwable
+    {
+        PhaseAccumulator accumulator = new PhaseAccumulator();
+        PhaseSampler phaseSampler = new PhaseSampler(accumulator, 2);
+        this.encryptionCipher = new EncryptionCipher(new NullMetricsListener(), phaseSampler);
+        PrivateKey key = new KeyFactory().generatePrivateKey(1024);
+        accumulator.reset();
+        this.encryptionCipher.encrypt(key, new byte[1000]);
+
+        Assert.assertSame(this.encryptionCipher.phaseSampler(), phaseSampler);
+        for (Phase phase : Phase.values()) {
+            Assert.assertTrue(accumulator.encryptionNanoseconds(phase) > 0L);
+            Assert.assertEquals(accumulator.decryptionNanoseconds(phase), 0L);
+        }
+
+        long rsa = accumulator.encryptionNanoseconds(Phase.RSA);
+        this.encryptionCipher.encrypt(key, new byte[1000]);
+
+        Assert.assertEquals(accumulator.encryptionNanoseconds(Phase.RSA), rsa);
+        Assert.assertNull(new EncryptionCipher().phaseSampler());
     }
 
     private CodecInterface base64UriCodec;
@@ -0,0 +1,140 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.Keyring;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import java.nio.charset.Charset;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyringDecryptionCipherTest
+{
+    public KeyringDecryptionCipherTest() throws Throwable
+    {
+        KeyFactory factory = new KeyFactory();
+        this.keyA = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+        this.keyB = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-4096-nopass.private.pem")
+        );
+        this.keyC = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048.private.pem"),
+            "password"
+        );
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        this.keyring = new Keyring();
+        this.keyring.add(this.keyA);
+        this.keyring.add(this.keyB);
+        this.keyring.add(this.keyC);
+        this.decryptionCipher = Mockito.spy(new DecryptionCipher());
+        this.cipher = new KeyringDecryptionCipher(this.keyring, this.decryptionCipher);
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.cipher.keyring(), this.keyring);
+        Assert.assertSame(this.cipher.cipher(), this.decryptionCipher);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.cipher = new KeyringDecryptionCipher(this.keyring);
+
+        Assert.assertSame(this.cipher.cipher().getClass(), DecryptionCipher.class);
+        Assert.assertSame(this.cipher.base64UriCodec().getClass(), Base64UriCodec.class);
+    }
+
+    @Test
+    public void testDecryptWithKeyId() throws Throwable
+    {
+        EncryptionCipher encryptionCipher = new EncryptionCipher(true);
+
+        Assert.assertEquals(this.cipher.decrypt(encryptionCipher.encrypt(this.keyA, "foo")), "foo");
+        Assert.assertEquals(this.cipher.decrypt(encryptionCipher.encrypt(this.keyB, "bar")), "bar");
+        Assert.assertEquals(this.cipher.decrypt(encryptionCipher.encrypt(this.keyC, "baz")), "baz");
+        Mockito.verify(this.decryptionCipher, Mockito.times(3))
+            .tryDecrypt(Mockito.any(PrivateKeyInterface.class), Mockito.any(byte[].class));
+    }
+
+    @Test
+    public void testDecryptWithoutKeyId() throws Throwable
+    {
+        String encrypted = new EncryptionCipher().encrypt(this.keyC, "foobar");
+
+        Assert.assertEquals(this.cipher.decrypt(encrypted), "foobar");
+        Mockito.verify(this.decryptionCipher, Mockito.never())
+            .tryDecrypt(Mockito.eq(this.keyB), Mockito.any(byte[].class));
+    }
+
+    @Test(expectedExceptions = DecryptionFailedException.class)
+    public void testDecryptFailureUnknownKey() throws Throwable
+    {
+        this.keyring.remove(this.keyA);
+
+        this.cipher.decrypt(new EncryptionCipher(true).encrypt(this.keyA, "foobar"));
+    }
+
+    @Test(expectedExceptions = DecryptionFailedException.class)
+    public void testDecryptFailureUnknownKeyWithoutKeyId() throws Throwable
+    {
+        this.keyring.remove(this.keyA);
+
+        this.cipher.decrypt(new EncryptionCipher().encrypt(this.keyA, "foobar"));
+    }
+
+    @Test
+    public void testTryDecryptFailure() throws Throwable
+    {
+        this.keyring.remove(this.keyA);
+
+        Assert.assertSame(this.cipher.tryDecrypt("foobar".getBytes(Charset.forName("US-ASCII"))).reason(), DecryptionFailureReason.BAD_ENCODING);
+        Assert.assertSame(
+            this.cipher.tryDecrypt("!@#$%^&*()_+{}|:".getBytes(Charset.forName("US-ASCII"))).reason(),
+            DecryptionFailureReason.BAD_ENCODING
+        );
+        Assert.assertSame(
+            this.cipher.tryDecrypt(new EncryptionCipher(true).encrypt(this.keyA, new byte[0])).reason(),
+            DecryptionFailureReason.KEY_ID_MISMATCH
+        );
+    }
+
+    @Test(expectedExceptions = DecryptionFailedException.class)
+    public void testDecryptFailureTooShort() throws Throwable
+    {
+        this.cipher.decrypt("foobar");
+    }
+
+    @Test(expectedExceptions = DecryptionFailedException.class)
+    public void testDecryptFailureNotBase64() throws Throwable
+    {
+        this.cipher.decrypt("!@#$%^&*()_+{}|:");
+    }
+
+    private PrivateKey keyA;
+    private PrivateKey keyB;
+    private PrivateKey keyC;
+    private Keyring keyring;
+    private DecryptionCipher decryptionCipher;
+    private KeyringDecryptionCipher cipher;
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.util.codec.Base64UriCodec;
+import co.lqnt.lockbox.util.codec.CodecInterface;
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.encodings.OAEPEncoding;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class RewrapCipherTest
+{
+    public RewrapCipherTest() throws Throwable
+    {
+        this.base64UriCodec = new Base64UriCodec();
+        this.rsaCipher = new OAEPEncoding(new RSAEngine(), new SHA1Digest());
+        this.cipher = new RewrapCipher(this.base64UriCodec, this.rsaCipher);
+        this.decryptionCipher = new DecryptionCipher();
+
+        KeyFactory factory = new KeyFactory();
+        this.key2048 = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+        this.key2048Other = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048.private.pem"),
+            "password"
+        );
+        this.key4096 = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-4096-nopass.private.pem")
+        );
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.cipher.base64UriCodec(), this.base64UriCodec);
+        Assert.assertSame(this.cipher.rsaCipher(), this.rsaCipher);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.cipher = new RewrapCipher();
+
+        Assert.assertSame(this.cipher.base64UriCodec().getClass(), Base64UriCodec.class);
+        Assert.assertSame(this.cipher.rsaCipher().getClass(), OAEPEncoding.class);
+    }
+
+    @DataProvider(name = "rewrapData")
+    public Object[][] rewrapData()
+    {
+        StringBuilder longData = new StringBuilder(8192);
+        for (int i = 0; i < 8192; ++i) {
+            longData.append('A');
+        }
+
+        return new Object[][]{
+            {"", false, this.key2048, this.key2048Other},
+            {"foobar", false, this.key2048, this.key2048Other},
+            {"foobar", true, this.key2048, this.key2048Other},
+            {"foobar", false, this.key2048, this.key4096},
+            {"foobar", true, this.key2048, this.key4096},
+            {"foobar", false, this.key4096, this.key2048},
+            {"foobar", true, this.key4096, this.key2048},
+            {longData.toString(), false, this.key2048, this.key4096},
+            {longData.toString(), true, this.key2048, this.key2048Other}
+        };
+    }
+
+    @Test(dataProvider = "rewrapData")
+    public void testRewrap(String data, boolean includeKeyId, PrivateKey oldKey, PrivateKey newKey)
+        throws Throwable
+    {
+        String encrypted = new EncryptionCipher(includeKeyId).encrypt(oldKey, data);
+        String rewrapped = this.cipher.rewrap(oldKey, newKey.publicKey(), encrypted);
+
+        Assert.assertEquals(this.decryptionCipher.decrypt(newKey, rewrapped), data);
+        Assert.assertEquals(
+            this.base64UriCodec.decode(rewrapped).length - newKey.size() / 8,
+            this.base64UriCodec.decode(encrypted).length - oldKey.size() / 8
+        );
+    }
+
+    @Test
+    public void testRewrapCopiesAlignedContent() throws Throwable
+    {
+        String encrypted = new EncryptionCipher(true).encrypt(this.key2048, "foobar");
+        String rewrapped = this.cipher.rewrap(this.key2048, this.key2048Other.publicKey(), encrypted);
+        int headerLength = (8 + 256) / 3 * 4;
+
+        Assert.assertEquals(rewrapped.length(), encrypted.length());
+        Assert.assertEquals(rewrapped.substring(headerLength), encrypted.substring(headerLength));
+        Assert.assertFalse(rewrapped.substring(0, headerLength).equals(encrypted.substring(0, headerLength)));
+    }
+
+    @Test
+    public void testRewrapKeyId() throws Throwable
+    {
+        String encrypted = new EncryptionCipher(true).encrypt(this.key2048, "foobar");
+        String rewrapped = this.cipher.rewrap(this.key2048, this.key4096.publicKey(), encrypted);
+        byte[] decoded = this.base64UriCodec.decode(rewrapped);
+
+        Assert.assertEquals(java.util.Arrays.copyOfRange(decoded, 0, 8), this.key4096.keyId());
+    }
+
+    @Test
+    public void testRewrapFailureWrongKey() throws Throwable
+    {
+        String encrypted = new EncryptionCipher().encrypt(this.key2048, "foobar");
+
+        try {
+            this.cipher.rewrap(this.key2048Other, this.key4096.publicKey(), encrypted);
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
+        }
+    }
+
+    @Test
+    public void testRewrapFailureKeyIdMismatch() throws Throwable
+    {
+        String encrypted = new EncryptionCipher(true).encrypt(this.key2048, "foobar");
+
+        try {
+            this.cipher.rewrap(this.key2048Other, this.key4096.publicKey(), encrypted);
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.KEY_ID_MISMATCH);
+        }
+    }
+
+    @Test
+    public void testRewrapFailureTooShort() throws Throwable
+    {
+        try {
+            this.cipher.rewrap(this.key2048, this.key4096.publicKey(), "foobar");
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.BAD_RSA_BLOCK);
+        }
+    }
+
+    @Test
+    public void testRewrapFailureBadLength() throws Throwable
+    {
+        String encrypted = new EncryptionCipher().encrypt(this.key2048, "foobar");
+
+        try {
+            this.cipher.rewrap(this.key2048, this.key4096.publicKey(), encrypted.substring(4));
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.BAD_PADDING);
+        }
+    }
+
+    @Test
+    public void testRewrapFailureNotBase64() throws Throwable
+    {
+        String encrypted = new EncryptionCipher().encrypt(this.key2048, "foobar");
+
+        try {
+            this.cipher.rewrap(this.key2048, this.key4096.publicKey(), "!" + encrypted.substring(1));
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertSame(e.reason(), DecryptionFailureReason.BAD_ENCODING);
+        }
+    }
+
+    private CodecInterface base64UriCodec;
+    private AsymmetricBlockCipher rsaCipher;
+    private RewrapCipher cipher;
+    private DecryptionCipher decryptionCipher;
+    private PrivateKey key2048;
+    private PrivateKey key2048Other;
+    private PrivateKey key4096;
+}
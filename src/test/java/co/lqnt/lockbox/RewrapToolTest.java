@@ -0,0 +1,191 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox;
+
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RewrapToolTest
+{
+    public RewrapToolTest() throws Throwable
+    {
+        KeyFactory factory = new KeyFactory();
+        this.oldKey = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+        this.newKey = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-4096-nopass.private.pem")
+        );
+        this.encryptionCipher = new EncryptionCipher();
+        this.decryptionCipher = new DecryptionCipher();
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        this.cipher = Mockito.spy(new RewrapCipher());
+        this.tool = new RewrapTool(this.oldKey, this.newKey.publicKey(), this.cipher);
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.tool.oldKey(), this.oldKey);
+        Assert.assertEquals(this.tool.newKey().modulus(), this.newKey.modulus());
+        Assert.assertSame(this.tool.cipher(), this.cipher);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.tool = new RewrapTool(this.oldKey, this.newKey.publicKey());
+
+        Assert.assertSame(this.tool.cipher().getClass(), RewrapCipher.class);
+    }
+
+    @Test
+    public void testRewrapStream() throws Throwable
+    {
+        String input =
+            this.encryptionCipher.encrypt(this.oldKey, "foo") + "\n" +
+            "\n" +
+            this.encryptionCipher.encrypt(this.oldKey, "bar") + "\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long count = this.tool.rewrap(
+            new ByteArrayInputStream(input.getBytes(Charset.forName("US-ASCII"))),
+            output
+        );
+        String[] lines = new String(output.toByteArray(), Charset.forName("US-ASCII")).split("\n", -1);
+
+        Assert.assertEquals(count, 2L);
+        Assert.assertEquals(lines.length, 4);
+        Assert.assertEquals(this.decryptionCipher.decrypt(this.newKey, lines[0]), "foo");
+        Assert.assertEquals(lines[1], "");
+        Assert.assertEquals(this.decryptionCipher.decrypt(this.newKey, lines[2]), "bar");
+        Assert.assertEquals(lines[3], "");
+    }
+
+    @Test
+    public void testRewrapFile() throws Throwable
+    {
+        File input = File.createTempFile("lockbox", ".in");
+        File output = File.createTempFile("lockbox", ".out");
+        input.deleteOnExit();
+        output.deleteOnExit();
+
+        OutputStream inputStream = new FileOutputStream(input);
+        try {
+            for (int i = 0; i < 10; ++i) {
+                inputStream.write(
+                    (this.encryptionCipher.encrypt(this.oldKey, "foo" + i) + "\n")
+                        .getBytes(Charset.forName("US-ASCII"))
+                );
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        long count = this.tool.rewrap(input, output);
+
+        Assert.assertEquals(count, 10L);
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(output), Charset.forName("US-ASCII"))
+        );
+        try {
+            for (int i = 0; i < 10; ++i) {
+                Assert.assertEquals(this.decryptionCipher.decrypt(this.newKey, reader.readLine()), "foo" + i);
+            }
+            Assert.assertNull(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRewrapFailure() throws Throwable
+    {
+        String input =
+            this.encryptionCipher.encrypt(this.oldKey, "foo") + "\n" +
+            "\n" +
+            this.encryptionCipher.encrypt(this.newKey, "bar") + "\n";
+
+        try {
+            this.tool.rewrap(
+                new ByteArrayInputStream(input.getBytes(Charset.forName("US-ASCII"))),
+                new ByteArrayOutputStream()
+            );
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertEquals(e.getMessage(), "Decryption failed on line 3.");
+            Assert.assertTrue(e.getCause() instanceof DecryptionFailedException);
+        }
+    }
+
+    @Test
+    public void testRewrapFileFailureLeavesOutputUntouched() throws Throwable
+    {
+        File directory = File.createTempFile("lockbox", "");
+        directory.delete();
+        directory.mkdir();
+        File input = new File(directory, "input");
+        File output = new File(directory, "output");
+
+        OutputStream inputStream = new FileOutputStream(input);
+        try {
+            inputStream.write(
+                (this.encryptionCipher.encrypt(this.oldKey, "foo") + "\n" + this.encryptionCipher.encrypt(this.newKey, "bar") + "\n")
+                    .getBytes(Charset.forName("US-ASCII"))
+            );
+        } finally {
+            inputStream.close();
+        }
+        OutputStream outputStream = new FileOutputStream(output);
+        try {
+            outputStream.write("previous".getBytes(Charset.forName("US-ASCII")));
+        } finally {
+            outputStream.close();
+        }
+
+        try {
+            this.tool.rewrap(input, output);
+            Assert.fail("Expected DecryptionFailedException.");
+        } catch (DecryptionFailedException e) {
+            Assert.assertEquals(e.getMessage(), "Decryption failed on line 2.");
+        }
+
+        Assert.assertEquals(output.length(), 8L);
+        Assert.assertEquals(directory.list().length, 2);
+
+        input.delete();
+        output.delete();
+        directory.delete();
+    }
+
+    private PrivateKey oldKey;
+    private PrivateKey newKey;
+    private EncryptionCipher encryptionCipher;
+    private DecryptionCipher decryptionCipher;
+    private RewrapCipher cipher;
+    private RewrapTool tool;
+}
@@ -9,6 +9,7 @@
 
 package co.lqnt.lockbox.exception;
 
+import co.lqnt.lockbox.DecryptionFailureReason;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -25,6 +26,28 @@ public class DecryptionFailedExceptionTest
 
         Assert.assertEquals(exception.getMessage(), "Decryption failed.");
         Assert.assertSame(exception.getCause(), cause);
+        Assert.assertNull(exception.reason());
+        Assert.assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testExceptionWithReason()
+    {
+        Exception cause = new Exception();
+        DecryptionFailedException exception = new DecryptionFailedException(DecryptionFailureReason.BAD_PADDING, cause);
+
+        Assert.assertEquals(exception.getMessage(), "Decryption failed.");
+        Assert.assertSame(exception.getCause(), cause);
+        Assert.assertSame(exception.reason(), DecryptionFailureReason.BAD_PADDING);
+    }
+
+    @Test
+    public void testExceptionWithReasonWithoutCause()
+    {
+        DecryptionFailedException exception = new DecryptionFailedException(DecryptionFailureReason.HASH_MISMATCH);
+
+        Assert.assertNull(exception.getCause());
+        Assert.assertSame(exception.reason(), DecryptionFailureReason.HASH_MISMATCH);
     }
 
     @Test
@@ -0,0 +1,391 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.PrivateKeyReadException;
+import co.lqnt.lockbox.key.exception.PublicKeyReadException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CachingKeyFactoryTest
+{
+    @BeforeMethod
+    public void setUp() throws Throwable
+    {
+        this.innerFactory = Mockito.spy(new KeyFactory());
+        this.factory = new CachingKeyFactory(this.innerFactory, 2);
+        this.privateKeyFile = new File(
+            this.getClass().getClassLoader()
+                .getResource("pem/rsa-2048-nopass.private.pem").toURI()
+        );
+        this.privateKeyFileEncrypted = new File(
+            this.getClass().getClassLoader()
+                .getResource("pem/rsa-2048.private.pem").toURI()
+        );
+        this.publicKeyFile = new File(
+            this.getClass().getClassLoader()
+                .getResource("pem/rsa-2048-nopass.public.pem").toURI()
+        );
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.factory.factory(), this.innerFactory);
+        Assert.assertEquals(this.factory.capacity(), 2);
+        Assert.assertEquals(this.factory.size(), 0);
+        Assert.assertEquals(this.factory.hits(), 0L);
+        Assert.assertEquals(this.factory.misses(), 0L);
+        Assert.assertEquals(this.factory.evictions(), 0L);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.factory = new CachingKeyFactory();
+
+        Assert.assertTrue(this.factory.factory() instanceof KeyFactory);
+        Assert.assertEquals(this.factory.capacity(), 64);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureCapacity()
+    {
+        new CachingKeyFactory(this.innerFactory, 0);
+    }
+
+    @Test
+    public void testCreatePrivateKeyFile() throws Throwable
+    {
+        PrivateKey first = this.factory.createPrivateKey(this.privateKeyFile);
+        PrivateKey second = this.factory.createPrivateKey(this.privateKeyFile);
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(this.factory.hits(), 1L);
+        Assert.assertEquals(this.factory.misses(), 1L);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPrivateKey(Mockito.any(byte[].class));
+    }
+
+    @Test
+    public void testResetStatistics() throws Throwable
+    {
+        this.factory.createPrivateKey(this.privateKeyFile);
+        this.factory.createPrivateKey(this.privateKeyFile);
+        this.factory.resetStatistics();
+
+        Assert.assertEquals(this.factory.hits(), 0L);
+        Assert.assertEquals(this.factory.misses(), 0L);
+        Assert.assertEquals(this.factory.size(), 1);
+    }
+
+    @Test
+    public void testCreatePrivateKeyFileWithPassword() throws Throwable
+    {
+        PrivateKey first = this.factory.createPrivateKey(
+            this.privateKeyFileEncrypted,
+            "password"
+        );
+        PrivateKey second = this.factory.createPrivateKey(
+            this.privateKeyFileEncrypted,
+            "password"
+        );
+
+        Assert.assertSame(second, first);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPrivateKey(Mockito.any(byte[].class), Mockito.eq("password"));
+    }
+
+    @Test(expectedExceptions = PrivateKeyReadException.class)
+    public void testCreatePrivateKeyFileWrongPasswordNotCached()
+        throws Throwable
+    {
+        this.factory.createPrivateKey(this.privateKeyFileEncrypted, "password");
+        this.factory.createPrivateKey(this.privateKeyFileEncrypted, "foobar");
+    }
+
+    @Test
+    public void testCreatePrivateKeyFileModified() throws Throwable
+    {
+        File file = File.createTempFile("lockbox", ".pem");
+        file.deleteOnExit();
+        this.copy(this.privateKeyFile, file);
+        file.setLastModified(1000000000000L);
+
+        PrivateKey first = this.factory.createPrivateKey(file);
+        file.setLastModified(1000000005000L);
+        PrivateKey second = this.factory.createPrivateKey(file);
+        this.copy(
+            new File(
+                this.getClass().getClassLoader()
+                    .getResource("pem/rsa-4096-nopass.private.pem").toURI()
+            ),
+            file
+        );
+        file.setLastModified(1000000005000L);
+        PrivateKey third = this.factory.createPrivateKey(file);
+
+        Assert.assertSame(second, first);
+        Assert.assertNotSame(third, second);
+        Assert.assertEquals(third.size(), 4096);
+        Assert.assertEquals(this.factory.misses(), 2L);
+        Mockito.verify(this.innerFactory, Mockito.times(2))
+            .createPrivateKey(Mockito.any(byte[].class));
+    }
+
+    @Test(expectedExceptions = PrivateKeyReadException.class)
+    public void testCreatePrivateKeyFileFailure() throws Throwable
+    {
+        this.factory.createPrivateKey(new File("/path/to/nonexistent"));
+    }
+
+    @Test
+    public void testCreatePrivateKeyBytes() throws Throwable
+    {
+        byte[] data = this.read(this.privateKeyFile);
+        PrivateKey first = this.factory.createPrivateKey(data);
+        PrivateKey second = this.factory.createPrivateKey(data.clone());
+
+        Assert.assertSame(second, first);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPrivateKey(Mockito.any(byte[].class));
+    }
+
+    @Test
+    public void testCreatePrivateKeyStringAndStream() throws Throwable
+    {
+        byte[] data = this.read(this.privateKeyFile);
+        PrivateKey first = this.factory.createPrivateKey(
+            new String(data, Charset.forName("US-ASCII"))
+        );
+        PrivateKey second = this.factory.createPrivateKey(
+            new ByteArrayInputStream(data)
+        );
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(this.factory.hits(), 1L);
+    }
+
+    @Test
+    public void testCreatePrivateKeyBytesWithPassword() throws Throwable
+    {
+        byte[] data = this.read(this.privateKeyFileEncrypted);
+        PrivateKey first = this.factory.createPrivateKey(data, "password");
+        PrivateKey second = this.factory.createPrivateKey(
+            new ByteArrayInputStream(data),
+            "password"
+        );
+
+        Assert.assertSame(second, first);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPrivateKey(Mockito.any(byte[].class), Mockito.eq("password"));
+    }
+
+    @Test(expectedExceptions = PrivateKeyReadException.class)
+    public void testCreatePrivateKeyStreamFailure() throws Throwable
+    {
+        InputStream input = Mockito.mock(InputStream.class);
+        Mockito.when(input.read(Mockito.any(byte[].class)))
+            .thenThrow(new IOException());
+
+        this.factory.createPrivateKey(input);
+    }
+
+    @Test
+    public void testCreatePublicKey() throws Throwable
+    {
+        byte[] data = this.read(this.publicKeyFile);
+        PublicKey first = this.factory.createPublicKey(this.publicKeyFile);
+        PublicKey second = this.factory.createPublicKey(this.publicKeyFile);
+        PublicKey third = this.factory.createPublicKey(
+            new String(data, Charset.forName("US-ASCII"))
+        );
+        PublicKey fourth = this.factory.createPublicKey(
+            new ByteArrayInputStream(data)
+        );
+
+        Assert.assertSame(second, first);
+        Assert.assertSame(third, first);
+        Assert.assertSame(fourth, first);
+        Assert.assertEquals(this.factory.hits(), 3L);
+        Assert.assertEquals(this.factory.misses(), 1L);
+    }
+
+    @Test(expectedExceptions = PublicKeyReadException.class)
+    public void testCreatePublicKeyStreamFailure() throws Throwable
+    {
+        InputStream input = Mockito.mock(InputStream.class);
+        Mockito.when(input.read(Mockito.any(byte[].class)))
+            .thenThrow(new IOException());
+
+        this.factory.createPublicKey(input);
+    }
+
+    @Test
+    public void testPrivateAndPublicKeysCachedSeparately() throws Throwable
+    {
+        PrivateKey privateKey =
+            this.factory.createPrivateKey(this.privateKeyFile);
+        PublicKey publicKey = this.factory.createPublicKey(this.publicKeyFile);
+
+        Assert.assertEquals(publicKey.modulus(), privateKey.modulus());
+        Assert.assertEquals(this.factory.size(), 2);
+    }
+
+    @Test
+    public void testEviction() throws Throwable
+    {
+        PrivateKey first = this.factory.createPrivateKey(this.privateKeyFile);
+        this.factory.createPublicKey(this.publicKeyFile);
+        this.factory.createPrivateKey(this.privateKeyFile);
+        this.factory.createPrivateKey(this.privateKeyFileEncrypted, "password");
+
+        Assert.assertEquals(this.factory.size(), 2);
+        Assert.assertEquals(this.factory.evictions(), 1L);
+        Assert.assertSame(
+            this.factory.createPrivateKey(this.privateKeyFile),
+            first
+        );
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPublicKey(Mockito.any(byte[].class));
+        this.factory.createPublicKey(this.publicKeyFile);
+        Mockito.verify(this.innerFactory, Mockito.times(2))
+            .createPublicKey(Mockito.any(byte[].class));
+    }
+
+    @Test
+    public void testClear() throws Throwable
+    {
+        PrivateKey first = this.factory.createPrivateKey(this.privateKeyFile);
+        this.factory.clear();
+
+        Assert.assertEquals(this.factory.size(), 0);
+        Assert.assertNotSame(
+            this.factory.createPrivateKey(this.privateKeyFile),
+            first
+        );
+    }
+
+    @Test
+    public void testCreateKeysFromDer() throws Throwable
+    {
+        PrivateKey privateKey =
+            this.innerFactory.createPrivateKey(this.privateKeyFile);
+        byte[] privateDer = privateKey.bcPrivateKey().getEncoded();
+        PrivateKey first = this.factory.createPrivateKeyFromDer(privateDer);
+        PrivateKey second = this.factory.createPrivateKeyFromDer(
+            new ByteArrayInputStream(privateDer)
+        );
+        PublicKey third = this.factory.createPublicKeyFromDer(
+            privateKey.publicKey().toDer()
+        );
+        PublicKey fourth = this.factory.createPublicKeyFromDer(
+            privateKey.publicKey().toDer()
+        );
+
+        Assert.assertSame(second, first);
+        Assert.assertSame(fourth, third);
+        Assert.assertEquals(first.toString(), privateKey.toString());
+        Assert.assertEquals(this.factory.hits(), 2L);
+        Assert.assertEquals(this.factory.misses(), 2L);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createPrivateKeyFromDer(privateDer);
+    }
+
+    @Test(expectedExceptions = PrivateKeyReadException.class)
+    public void testCreatePrivateKeyFromDerStreamFailure() throws Throwable
+    {
+        InputStream input = Mockito.mock(InputStream.class);
+        Mockito.when(input.read(Mockito.any(byte[].class)))
+            .thenThrow(new IOException());
+
+        this.factory.createPrivateKeyFromDer(input);
+    }
+
+    @Test
+    public void testCreateLazyPrivateKeyFromDer() throws Throwable
+    {
+        PrivateKey privateKey =
+            this.innerFactory.createPrivateKey(this.privateKeyFile);
+        byte[] privateDer = privateKey.bcPrivateKey().getEncoded();
+        LazyPrivateKey first =
+            this.factory.createLazyPrivateKeyFromDer(privateDer);
+        LazyPrivateKey second = this.factory.createLazyPrivateKeyFromDer(
+            new ByteArrayInputStream(privateDer)
+        );
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(first.modulus(), privateKey.modulus());
+        Assert.assertEquals(this.factory.hits(), 1L);
+        Assert.assertEquals(this.factory.misses(), 1L);
+        Mockito.verify(this.innerFactory, Mockito.times(1))
+            .createLazyPrivateKeyFromDer(privateDer);
+    }
+
+    @Test
+    public void testCreateKeysNotCached() throws Throwable
+    {
+        byte[] privateData = this.read(this.privateKeyFile);
+        byte[] publicData = this.read(this.publicKeyFile);
+
+        Assert.assertEquals(this.factory.createPrivateKeys(privateData).size(), 1);
+        Assert.assertEquals(this.factory.createPrivateKeys(this.privateKeyFileEncrypted, "password").size(), 1);
+        Assert.assertEquals(this.factory.createPublicKeys(publicData).size(), 1);
+        Assert.assertEquals(this.factory.size(), 0);
+        Mockito.verify(this.innerFactory).createPrivateKeys(privateData);
+        Mockito.verify(this.innerFactory).createPublicKeys(publicData);
+    }
+
+    @Test
+    public void testGeneratePrivateKeyNotCached()
+    {
+        this.factory = new CachingKeyFactory(this.innerFactory);
+        PrivateKey first = this.factory.generatePrivateKey(512);
+        PrivateKey second = this.factory.generatePrivateKey(512);
+
+        Assert.assertFalse(second.modulus().equals(first.modulus()));
+        Assert.assertEquals(this.factory.size(), 0);
+    }
+
+    protected byte[] read(File file) throws IOException
+    {
+        InputStream input = new FileInputStream(file);
+        try {
+            return this.factory.readFully(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    protected void copy(File source, File destination) throws IOException
+    {
+        FileOutputStream output = new FileOutputStream(destination);
+        try {
+            output.write(this.read(source));
+        } finally {
+            output.close();
+        }
+    }
+
+    private KeyFactory innerFactory;
+    private CachingKeyFactory factory;
+    private File privateKeyFile;
+    private File privateKeyFileEncrypted;
+    private File publicKeyFile;
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import java.nio.charset.Charset;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DirectPrivateKeyTest
+{
+    public DirectPrivateKeyTest() throws Throwable
+    {
+        this.expected = new KeyFactory().generatePrivateKey(1024);
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        this.key = new DirectPrivateKey(this.expected);
+    }
+
+    @Test
+    public void testComponents()
+    {
+        Assert.assertEquals(this.key.modulus(), this.expected.modulus());
+        Assert.assertEquals(this.key.publicExponent(), this.expected.publicExponent());
+        Assert.assertEquals(this.key.privateExponent(), this.expected.privateExponent());
+        Assert.assertEquals(this.key.prime1(), this.expected.prime1());
+        Assert.assertEquals(this.key.prime2(), this.expected.prime2());
+        Assert.assertEquals(this.key.primeExponent1(), this.expected.primeExponent1());
+        Assert.assertEquals(this.key.primeExponent2(), this.expected.primeExponent2());
+        Assert.assertEquals(this.key.coefficient(), this.expected.coefficient());
+        Assert.assertEquals(this.key.size(), 1024);
+    }
+
+    @Test
+    public void testEncodings() throws Throwable
+    {
+        Assert.assertEquals(this.key.toPem(), this.expected.toPem());
+        Assert.assertEquals(this.key.toString(), this.expected.toString());
+        Assert.assertEquals(this.key.toDer(), this.expected.toDer());
+        Assert.assertEquals(this.key.fingerprint(), this.expected.fingerprint());
+        Assert.assertEquals(this.key.keyId(), this.expected.keyId());
+        Assert.assertEquals(this.key.publicKey().toString(), this.expected.publicKey().toString());
+        Assert.assertEquals(this.key.bcPrivateKey().getEncoded(), this.expected.bcPrivateKey().getEncoded());
+        Assert.assertEquals(this.key.jcePrivateKey(), this.expected.jcePrivateKey());
+    }
+
+    @Test
+    public void testBcPrivateKeyParameters()
+    {
+        RSAPrivateCrtKeyParameters parameters = this.key.bcPrivateKeyParameters();
+
+        Assert.assertEquals(parameters.getModulus(), this.expected.modulus());
+        Assert.assertEquals(parameters.getExponent(), this.expected.privateExponent());
+        Assert.assertEquals(parameters.getQInv(), this.expected.coefficient());
+        Assert.assertTrue(parameters.isPrivate());
+    }
+
+    @Test
+    public void testEncryptionRoundTrip() throws Throwable
+    {
+        byte[] data = "foobar".getBytes(Charset.forName("US-ASCII"));
+        byte[] encrypted = new EncryptionCipher().encrypt(this.key, data);
+
+        Assert.assertEquals(new DecryptionCipher().decrypt(this.key, encrypted), data);
+        Assert.assertEquals(new DecryptionCipher().decrypt(this.expected, encrypted), data);
+    }
+
+    @Test
+    public void testDestroy()
+    {
+        byte[] fingerprint = this.expected.fingerprint();
+
+        Assert.assertFalse(this.key.isDestroyed());
+
+        this.key.destroy();
+        this.key.destroy();
+
+        Assert.assertTrue(this.key.isDestroyed());
+        Assert.assertEquals(this.key.fingerprint(), fingerprint);
+        Assert.assertEquals(this.key.size(), 1024);
+        Assert.assertEquals(this.key.modulus(), this.expected.modulus());
+        Assert.assertEquals(this.key.publicExponent(), this.expected.publicExponent());
+        Assert.assertEquals(this.key.publicKey().toPem(), this.expected.publicKey().toPem());
+    }
+
+    @Test
+    public void testBcPrivateKeyParametersNotCached()
+    {
+        Assert.assertFalse(this.key.cacheParameters());
+        Assert.assertNotSame(this.key.bcPrivateKeyParameters(), this.key.bcPrivateKeyParameters());
+    }
+
+    @Test
+    public void testBcPrivateKeyParametersCachedUntilDestroyed()
+    {
+        this.key = new DirectPrivateKey(this.expected, true);
+        RSAPrivateCrtKeyParameters parameters = this.key.bcPrivateKeyParameters();
+
+        Assert.assertTrue(this.key.cacheParameters());
+        Assert.assertSame(this.key.bcPrivateKeyParameters(), parameters);
+        Assert.assertEquals(parameters.getExponent(), this.expected.privateExponent());
+
+        this.key.destroy();
+
+        try {
+            this.key.bcPrivateKeyParameters();
+            Assert.fail("Expected IllegalStateException.");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDestroyPreventsUse()
+    {
+        this.key.destroy();
+        this.key.privateExponent();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDestroyPreventsParameters()
+    {
+        this.key.destroy();
+        this.key.bcPrivateKeyParameters();
+    }
+
+    private PrivateKey expected;
+    private DirectPrivateKey key;
+}
@@ -0,0 +1,256 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.key.exception.KeySnapshotReadException;
+import co.lqnt.lockbox.util.SecureRandom;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeySnapshotCodecTest
+{
+    public KeySnapshotCodecTest() throws Throwable
+    {
+        KeyFactory factory = new KeyFactory();
+        this.privateKey = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+        this.otherPrivateKey = factory.generatePrivateKey(512);
+        this.publicKey = factory.createPublicKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048.public.pem")
+        );
+    }
+
+    @BeforeMethod
+    public void setUp() throws Throwable
+    {
+        this.random = new SecureRandom();
+        this.codec = new KeySnapshotCodec(this.random);
+        this.masterKey = this.random.generate(32);
+        this.snapshot = new KeySnapshot(
+            Arrays.asList(this.privateKey, this.otherPrivateKey),
+            Arrays.asList(this.publicKey)
+        );
+        this.file = File.createTempFile("lockbox", ".snapshot");
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.file.delete();
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.codec.random(), this.random);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.codec = new KeySnapshotCodec();
+
+        Assert.assertSame(this.codec.random().getClass(), SecureRandom.class);
+    }
+
+    @Test
+    public void testEncodeDecode() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+
+        Assert.assertEquals(Arrays.copyOfRange(data, 0, 6), new byte[] {'L', 'B', 'K', 'S', 1, 0});
+        this.assertSnapshot(this.codec.decode(ByteBuffer.wrap(data)));
+    }
+
+    @Test
+    public void testEncodeDecodeWrapped() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot, this.masterKey);
+        byte[] other = this.codec.encode(this.snapshot, this.masterKey);
+
+        Assert.assertEquals(Arrays.copyOfRange(data, 0, 6), new byte[] {'L', 'B', 'K', 'S', 1, 1});
+        Assert.assertFalse(Arrays.equals(other, data));
+        this.assertSnapshot(this.codec.decode(ByteBuffer.wrap(data), this.masterKey));
+    }
+
+    @Test
+    public void testEncodeDecodeEmpty() throws Throwable
+    {
+        KeySnapshot snapshot = this.codec.decode(
+            ByteBuffer.wrap(
+                this.codec.encode(new KeySnapshot(new ArrayList<PrivateKey>(), new ArrayList<PublicKey>()))
+            )
+        );
+
+        Assert.assertTrue(snapshot.privateKeys().isEmpty());
+        Assert.assertTrue(snapshot.publicKeys().isEmpty());
+    }
+
+    @Test
+    public void testDecodePositionUnchanged() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 2);
+        buffer.put((byte) 0).put(data).put((byte) 0);
+        buffer.position(1);
+        buffer.limit(data.length + 1);
+
+        this.assertSnapshot(this.codec.decode(buffer));
+        Assert.assertEquals(buffer.position(), 1);
+    }
+
+    @Test
+    public void testWriteRead() throws Throwable
+    {
+        this.codec.write(this.snapshot, this.file);
+
+        this.assertSnapshot(this.codec.read(this.file));
+    }
+
+    @Test
+    public void testWriteReadWrapped() throws Throwable
+    {
+        this.codec.write(this.snapshot, this.file, this.masterKey);
+
+        this.assertSnapshot(this.codec.read(this.file, this.masterKey));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testReadFailureFileNotFound() throws Throwable
+    {
+        this.codec.read(new File("/path/to/nonexistent"));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureEmpty() throws Throwable
+    {
+        this.codec.decode(ByteBuffer.wrap(new byte[0]));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureMagic() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+        data[0] = 'X';
+
+        this.codec.decode(ByteBuffer.wrap(data));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureVersion() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+        data[4] = 2;
+
+        this.codec.decode(ByteBuffer.wrap(data));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureChecksum() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+        data[100] ^= 1;
+
+        this.codec.decode(ByteBuffer.wrap(data));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureTruncated() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot);
+
+        this.codec.decode(ByteBuffer.wrap(data, 0, 20));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureTamperedWrapped() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot, this.masterKey);
+        data[100] ^= 1;
+
+        this.codec.decode(ByteBuffer.wrap(data), this.masterKey);
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureWrongMasterKey() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot, this.masterKey);
+
+        this.codec.decode(ByteBuffer.wrap(data), this.random.generate(32));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureInvalidMasterKey() throws Throwable
+    {
+        byte[] data = this.codec.encode(this.snapshot, this.masterKey);
+
+        this.codec.decode(ByteBuffer.wrap(data), new byte[5]);
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureWrappedWithoutMasterKey() throws Throwable
+    {
+        this.codec.decode(ByteBuffer.wrap(this.codec.encode(this.snapshot, this.masterKey)));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeFailureUnwrappedWithMasterKey() throws Throwable
+    {
+        this.codec.decode(ByteBuffer.wrap(this.codec.encode(this.snapshot)), this.masterKey);
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeBodyFailureTrailingData() throws Throwable
+    {
+        this.codec.decodeBody(ByteBuffer.wrap(new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0}));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeBodyFailureNegativeCount() throws Throwable
+    {
+        this.codec.decodeBody(ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, 0, 0, 0, 0}));
+    }
+
+    @Test(expectedExceptions = KeySnapshotReadException.class)
+    public void testDecodeBodyFailureIntegerLength() throws Throwable
+    {
+        this.codec.decodeBody(ByteBuffer.wrap(new byte[] {0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 9, 1}));
+    }
+
+    protected void assertSnapshot(KeySnapshot snapshot)
+    {
+        List<PrivateKey> privateKeys = snapshot.privateKeys();
+        List<PublicKey> publicKeys = snapshot.publicKeys();
+
+        Assert.assertEquals(privateKeys.size(), 2);
+        Assert.assertEquals(privateKeys.get(0).toString(), this.privateKey.toString());
+        Assert.assertEquals(privateKeys.get(1).toString(), this.otherPrivateKey.toString());
+        Assert.assertEquals(privateKeys.get(1).coefficient(), this.otherPrivateKey.coefficient());
+        Assert.assertEquals(publicKeys.size(), 1);
+        Assert.assertEquals(publicKeys.get(0).toString(), this.publicKey.toString());
+    }
+
+    private PrivateKey privateKey;
+    private PrivateKey otherPrivateKey;
+    private PublicKey publicKey;
+    private SecureRandom random;
+    private KeySnapshotCodec codec;
+    private byte[] masterKey;
+    private KeySnapshot snapshot;
+    private File file;
+}
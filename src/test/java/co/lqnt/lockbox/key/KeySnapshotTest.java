@@ -0,0 +1,43 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class KeySnapshotTest
+{
+    @Test
+    public void testSnapshot()
+    {
+        PrivateKey privateKey = new KeyFactory().generatePrivateKey(512);
+        PublicKey publicKey = privateKey.publicKey();
+        List<PrivateKey> privateKeys = new ArrayList<PrivateKey>();
+        privateKeys.add(privateKey);
+        List<PublicKey> publicKeys = new ArrayList<PublicKey>();
+        publicKeys.add(publicKey);
+        KeySnapshot snapshot = new KeySnapshot(privateKeys, publicKeys);
+        privateKeys.clear();
+        publicKeys.clear();
+
+        Assert.assertEquals(snapshot.privateKeys().size(), 1);
+        Assert.assertSame(snapshot.privateKeys().get(0), privateKey);
+        Assert.assertEquals(snapshot.publicKeys().size(), 1);
+        Assert.assertSame(snapshot.publicKeys().get(0), publicKey);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSnapshotImmutable()
+    {
+        new KeySnapshot(new ArrayList<PrivateKey>(), new ArrayList<PublicKey>()).privateKeys().add(null);
+    }
+}
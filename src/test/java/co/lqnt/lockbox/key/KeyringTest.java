@@ -0,0 +1,108 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.util.Arrays;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyringTest
+{
+    public KeyringTest() throws Throwable
+    {
+        KeyFactory factory = new KeyFactory();
+        this.keyA = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+        this.keyB = factory.createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-4096-nopass.private.pem")
+        );
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        this.keyring = new Keyring();
+    }
+
+    @Test
+    public void testAddPrivateKey()
+    {
+        this.keyring.add(this.keyA);
+        this.keyring.add(this.keyB);
+
+        Assert.assertSame(this.keyring.privateKey(this.keyA.keyId()), this.keyA);
+        Assert.assertSame(this.keyring.privateKey(this.keyB.keyId()), this.keyB);
+        Assert.assertEquals(this.keyring.publicKey(this.keyA.keyId()).modulus(), this.keyA.modulus());
+        Assert.assertEquals(this.keyring.privateKeys().size(), 2);
+        Assert.assertEquals(this.keyring.publicKeys().size(), 2);
+    }
+
+    @Test
+    public void testAddPublicKey()
+    {
+        PublicKey publicKey = this.keyA.publicKey();
+        this.keyring.add(publicKey);
+
+        Assert.assertSame(this.keyring.publicKey(this.keyA.keyId()), publicKey);
+        Assert.assertNull(this.keyring.privateKey(this.keyA.keyId()));
+        Assert.assertTrue(this.keyring.privateKeys().isEmpty());
+    }
+
+    @Test
+    public void testLookupByFingerprint()
+    {
+        this.keyring.add(this.keyA);
+        byte[] fingerprint = this.keyA.fingerprint();
+        byte[] mismatched = fingerprint.clone();
+        mismatched[31] ^= 1;
+
+        Assert.assertSame(this.keyring.privateKey(fingerprint), this.keyA);
+        Assert.assertNotNull(this.keyring.publicKey(fingerprint));
+        Assert.assertNull(this.keyring.privateKey(mismatched));
+        Assert.assertNull(this.keyring.publicKey(mismatched));
+        Assert.assertNull(this.keyring.privateKey(Arrays.copyOf(fingerprint, 40)));
+    }
+
+    @Test
+    public void testLookupFailure()
+    {
+        this.keyring.add(this.keyA);
+
+        Assert.assertNull(this.keyring.privateKey(this.keyB.keyId()));
+        Assert.assertNull(this.keyring.publicKey(this.keyB.keyId()));
+        Assert.assertNull(this.keyring.privateKey(new byte[4]));
+        Assert.assertNull(this.keyring.publicKey(new byte[4]));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        this.keyring.add(this.keyA);
+        this.keyring.add(this.keyB);
+        this.keyring.remove(this.keyA.publicKey());
+
+        Assert.assertNull(this.keyring.privateKey(this.keyA.keyId()));
+        Assert.assertNull(this.keyring.publicKey(this.keyA.keyId()));
+        Assert.assertSame(this.keyring.privateKey(this.keyB.keyId()), this.keyB);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testPrivateKeysUnmodifiable()
+    {
+        this.keyring.add(this.keyA);
+        this.keyring.privateKeys().clear();
+    }
+
+    private PrivateKey keyA;
+    private PrivateKey keyB;
+    private Keyring keyring;
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.Charset;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LazyPrivateKeyTest
+{
+    public LazyPrivateKeyTest() throws Throwable
+    {
+        this.factory = new KeyFactory();
+        this.expected = this.factory.generatePrivateKey(1024);
+    }
+
+    @BeforeMethod
+    public void setUp() throws Throwable
+    {
+        this.key = this.factory.createLazyPrivateKeyFromDer(this.expected.toDer());
+    }
+
+    @Test
+    public void testPublicComponents()
+    {
+        Assert.assertEquals(this.key.modulus(), this.expected.modulus());
+        Assert.assertEquals(this.key.publicExponent(), this.expected.publicExponent());
+        Assert.assertEquals(this.key.size(), 1024);
+        Assert.assertFalse(this.key.isMaterialized());
+    }
+
+    @Test
+    public void testPublicOperationsDoNotMaterialize()
+    {
+        Assert.assertEquals(this.key.fingerprint(), this.expected.fingerprint());
+        Assert.assertEquals(this.key.keyId(), this.expected.keyId());
+        Assert.assertEquals(this.key.publicKey().toString(), this.expected.publicKey().toString());
+        Assert.assertEquals(this.key.toDer(), this.expected.toDer());
+        Assert.assertFalse(this.key.isMaterialized());
+    }
+
+    @Test
+    public void testPrivateComponents()
+    {
+        Assert.assertEquals(this.key.privateExponent(), this.expected.privateExponent());
+        Assert.assertTrue(this.key.isMaterialized());
+        Assert.assertEquals(this.key.prime1(), this.expected.prime1());
+        Assert.assertEquals(this.key.prime2(), this.expected.prime2());
+        Assert.assertEquals(this.key.primeExponent1(), this.expected.primeExponent1());
+        Assert.assertEquals(this.key.primeExponent2(), this.expected.primeExponent2());
+        Assert.assertEquals(this.key.coefficient(), this.expected.coefficient());
+        Assert.assertEquals(this.key.toPem(), this.expected.toPem());
+        Assert.assertEquals(this.key.toString(), this.expected.toString());
+        Assert.assertSame(this.key.materialize(), this.key.materialize());
+    }
+
+    @Test
+    public void testEncryptionRoundTrip() throws Throwable
+    {
+        byte[] data = "foobar".getBytes(Charset.forName("US-ASCII"));
+        byte[] encrypted = new EncryptionCipher().encrypt(this.key, data);
+
+        Assert.assertFalse(this.key.isMaterialized());
+        Assert.assertEquals(new DecryptionCipher().decrypt(this.key, encrypted), data);
+        Assert.assertTrue(this.key.isMaterialized());
+    }
+
+    @Test
+    public void testConstructorCopiesDer()
+    {
+        byte[] der = new byte[this.expected.toDer().remaining()];
+        this.expected.toDer().get(der);
+        LazyPrivateKey key = new LazyPrivateKey(der, this.expected.modulus(), this.expected.publicExponent());
+        der[0] = 0;
+
+        Assert.assertEquals(key.privateExponent(), this.expected.privateExponent());
+    }
+
+    @Test(expectedExceptions = ReadOnlyBufferException.class)
+    public void testToDerReadOnly()
+    {
+        ByteBuffer der = this.key.toDer();
+        der.put(0, (byte) 0);
+    }
+
+    private KeyFactory factory;
+    private PrivateKey expected;
+    private LazyPrivateKey key;
+}
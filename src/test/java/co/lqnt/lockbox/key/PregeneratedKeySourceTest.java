@@ -0,0 +1,224 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.key;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PregeneratedKeySourceTest
+{
+    @BeforeMethod
+    public void setUp()
+    {
+        this.factories = new ArrayList<KeyFactoryInterface>();
+        this.factories.add(new KeyFactory());
+        this.factories.add(new KeyFactory());
+        this.source = new PregeneratedKeySource(new int[] {512, 768}, 2, this.factories);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.source.stop();
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertEquals(this.source.sizes(), new int[] {512, 768});
+        Assert.assertEquals(this.source.capacity(), 2);
+        Assert.assertEquals(this.source.factories(), this.factories);
+        Assert.assertEquals(this.source.depth(512), 0);
+        Assert.assertEquals(this.source.depth(768), 0);
+        Assert.assertEquals(this.source.hits(), 0L);
+        Assert.assertEquals(this.source.misses(), 0L);
+        Assert.assertEquals(this.source.generated(), 0L);
+        Assert.assertEquals(this.source.failures(), 0L);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.source = new PregeneratedKeySource(new int[] {512});
+
+        Assert.assertEquals(this.source.capacity(), 8);
+        Assert.assertEquals(this.source.factories().size(), Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testConstructorWorkers()
+    {
+        this.source = new PregeneratedKeySource(new int[] {512}, 4, 3);
+
+        Assert.assertEquals(this.source.capacity(), 4);
+        Assert.assertEquals(this.source.factories().size(), 3);
+        Assert.assertNotSame(this.source.factories().get(1), this.source.factories().get(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureNoSizes()
+    {
+        new PregeneratedKeySource(new int[0], 2, this.factories);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureCapacity()
+    {
+        new PregeneratedKeySource(new int[] {512}, 0, this.factories);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureNoFactories()
+    {
+        new PregeneratedKeySource(new int[] {512}, 2, new ArrayList<KeyFactoryInterface>());
+    }
+
+    @Test
+    public void testSizesCopied()
+    {
+        this.source.sizes()[0] = 1024;
+
+        Assert.assertEquals(this.source.sizes(), new int[] {512, 768});
+    }
+
+    @Test
+    public void testTake() throws Throwable
+    {
+        this.source.start();
+        PrivateKey first = this.source.take(512);
+        PrivateKey second = this.source.take(768);
+
+        Assert.assertEquals(first.size(), 512);
+        Assert.assertEquals(second.size(), 768);
+        Assert.assertEquals(this.source.hits() + this.source.misses(), 2L);
+    }
+
+    @Test
+    public void testFill() throws Throwable
+    {
+        this.source.start();
+        this.waitForDepth(512, 2);
+        this.waitForDepth(768, 2);
+
+        Assert.assertEquals(this.source.generated(), 4L);
+        Assert.assertEquals(this.source.size(), 4);
+
+        PrivateKey first = this.source.poll(512);
+        PrivateKey second = this.source.poll(512);
+
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertFalse(second.modulus().equals(first.modulus()));
+        Assert.assertEquals(this.source.hits(), 2L);
+
+        this.waitForDepth(512, 2);
+
+        Assert.assertEquals(this.source.generated(), 6L);
+    }
+
+    @Test
+    public void testPollEmpty()
+    {
+        Assert.assertNull(this.source.poll(512));
+        Assert.assertEquals(this.source.misses(), 1L);
+        Assert.assertEquals(this.source.hits(), 0L);
+    }
+
+    @Test
+    public void testResetStatistics()
+    {
+        this.source.poll(512);
+        this.source.resetStatistics();
+
+        Assert.assertEquals(this.source.misses(), 0L);
+        Assert.assertEquals(this.source.size(), 0);
+    }
+
+    @Test
+    public void testStop() throws Throwable
+    {
+        this.source.start();
+        this.source.start();
+        this.waitForDepth(512, 1);
+        this.source.stop();
+        this.source.stop();
+
+        Assert.assertNotNull(this.source.take(512));
+    }
+
+    @Test
+    public void testGenerationFailure() throws Throwable
+    {
+        KeyFactoryInterface factory = Mockito.mock(KeyFactoryInterface.class);
+        PrivateKey key = new KeyFactory().generatePrivateKey(512);
+        Mockito.when(factory.generatePrivateKey(512))
+            .thenThrow(new RuntimeException())
+            .thenReturn(key);
+        this.source = new PregeneratedKeySource(new int[] {512}, 1, Arrays.asList(factory));
+        this.source.start();
+
+        Assert.assertSame(this.source.take(512), key);
+        Assert.assertEquals(this.source.failures(), 1L);
+    }
+
+    @Test
+    public void testGenerationFailureBacksOff() throws Throwable
+    {
+        KeyFactoryInterface factory = Mockito.mock(KeyFactoryInterface.class);
+        Mockito.when(factory.generatePrivateKey(512)).thenThrow(new RuntimeException());
+        this.source = new PregeneratedKeySource(new int[] {512}, 1, Arrays.asList(factory));
+        this.source.start();
+        Thread.sleep(200);
+        this.source.stop();
+        long failures = this.source.failures();
+        Thread.sleep(100);
+
+        Assert.assertTrue(failures >= 1L);
+        Assert.assertTrue(failures <= 8L, "Expected at most 8 failures, got " + failures + ".");
+        Assert.assertEquals(this.source.failures(), failures);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTakeFailureUnknownSize() throws Throwable
+    {
+        this.source.take(1024);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPollFailureUnknownSize()
+    {
+        this.source.poll(1024);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDepthFailureUnknownSize()
+    {
+        this.source.depth(1024);
+    }
+
+    protected void waitForDepth(int size, int depth) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.source.depth(size) < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        Assert.assertEquals(this.source.depth(size), depth);
+    }
+
+    private List<KeyFactoryInterface> factories;
+    private PregeneratedKeySource source;
+}
@@ -14,6 +14,10 @@ import co.lqnt.lockbox.util.StringWriterFactory;
 import co.lqnt.lockbox.util.PublicKeyInformationFactory;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import javax.xml.bind.DatatypeConverter;
 import org.bouncycastle.asn1.pkcs.RSAPublicKey;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
@@ -263,6 +267,67 @@ public class PublicKeyTest
         }
     }
 
+    @Test
+    public void testToPemCached()
+    {
+        Assert.assertSame(this.key.toPem(), this.key.toPem());
+    }
+
+    @Test
+    public void testToDer() throws Throwable
+    {
+        ByteBuffer der = this.key.toDer();
+        byte[] bytes = new byte[der.remaining()];
+        der.get(bytes);
+
+        Assert.assertEquals(SubjectPublicKeyInfo.getInstance(bytes), this.key.bcPublicKeyInfo());
+    }
+
+    @Test
+    public void testToDerCached()
+    {
+        ByteBuffer first = this.key.toDer();
+        ByteBuffer second = this.key.toDer();
+        first.get();
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(second.position(), 0);
+        Assert.assertTrue(first.isReadOnly());
+        Assert.assertEquals(first.remaining() + 1, second.remaining());
+    }
+
+    @Test(expectedExceptions = ReadOnlyBufferException.class)
+    public void testToDerReadOnly()
+    {
+        this.key.toDer().put(0, (byte) 0);
+    }
+
+    @Test
+    public void testFingerprint() throws Throwable
+    {
+        ByteBuffer der = this.key.toDer();
+        byte[] bytes = new byte[der.remaining()];
+        der.get(bytes);
+
+        Assert.assertEquals(this.key.fingerprint(), MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    public void testFingerprintCopied()
+    {
+        byte[] fingerprint = this.key.fingerprint();
+        byte[] expected = fingerprint.clone();
+        fingerprint[0] ^= 1;
+
+        Assert.assertEquals(this.key.fingerprint(), expected);
+    }
+
+    @Test
+    public void testKeyId()
+    {
+        Assert.assertEquals(this.key.keyId(), Arrays.copyOfRange(this.key.fingerprint(), 0, 8));
+    }
+
     @Test
     public void testToString()
     {
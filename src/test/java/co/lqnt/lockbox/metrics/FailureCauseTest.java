@@ -0,0 +1,36 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FailureCauseTest
+{
+    @Test
+    public void testName()
+    {
+        Assert.assertEquals(FailureCause.name(DecryptionFailureReason.BAD_PADDING, new IllegalStateException()), "BAD_PADDING");
+        Assert.assertEquals(FailureCause.name(null, null), "Unknown");
+        Assert.assertEquals(FailureCause.name(null, new IllegalStateException()), "IllegalStateException");
+        Assert.assertEquals(
+            FailureCause.name(null, new RuntimeException(new DecryptionFailedException(new InvalidCipherTextException()))),
+            "InvalidCipherTextException"
+        );
+        Assert.assertEquals(FailureCause.name(null, new DecryptionFailedException()), "DecryptionFailedException");
+        Assert.assertEquals(
+            FailureCause.name(null, new IllegalStateException(new InvalidCipherTextException())),
+            "IllegalStateException"
+        );
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.exception.DecryptionFailedException;
+import co.lqnt.lockbox.key.KeyInterface;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.key.PublicKeyInterface;
+import co.lqnt.lockbox.util.codec.exception.DecodingFailedException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class InMemoryMetricsListenerTest
+{
+    @Test
+    public void testRecord()
+    {
+        InMemoryMetricsListener listener = new InMemoryMetricsListener();
+        listener.encrypted(this.key(2048), 100, 400, 1000L);
+        listener.encrypted(this.key(4096), 10, 700, 3000L);
+        listener.decrypted(this.key(2048), 400, 100, 2000L);
+        listener.encryptionFailed(this.key(2048), new RuntimeException(new InvalidCipherTextException()), 5L);
+        listener.decryptionFailed(this.key(1024), null, new DecryptionFailedException(new DecodingFailedException()), 5L);
+        listener.decryptionFailed(this.key(1024), null, new DecryptionFailedException(), 5L);
+        listener.decryptionFailed(this.key(1024), DecryptionFailureReason.BAD_PADDING, new InvalidCipherTextException(), 5L);
+        listener.decryptionFailed(this.key(1024), DecryptionFailureReason.BAD_ENCODING, null, 5L);
+
+        Assert.assertTrue(listener.isEnabled());
+        Assert.assertEquals(listener.encryptions(), 2L);
+        Assert.assertEquals(listener.decryptions(), 1L);
+        Assert.assertEquals(listener.encryptionFailures(), 1L);
+        Assert.assertEquals(listener.decryptionFailures(), 4L);
+        Assert.assertEquals(listener.plaintextBytes(), 210L);
+        Assert.assertEquals(listener.ciphertextBytes(), 1500L);
+        Assert.assertEquals(listener.encryptionLatency().count(), 2L);
+        Assert.assertEquals(listener.encryptionLatency().max(), 3000L);
+        Assert.assertEquals(listener.decryptionLatency().count(), 1L);
+        Assert.assertEquals(listener.keySizes().toString(), "{1024=4, 2048=3, 4096=1}");
+        Assert.assertEquals(listener.encryptionFailureCauses().toString(), "{InvalidCipherTextException=1}");
+        Assert.assertEquals(
+            listener.decryptionFailureCauses().toString(),
+            "{BAD_ENCODING=1, BAD_PADDING=1, DecodingFailedException=1, DecryptionFailedException=1}"
+        );
+    }
+
+    @Test
+    public void testRecordPhases()
+    {
+        InMemoryMetricsListener listener = new InMemoryMetricsListener();
+        listener.encryptionPhase(Phase.RSA, 1000L);
+        listener.decryptionPhase(Phase.RSA, 2000L);
+        listener.decryptionPhase(Phase.RSA, 3000L);
+        listener.decryptionPhase(Phase.CODEC, 10L);
+
+        Assert.assertEquals(listener.encryptionPhaseLatency(Phase.RSA).count(), 1L);
+        Assert.assertEquals(listener.encryptionPhaseLatency(Phase.AES).count(), 0L);
+        Assert.assertEquals(listener.decryptionPhaseLatency(Phase.RSA).count(), 2L);
+        Assert.assertEquals(listener.decryptionPhaseLatency(Phase.RSA).max(), 3000L);
+        Assert.assertEquals(listener.decryptionPhaseLatency(Phase.CODEC).total(), 10L);
+
+        listener.reset();
+
+        Assert.assertEquals(listener.decryptionPhaseLatency(Phase.RSA).count(), 0L);
+    }
+
+    @Test
+    public void testRecordKeys()
+    {
+        InMemoryMetricsListener listener = new InMemoryMetricsListener();
+        listener.privateKeyLoaded(Mockito.mock(PrivateKeyInterface.class), 1000L);
+        listener.publicKeyLoaded(Mockito.mock(PublicKeyInterface.class), 2000L);
+        listener.privateKeyLoadFailed(5L);
+        listener.publicKeyLoadFailed(5L);
+        listener.privateKeyGenerated(Mockito.mock(PrivateKeyInterface.class), 3000L);
+
+        Assert.assertEquals(listener.keyLoadLatency().count(), 2L);
+        Assert.assertEquals(listener.keyLoadLatency().max(), 2000L);
+        Assert.assertEquals(listener.keyLoadFailures(), 2L);
+        Assert.assertEquals(listener.keyGenerationLatency().count(), 1L);
+
+        listener.reset();
+
+        Assert.assertEquals(listener.keyLoadLatency().count(), 0L);
+        Assert.assertEquals(listener.keyLoadFailures(), 0L);
+        Assert.assertEquals(listener.keyGenerationLatency().count(), 0L);
+    }
+
+    @Test
+    public void testReset()
+    {
+        InMemoryMetricsListener listener = new InMemoryMetricsListener();
+        listener.encrypted(this.key(2048), 100, 400, 1000L);
+        listener.decryptionFailed(this.key(2048), null, new RuntimeException(), 5L);
+        listener.reset();
+
+        Assert.assertEquals(listener.encryptions(), 0L);
+        Assert.assertEquals(listener.decryptionFailures(), 0L);
+        Assert.assertEquals(listener.plaintextBytes(), 0L);
+        Assert.assertEquals(listener.encryptionLatency().count(), 0L);
+        Assert.assertTrue(listener.keySizes().isEmpty());
+        Assert.assertTrue(listener.decryptionFailureCauses().isEmpty());
+    }
+
+    @Test
+    public void testNullMetricsListener()
+    {
+        NullMetricsListener listener = new NullMetricsListener();
+        listener.encrypted(this.key(2048), 100, 400, 1000L);
+        listener.decrypted(this.key(2048), 400, 100, 1000L);
+        listener.encryptionFailed(this.key(2048), new RuntimeException(), 5L);
+        listener.decryptionFailed(this.key(2048), DecryptionFailureReason.BAD_PADDING, null, 5L);
+
+        Assert.assertFalse(listener.isEnabled());
+    }
+
+    protected KeyInterface key(int size)
+    {
+        KeyInterface key = Mockito.mock(KeyInterface.class);
+        Mockito.when(key.size()).thenReturn(size);
+
+        return key;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest
+{
+    @BeforeMethod
+    public void setUp()
+    {
+        this.histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        Assert.assertEquals(this.histogram.count(), 0L);
+        Assert.assertEquals(this.histogram.total(), 0L);
+        Assert.assertEquals(this.histogram.max(), 0L);
+        Assert.assertEquals(this.histogram.mean(), 0.0);
+        Assert.assertEquals(this.histogram.percentile(50.0), 0L);
+    }
+
+    @Test
+    public void testRecord()
+    {
+        for (long i = 1; i <= 100; ++i) {
+            this.histogram.record(i * 1000L);
+        }
+
+        Assert.assertEquals(this.histogram.count(), 100L);
+        Assert.assertEquals(this.histogram.total(), 5050000L);
+        Assert.assertEquals(this.histogram.max(), 100000L);
+        Assert.assertEquals(this.histogram.mean(), 50500.0);
+        Assert.assertEquals(this.histogram.percentile(100.0), 100000L);
+        Assert.assertEquals(this.histogram.percentile(0.0), 1007L);
+    }
+
+    @Test
+    public void testPercentilePrecision()
+    {
+        for (long i = 1; i <= 1000; ++i) {
+            this.histogram.record(i * 997L);
+        }
+
+        long[] expected = new long[] {498500L, 897300L, 987030L};
+        double[] percentiles = new double[] {50.0, 90.0, 99.0};
+        for (int i = 0; i < percentiles.length; ++i) {
+            long actual = this.histogram.percentile(percentiles[i]);
+
+            Assert.assertTrue(actual >= expected[i]);
+            Assert.assertTrue(actual <= expected[i] + expected[i] / 32);
+        }
+    }
+
+    @Test
+    public void testRecordSmallAndExtremeValues()
+    {
+        this.histogram.record(-5L);
+        this.histogram.record(7L);
+        this.histogram.record(Long.MAX_VALUE);
+
+        Assert.assertEquals(this.histogram.percentile(1.0), 0L);
+        Assert.assertEquals(this.histogram.percentile(50.0), 7L);
+        Assert.assertEquals(this.histogram.percentile(100.0), Long.MAX_VALUE);
+        Assert.assertEquals(this.histogram.max(), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testBuckets()
+    {
+        for (long value = 0; value < 100000L; value += 7L) {
+            int index = LatencyHistogram.index(value);
+
+            Assert.assertTrue(LatencyHistogram.highestValue(index) >= value);
+            Assert.assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testReset()
+    {
+        this.histogram.record(1000L);
+        this.histogram.reset();
+
+        Assert.assertEquals(this.histogram.count(), 0L);
+        Assert.assertEquals(this.histogram.max(), 0L);
+        Assert.assertEquals(this.histogram.percentile(99.0), 0L);
+    }
+
+    @Test
+    public void testSnapshotAndSince()
+    {
+        for (long i = 1; i <= 100; ++i) {
+            this.histogram.record(i * 1000L);
+        }
+        LatencyHistogram snapshot = this.histogram.snapshot();
+        this.histogram.record(500L);
+        this.histogram.record(2000L);
+
+        Assert.assertEquals(snapshot.count(), 100L);
+        Assert.assertEquals(snapshot.total(), 5050000L);
+        Assert.assertEquals(snapshot.max(), 100000L);
+        Assert.assertEquals(snapshot.percentile(100.0), 100000L);
+
+        LatencyHistogram since = this.histogram.since(snapshot);
+
+        Assert.assertEquals(since.count(), 2L);
+        Assert.assertEquals(since.total(), 2500L);
+        Assert.assertEquals(since.percentile(50.0), 503L);
+        Assert.assertEquals(since.percentile(100.0), 2015L);
+        Assert.assertEquals(since.max(), 2015L);
+        Assert.assertEquals(this.histogram.since(this.histogram.snapshot()).count(), 0L);
+        Assert.assertEquals(this.histogram.since(this.histogram.snapshot()).percentile(99.0), 0L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPercentileFailureOutOfRange()
+    {
+        this.histogram.percentile(100.1);
+    }
+
+    private LatencyHistogram histogram;
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import co.lqnt.lockbox.DecryptionFailureReason;
+import co.lqnt.lockbox.key.KeyInterface;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LockboxStatsTest
+{
+    @BeforeMethod
+    public void setUp()
+    {
+        this.metricsListener = new InMemoryMetricsListener();
+        this.pool = Mockito.mock(StatisticsProviderInterface.class);
+        Mockito.when(this.pool.size()).thenReturn(7);
+        Mockito.when(this.pool.hits()).thenReturn(3L);
+        Mockito.when(this.pool.misses()).thenReturn(1L);
+        this.cache = Mockito.mock(StatisticsProviderInterface.class);
+        Map<String, StatisticsProviderInterface> providers = new HashMap<String, StatisticsProviderInterface>();
+        providers.put("pool", this.pool);
+        this.stats = new LockboxStats(this.metricsListener, providers);
+        this.stats.addProvider("cache", this.cache);
+
+        this.key = Mockito.mock(KeyInterface.class);
+        Mockito.when(this.key.size()).thenReturn(2048);
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        this.stats = new LockboxStats(this.metricsListener);
+
+        Assert.assertSame(this.stats.metricsListener(), this.metricsListener);
+        Assert.assertTrue(this.stats.providers().isEmpty());
+    }
+
+    @Test
+    public void testOperations()
+    {
+        this.metricsListener.encrypted(this.key, 100, 400, 1000L);
+        this.metricsListener.encrypted(this.key, 100, 400, 2000L);
+        this.metricsListener.decrypted(this.key, 400, 100, 3000L);
+        this.metricsListener.decryptionFailed(this.key, DecryptionFailureReason.BAD_PADDING, null, 5L);
+
+        Assert.assertEquals(this.stats.getEncryptions(), 2L);
+        Assert.assertEquals(this.stats.getDecryptions(), 1L);
+        Assert.assertTrue(this.stats.getEncryptionRate() > 0.0);
+        Assert.assertTrue(this.stats.getDecryptionRate() > 0.0);
+        Assert.assertEquals(this.stats.getEncryptionLatencyP50(), 1007L);
+        Assert.assertEquals(this.stats.getEncryptionLatencyP99(), 2000L);
+        Assert.assertEquals(this.stats.getDecryptionLatencyP50(), 3000L);
+        Assert.assertEquals(this.stats.getDecryptionLatencyP99(), 3000L);
+        Assert.assertEquals(this.stats.getEncryptionFailures(), 0L);
+        Assert.assertEquals(this.stats.getDecryptionFailures(), 1L);
+        Assert.assertTrue(this.stats.getEncryptionFailureCauses().isEmpty());
+        Assert.assertEquals(this.stats.getDecryptionFailureCauses().toString(), "{BAD_PADDING=1}");
+    }
+
+    @Test
+    public void testPools()
+    {
+        Assert.assertEquals(this.stats.getPoolSizes().toString(), "{cache=0, pool=7}");
+        Assert.assertEquals(this.stats.getPoolHitRates().toString(), "{cache=0.0, pool=0.75}");
+
+        this.stats.removeProvider("cache");
+
+        Assert.assertEquals(this.stats.getPoolSizes().toString(), "{pool=7}");
+    }
+
+    @Test
+    public void testReset()
+    {
+        this.metricsListener.encrypted(this.key, 100, 400, 1000L);
+        this.stats.reset();
+
+        Assert.assertEquals(this.stats.getEncryptions(), 0L);
+        Assert.assertEquals(this.stats.getEncryptionRate(), 0.0);
+        Mockito.verify(this.pool).resetStatistics();
+        Mockito.verify(this.cache).resetStatistics();
+    }
+
+    @Test
+    public void testRegister() throws Throwable
+    {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = this.stats.register(server);
+        this.metricsListener.encrypted(this.key, 100, 400, 1000L);
+
+        Assert.assertEquals(name.toString(), "co.lqnt.lockbox:type=LockboxStats");
+        Assert.assertEquals(server.getAttribute(name, "Encryptions"), 1L);
+        Assert.assertEquals(((TabularData) server.getAttribute(name, "PoolSizes")).size(), 2);
+
+        server.invoke(name, "reset", new Object[0], new String[0]);
+
+        Assert.assertEquals(server.getAttribute(name, "Encryptions"), 0L);
+
+        this.stats.unregister(server);
+
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    private InMemoryMetricsListener metricsListener;
+    private StatisticsProviderInterface pool;
+    private StatisticsProviderInterface cache;
+    private LockboxStats stats;
+    private KeyInterface key;
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PhaseAccumulatorTest
+{
+    @Test
+    public void testAccumulate()
+    {
+        PhaseAccumulator accumulator = new PhaseAccumulator();
+        accumulator.encryptionPhase(Phase.RSA, 100L);
+        accumulator.encryptionPhase(Phase.RSA, 50L);
+        accumulator.decryptionPhase(Phase.RSA, 7L);
+        accumulator.decryptionPhase(Phase.CODEC, 3L);
+
+        Assert.assertEquals(accumulator.encryptionNanoseconds(Phase.RSA), 150L);
+        Assert.assertEquals(accumulator.encryptionNanoseconds(Phase.AES), 0L);
+        Assert.assertEquals(accumulator.decryptionNanoseconds(Phase.RSA), 7L);
+        Assert.assertEquals(accumulator.decryptionNanoseconds(Phase.CODEC), 3L);
+
+        accumulator.reset();
+
+        Assert.assertEquals(accumulator.encryptionNanoseconds(Phase.RSA), 0L);
+        Assert.assertEquals(accumulator.decryptionNanoseconds(Phase.CODEC), 0L);
+    }
+
+    @Test
+    public void testThreadIsolation() throws Throwable
+    {
+        final PhaseAccumulator accumulator = new PhaseAccumulator();
+        final AtomicLong otherTotal = new AtomicLong();
+        accumulator.decryptionPhase(Phase.DIGEST, 10L);
+
+        Thread thread = new Thread(
+            new Runnable() {
+                public void run()
+                {
+                    accumulator.decryptionPhase(Phase.DIGEST, 5L);
+                    otherTotal.set(accumulator.decryptionNanoseconds(Phase.DIGEST));
+                }
+            }
+        );
+        thread.start();
+        thread.join();
+
+        Assert.assertEquals(otherTotal.get(), 5L);
+        Assert.assertEquals(accumulator.decryptionNanoseconds(Phase.DIGEST), 10L);
+    }
+}
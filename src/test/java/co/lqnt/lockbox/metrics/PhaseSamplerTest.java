@@ -0,0 +1,63 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PhaseSamplerTest
+{
+    @Test
+    public void testConstructor()
+    {
+        PhaseListenerInterface listener = Mockito.mock(PhaseListenerInterface.class);
+        PhaseSampler sampler = new PhaseSampler(listener, 10);
+
+        Assert.assertSame(sampler.listener(), listener);
+        Assert.assertEquals(sampler.interval(), 10);
+        Assert.assertEquals(new PhaseSampler(listener).interval(), 1);
+    }
+
+    @Test
+    public void testSample()
+    {
+        PhaseSampler sampler = new PhaseSampler(new PhaseAccumulator(), 3);
+        int sampled = 0;
+        for (int i = 0; i < 9; ++i) {
+            if (sampler.sample()) {
+                ++sampled;
+            }
+        }
+
+        Assert.assertEquals(sampled, 3);
+    }
+
+    @Test
+    public void testSampleFirstOperation()
+    {
+        Assert.assertTrue(new PhaseSampler(new PhaseAccumulator(), 1000).sample());
+    }
+
+    @Test
+    public void testSampleEveryOperation()
+    {
+        PhaseSampler sampler = new PhaseSampler(new PhaseAccumulator());
+
+        Assert.assertTrue(sampler.sample());
+        Assert.assertTrue(sampler.sample());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureInterval()
+    {
+        new PhaseSampler(new PhaseAccumulator(), 0);
+    }
+}
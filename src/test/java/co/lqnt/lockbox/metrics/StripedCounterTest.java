@@ -0,0 +1,70 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StripedCounterTest
+{
+    @Test
+    public void testStripes()
+    {
+        Assert.assertEquals(new StripedCounter(1).stripes(), 1);
+        Assert.assertEquals(new StripedCounter(3).stripes(), 4);
+        Assert.assertEquals(new StripedCounter(8).stripes(), 8);
+        Assert.assertTrue(new StripedCounter().stripes() >= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testAdd()
+    {
+        StripedCounter counter = new StripedCounter(4);
+        counter.increment();
+        counter.add(41L);
+
+        Assert.assertEquals(counter.sum(), 42L);
+
+        counter.reset();
+
+        Assert.assertEquals(counter.sum(), 0L);
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Throwable
+    {
+        final StripedCounter counter = new StripedCounter(4);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(
+                new Runnable() {
+                    public void run()
+                    {
+                        for (int j = 0; j < 10000; ++j) {
+                            counter.increment();
+                        }
+                    }
+                }
+            );
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(counter.sum(), 40000L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureStripes()
+    {
+        new StripedCounter(0);
+    }
+}
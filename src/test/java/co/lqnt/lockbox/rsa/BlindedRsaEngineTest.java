@@ -0,0 +1,179 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.encodings.OAEPEncoding;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class BlindedRsaEngineTest
+{
+    public BlindedRsaEngineTest() throws Throwable
+    {
+        this.blindingFactorSource = new BlindingFactorGenerator();
+        this.engine = new BlindedRsaEngine(this.blindingFactorSource);
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.engine.blindingFactorSource(), this.blindingFactorSource);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.engine = new BlindedRsaEngine();
+
+        Assert.assertSame(this.engine.blindingFactorSource().getClass(), BlindingFactorGenerator.class);
+    }
+
+    @Test
+    public void testBlockSizes()
+    {
+        this.engine.init(true, this.key.publicKey().bcKeyParameters());
+
+        Assert.assertEquals(this.engine.getInputBlockSize(), 255);
+        Assert.assertEquals(this.engine.getOutputBlockSize(), 256);
+
+        this.engine.init(false, this.key.bcKeyParameters());
+
+        Assert.assertEquals(this.engine.getInputBlockSize(), 256);
+        Assert.assertEquals(this.engine.getOutputBlockSize(), 255);
+    }
+
+    @DataProvider(name = "blockData")
+    public Object[][] blockData()
+    {
+        return new Object[][]{
+            {new byte[]{1}},
+            {"foobar".getBytes(Charset.forName("US-ASCII"))},
+            {new byte[]{0, 0, 1, 2, 3}}
+        };
+    }
+
+    @Test(dataProvider = "blockData")
+    public void testMatchesRsaEngine(byte[] data) throws Throwable
+    {
+        RSAEngine reference = new RSAEngine();
+        reference.init(true, this.key.publicKey().bcKeyParameters());
+        byte[] encrypted = reference.processBlock(data, 0, data.length);
+
+        this.engine.init(true, this.key.publicKey().bcKeyParameters());
+        Assert.assertEquals(this.engine.processBlock(data, 0, data.length), encrypted);
+
+        reference.init(false, this.key.bcKeyParameters());
+        this.engine.init(false, this.key.bcKeyParameters());
+        Assert.assertEquals(
+            this.engine.processBlock(encrypted, 0, encrypted.length),
+            reference.processBlock(encrypted, 0, encrypted.length)
+        );
+    }
+
+    @Test
+    public void testProcessBlockUsesBlindingFactor() throws Throwable
+    {
+        BlindingFactorSourceInterface source = Mockito.mock(BlindingFactorSourceInterface.class);
+        Mockito.when(source.next(this.key.modulus(), this.key.publicExponent()))
+            .thenReturn(new BlindingFactor(BigInteger.ONE, BigInteger.ONE));
+        this.engine = new BlindedRsaEngine(source);
+        byte[] data = "foobar".getBytes(Charset.forName("US-ASCII"));
+        this.engine.init(true, this.key.publicKey().bcKeyParameters());
+        byte[] encrypted = this.engine.processBlock(data, 0, data.length);
+        this.engine.init(false, new ParametersWithRandom(this.key.bcKeyParameters()));
+
+        Assert.assertEquals(this.engine.processBlock(encrypted, 0, encrypted.length), data);
+        Mockito.verify(source).next(this.key.modulus(), this.key.publicExponent());
+    }
+
+    @Test
+    public void testProcessBlockWithOffset() throws Throwable
+    {
+        byte[] data = "xxfoobar".getBytes(Charset.forName("US-ASCII"));
+        this.engine.init(true, this.key.publicKey().bcKeyParameters());
+        byte[] encrypted = this.engine.processBlock(data, 2, 6);
+        this.engine.init(false, this.key.bcKeyParameters());
+
+        Assert.assertEquals(
+            this.engine.processBlock(encrypted, 0, encrypted.length),
+            "foobar".getBytes(Charset.forName("US-ASCII"))
+        );
+    }
+
+    @Test
+    public void testOaepRoundTrip() throws Throwable
+    {
+        AsymmetricBlockCipher cipher = new OAEPEncoding(this.engine, new SHA1Digest());
+        byte[] data = "123456789012345678901234567890123456789012345678".getBytes(Charset.forName("US-ASCII"));
+        cipher.init(true, this.key.publicKey().bcKeyParameters());
+        byte[] encrypted = cipher.processBlock(data, 0, data.length);
+        cipher.init(false, this.key.bcKeyParameters());
+
+        Assert.assertEquals(cipher.processBlock(encrypted, 0, encrypted.length), data);
+    }
+
+    @Test
+    public void testDecryptionCipherWithPool() throws Throwable
+    {
+        BlindingFactorPool pool = new BlindingFactorPool(4);
+        pool.prepare(this.key);
+        DecryptionCipher decryptionCipher = new DecryptionCipher(pool);
+        String encrypted = new EncryptionCipher().encrypt(this.key, "foobar");
+
+        Assert.assertEquals(decryptionCipher.decrypt(this.key, encrypted), "foobar");
+        pool.shutdown();
+    }
+
+    @Test(expectedExceptions = DataLengthException.class)
+    public void testProcessBlockFailureTooLong()
+    {
+        this.engine.init(false, this.key.bcKeyParameters());
+
+        this.engine.processBlock(new byte[257], 0, 257);
+    }
+
+    @Test(expectedExceptions = DataLengthException.class)
+    public void testProcessBlockFailureTooLarge()
+    {
+        byte[] data = new byte[256];
+        data[0] = (byte) 0xff;
+        this.engine.init(false, this.key.bcKeyParameters());
+
+        this.engine.processBlock(data, 0, 256);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testProcessBlockFailureNotInitialized()
+    {
+        this.engine = new BlindedRsaEngine(this.blindingFactorSource);
+
+        this.engine.processBlock(new byte[1], 0, 1);
+    }
+
+    private BlindingFactorSourceInterface blindingFactorSource;
+    private BlindedRsaEngine engine;
+    private PrivateKey key;
+}
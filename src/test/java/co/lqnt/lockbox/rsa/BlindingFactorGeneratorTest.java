@@ -0,0 +1,67 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.util.SecureRandom;
+import java.math.BigInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BlindingFactorGeneratorTest
+{
+    public BlindingFactorGeneratorTest() throws Throwable
+    {
+        this.random = new SecureRandom();
+        this.generator = new BlindingFactorGenerator(this.random);
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertSame(this.generator.random(), this.random);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.generator = new BlindingFactorGenerator();
+
+        Assert.assertSame(this.generator.random().getClass(), SecureRandom.class);
+    }
+
+    @Test
+    public void testNext()
+    {
+        BigInteger modulus = this.key.modulus();
+        BlindingFactor factor = this.generator.next(modulus, this.key.publicExponent());
+
+        BigInteger r = factor.blinding().modPow(this.key.privateExponent(), modulus);
+
+        Assert.assertEquals(r.multiply(factor.unblinding()).mod(modulus), BigInteger.ONE);
+    }
+
+    @Test
+    public void testNextIsRandom()
+    {
+        BlindingFactor first = this.generator.next(this.key.modulus(), this.key.publicExponent());
+        BlindingFactor second = this.generator.next(this.key.modulus(), this.key.publicExponent());
+
+        Assert.assertFalse(first.blinding().equals(second.blinding()));
+    }
+
+    private SecureRandom random;
+    private BlindingFactorGenerator generator;
+    private PrivateKey key;
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BlindingFactorPoolTest
+{
+    public BlindingFactorPoolTest() throws Throwable
+    {
+        this.key = new KeyFactory().createPrivateKey(
+            this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem")
+        );
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        this.generator = new BlindingFactorGenerator();
+        this.executor = Executors.newSingleThreadExecutor();
+        this.pool = new BlindingFactorPool(8, this.generator, this.executor);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertEquals(this.pool.capacity(), 8);
+        Assert.assertSame(this.pool.generator(), this.generator);
+        Assert.assertSame(this.pool.executor(), this.executor);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.pool.shutdown();
+        this.pool = new BlindingFactorPool();
+
+        Assert.assertEquals(this.pool.capacity(), 64);
+        Assert.assertSame(this.pool.generator().getClass(), BlindingFactorGenerator.class);
+        Assert.assertNotNull(this.pool.executor());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureCapacity()
+    {
+        new BlindingFactorPool(0);
+    }
+
+    @Test
+    public void testPrepare() throws Throwable
+    {
+        this.pool.prepare(this.key);
+        this.awaitFull();
+
+        Assert.assertEquals(this.pool.size(this.key.modulus()), 8);
+        Assert.assertEquals(this.pool.size(), 8);
+        Assert.assertEquals(this.pool.hits(), 0);
+        Assert.assertEquals(this.pool.misses(), 0);
+    }
+
+    @Test
+    public void testNextHit() throws Throwable
+    {
+        this.pool.prepare(this.key);
+        this.awaitFull();
+        BlindingFactor factor = this.pool.next(this.key.modulus(), this.key.publicExponent());
+        BigInteger r = factor.blinding().modPow(this.key.privateExponent(), this.key.modulus());
+
+        Assert.assertEquals(r.multiply(factor.unblinding()).mod(this.key.modulus()), BigInteger.ONE);
+        Assert.assertEquals(this.pool.hits(), 1);
+        Assert.assertEquals(this.pool.misses(), 0);
+    }
+
+    @Test
+    public void testNextMiss()
+    {
+        this.executor.shutdownNow();
+        BlindingFactor factor = this.pool.next(this.key.modulus(), this.key.publicExponent());
+
+        Assert.assertNotNull(factor);
+        Assert.assertEquals(this.pool.hits(), 0);
+        Assert.assertEquals(this.pool.misses(), 1);
+
+        this.pool.resetStatistics();
+
+        Assert.assertEquals(this.pool.misses(), 0);
+    }
+
+    @Test
+    public void testNextSingleUse() throws Throwable
+    {
+        this.pool.prepare(this.key);
+        this.awaitFull();
+        Set<BigInteger> seen = new HashSet<BigInteger>();
+        for (int i = 0; i < 32; ++i) {
+            seen.add(this.pool.next(this.key.modulus(), this.key.publicExponent()).blinding());
+        }
+
+        Assert.assertEquals(seen.size(), 32);
+    }
+
+    @Test
+    public void testRemove() throws Throwable
+    {
+        this.pool.prepare(this.key);
+        this.awaitFull();
+        this.pool.remove(this.key);
+        this.pool.remove(this.key);
+        this.executor.submit(new Runnable() { public void run() {} }).get();
+
+        Assert.assertEquals(this.pool.size(this.key.modulus()), 0);
+        Assert.assertEquals(this.pool.size(), 0);
+    }
+
+    @Test
+    public void testRemoveStopsRefill() throws Throwable
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        BlindingFactorSourceInterface generator = new BlindingFactorSourceInterface() {
+            public BlindingFactor next(BigInteger modulus, BigInteger publicExponent)
+            {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return BlindingFactorPoolTest.this.generator.next(modulus, publicExponent);
+            }
+        };
+        this.pool.shutdown();
+        this.executor = Executors.newSingleThreadExecutor();
+        this.pool = new BlindingFactorPool(8, generator, this.executor);
+        this.pool.prepare(this.key);
+        started.await();
+        this.pool.remove(this.key);
+        release.countDown();
+        this.executor.submit(new Runnable() { public void run() {} }).get();
+
+        Assert.assertEquals(calls.get(), 1);
+        Assert.assertEquals(this.pool.size(), 0);
+    }
+
+    @Test
+    public void testSizeUnknownKey()
+    {
+        Assert.assertEquals(this.pool.size(BigInteger.TEN), 0);
+    }
+
+    @Test
+    public void testShutdown() throws Throwable
+    {
+        this.pool.shutdown();
+
+        Assert.assertTrue(this.executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    protected void awaitFull() throws InterruptedException
+    {
+        for (int i = 0; i < 500 && this.pool.size(this.key.modulus()) < 8; ++i) {
+            Thread.sleep(10);
+        }
+    }
+
+    private PrivateKey key;
+    private BlindingFactorGenerator generator;
+    private ExecutorService executor;
+    private BlindingFactorPool pool;
+}
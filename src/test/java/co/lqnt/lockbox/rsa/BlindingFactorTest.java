@@ -0,0 +1,28 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import java.math.BigInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BlindingFactorTest
+{
+    @Test
+    public void testConstructor()
+    {
+        BigInteger blinding = BigInteger.valueOf(111);
+        BigInteger unblinding = BigInteger.valueOf(222);
+        BlindingFactor factor = new BlindingFactor(blinding, unblinding);
+
+        Assert.assertSame(factor.blinding(), blinding);
+        Assert.assertSame(factor.unblinding(), unblinding);
+    }
+}
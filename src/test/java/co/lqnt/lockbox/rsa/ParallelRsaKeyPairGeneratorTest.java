@@ -0,0 +1,248 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.rsa;
+
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ParallelRsaKeyPairGeneratorTest
+{
+    @BeforeMethod
+    public void setUp()
+    {
+        this.executor = Executors.newFixedThreadPool(4);
+        this.generator = new ParallelRsaKeyPairGenerator(4, 0, this.executor);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.generator.shutdown();
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        Assert.assertEquals(this.generator.parallelism(), 4);
+        Assert.assertEquals(this.generator.certainty(), 0);
+        Assert.assertSame(this.generator.executor(), this.executor);
+    }
+
+    @Test
+    public void testConstructorDefaults()
+    {
+        this.generator.shutdown();
+        this.generator = new ParallelRsaKeyPairGenerator();
+
+        Assert.assertEquals(this.generator.parallelism(), Runtime.getRuntime().availableProcessors());
+        Assert.assertEquals(this.generator.certainty(), 0);
+        Assert.assertNotNull(this.generator.executor());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureParallelism()
+    {
+        new ParallelRsaKeyPairGenerator(0, 0, this.executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorFailureCertainty()
+    {
+        new ParallelRsaKeyPairGenerator(1, -1, this.executor);
+    }
+
+    @Test
+    public void testGenerateKeyPair()
+    {
+        for (int strength : new int[] {512, 768, 1024, 1025}) {
+            this.generator.init(
+                new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), strength, 80)
+            );
+            this.assertValidKeyPair(this.generator.generateKeyPair(), strength);
+        }
+    }
+
+    @Test
+    public void testGenerateKeyPairSingleThread()
+    {
+        this.generator.shutdown();
+        this.executor = Executors.newSingleThreadExecutor();
+        this.generator = new ParallelRsaKeyPairGenerator(1, 20, this.executor);
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(3), new SecureRandom(), 768, 80));
+
+        this.assertValidKeyPair(this.generator.generateKeyPair(), 768);
+    }
+
+    @Test
+    public void testGenerateKeyPairUnique()
+    {
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), 512, 80));
+        AsymmetricCipherKeyPair first = this.generator.generateKeyPair();
+        AsymmetricCipherKeyPair second = this.generator.generateKeyPair();
+
+        Assert.assertFalse(
+            ((RSAKeyParameters) second.getPublic()).getModulus()
+                .equals(((RSAKeyParameters) first.getPublic()).getModulus())
+        );
+    }
+
+    @Test
+    public void testKeyFactory()
+    {
+        PrivateKey key = new KeyFactory(this.generator).generatePrivateKey(1024);
+
+        Assert.assertEquals(key.size(), 1024);
+        Assert.assertEquals(key.prime1().multiply(key.prime2()), key.modulus());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testGenerateKeyPairFailureNotInitialized()
+    {
+        this.generator.generateKeyPair();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testGenerateKeyPairFailureCandidate()
+    {
+        this.generator = Mockito.spy(this.generator);
+        Mockito.doThrow(new IllegalStateException()).when(this.generator).candidate(
+            Mockito.anyInt(),
+            Mockito.any(BigInteger.class),
+            Mockito.anyInt(),
+            Mockito.any(SecureRandom.class),
+            Mockito.any(BigInteger.class),
+            Mockito.anyInt()
+        );
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), 512, 80));
+
+        this.generator.generateKeyPair();
+    }
+
+    @Test
+    public void testGenerateKeyPairInterrupted()
+    {
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), 4096, 80));
+        Thread.currentThread().interrupt();
+
+        try {
+            this.generator.generateKeyPair();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(e.getMessage(), "Interrupted while generating a key pair.");
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    public void testGenerateKeyPairShutdown() throws Throwable
+    {
+        this.generator = Mockito.spy(this.generator);
+        Mockito.doAnswer(
+            new Answer<BigInteger>() {
+                public BigInteger answer(InvocationOnMock invocation)
+                {
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return null;
+                }
+            }
+        ).when(this.generator).candidate(
+            Mockito.anyInt(),
+            Mockito.any(BigInteger.class),
+            Mockito.anyInt(),
+            Mockito.any(SecureRandom.class),
+            Mockito.any(BigInteger.class),
+            Mockito.anyInt()
+        );
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), 512, 80));
+        Thread shutdown = new Thread() {
+            public void run()
+            {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                }
+                ParallelRsaKeyPairGeneratorTest.this.executor.shutdownNow();
+            }
+        };
+        shutdown.start();
+
+        try {
+            this.generator.generateKeyPair();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "Prime search abandoned.");
+        } finally {
+            shutdown.join();
+        }
+    }
+
+    @Test
+    public void testGenerateKeyPairFailureShutdown()
+    {
+        this.generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(65537), new SecureRandom(), 512, 80));
+        this.executor.shutdownNow();
+
+        try {
+            this.generator.generateKeyPair();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "Prime search abandoned.");
+        }
+    }
+
+    protected void assertValidKeyPair(AsymmetricCipherKeyPair keyPair, int strength)
+    {
+        RSAKeyParameters publicKey = (RSAKeyParameters) keyPair.getPublic();
+        RSAPrivateCrtKeyParameters privateKey = (RSAPrivateCrtKeyParameters) keyPair.getPrivate();
+        BigInteger p = privateKey.getP();
+        BigInteger q = privateKey.getQ();
+        BigInteger e = privateKey.getPublicExponent();
+        BigInteger phi = p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE));
+
+        Assert.assertEquals(publicKey.getModulus().bitLength(), strength);
+        Assert.assertEquals(publicKey.getModulus(), privateKey.getModulus());
+        Assert.assertEquals(publicKey.getExponent(), e);
+        Assert.assertEquals(p.multiply(q), privateKey.getModulus());
+        Assert.assertTrue(p.compareTo(q) > 0);
+        Assert.assertTrue(p.isProbablePrime(80));
+        Assert.assertTrue(q.isProbablePrime(80));
+        Assert.assertTrue(p.subtract(q).bitLength() >= strength / 3);
+        Assert.assertEquals(e.multiply(privateKey.getExponent()).mod(phi), BigInteger.ONE);
+        Assert.assertEquals(privateKey.getDP(), privateKey.getExponent().mod(p.subtract(BigInteger.ONE)));
+        Assert.assertEquals(privateKey.getDQ(), privateKey.getExponent().mod(q.subtract(BigInteger.ONE)));
+        Assert.assertEquals(privateKey.getQInv().multiply(q).mod(p), BigInteger.ONE);
+
+        BigInteger message = BigInteger.valueOf(123456789);
+        Assert.assertEquals(message.modPow(e, publicKey.getModulus()).modPow(privateKey.getExponent(), privateKey.getModulus()), message);
+    }
+
+    private ExecutorService executor;
+    private ParallelRsaKeyPairGenerator generator;
+}
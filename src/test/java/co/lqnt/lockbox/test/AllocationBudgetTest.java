@@ -0,0 +1,177 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.test;
+
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.PrivateKey;
+import java.util.Arrays;
+import java.util.Random;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Asserts the bytes allocated per encryption and decryption with a 2048-bit
+ * key, so that extra copies of the payload on the hot path fail the build.
+ *
+ * Budgets were recorded on JDK 8 (Temurin 8.0.392), and leave roughly 3%
+ * headroom over the measured allocation, which is less than one extra copy of
+ * the payload at the larger sizes. Other JDKs allocate differently, so
+ * re-record the budgets when the JDK used by the build changes. When a change
+ * legitimately reduces allocation, lower the budgets to match.
+ */
+public class AllocationBudgetTest
+{
+    @BeforeMethod
+    public void setUp() throws Throwable
+    {
+        this.key = new KeyFactory().createPrivateKey(this.getClass().getClassLoader().getResourceAsStream("pem/rsa-2048-nopass.private.pem"));
+        this.encryptionCipher = new EncryptionCipher();
+        this.decryptionCipher = new DecryptionCipher();
+    }
+
+    @DataProvider(name = "encryptBudgetData")
+    public Object[][] encryptBudgetData()
+    {
+        return new Object[][]{
+            {0, 13000L},
+            {1024, 37000L},
+            {65536, 1450000L},
+            {1048576, 23000000L},
+        };
+    }
+
+    @Test(dataProvider = "encryptBudgetData")
+    public void testEncryptBudget(int size, long budget) throws Throwable
+    {
+        final byte[] data = new byte[size];
+        new Random(0).nextBytes(data);
+
+        this.meter(size).assertWithinBudget(
+            String.format("Encrypting %d bytes", size),
+            budget,
+            new AllocationMeter.Task() {
+                public void run()
+                {
+                    AllocationBudgetTest.this.encryptionCipher.encrypt(AllocationBudgetTest.this.key, data);
+                }
+            }
+        );
+    }
+
+    @DataProvider(name = "decryptBudgetData")
+    public Object[][] decryptBudgetData()
+    {
+        return new Object[][]{
+            {0, 37000L},
+            {1024, 56000L},
+            {65536, 1270000L},
+            {1048576, 19800000L},
+        };
+    }
+
+    @Test(dataProvider = "decryptBudgetData")
+    public void testDecryptBudget(int size, long budget) throws Throwable
+    {
+        byte[] data = new byte[size];
+        new Random(0).nextBytes(data);
+        final byte[] encrypted = this.encryptionCipher.encrypt(this.key, data);
+
+        this.meter(size).assertWithinBudget(
+            String.format("Decrypting %d bytes", size),
+            budget,
+            new AllocationMeter.Task() {
+                public void run() throws Throwable
+                {
+                    AllocationBudgetTest.this.decryptionCipher.decrypt(AllocationBudgetTest.this.key, encrypted);
+                }
+            }
+        );
+    }
+
+    @DataProvider(name = "encryptStringBudgetData")
+    public Object[][] encryptStringBudgetData()
+    {
+        return new Object[][]{
+            {0, 14000L},
+            {1024, 42000L},
+            {65536, 1700000L},
+            {1048576, 27000000L},
+        };
+    }
+
+    @Test(dataProvider = "encryptStringBudgetData")
+    public void testEncryptStringBudget(int size, long budget) throws Throwable
+    {
+        final String data = this.string(size);
+
+        this.meter(size).assertWithinBudget(
+            String.format("Encrypting a %d character string", size),
+            budget,
+            new AllocationMeter.Task() {
+                public void run()
+                {
+                    AllocationBudgetTest.this.encryptionCipher.encrypt(AllocationBudgetTest.this.key, data);
+                }
+            }
+        );
+    }
+
+    @DataProvider(name = "decryptStringBudgetData")
+    public Object[][] decryptStringBudgetData()
+    {
+        return new Object[][]{
+            {0, 37000L},
+            {1024, 60000L},
+            {65536, 1500000L},
+            {1048576, 23400000L},
+        };
+    }
+
+    @Test(dataProvider = "decryptStringBudgetData")
+    public void testDecryptStringBudget(int size, long budget) throws Throwable
+    {
+        final String encrypted = this.encryptionCipher.encrypt(this.key, this.string(size));
+
+        this.meter(size).assertWithinBudget(
+            String.format("Decrypting a %d character string", size),
+            budget,
+            new AllocationMeter.Task() {
+                public void run() throws Throwable
+                {
+                    AllocationBudgetTest.this.decryptionCipher.decrypt(AllocationBudgetTest.this.key, encrypted);
+                }
+            }
+        );
+    }
+
+    protected AllocationMeter meter(int size)
+    {
+        if (size > 65536) {
+            return new AllocationMeter(20, 3, 3);
+        }
+
+        return new AllocationMeter(300, 5, 20);
+    }
+
+    protected String string(int size)
+    {
+        char[] characters = new char[size];
+        Arrays.fill(characters, 'a');
+
+        return new String(characters);
+    }
+
+    private PrivateKey key;
+    private EncryptionCipher encryptionCipher;
+    private DecryptionCipher decryptionCipher;
+}
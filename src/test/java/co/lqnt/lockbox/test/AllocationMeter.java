@@ -0,0 +1,199 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.test;
+
+import java.lang.management.ManagementFactory;
+import org.testng.Assert;
+import org.testng.SkipException;
+
+/**
+ * Measures the bytes allocated by the current thread while running a task.
+ *
+ * Tasks are warmed up before they are measured, so that class loading, lazy
+ * initialization and JIT compilation are not counted. Each measurement is
+ * the smallest of several rounds, which discards the occasional round that
+ * is disturbed by deoptimization.
+ */
+public class AllocationMeter
+{
+    /**
+     * A task to measure.
+     */
+    public interface Task
+    {
+        /**
+         * Run the task once.
+         *
+         * @throws Throwable If the task fails.
+         */
+        public void run() throws Throwable;
+    }
+
+    /**
+     * Construct a new allocation meter.
+     *
+     * @throws SkipException If the JVM cannot measure thread allocation.
+     */
+    public AllocationMeter()
+    {
+        this(10000, 5, 200);
+    }
+
+    /**
+     * Construct a new allocation meter.
+     *
+     * @param warmupIterations The number of times to run a task before
+     *                         measuring it.
+     * @param rounds           The number of rounds to measure.
+     * @param iterations       The number of times to run a task per round.
+     *
+     * @throws SkipException If the JVM cannot measure thread allocation.
+     */
+    public AllocationMeter(
+        final int warmupIterations,
+        final int rounds,
+        final int iterations
+    ) {
+        java.lang.management.ThreadMXBean threadMxBean =
+            ManagementFactory.getThreadMXBean();
+        if (
+            !(threadMxBean instanceof com.sun.management.ThreadMXBean)
+        ) {
+            throw new SkipException(
+                "Thread allocation measurement is not available."
+            );
+        }
+
+        this.threadMxBean = (com.sun.management.ThreadMXBean) threadMxBean;
+        if (!this.threadMxBean.isThreadAllocatedMemorySupported()) {
+            throw new SkipException(
+                "Thread allocation measurement is not supported."
+            );
+        }
+        if (!this.threadMxBean.isThreadAllocatedMemoryEnabled()) {
+            this.threadMxBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        this.warmupIterations = warmupIterations;
+        this.rounds = rounds;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Get the number of times a task is run before it is measured.
+     *
+     * @return The number of warmup iterations.
+     */
+    public int warmupIterations()
+    {
+        return this.warmupIterations;
+    }
+
+    /**
+     * Get the number of rounds measured.
+     *
+     * @return The number of rounds.
+     */
+    public int rounds()
+    {
+        return this.rounds;
+    }
+
+    /**
+     * Get the number of times a task is run per round.
+     *
+     * @return The number of iterations.
+     */
+    public int iterations()
+    {
+        return this.iterations;
+    }
+
+    /**
+     * Measure the bytes allocated by a task.
+     *
+     * @param task The task to measure.
+     *
+     * @return The bytes allocated per run of the task.
+     * @throws Throwable If the task fails.
+     */
+    public long measure(final Task task) throws Throwable
+    {
+        for (int i = 0; i < this.warmupIterations(); ++i) {
+            task.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long overhead = this.overhead(threadId);
+        long minimum = Long.MAX_VALUE;
+        for (int round = 0; round < this.rounds(); ++round) {
+            long start = this.threadMxBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < this.iterations(); ++i) {
+                task.run();
+            }
+            long allocated =
+                this.threadMxBean.getThreadAllocatedBytes(threadId) - start;
+
+            minimum = Math.min(minimum, allocated - overhead);
+        }
+
+        return Math.max(0L, minimum / this.iterations());
+    }
+
+    /**
+     * Assert that a task allocates no more than a budget.
+     *
+     * @param description A description of the task, used in failure messages.
+     * @param budget      The maximum bytes allocated per run of the task.
+     * @param task        The task to measure.
+     *
+     * @return The bytes allocated per run of the task.
+     * @throws Throwable If the task fails.
+     */
+    public long assertWithinBudget(
+        final String description,
+        final long budget,
+        final Task task
+    )
+        throws Throwable
+    {
+        long allocated = this.measure(task);
+        Assert.assertTrue(
+            allocated <= budget,
+            String.format(
+                "%s allocated %d bytes per call, over its budget of %d bytes.",
+                description,
+                allocated,
+                budget
+            )
+        );
+
+        return allocated;
+    }
+
+    /**
+     * Get the bytes allocated by reading the allocation counter itself.
+     *
+     * @param threadId The current thread's identifier.
+     *
+     * @return The overhead in bytes.
+     */
+    protected long overhead(final long threadId)
+    {
+        long start = this.threadMxBean.getThreadAllocatedBytes(threadId);
+
+        return this.threadMxBean.getThreadAllocatedBytes(threadId) - start;
+    }
+
+    private com.sun.management.ThreadMXBean threadMxBean;
+    private int warmupIterations;
+    private int rounds;
+    private int iterations;
+}
@@ -0,0 +1,317 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.test;
+
+import co.lqnt.lockbox.Cipher;
+import co.lqnt.lockbox.DecryptionCipher;
+import co.lqnt.lockbox.EncryptionCipher;
+import co.lqnt.lockbox.key.CachingKeyFactory;
+import co.lqnt.lockbox.key.KeyFactory;
+import co.lqnt.lockbox.key.Keyring;
+import co.lqnt.lockbox.key.PrivateKey;
+import co.lqnt.lockbox.key.PrivateKeyInterface;
+import co.lqnt.lockbox.metrics.InMemoryMetricsListener;
+import co.lqnt.lockbox.rsa.BlindingFactorPool;
+import co.lqnt.lockbox.util.SecureRandom;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Hammers shared objects from many threads at once, and checks for corrupted
+ * results, crossed ciphertexts and lost updates.
+ */
+public class ConcurrencyStressTest
+{
+    @BeforeMethod
+    public void setUp() throws Throwable
+    {
+        this.executor = Executors.newFixedThreadPool(ConcurrencyStressTest.THREADS);
+        this.key = new KeyFactory().createPrivateKey(this.resource("pem/rsa-2048-nopass.private.pem"));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testSecureRandomLazyInitialization() throws Throwable
+    {
+        for (int round = 0; round < 200; ++round) {
+            final SecureRandom random = new SecureRandom();
+            final java.security.SecureRandom[] instances = new java.security.SecureRandom[ConcurrencyStressTest.THREADS];
+
+            this.hammer(new Task() {
+                public void run(int thread) throws Throwable
+                {
+                    instances[thread] = random.jceSecureRandom();
+                    Assert.assertEquals(random.generate(16).length, 16);
+                }
+            });
+
+            for (java.security.SecureRandom instance : instances) {
+                Assert.assertSame(instance, instances[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testKeyFactoryGeneratePrivateKey() throws Throwable
+    {
+        final KeyFactory keyFactory = new KeyFactory();
+        final PrivateKey[] keys = new PrivateKey[ConcurrencyStressTest.THREADS];
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                keys[thread] = keyFactory.generatePrivateKey(1024);
+            }
+        });
+
+        Set<BigInteger> moduli = new HashSet<BigInteger>();
+        Cipher cipher = new Cipher();
+        for (PrivateKey key : keys) {
+            Assert.assertEquals(key.size(), 1024);
+            Assert.assertEquals(key.prime1().multiply(key.prime2()), key.modulus());
+            Assert.assertEquals(cipher.decrypt(key, cipher.encrypt(key, "foobar")), "foobar");
+            moduli.add(key.modulus());
+        }
+        Assert.assertEquals(moduli.size(), keys.length);
+    }
+
+    @Test
+    public void testThreadConfinedCiphers() throws Throwable
+    {
+        final ConcurrentMap<String, String> encrypted = new ConcurrentHashMap<String, String>();
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                Cipher cipher = new Cipher();
+                for (int i = 0; i < ConcurrencyStressTest.ITERATIONS; ++i) {
+                    String data = String.format("thread %d, iteration %d", thread, i);
+                    String ciphertext = cipher.encrypt(ConcurrencyStressTest.this.key, data);
+
+                    Assert.assertEquals(cipher.decrypt(ConcurrencyStressTest.this.key, ciphertext), data);
+                    Assert.assertNull(encrypted.put(ciphertext, data));
+                }
+            }
+        });
+
+        Cipher cipher = new Cipher();
+        Assert.assertEquals(encrypted.size(), ConcurrencyStressTest.THREADS * ConcurrencyStressTest.ITERATIONS);
+        for (String ciphertext : encrypted.keySet()) {
+            Assert.assertEquals(cipher.decrypt(this.key, ciphertext), encrypted.get(ciphertext));
+        }
+    }
+
+    @Test
+    public void testSharedBlindingFactorPool() throws Throwable
+    {
+        final BlindingFactorPool pool = new BlindingFactorPool(16);
+        final String ciphertext = new EncryptionCipher().encrypt(this.key, "foobar");
+
+        try {
+            this.hammer(new Task() {
+                public void run(int thread) throws Throwable
+                {
+                    DecryptionCipher cipher = new DecryptionCipher(pool);
+                    for (int i = 0; i < ConcurrencyStressTest.ITERATIONS; ++i) {
+                        Assert.assertEquals(cipher.decrypt(ConcurrencyStressTest.this.key, ciphertext), "foobar");
+                    }
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        Assert.assertEquals(pool.hits() + pool.misses(), (long) ConcurrencyStressTest.THREADS * ConcurrencyStressTest.ITERATIONS);
+    }
+
+    @Test
+    public void testSharedKeyEncodings() throws Throwable
+    {
+        final PrivateKey key = new KeyFactory().createPrivateKey(this.resource("pem/rsa-2048-nopass.private.pem"));
+        final String expectedPem = this.key.toPem();
+        final byte[] expectedFingerprint = this.key.fingerprint();
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                Assert.assertEquals(key.toPem(), expectedPem);
+                Assert.assertEquals(key.fingerprint(), expectedFingerprint);
+                Assert.assertEquals(key.keyId(), Arrays.copyOfRange(expectedFingerprint, 0, 8));
+                Assert.assertEquals(key.publicKey().toPem(), ConcurrencyStressTest.this.key.publicKey().toPem());
+            }
+        });
+    }
+
+    @Test
+    public void testCachingKeyFactory() throws Throwable
+    {
+        final CachingKeyFactory keyFactory = new CachingKeyFactory(new KeyFactory(), 2);
+        final String[] pems = new String[] {
+            this.key.toPem(),
+            new KeyFactory().createPrivateKey(this.resource("pem/rsa-4096-nopass.private.pem")).toPem(),
+            new KeyFactory().createPrivateKey(this.resource("pem/rsa-2048-pkcs8-nopass.private.pem")).toPem()
+        };
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                for (int i = 0; i < ConcurrencyStressTest.ITERATIONS; ++i) {
+                    String pem = pems[(thread + i) % pems.length];
+
+                    Assert.assertEquals(keyFactory.createPrivateKey(pem).toPem(), pem);
+                }
+            }
+        });
+
+        Assert.assertEquals(keyFactory.hits() + keyFactory.misses(), (long) ConcurrencyStressTest.THREADS * ConcurrencyStressTest.ITERATIONS);
+        Assert.assertTrue(keyFactory.size() <= 2);
+    }
+
+    @Test
+    public void testKeyring() throws Throwable
+    {
+        final Keyring keyring = new Keyring();
+        final KeyFactory keyFactory = new KeyFactory();
+        final List<PrivateKey> keys = new ArrayList<PrivateKey>();
+        for (int i = 0; i < ConcurrencyStressTest.THREADS; ++i) {
+            keys.add(keyFactory.generatePrivateKey(512));
+        }
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                PrivateKey key = keys.get(thread);
+                for (int i = 0; i < ConcurrencyStressTest.ITERATIONS; ++i) {
+                    keyring.add(key);
+                    PrivateKeyInterface found = keyring.privateKey(key.keyId());
+
+                    Assert.assertNotNull(found);
+                    Assert.assertEquals(found.modulus(), key.modulus());
+
+                    keyring.remove(key);
+                }
+                keyring.add(key);
+            }
+        });
+
+        for (PrivateKey key : keys) {
+            Assert.assertEquals(keyring.privateKey(key.keyId()).modulus(), key.modulus());
+        }
+    }
+
+    @Test
+    public void testMetricsListener() throws Throwable
+    {
+        final InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+
+        this.hammer(new Task() {
+            public void run(int thread) throws Throwable
+            {
+                for (int i = 0; i < 10000; ++i) {
+                    metricsListener.encrypted(ConcurrencyStressTest.this.key, 10, 20, 1000L);
+                    metricsListener.decrypted(ConcurrencyStressTest.this.key, 20, 10, 2000L);
+                }
+            }
+        });
+
+        long expected = ConcurrencyStressTest.THREADS * 10000L;
+        Assert.assertEquals(metricsListener.encryptions(), expected);
+        Assert.assertEquals(metricsListener.decryptions(), expected);
+        Assert.assertEquals(metricsListener.plaintextBytes(), expected * 20);
+        Assert.assertEquals(metricsListener.ciphertextBytes(), expected * 40);
+        Assert.assertEquals(metricsListener.encryptionLatency().count(), expected);
+        Assert.assertEquals(metricsListener.decryptionLatency().total(), expected * 2000L);
+        Assert.assertEquals(metricsListener.keySizes().get(2048), Long.valueOf(expected * 2));
+    }
+
+    protected void hammer(final Task task) throws Throwable
+    {
+        final CountDownLatch ready = new CountDownLatch(ConcurrencyStressTest.THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < ConcurrencyStressTest.THREADS; ++i) {
+            final int thread = i;
+            futures.add(
+                this.executor.submit(
+                    new Callable<Void>() {
+                        public Void call() throws Exception
+                        {
+                            ready.countDown();
+                            start.await();
+                            try {
+                                task.run(thread);
+                            } catch (Exception e) {
+                                throw e;
+                            } catch (Throwable e) {
+                                throw new Exception(e);
+                            }
+
+                            return null;
+                        }
+                    }
+                )
+            );
+        }
+
+        ready.await();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause.getClass() == Exception.class && null != cause.getCause()) {
+                    cause = cause.getCause();
+                }
+
+                throw cause;
+            }
+        }
+    }
+
+    protected InputStream resource(String path)
+    {
+        return this.getClass().getClassLoader().getResourceAsStream(path);
+    }
+
+    protected interface Task
+    {
+        public void run(int thread) throws Throwable;
+    }
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    private ExecutorService executor;
+    private PrivateKey key;
+}
@@ -0,0 +1,36 @@
+/*
+ * This file is part of the Lockbox package.
+ *
+ * Copyright © 2013 Erin Millard
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package co.lqnt.lockbox.util;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ProviderRegistryTest
+{
+    @Test
+    public void testBouncyCastleProvider()
+    {
+        BouncyCastleProvider provider = ProviderRegistry.bouncyCastleProvider();
+
+        Assert.assertNotNull(provider);
+        Assert.assertSame(ProviderRegistry.bouncyCastleProvider(), provider);
+    }
+
+    @Test
+    public void testKeyConverter()
+    {
+        JcaPEMKeyConverter keyConverter = ProviderRegistry.keyConverter();
+
+        Assert.assertNotNull(keyConverter);
+        Assert.assertNotSame(ProviderRegistry.keyConverter(), keyConverter);
+    }
+}